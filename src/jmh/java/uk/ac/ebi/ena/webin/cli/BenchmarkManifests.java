@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import uk.ac.ebi.ena.webin.cli.manifest.ManifestReader;
+import uk.ac.ebi.ena.webin.cli.manifest.processor.MetadataProcessorFactory;
+
+/**
+ * Writes valid manifests and the small data files they refer to for the benchmarks. The manifests
+ * are read without metadata processors so that no study or sample lookups are made.
+ */
+public class BenchmarkManifests {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private BenchmarkManifests() {}
+
+  public static Path createTempDir(String prefix) {
+    try {
+      return Files.createTempDirectory(prefix);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /** Writes a key-value manifest with a single submission. */
+  public static File writeKeyValueManifest(WebinCliContext context, Path inputDir) {
+    StringBuilder manifest = new StringBuilder();
+    fields(context, inputDir, 0)
+        .forEach((name, value) -> manifest.append(name).append('\t').append(value).append('\n'));
+    return write(inputDir.resolve("manifest.txt"), manifest.toString());
+  }
+
+  /** Writes a JSON manifest with the given number of submissions (field groups). */
+  public static File writeJsonManifest(WebinCliContext context, Path inputDir, int fieldGroups) {
+    ArrayNode manifest = OBJECT_MAPPER.createArrayNode();
+    for (int i = 0; i < fieldGroups; i++) {
+      fields(context, inputDir, i).forEach(manifest.addObject()::put);
+    }
+    try {
+      return write(inputDir.resolve("manifest.json"), OBJECT_MAPPER.writeValueAsString(manifest));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /** Creates a manifest reader that does not use the metadata services. */
+  public static ManifestReader<?> createManifestReader(WebinCliContext context) {
+    try {
+      return (ManifestReader<?>)
+          context
+              .getManifestReaderClass()
+              .getDeclaredConstructor(WebinCliParameters.class, MetadataProcessorFactory.class)
+              .newInstance(new WebinCliParameters(), new MetadataProcessorFactory(null));
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Reads the manifest and fails if it is not valid so that the benchmarks never measure the error
+   * path by accident.
+   */
+  public static ManifestReader<?> readManifest(
+      WebinCliContext context, Path inputDir, File manifestFile) {
+    ManifestReader<?> reader = createManifestReader(context);
+    reader.readManifest(inputDir, manifestFile);
+    if (!reader.getValidationResult().isValid()) {
+      throw new IllegalStateException(
+          "Invalid " + context + " benchmark manifest: " + manifestFile);
+    }
+    return reader;
+  }
+
+  private static Map<String, String> fields(WebinCliContext context, Path inputDir, int index) {
+    Map<String, String> fields = new LinkedHashMap<>();
+    fields.put("NAME", "benchmark-" + index);
+    fields.put("STUDY", "ERP000001");
+    switch (context) {
+      case genome:
+        fields.put("SAMPLE", "ERS000001");
+        fields.put("ASSEMBLY_TYPE", "clone or isolate");
+        fields.put("COVERAGE", "45");
+        fields.put("PROGRAM", "assembler");
+        fields.put("PLATFORM", "ILLUMINA");
+        fields.put("FASTA", dataFile(inputDir, "genome.fasta.gz", ">1\nACGTACGTAC\n"));
+        break;
+      case transcriptome:
+        fields.put("SAMPLE", "ERS000001");
+        fields.put("PROGRAM", "assembler");
+        fields.put("PLATFORM", "ILLUMINA");
+        fields.put("FASTA", dataFile(inputDir, "transcriptome.fasta.gz", ">1\nACGTACGTAC\n"));
+        break;
+      case sequence:
+        fields.put("TAB", dataFile(inputDir, "sequence.tsv.gz", "Sequence\nACGTACGTAC\n"));
+        break;
+      case polysample:
+        fields.put("FASTA", dataFile(inputDir, "polysample.fasta.gz", ">1\nACGTACGTAC\n"));
+        fields.put("SAMPLE_TSV", dataFile(inputDir, "samples.tsv.gz", "1\tERS000001\t1\n"));
+        fields.put("TAX_TSV", dataFile(inputDir, "taxonomy.tsv.gz", "1\t9606\t1\n"));
+        break;
+      case reads:
+        fields.put("SAMPLE", "ERS000001");
+        fields.put("INSTRUMENT", "Illumina HiSeq 2000");
+        fields.put("LIBRARY_STRATEGY", "WGS");
+        fields.put("LIBRARY_SOURCE", "GENOMIC");
+        fields.put("LIBRARY_SELECTION", "RANDOM");
+        fields.put(
+            "FASTQ", dataFile(inputDir, "reads.fastq.gz", "@1\nACGTACGTAC\n+\n##########\n"));
+        break;
+      case taxrefset:
+        fields.put("DESCRIPTION", "benchmark");
+        fields.put("TAXONOMY_SYSTEM", "NCBI");
+        fields.put("FASTA", dataFile(inputDir, "taxrefset.fasta.gz", ">1\nACGTACGTAC\n"));
+        fields.put("TAB", dataFile(inputDir, "taxrefset.tsv.gz", "1\t9606\n"));
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported context: " + context);
+    }
+    return fields;
+  }
+
+  /** @return The name of the gzipped data file created in the input directory if missing. */
+  private static String dataFile(Path inputDir, String fileName, String content) {
+    Path file = inputDir.resolve(fileName);
+    if (!Files.exists(file)) {
+      try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+    return fileName;
+  }
+
+  private static File write(Path file, String content) {
+    try {
+      return Files.write(file, content.getBytes(StandardCharsets.UTF_8)).toFile();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.manifest;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures controlled vocabulary lookups against the largest vocabulary used by the manifest
+ * readers. The searched key is written differently from the vocabulary key to exercise the
+ * normalisation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ManifestCVListBenchmark {
+
+  @Param({"hit", "miss"})
+  public String lookup;
+
+  private ManifestCVList cvList;
+  private String key;
+
+  @Setup
+  public void setup() {
+    cvList = new ManifestCVList(new File("uk/ac/ebi/ena/webin/cli/reads/instrument.properties"));
+    List<String> keys = cvList.keyList();
+    key =
+        lookup.equals("hit")
+            ? keys.get(keys.size() / 2).toUpperCase().replace(' ', '_')
+            : "unknown instrument";
+  }
+
+  @Benchmark
+  public boolean contains() {
+    return cvList.contains(key);
+  }
+
+  @Benchmark
+  public String getKey() {
+    return cvList.getKey(key);
+  }
+
+  @Benchmark
+  public String getValue() {
+    return cvList.getValue(key);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.manifest;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.ac.ebi.ena.webin.cli.BenchmarkManifests;
+import uk.ac.ebi.ena.webin.cli.WebinCliContext;
+
+/**
+ * Measures the field accessors of a field group read from a manifest. The accessors are called
+ * many times per field group while the manifest objects are created.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ManifestFieldGroupBenchmark {
+
+  @Param({"reads", "genome"})
+  public WebinCliContext context;
+
+  /** The first field in the group, the last field in the group or a field not in the group. */
+  @Param({"NAME", "LAST", "MISSING"})
+  public String field;
+
+  private ManifestFieldGroup fieldGroup;
+  private String fieldName;
+
+  @Setup
+  public void setup() {
+    Path inputDir = BenchmarkManifests.createTempDir("manifest-field-group-benchmark-");
+    ManifestReader<?> reader =
+        BenchmarkManifests.readManifest(
+            context, inputDir, BenchmarkManifests.writeKeyValueManifest(context, inputDir));
+    fieldGroup = reader.getManifestReaderResult().getManifestFieldGroups().iterator().next();
+    switch (field) {
+      case "LAST":
+        fieldName = fieldGroup.get(fieldGroup.size() - 1).getName();
+        break;
+      case "MISSING":
+        fieldName = "DESCRIPTION";
+        break;
+      default:
+        fieldName = field;
+    }
+  }
+
+  @Benchmark
+  public ManifestFieldValue getField() {
+    return fieldGroup.getField(fieldName);
+  }
+
+  @Benchmark
+  public String getValue() {
+    return fieldGroup.getValue(fieldName);
+  }
+
+  @Benchmark
+  public Collection<String> getValues() {
+    return fieldGroup.getValues(fieldName);
+  }
+
+  @Benchmark
+  public int getCount() {
+    return fieldGroup.getCount(fieldName);
+  }
+
+  @Benchmark
+  public Map<String, String> getNonEmptyValues() {
+    return fieldGroup.getNonEmptyValues(fieldName, "STUDY", "SAMPLE");
+  }
+}
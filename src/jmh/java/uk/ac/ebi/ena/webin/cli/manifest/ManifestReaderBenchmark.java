@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.manifest;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.ac.ebi.ena.webin.cli.BenchmarkManifests;
+import uk.ac.ebi.ena.webin.cli.WebinCliContext;
+
+/** Measures reading key-value and JSON manifests into manifest objects. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ManifestReaderBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class KeyValueManifest {
+    @Param({"genome", "transcriptome", "sequence", "polysample", "reads", "taxrefset"})
+    public WebinCliContext context;
+
+    Path inputDir;
+    File manifestFile;
+
+    @Setup
+    public void setup() {
+      inputDir = BenchmarkManifests.createTempDir("manifest-reader-benchmark-");
+      manifestFile = BenchmarkManifests.writeKeyValueManifest(context, inputDir);
+      // Fail before measuring if the manifest is not valid.
+      BenchmarkManifests.readManifest(context, inputDir, manifestFile);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class JsonManifest {
+    @Param({"1", "10", "100", "1000"})
+    public int fieldGroups;
+
+    @Param({"reads", "genome"})
+    public WebinCliContext context;
+
+    Path inputDir;
+    File manifestFile;
+
+    @Setup
+    public void setup() {
+      inputDir = BenchmarkManifests.createTempDir("manifest-reader-benchmark-");
+      manifestFile = BenchmarkManifests.writeJsonManifest(context, inputDir, fieldGroups);
+      BenchmarkManifests.readManifest(context, inputDir, manifestFile);
+    }
+  }
+
+  @Benchmark
+  public ManifestReader<?> readKeyValueManifest(KeyValueManifest state) {
+    ManifestReader<?> reader = BenchmarkManifests.createManifestReader(state.context);
+    reader.readManifest(state.inputDir, state.manifestFile);
+    return reader;
+  }
+
+  @Benchmark
+  public ManifestReader<?> readJsonManifest(JsonManifest state) {
+    ManifestReader<?> reader = BenchmarkManifests.createManifestReader(state.context);
+    reader.readManifest(state.inputDir, state.manifestFile);
+    return reader;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.ac.ebi.ena.webin.cli.BenchmarkManifests;
+import uk.ac.ebi.ena.webin.cli.utils.FileUtils;
+
+/**
+ * Measures writing a submission bundle and reading it back with each verification level of the
+ * upload files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SubmissionBundleHelperBenchmark {
+
+  private static final String MANIFEST_FIELDS_MD5 = "d41d8cd98f00b204e9800998ecf8427e";
+
+  @Param({"1", "100"})
+  public int uploadFileCount;
+
+  /** The upload file size in megabytes. */
+  @Param({"4"})
+  public int uploadFileSize;
+
+  @Param({"STAT", "SAMPLED", "FULL"})
+  public SubmissionBundleVerificationLevel verificationLevel;
+
+  private SubmissionBundle submissionBundle;
+  private File submitDir;
+
+  @Setup
+  public void setup() throws IOException {
+    File inputDir = BenchmarkManifests.createTempDir("submission-bundle-benchmark-").toFile();
+    submitDir = BenchmarkManifests.createTempDir("submission-bundle-benchmark-submit-").toFile();
+
+    byte[] block = new byte[1024 * 1024];
+    Random random = new Random(1);
+    List<SubmissionBundle.SubmissionUploadFile> uploadFiles = new ArrayList<>();
+    for (int i = 0; i < uploadFileCount; i++) {
+      File file = new File(inputDir, "reads-" + i + ".fastq.gz");
+      try (OutputStream out = Files.newOutputStream(file.toPath())) {
+        for (int j = 0; j < uploadFileSize; j++) {
+          random.nextBytes(block);
+          out.write(block);
+        }
+      }
+      uploadFiles.add(
+          new SubmissionBundle.SubmissionUploadFile(
+              file,
+              file.length(),
+              FileUtils.getLastModifiedTime(file),
+              FileUtils.calculateDigest("MD5", file),
+              SubmissionBundleHelper.calculateSampledMd5(file)));
+    }
+
+    List<SubmissionBundle.SubmissionXMLFile> xmlFiles = new ArrayList<>();
+    xmlFiles.add(
+        new SubmissionBundle.SubmissionXMLFile(
+            SubmissionBundle.SubmissionXMLFileType.SUBMISSION,
+            new File(submitDir, "submission.xml"),
+            "<SUBMISSION_SET><SUBMISSION/></SUBMISSION_SET>"));
+    xmlFiles.add(
+        new SubmissionBundle.SubmissionXMLFile(
+            SubmissionBundle.SubmissionXMLFileType.RUN,
+            new File(submitDir, "run.xml"),
+            "<RUN_SET><RUN/></RUN_SET>"));
+
+    submissionBundle =
+        new SubmissionBundle(
+            submitDir, "webin-cli/reads/benchmark", uploadFiles, xmlFiles, MANIFEST_FIELDS_MD5);
+    SubmissionBundleHelper.write(submissionBundle, submitDir);
+
+    if (SubmissionBundleHelper.read(MANIFEST_FIELDS_MD5, submitDir, verificationLevel) == null) {
+      throw new IllegalStateException("Invalid benchmark submission bundle: " + submitDir);
+    }
+  }
+
+  @Benchmark
+  public void write() {
+    SubmissionBundleHelper.write(submissionBundle, submitDir);
+  }
+
+  @Benchmark
+  public SubmissionBundle read() {
+    return SubmissionBundleHelper.read(MANIFEST_FIELDS_MD5, submitDir, verificationLevel);
+  }
+}
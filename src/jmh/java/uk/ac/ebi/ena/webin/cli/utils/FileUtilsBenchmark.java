@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the MD5 checksum of a data file using a 1MB buffer, using the 4KB buffer of the input
+ * stream variant, and using sampled blocks. The file is read from the page cache after the first
+ * invocation so the results show the digest cost rather than the disk throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileUtilsBenchmark {
+
+  private static final int SAMPLED_DIGEST_BLOCK_SIZE = 1024 * 1024;
+
+  /** The file size in megabytes. */
+  @Param({"1", "16", "128"})
+  public int fileSize;
+
+  private File file;
+
+  @Setup
+  public void setup() throws IOException {
+    file = File.createTempFile("file-utils-benchmark-", ".fastq.gz");
+    byte[] block = new byte[1024 * 1024];
+    Random random = new Random(1);
+    try (OutputStream out = Files.newOutputStream(file.toPath())) {
+      for (int i = 0; i < fileSize; i++) {
+        random.nextBytes(block);
+        out.write(block);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Benchmark
+  public String calculateDigest() {
+    return FileUtils.calculateDigest("MD5", file);
+  }
+
+  @Benchmark
+  public String calculateDigestFromStream() throws IOException {
+    return FileUtils.calculateDigest("MD5", new FileInputStream(file));
+  }
+
+  @Benchmark
+  public String calculateSampledDigest() {
+    return FileUtils.calculateSampledDigest("MD5", file, SAMPLED_DIGEST_BLOCK_SIZE);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.xml;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.ac.ebi.ena.webin.cli.BenchmarkManifests;
+import uk.ac.ebi.ena.webin.cli.WebinCliContext;
+import uk.ac.ebi.ena.webin.cli.WebinCliParameters;
+import uk.ac.ebi.ena.webin.cli.manifest.ManifestReader;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.Manifest;
+import uk.ac.ebi.ena.webin.cli.validator.reference.Sample;
+import uk.ac.ebi.ena.webin.cli.validator.reference.Study;
+import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+
+/**
+ * Measures creating the submission XMLs of each context both in memory using JDOM and streamed
+ * into files using StAX.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XmlWriterBenchmark {
+
+  @Param({"genome", "transcriptome", "sequence", "polysample", "reads", "taxrefset"})
+  public WebinCliContext context;
+
+  private XmlWriter xmlWriter;
+  private Manifest manifest;
+  private ValidationResponse response;
+  private Path inputDir;
+  private Path uploadDir;
+  private Path xmlDir;
+
+  @Setup
+  public void setup() {
+    inputDir = BenchmarkManifests.createTempDir("xml-writer-benchmark-");
+    xmlDir = BenchmarkManifests.createTempDir("xml-writer-benchmark-xml-");
+    uploadDir = Paths.get("webin-cli", context.name(), "benchmark");
+
+    ManifestReader<?> reader =
+        BenchmarkManifests.readManifest(
+            context, inputDir, BenchmarkManifests.writeKeyValueManifest(context, inputDir));
+    xmlWriter = context.createExecutor(new WebinCliParameters(), reader).getXmlWriter();
+
+    manifest = reader.getManifests().iterator().next();
+    Study study = new Study();
+    study.setStudyId("ERP000001");
+    study.setBioProjectId("PRJEB00001");
+    manifest.setStudy(study);
+    Sample sample = new Sample();
+    sample.setBioSampleId("SAMEA0000001");
+    sample.setOrganism("Quercus robur");
+    manifest.setSample(sample);
+    // The MD5 checksums are calculated before the XMLs are written.
+    manifest.files().get().forEach(file -> file.setMd5("d41d8cd98f00b204e9800998ecf8427e"));
+
+    response =
+        context == WebinCliContext.reads ? new ReadsValidationResponse() : new ValidationResponse();
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public Map<SubmissionBundle.SubmissionXMLFileType, String> createXml() {
+    return xmlWriter.createXml(
+        manifest, response, "benchmark", "Benchmark", "benchmark", inputDir, uploadDir);
+  }
+
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public List<SubmissionBundle.SubmissionXMLFile> writeXmlFiles() {
+    XmlFileOutput xmlOutput = new XmlFileOutput(xmlDir);
+    xmlWriter.writeXml(
+        manifest, response, "benchmark", "Benchmark", "benchmark", inputDir, uploadDir, xmlOutput);
+    return xmlOutput.getXmlFiles();
+  }
+}
@@ -18,7 +18,7 @@ import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.Context;
 import ch.qos.logback.core.FileAppender;
 import ch.qos.logback.core.util.Duration;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ch.qos.logback.core.util.FileSize;
 import de.vandermeer.asciitable.AT_Renderer;
 import de.vandermeer.asciitable.AsciiTable;
 import de.vandermeer.asciitable.CWC_FixedWidth;
@@ -32,16 +32,23 @@ import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 import org.apache.commons.lang3.StringUtils;
 import org.fusesource.jansi.AnsiConsole;
 import org.slf4j.Logger;
@@ -57,12 +64,22 @@ import uk.ac.ebi.ena.webin.cli.manifest.ManifestFileGroup;
 import uk.ac.ebi.ena.webin.cli.manifest.ManifestReader;
 import uk.ac.ebi.ena.webin.cli.manifest.ManifestReaderBuilder;
 import uk.ac.ebi.ena.webin.cli.manifest.processor.CVFieldProcessor;
+import uk.ac.ebi.ena.webin.cli.report.AsyncReportAppender;
 import uk.ac.ebi.ena.webin.cli.service.LoginService;
 import uk.ac.ebi.ena.webin.cli.service.SubmitService;
 import uk.ac.ebi.ena.webin.cli.service.VersionService;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetrics;
+import uk.ac.ebi.ena.webin.cli.service.utils.RequestHedger;
 import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionJournal;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionLedger;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionStage;
+import uk.ac.ebi.ena.webin.cli.trace.Span;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
 import uk.ac.ebi.ena.webin.cli.upload.ASCPService;
 import uk.ac.ebi.ena.webin.cli.upload.FtpService;
+import uk.ac.ebi.ena.webin.cli.upload.SpeculativeUploader;
+import uk.ac.ebi.ena.webin.cli.upload.UploadMetrics;
 import uk.ac.ebi.ena.webin.cli.upload.UploadService;
 import uk.ac.ebi.ena.webin.cli.utils.FileUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RemoteServiceUrlHelper;
@@ -74,6 +91,10 @@ public class WebinCli {
   public static final int VALIDATION_ERROR = 3;
 
   private static final String LOG_FILE_NAME = "webin-cli.report";
+  private static final long REPORT_BUFFER_SIZE = 256 * 1024;
+  private static final String HTTP_METRICS_FILE_NAME = "webin-cli.http-metrics.json";
+  private static final String TRACE_FILE_NAME = "webin-cli.trace.json";
+  private static final String JFR_FILE_NAME = "webin-cli.jfr";
   private static final Logger log = LoggerFactory.getLogger(WebinCli.class);
   private static final String SIFTING_APPENDER_NAME = "DEFAULT_SIFTING_APPENDER";
   private static final String SIFTING_APPENDER_DISCRIMINATOR_KEY = "uniqueKey";
@@ -86,6 +107,9 @@ public class WebinCli {
   private final WebinCliParameters parameters;
   private final WebinCliExecutor<?, ?> executor;
 
+  /** Uploads the files while the submissions are validated if speculative upload is enabled. */
+  private SpeculativeUploader speculativeUploader;
+
   public static void main(String... args) {
     System.exit(__main(args));
   }
@@ -177,10 +201,25 @@ public class WebinCli {
     parameters.setValidate(cmd.validate);
     parameters.setValidateFiles(cmd.validateFiles);
     parameters.setQuick(cmd.quick);
+    parameters.setXmlStreaming(cmd.xmlStreaming);
     parameters.setSubmit(cmd.submit);
     parameters.setTest(cmd.test);
     parameters.setAscp(cmd.ascp);
     parameters.setSampleUpdate(cmd.isSampleUpdate);
+    parameters.setSubmitBatchSize(cmd.submitBatchSize);
+    parameters.setSubmissionBundleLog(cmd.bundleLog);
+    parameters.setSubmissionBundleVerificationLevel(cmd.bundleVerification);
+    parameters.setSpeculativeUpload(cmd.speculativeUpload);
+    parameters.setAscpRate(cmd.ascpRate);
+    parameters.setAscpSessions(cmd.ascpSessions);
+    parameters.setJfr(cmd.jfr);
+    parameters.setReportDetail(cmd.reportDetail);
+    parameters.setMaxErrors(cmd.maxErrors);
+    parameters.setMaxBatchErrors(cmd.maxBatchErrors);
+    parameters.setContinueOnError(cmd.continueOnError);
+    parameters.setHedgePercentile(cmd.hedgePercentile);
+    parameters.setHedgeBudget(cmd.hedgeBudget);
+    parameters.setSampleBatchSize(cmd.sampleBatchSize);
     return parameters;
   }
 
@@ -238,17 +277,26 @@ public class WebinCli {
     encoder.setPattern("%d{\"yyyy-MM-dd'T'HH:mm:ss\"} %-5level: %msg%n");
     encoder.start();
 
+    // The report is flushed by the asynchronous appender after every batch of messages.
     FileAppender fileAppender = new FileAppender<>();
     fileAppender.setContext(context);
     fileAppender.setEncoder(encoder);
     fileAppender.setFile(filePath);
     fileAppender.setAppend(false);
-    fileAppender.setName(discriminator);
+    fileAppender.setImmediateFlush(false);
+    fileAppender.setBufferSize(new FileSize(REPORT_BUFFER_SIZE));
+    fileAppender.setName(discriminator + "-file");
     fileAppender.start();
 
+    AsyncReportAppender reportAppender = new AsyncReportAppender();
+    reportAppender.setContext(context);
+    reportAppender.setName(discriminator);
+    reportAppender.addAppender(fileAppender);
+    reportAppender.start();
+
     log.info("Creating report file: " + filePath);
 
-    return fileAppender;
+    return reportAppender;
   }
 
   private void cleanupFileAppender() {
@@ -273,25 +321,48 @@ public class WebinCli {
             .getAppenderTracker()
             .getOrCreate(fileAppenderName, System.currentTimeMillis());
 
-    if (appender != null && appender instanceof FileAppender) {
+    // Stopping the asynchronous appender writes the remaining messages into the report file.
+    if (appender != null && appender instanceof AsyncReportAppender) {
       appender.stop();
     }
   }
 
   public void execute() throws WebinCliException, Throwable {
+    RequestHedger.REFERENCE.configure(parameters.getHedgePercentile(), parameters.getHedgeBudget());
+    Recording recording = parameters.isJfr() ? startRecording() : null;
+    Trace trace = Trace.start("run");
+    trace
+        .getRoot()
+        .setAttribute("context", parameters.getContext())
+        .setAttribute("manifestFile", parameters.getManifestFile())
+        .setAttribute("validate", parameters.isValidate())
+        .setAttribute("submit", parameters.isSubmit())
+        .setAttribute("test", parameters.isTest());
     try {
-      executor.readManifest();
+      Trace.run("readManifest", span -> executor.readManifest());
+
+      if (parameters.isSubmit() && parameters.isSpeculativeUpload()) {
+        speculativeUploader =
+            new SpeculativeUploader(
+                this::createUploadService,
+                parameters.getFileUploadServiceUserName(),
+                parameters.getPassword());
+        executor.setSpeculativeUploader(speculativeUploader);
+      }
 
       if (parameters.isValidate() || executor.getSubmissionBundles() == null) {
-        validate(ManifestValidationPolicy.VALIDATE_ALL_MANIFESTS);
+        Trace.run("validate", span -> validate(ManifestValidationPolicy.VALIDATE_ALL_MANIFESTS));
       } else if (executor.isManifestFileUpdated()) {
-        validate(ManifestValidationPolicy.VALIDATE_UPDATED_MANIFESTS);
+        Trace.run(
+            "validate", span -> validate(ManifestValidationPolicy.VALIDATE_UPDATED_MANIFESTS));
       }
 
       if (parameters.isSubmit()) {
-        submit();
+        Trace.run("submit", span -> submit());
       }
 
+      trace.getRoot().success();
+
       // It is important that following catch blocks log errors so they get written to the report
       // file.
       // It is becuase the underlying appender that writes to the report file will be removed when
@@ -300,18 +371,96 @@ public class WebinCli {
       // file.
     } catch (WebinCliException ex) {
       log.error(ex.getMessage(), ex);
+      trace.getRoot().fail(ex);
       throw ex;
     } catch (Exception ex) {
       log.error(ex.getMessage(), ex);
+      trace.getRoot().fail(ex);
       throw WebinCliException.systemError(ex);
     } catch (Throwable ex) {
       log.error(ex.getMessage(), ex);
+      trace.getRoot().fail(ex);
       throw ex;
     } finally {
+      if (speculativeUploader != null) {
+        speculativeUploader.close();
+      }
+      writeTrace(trace);
+      reportHttpMetrics();
+      if (recording != null) {
+        stopRecording(recording);
+      }
       cleanupFileAppender();
     }
   }
 
+  /**
+   * Starts a flight recording into the output directory using the JDK's profiling settings. The
+   * recording includes the Webin-CLI events as they are enabled by default.
+   *
+   * @return The recording or null if it could not be started.
+   */
+  private Recording startRecording() {
+    Path file = new File(parameters.getOutputDir(), JFR_FILE_NAME).toPath();
+    try {
+      Recording recording = new Recording(Configuration.getConfiguration("profile"));
+      recording.setName("webin-cli");
+      recording.setDestination(file);
+      recording.start();
+      log.info(WebinCliMessage.CLI_JFR_RECORDING.format(file));
+      return recording;
+    } catch (IOException | ParseException | RuntimeException ex) {
+      log.warn(WebinCliMessage.CLI_JFR_RECORDING_ERROR.format(ex.getMessage()));
+      return null;
+    }
+  }
+
+  /** Stops the recording and writes it into its destination. */
+  private void stopRecording(Recording recording) {
+    try {
+      recording.stop();
+    } catch (RuntimeException ex) {
+      log.warn(WebinCliMessage.CLI_JFR_RECORDING_ERROR.format(ex.getMessage()));
+    } finally {
+      recording.close();
+    }
+  }
+
+  /** Writes the timings of the phases of the run into a JSON file in the output directory. */
+  private void writeTrace(Trace trace) {
+    trace.end();
+    try {
+      trace.writeJson(new File(parameters.getOutputDir(), TRACE_FILE_NAME).toPath());
+    } catch (IOException ex) {
+      log.warn("Failed to write trace file: " + ex.getMessage());
+    }
+  }
+
+  /**
+   * Writes a summary of the requests sent to the Webin services into the report file and the full
+   * metrics into a JSON file in the output directory.
+   */
+  private void reportHttpMetrics() {
+    HttpMetrics httpMetrics = HttpMetrics.getInstance();
+    httpMetrics
+        .getEndpoints()
+        .forEach(
+            (endpoint, metrics) ->
+                log.info(WebinCliMessage.HTTP_METRICS.format(endpoint, metrics.getSummary())));
+    httpMetrics.getHedgers().stream()
+        .filter(hedger -> hedger.getRequestCount() > 0)
+        .forEach(
+            hedger ->
+                log.info(
+                    WebinCliMessage.HTTP_HEDGING_METRICS.format(
+                        hedger.getName(), hedger.getSummary())));
+    try {
+      httpMetrics.writeJson(new File(parameters.getOutputDir(), HTTP_METRICS_FILE_NAME).toPath());
+    } catch (IOException ex) {
+      log.warn("Failed to write HTTP metrics file: " + ex.getMessage());
+    }
+  }
+
   private void validate(ManifestValidationPolicy validationPolicy) {
     try {
       executor.validateSubmission(validationPolicy);
@@ -344,72 +493,88 @@ public class WebinCli {
   }
 
   private void submit() throws WebinCliException {
-    Collection<SubmissionBundle> bundlesToSubmit =
-        getUnsubmittedSubmissionBundles(executor.getSubmissionBundles());
-    List<SubmissionBundle> submittedBundles = new ArrayList<>(bundlesToSubmit.size());
+    try (SubmissionLedger submissionLedger =
+            new SubmissionLedger(parameters.getOutputDir().toPath());
+        SubmissionJournal submissionJournal =
+            new SubmissionJournal(parameters.getOutputDir().toPath())) {
+      submit(submissionLedger, submissionJournal);
+    }
+  }
 
-    boolean submissionFailureOccurred = false;
-    for (SubmissionBundle bundle : bundlesToSubmit) {
-      try {
-        UploadService fileUploadService = new FtpService();
-        if (parameters.isAscp()) {
-          if (new ASCPService().isAvailable()) {
-            fileUploadService = new ASCPService();
-          } else {
-            log.warn("Aspera not available. Files will be uploaded via FTP.");
+  private void submit(SubmissionLedger submissionLedger, SubmissionJournal submissionJournal)
+      throws WebinCliException {
+    Iterator<SubmissionBundle> bundlesToSubmit =
+        getUnsubmittedSubmissionBundles(executor.getSubmissionBundles(), submissionLedger)
+            .iterator();
+    List<SubmissionBundle> submittedBundles = new ArrayList<>();
+
+    // Bundles whose files have been uploaded and that are waiting to be submitted in a batch.
+    List<SubmissionBundle> uploadedBundles = new ArrayList<>();
+    int batchSize = Math.max(1, parameters.getSubmitBatchSize());
+
+    // Names of the submissions that failed and the number of submissions attempted.
+    List<String> failedSubmissions = new ArrayList<>();
+    int submissionCount = 0;
+    while (bundlesToSubmit.hasNext()) {
+      SubmissionBundle bundle = bundlesToSubmit.next();
+      submissionCount++;
+      try (Span span = Trace.startSpan("bundle")) {
+        span.setAttribute("submitDir", bundle.getSubmitDir());
+        try {
+          if (Trace.call(
+              "resume", s -> resumeSubmission(bundle, submissionLedger, submissionJournal))) {
+            submittedBundles.add(bundle);
+            span.success();
+            continue;
           }
-        }
 
-        try {
-          fileUploadService.connect(
-              parameters.getFileUploadServiceUserName(), parameters.getPassword());
-          fileUploadService.upload(
-              bundle.getUploadFileList().stream()
-                  .map(submissionUploadFile -> submissionUploadFile.getFile())
-                  .collect(Collectors.toList()),
-              bundle.getUploadDir(),
-              executor.getParameters().getInputDir().toPath());
-          log.info(WebinCliMessage.CLI_UPLOAD_SUCCESS.text());
-
-        } catch (WebinCliException e) {
-          throw WebinCliException.error(
-              e, WebinCliMessage.CLI_UPLOAD_ERROR.format(e.getErrorType().text));
-        } finally {
-          fileUploadService.disconnect();
-        }
+          Trace.run("upload", s -> uploadFiles(bundle, submissionJournal));
 
-        checkUploadedFilesModified(bundle.getUploadFileList());
+          checkUploadedFilesModified(bundle.getUploadFileList());
 
-        try {
-          SubmitService submitService =
-              new SubmitService.Builder()
-                  .setSubmitDir(bundle.getSubmitDir().getPath())
-                  .setSaveSubmissionXmlFiles(getParameters().isSaveSubmissionXmlFiles())
-                  .setWebinRestV2Uri(RemoteServiceUrlHelper.getWebinRestV2Url(parameters.isTest()))
-                  .setUserName(parameters.getWebinServiceUserName())
-                  .setPassword(parameters.getPassword())
-                  .build();
-
-          submitService.doSubmission(bundle.getXmlFileList());
-
-          submittedBundles.add(bundle);
-        } catch (WebinCliException e) {
-          throw WebinCliException.error(
-              e, WebinCliMessage.CLI_SUBMIT_ERROR.format(e.getErrorType().text));
+          if (batchSize > 1) {
+            uploadedBundles.add(bundle);
+          } else {
+            Trace.run("submit", s -> submitBundle(bundle, submissionLedger, submissionJournal));
+
+            submittedBundles.add(bundle);
+          }
+          span.success();
+        } catch (Exception ex) {
+          failedSubmissions.add(getSubmissionName(bundle));
+          span.fail(ex);
+
+          // As the submission process carries on even in the case of errors, it is necessary to
+          // log the errors here
+          // since there is no other way to report them anywhere else.
+          log.error(ex.getMessage(), ex);
         }
-      } catch (Exception ex) {
-        submissionFailureOccurred = true;
+      }
+    }
+
+    for (int i = 0; i < uploadedBundles.size(); i += batchSize) {
+      List<SubmissionBundle> batch =
+          uploadedBundles.subList(i, Math.min(i + batchSize, uploadedBundles.size()));
 
-        // As the submission process carries on even in the case of errors, it is necessary to log
-        // the errors here
-        // since there is no other way to report them anywhere else.
+      int batchNumber = i / batchSize + 1;
+      try {
+        List<SubmissionBundle> submittedBatchBundles =
+            Trace.call(
+                "submitBatch",
+                span -> {
+                  span.setAttribute("batchNumber", batchNumber)
+                      .setAttribute("bundles", batch.size());
+                  return submitBatch(
+                      batch, batchNumber, submissionLedger, submissionJournal, failedSubmissions);
+                });
+        submittedBundles.addAll(submittedBatchBundles);
+      } catch (Exception ex) {
+        batch.forEach(bundle -> failedSubmissions.add(getSubmissionName(bundle)));
         log.error(ex.getMessage(), ex);
       }
     }
 
-    if (!submittedBundles.isEmpty()) {
-      saveSubmittedSubmissionBundles(submittedBundles);
-    } else if (!submissionFailureOccurred) {
+    if (submittedBundles.isEmpty() && failedSubmissions.isEmpty()) {
       log.info("Nothing to submit. Submission(s) may have already been sent.");
     }
 
@@ -417,9 +582,244 @@ public class WebinCli {
       log.info("This was a TEST submission(s).");
     }
 
-    if (submissionFailureOccurred) {
-      throw WebinCliException.systemError(WebinCliMessage.CLI_MULTI_SUBMIT_ERROR.format());
+    if (!failedSubmissions.isEmpty()) {
+      throw WebinCliException.systemError(
+          WebinCliMessage.CLI_SUBMIT_FAILED_SUBMISSIONS.format(
+              String.valueOf(failedSubmissions.size()),
+              String.valueOf(submissionCount),
+              String.join(", ", failedSubmissions)));
+    }
+  }
+
+  /** @return The name of the submission the bundle was created for. */
+  private static String getSubmissionName(SubmissionBundle bundle) {
+    // The submit directory is <output dir>/<context>/<submission name>/submit.
+    File submissionDir = bundle.getSubmitDir().getAbsoluteFile().getParentFile();
+    return submissionDir == null ? bundle.getSubmitDir().getPath() : submissionDir.getName();
+  }
+
+  /**
+   * Completes the submission of a bundle whose submission was interrupted after its submission XML
+   * had been sent. The submission journal is updated for bundles whose submission has not been
+   * started yet.
+   *
+   * @return True if the submission of the bundle has been completed.
+   */
+  private boolean resumeSubmission(
+      SubmissionBundle bundle,
+      SubmissionLedger submissionLedger,
+      SubmissionJournal submissionJournal) {
+    String manifestFieldsMd5 = bundle.getManifestFieldsMd5();
+    SubmissionStage stage = submissionJournal.getStage(manifestFieldsMd5);
+    if (stage == null) {
+      submissionJournal.validated(manifestFieldsMd5);
+      return false;
+    }
+
+    log.info(WebinCliMessage.SUBMISSION_JOURNAL_RESUME.format(stage));
+
+    Map<SubmissionBundle.SubmissionXMLFileType, String> accessions = null;
+    if (stage == SubmissionStage.ACCESSION_RECEIVED) {
+      accessions = submissionJournal.getAccessions(manifestFieldsMd5);
+    } else if (stage == SubmissionStage.XML_SUBMITTED) {
+      // The receipt is in the directory recorded in the journal, which is the batch submit
+      // directory for bundles submitted in a batch.
+      File submitDir = submissionJournal.getSubmitDir(manifestFieldsMd5);
+      try {
+        accessions =
+            createSubmitService(submitDir != null ? submitDir : bundle.getSubmitDir())
+                .recoverSubmission(bundle.getXmlFileList());
+      } finally {
+        bundle.releaseXmlContents();
+      }
+
+      if (accessions == null) {
+        log.warn(WebinCliMessage.SUBMISSION_JOURNAL_UNKNOWN_RECEIPT.text());
+        return false;
+      }
+
+      log.info(WebinCliMessage.SUBMISSION_JOURNAL_RECOVERED_RECEIPT.text());
+      submissionJournal.accessionReceived(manifestFieldsMd5, accessions);
+    }
+
+    if (accessions == null) {
+      return false;
     }
+
+    submissionLedger.record(manifestFieldsMd5, accessions);
+    return true;
+  }
+
+  /** Uploads the files of the bundle that have not been recorded as uploaded in the journal. */
+  private void uploadFiles(SubmissionBundle bundle, SubmissionJournal submissionJournal)
+      throws WebinCliException {
+    String manifestFieldsMd5 = bundle.getManifestFieldsMd5();
+
+    Map<File, SubmissionBundle.SubmissionUploadFile> uploadFiles = new LinkedHashMap<>();
+    bundle
+        .getUploadFileList()
+        .forEach(uploadFile -> uploadFiles.put(uploadFile.getFile(), uploadFile));
+
+    // Files uploaded while the submission was validated are not uploaded again.
+    if (speculativeUploader != null) {
+      for (File file : speculativeUploader.awaitUpload(bundle.getUploadDir())) {
+        if (uploadFiles.containsKey(file)) {
+          submissionJournal.fileUploaded(manifestFieldsMd5, uploadFiles.get(file));
+        }
+      }
+    }
+
+    List<File> uploadedFiles = new ArrayList<>();
+    for (SubmissionBundle.SubmissionUploadFile uploadFile : bundle.getUploadFileList()) {
+      if (submissionJournal.isUploaded(manifestFieldsMd5, uploadFile)) {
+        uploadedFiles.add(uploadFile.getFile());
+      }
+    }
+
+    UploadService fileUploadService = createUploadService();
+    UploadMetrics uploadMetrics = new UploadMetrics();
+    fileUploadService.setUploadListener(uploadMetrics);
+
+    try {
+      fileUploadService.connect(parameters.getFileUploadServiceUserName(), parameters.getPassword());
+      fileUploadService.resumeUpload(
+          new ArrayList<>(uploadFiles.keySet()),
+          uploadedFiles,
+          bundle.getUploadDir(),
+          executor.getParameters().getInputDir().toPath(),
+          file -> submissionJournal.fileUploaded(manifestFieldsMd5, uploadFiles.get(file)));
+      log.info(WebinCliMessage.CLI_UPLOAD_SUCCESS.text());
+
+    } catch (WebinCliException e) {
+      throw WebinCliException.error(
+          e, WebinCliMessage.CLI_UPLOAD_ERROR.format(e.getErrorType().text));
+    } finally {
+      fileUploadService.disconnect();
+
+      Trace.getCurrentSpan().addBytes(uploadMetrics.getReport().getBytes());
+
+      if (!uploadMetrics.getReport().getFiles().isEmpty()) {
+        log.info(WebinCliMessage.UPLOAD_METRICS.format(uploadMetrics.toJson()));
+      }
+    }
+  }
+
+  private void submitBundle(
+      SubmissionBundle bundle,
+      SubmissionLedger submissionLedger,
+      SubmissionJournal submissionJournal)
+      throws WebinCliException {
+    try {
+      submissionJournal.xmlSubmitted(bundle.getManifestFieldsMd5(), bundle.getSubmitDir());
+
+      Map<SubmissionBundle.SubmissionXMLFileType, String> accessions =
+          createSubmitService(bundle.getSubmitDir()).doSubmission(bundle.getXmlFileList());
+
+      submissionJournal.accessionReceived(bundle.getManifestFieldsMd5(), accessions);
+      submissionLedger.record(bundle.getManifestFieldsMd5(), accessions);
+    } catch (WebinCliException e) {
+      throw WebinCliException.error(
+          e, WebinCliMessage.CLI_SUBMIT_ERROR.format(e.getErrorType().text));
+    } finally {
+      bundle.releaseXmlContents();
+    }
+  }
+
+  /**
+   * Submits the given bundles in a single request. If the receipt says that the request failed then
+   * the bundles are submitted one by one so that a single failing bundle does not prevent the
+   * others from being submitted. Other failures are thrown as the bundles may have been submitted
+   * and their submission is resumed from the submission journal instead.
+   *
+   * @param failedSubmissions The names of the bundles that failed to be submitted one by one are
+   *     added to this list once their errors have been logged.
+   * @return The bundles that were submitted successfully.
+   */
+  private List<SubmissionBundle> submitBatch(
+      List<SubmissionBundle> batch,
+      int batchNumber,
+      SubmissionLedger submissionLedger,
+      SubmissionJournal submissionJournal,
+      List<String> failedSubmissions) {
+    List<SubmissionBundle> submittedBundles = new ArrayList<>(batch.size());
+
+    if (batch.size() > 1) {
+      File batchSubmitDir =
+          createOutputDir(
+              parameters.getOutputDir(),
+              WebinCliConfig.BATCH_SUBMIT_DIR,
+              String.valueOf(parameters.getContext()),
+              String.valueOf(batchNumber));
+      FileUtils.emptyDirectory(batchSubmitDir);
+
+      // The bundles are resumed from the batch receipt if the submission is interrupted.
+      batch.forEach(
+          bundle -> submissionJournal.xmlSubmitted(bundle.getManifestFieldsMd5(), batchSubmitDir));
+
+      List<Map<SubmissionBundle.SubmissionXMLFileType, String>> accessions;
+      try {
+        accessions =
+            createSubmitService(batchSubmitDir)
+                .doBatchSubmission(
+                    batch.stream()
+                        .map(SubmissionBundle::getXmlFileList)
+                        .collect(Collectors.toList()));
+      } finally {
+        batch.forEach(SubmissionBundle::releaseXmlContents);
+      }
+
+      if (accessions == null) {
+        log.warn(WebinCliMessage.CLI_BATCH_SUBMIT_FALLBACK.format(batch.size()));
+      } else {
+        if (accessions.size() != batch.size()) {
+          throw WebinCliException.systemError(
+              WebinCliMessage.CLI_BATCH_SUBMIT_RECEIPT_ERROR.format(
+                  accessions.size(), batch.size()));
+        }
+        for (int i = 0; i < batch.size(); i++) {
+          String manifestFieldsMd5 = batch.get(i).getManifestFieldsMd5();
+          submissionJournal.accessionReceived(manifestFieldsMd5, accessions.get(i));
+          submissionLedger.record(manifestFieldsMd5, accessions.get(i));
+        }
+
+        submittedBundles.addAll(batch);
+        return submittedBundles;
+      }
+    }
+
+    for (SubmissionBundle bundle : batch) {
+      try {
+        Trace.run("submit", span -> submitBundle(bundle, submissionLedger, submissionJournal));
+
+        submittedBundles.add(bundle);
+      } catch (Exception ex) {
+        log.error(ex.getMessage(), ex);
+        failedSubmissions.add(getSubmissionName(bundle));
+      }
+    }
+
+    return submittedBundles;
+  }
+
+  private UploadService createUploadService() {
+    if (parameters.isAscp()) {
+      if (new ASCPService().isAvailable()) {
+        return new ASCPService(parameters.getAscpRate(), parameters.getAscpSessions());
+      } else {
+        log.warn("Aspera not available. Files will be uploaded via FTP.");
+      }
+    }
+    return new FtpService();
+  }
+
+  private SubmitService createSubmitService(File submitDir) {
+    return new SubmitService.Builder()
+        .setSubmitDir(submitDir.getPath())
+        .setSaveSubmissionXmlFiles(getParameters().isSaveSubmissionXmlFiles())
+        .setWebinRestV2Uri(RemoteServiceUrlHelper.getWebinRestV2Url(parameters.isTest()))
+        .setUserName(parameters.getWebinServiceUserName())
+        .setPassword(parameters.getPassword())
+        .build();
   }
 
   private static WebinCliCommand parseCmd(String... args) {
@@ -844,62 +1244,25 @@ public class WebinCli {
    * Checks which of the given submission bundles were submitted previously and only returns those
    * that were not.
    */
-  private Collection<SubmissionBundle> getUnsubmittedSubmissionBundles(
-      Collection<SubmissionBundle> submissionBundles) {
-    List<String> checksumsToExclude = loadSubmittedSubmissionBundlesChecksums();
-    if (checksumsToExclude == null || checksumsToExclude.isEmpty()) {
-      return submissionBundles;
+  private Stream<SubmissionBundle> getUnsubmittedSubmissionBundles(
+      Collection<SubmissionBundle> submissionBundles, SubmissionLedger submissionLedger) {
+    if (submissionBundles == null) {
+      return Stream.empty();
     }
-
     return submissionBundles.stream()
-        .filter(sb -> !checksumsToExclude.contains(sb.getManifestFieldsMd5()))
-        .collect(Collectors.toList());
-  }
-
-  private void saveSubmittedSubmissionBundles(
-      Collection<SubmissionBundle> submittedSubmissionBundles) {
-    List<String> submittedChecksums =
-        submittedSubmissionBundles.stream()
-            .map(sb -> sb.getManifestFieldsMd5())
-            .collect(Collectors.toList());
-
-    List<String> checksumsToSave = loadSubmittedSubmissionBundlesChecksums();
-    if (checksumsToSave == null) {
-      checksumsToSave = submittedChecksums;
-    } else {
-      // Add new checksums into the list of previously saved checksums.
-      checksumsToSave.addAll(submittedChecksums);
-    }
-
-    saveSubmittedSubmissionBundlesChecksums(checksumsToSave);
-  }
-
-  private List<String> loadSubmittedSubmissionBundlesChecksums() {
-    Path filePath =
-        parameters.getOutputDir().toPath().resolve(WebinCliConfig.SUBMISSION_STATUS_FILE_NAME);
-    if (!filePath.toFile().exists()) {
-      return null;
-    }
-
-    try {
-      ObjectMapper objectMapper = new ObjectMapper();
-
-      return objectMapper.readValue(filePath.toFile(), List.class);
-    } catch (IOException e) {
-      return null;
-    }
-  }
-
-  private void saveSubmittedSubmissionBundlesChecksums(
-      List<String> submittedSubmissionBundlesChecksums) {
-    Path filePath =
-        parameters.getOutputDir().toPath().resolve(WebinCliConfig.SUBMISSION_STATUS_FILE_NAME);
-
-    try {
-      ObjectMapper objectMapper = new ObjectMapper();
-      objectMapper.writeValue(filePath.toFile(), submittedSubmissionBundlesChecksums);
-    } catch (IOException e) {
-    }
+        .filter(
+            sb -> {
+              SubmissionLedger.Entry entry = submissionLedger.get(sb.getManifestFieldsMd5());
+              if (entry == null) {
+                return true;
+              }
+              if (!entry.getAccessions().isEmpty()) {
+                log.info(
+                    WebinCliMessage.SUBMISSION_LEDGER_ALREADY_SUBMITTED.format(
+                        entry.getSubmissionTime(), entry.getAccessions().values()));
+              }
+              return false;
+            });
   }
 
   private void checkUploadedFilesModified(
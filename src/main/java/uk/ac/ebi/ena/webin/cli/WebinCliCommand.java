@@ -13,6 +13,9 @@ package uk.ac.ebi.ena.webin.cli;
 import java.io.File;
 import picocli.CommandLine;
 import picocli.CommandLine.Option;
+import uk.ac.ebi.ena.webin.cli.service.utils.RequestHedger;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundleVerificationLevel;
+import uk.ac.ebi.ena.webin.cli.upload.ASCPService;
 
 @CommandLine.Command(
     headerHeading = "%n",
@@ -125,6 +128,15 @@ public class WebinCliCommand {
       hidden = true)
   public boolean quick = true;
 
+  /** Hidden option to fall back to creating the submission xmls in memory. */
+  @Option(
+      names = Options.noXmlStreaming,
+      description = Descriptions.xmlStreaming,
+      order = 9,
+      negatable = true,
+      hidden = true)
+  public boolean xmlStreaming = true;
+
   @Option(names = Options.submit, description = Descriptions.submit, order = 10)
   public boolean submit;
 
@@ -134,6 +146,81 @@ public class WebinCliCommand {
   @Option(names = Options.ascp, description = Descriptions.ascp, order = 12)
   public boolean ascp;
 
+  @Option(
+      names = Options.submitBatchSize,
+      description = Descriptions.submitBatchSize,
+      paramLabel = "N",
+      order = 13)
+  public int submitBatchSize = 1;
+
+  @Option(names = Options.bundleLog, description = Descriptions.bundleLog, order = 14)
+  public boolean bundleLog;
+
+  @Option(
+      names = Options.bundleVerification,
+      description = Descriptions.bundleVerification,
+      paramLabel = "LEVEL",
+      order = 15)
+  public SubmissionBundleVerificationLevel bundleVerification =
+      SubmissionBundleVerificationLevel.FULL;
+
+  @Option(
+      names = Options.speculativeUpload,
+      description = Descriptions.speculativeUpload,
+      order = 16)
+  public boolean speculativeUpload;
+
+  @Option(
+      names = Options.ascpRate,
+      description = Descriptions.ascpRate,
+      paramLabel = "MBPS",
+      order = 17)
+  public int ascpRate = ASCPService.DEFAULT_TARGET_RATE_MBPS;
+
+  @Option(
+      names = Options.ascpSessions,
+      description = Descriptions.ascpSessions,
+      paramLabel = "N",
+      order = 18)
+  public int ascpSessions = 1;
+
+  @Option(names = Options.jfr, description = Descriptions.jfr, order = 19)
+  public boolean jfr;
+
+  @Option(names = Options.reportDetail, description = Descriptions.reportDetail, order = 20)
+  public boolean reportDetail;
+
+  @Option(
+      names = Options.maxErrors,
+      description = Descriptions.maxErrors,
+      paramLabel = "N",
+      order = 21)
+  public int maxErrors;
+
+  @Option(
+      names = Options.maxBatchErrors,
+      description = Descriptions.maxBatchErrors,
+      paramLabel = "N",
+      order = 22)
+  public int maxBatchErrors;
+
+  @Option(names = Options.continueOnError, description = Descriptions.continueOnError, order = 23)
+  public boolean continueOnError;
+
+  @Option(
+      names = Options.hedgePercentile,
+      description = Descriptions.hedgePercentile,
+      paramLabel = "PERCENTILE",
+      order = 24)
+  public int hedgePercentile = RequestHedger.DEFAULT_PERCENTILE;
+
+  @Option(
+      names = Options.hedgeBudget,
+      description = Descriptions.hedgeBudget,
+      paramLabel = "FRACTION",
+      order = 25)
+  public double hedgeBudget = RequestHedger.DEFAULT_BUDGET;
+
   @Option(names = Options.help, description = Descriptions.help, usageHelp = true, order = 100)
   public boolean help;
 
@@ -154,6 +241,13 @@ public class WebinCliCommand {
       order = 102)
   public boolean isSampleUpdate;
 
+  @Option(
+      names = Options.sampleBatchSize,
+      description = Descriptions.sampleBatchSize,
+      paramLabel = "N",
+      order = 103)
+  public int sampleBatchSize = 1;
+
   public interface Options {
     String context = "-context";
     String manifest = "-manifest";
@@ -168,8 +262,22 @@ public class WebinCliCommand {
     String validate = "-validate";
     String validateFiles = "-validateFiles";
     String noQuick = "--no-quick";
+    String noXmlStreaming = "--no-xml-streaming";
     String test = "-test";
     String ascp = "-ascp";
+    String submitBatchSize = "-submitBatchSize";
+    String bundleLog = "-bundleLog";
+    String bundleVerification = "-bundleVerification";
+    String speculativeUpload = "-speculativeUpload";
+    String ascpRate = "-ascpRate";
+    String ascpSessions = "-ascpSessions";
+    String jfr = "-jfr";
+    String reportDetail = "-reportDetail";
+    String maxErrors = "-maxErrors";
+    String maxBatchErrors = "-maxBatchErrors";
+    String continueOnError = "-continueOnError";
+    String hedgePercentile = "-hedgePercentile";
+    String hedgeBudget = "-hedgeBudget";
     String help = "-help";
     String fields = "-fields";
     String version = "-version";
@@ -178,6 +286,7 @@ public class WebinCliCommand {
     String outputDirSynonym = "-outputdir";
     String inputDirSynonym = "-inputdir";
     String sampleUpdate = "-sampleUpdate";
+    String sampleBatchSize = "-sampleBatchSize";
   }
 
   public interface Descriptions {
@@ -205,13 +314,65 @@ public class WebinCliCommand {
         "By default, validate submitted BAM & CRAM read files within a fixed time period (5 minutes) "
             + "and the first 100k reads from Fastq files. All CRAM reference sequence md5 checksums are always validated. "
             + "Files may only be partially validated and may fail post-submission processing.";
+    String xmlStreaming =
+        "By default, submission xmls are streamed directly into their files. "
+            + "When disabled, the xmls are created in memory before they are written.";
     String test = "Use the test submission service.";
     String ascp =
         "Use Aspera (if Aspera Cli is available) instead of FTP when uploading files. "
             + "The path to the installed \"ascp\" program must be in the PATH variable.";
+    String submitBatchSize =
+        "Maximum number of submissions from the manifest file that are sent to the server in a "
+            + "single request. By default every submission is sent separately.";
+    String bundleLog =
+        "Store the validated submissions in a single log file in the <context> output directory "
+            + "instead of one file per submission. Recommended for large numbers of submissions.";
+    String bundleVerification =
+        "How thoroughly the files of previously validated submissions are verified before they "
+            + "are submitted: ${COMPLETION-CANDIDATES}. STAT compares file sizes and modification "
+            + "times, SAMPLED also compares checksums of sampled file blocks and FULL (default) "
+            + "also compares full file checksums.";
+    String speculativeUpload =
+        "Upload files while the submissions are being validated when submitting. The uploaded "
+            + "files of submissions that fail validation are deleted.";
+    String ascpRate =
+        "Aspera target rate in megabits per second shared by all the Aspera sessions "
+            + "(default ${DEFAULT-VALUE}). The rate of a session is halved every time it is "
+            + "retried.";
+    String ascpSessions =
+        "Maximum number of concurrent Aspera sessions the files of a submission are split into. "
+            + "By default all the files are uploaded in one session.";
+    String jfr =
+        "Record the run with Java Flight Recorder into the output directory. The recording "
+            + "includes events for the phases of the run, file digests, uploads and submissions.";
+    String reportDetail =
+        "Write the complete validation reports into gzip compressed files. By default the "
+            + "validation reports only contain the first of many similar messages and are "
+            + "limited in size.";
+    String maxErrors =
+        "Stop validating a submission once its validation reports contain more than the given "
+            + "number of errors. By default the validation of a submission is never stopped.";
+    String maxBatchErrors =
+        "Stop validating once the validation reports of all the submissions in the manifest file "
+            + "contain more than the given number of errors. By default the validation is "
+            + "never stopped.";
+    String continueOnError =
+        "Continue validating the other submissions in the manifest file after a submission has "
+            + "failed validation. By default the validation stops after the first failed "
+            + "submission.";
+    String hedgePercentile =
+        "Send a duplicate of a study, run or analysis lookup that has not completed within the "
+            + "given percentile of the recent lookup latencies, and use whichever response arrives "
+            + "first. By default lookups are not duplicated.";
+    String hedgeBudget =
+        "Maximum fraction of the lookups that may be duplicated when -hedgePercentile is given "
+            + "(default ${DEFAULT-VALUE}).";
     String help = "Show this help message and exit.";
     String fields = "Show manifest fields for all contexts or for the given -context.";
     String version = "Print version information and exit.";
     String sampleUpdate = "Update the submitted sample if it already exists.";
+    String sampleBatchSize =
+        "Maximum number of samples defined in the manifest file that are registered in a single "
+            + "request. By default every sample is registered separately.";
   }
 }
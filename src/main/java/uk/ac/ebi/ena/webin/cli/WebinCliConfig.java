@@ -14,7 +14,10 @@ public interface WebinCliConfig {
   String VALIDATE_DIR = "validate";
   String PROCESS_DIR = "process";
   String SUBMIT_DIR = "submit";
+  String BATCH_SUBMIT_DIR = "batch-submit";
   String REPORT_FILE_SUFFIX = ".report";
   String SUBMISSION_BUNDLE_FILE_NAME = "validate.json";
   String SUBMISSION_STATUS_FILE_NAME = "submit.json";
+  String SUBMISSION_LEDGER_FILE_NAME = "submit.ledger";
+  String SUBMISSION_JOURNAL_FILE_NAME = "submit.journal";
 }
@@ -16,23 +16,44 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import uk.ac.ebi.ena.webin.cli.context.SubmissionXmlWriter;
 import uk.ac.ebi.ena.webin.cli.manifest.ManifestFieldGroup;
 import uk.ac.ebi.ena.webin.cli.manifest.ManifestReader;
+import uk.ac.ebi.ena.webin.cli.report.ValidationErrorCounter;
+import uk.ac.ebi.ena.webin.cli.report.ValidationReportAggregator;
+import uk.ac.ebi.ena.webin.cli.report.ValidatorReportAggregator;
 import uk.ac.ebi.ena.webin.cli.service.IgnoreErrorsService;
 import uk.ac.ebi.ena.webin.cli.service.RatelimitService;
 import uk.ac.ebi.ena.webin.cli.service.models.RateLimitResult;
+import uk.ac.ebi.ena.webin.cli.submit.DirectorySubmissionBundleStore;
+import uk.ac.ebi.ena.webin.cli.submit.LogSubmissionBundleStore;
 import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
 import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundleHelper;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundleStore;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundleVerificationLevel;
+import uk.ac.ebi.ena.webin.cli.trace.Span;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
+import uk.ac.ebi.ena.webin.cli.upload.SpeculativeUploader;
+import uk.ac.ebi.ena.webin.cli.utils.FileAttributeCache;
 import uk.ac.ebi.ena.webin.cli.utils.FileUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RemoteServiceUrlHelper;
 import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
@@ -40,12 +61,27 @@ import uk.ac.ebi.ena.webin.cli.validator.api.Validator;
 import uk.ac.ebi.ena.webin.cli.validator.file.SubmissionFile;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.GenomeManifest;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.Manifest;
+import uk.ac.ebi.ena.webin.cli.xml.JdomXmlOutput;
+import uk.ac.ebi.ena.webin.cli.xml.XmlFileOutput;
+import uk.ac.ebi.ena.webin.cli.xml.XmlOutput;
 import uk.ac.ebi.ena.webin.cli.xml.XmlWriter;
 
 public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse> {
 
   private static final String REPORT_FILE = "webin-cli.report";
 
+  /** Interval the validation reports are checked for errors at when the errors are limited. */
+  private static final long ERROR_COUNT_INTERVAL_MILLIS = 500;
+
+  /** Maximum time to wait for an interrupted validator to stop writing its reports. */
+  private static final long VALIDATOR_STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+  private static final int SUBMISSION_BUNDLE_VERIFICATION_THREADS =
+      Math.min(8, Runtime.getRuntime().availableProcessors());
+
+  /** Maximum number of concurrent ignore errors and rate limit lookups. */
+  private static final int SUBMISSION_DECISION_THREADS = 8;
+
   private static final Logger log = LoggerFactory.getLogger(WebinCliExecutor.class);
 
   private final Map<String, String> safeManifestNameToOriginalManifestNameMap = new HashMap<>();
@@ -58,14 +94,35 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
 
   private Collection<SubmissionBundle> submissionBundles;
 
+  private SubmissionBundleStore submissionBundleStore;
+
+  /** Uploads the files of the manifests while they are validated if set. */
+  private SpeculativeUploader speculativeUploader;
+
   /**
    * Holds manifests whose submission bundles were not loaded. It is because they are either new or
    * have been changed since last validation.
    */
   private Collection<M> newOrModifiedManifests;
 
+  /**
+   * Ignore errors and rate limit decisions of the manifests mapped by the manifest names. They are
+   * fetched concurrently before the manifests are validated.
+   */
+  private final Map<String, Future<SubmissionDecision>> submissionDecisions =
+      new ConcurrentHashMap<>();
+
   protected R validationResponse;
 
+  /** Number of errors reported by the validation of the manifests. */
+  private long batchErrorCount;
+
+  /**
+   * Validator threads that did not stop in time after they were interrupted. No other manifest is
+   * validated while any of them is still running as it may keep writing into its reports.
+   */
+  private final List<Thread> abandonedValidators = new ArrayList<>();
+
   public WebinCliExecutor(
       WebinCliContext context,
       WebinCliParameters parameters,
@@ -83,11 +140,12 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
     File manifestReportFile = getManifestReportFile();
     manifestReportFile.delete();
 
-    try {
+    // The report is reduced while it is written.
+    try (ValidationReportAggregator reportWriter =
+        new ValidationReportAggregator(manifestReportFile, getParameters().isReportDetail())) {
+      manifestReader.addListener(reportWriter::write);
       manifestReader.readManifest(
-          getParameters().getInputDir().toPath(),
-          getParameters().getManifestFile(),
-          manifestReportFile);
+          getParameters().getInputDir().toPath(), getParameters().getManifestFile());
     } catch (WebinCliException ex) {
       throw ex;
     } catch (Exception ex) {
@@ -100,6 +158,12 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
           WebinCliMessage.MANIFEST_READER_INVALID_MANIFEST_FILE_ERROR.format(
               manifestReportFile.getPath()));
     }
+
+    // All the manifests are validated unless their submission bundles are reused. The decisions
+    // of the manifests that are validated later are fetched when the validation starts.
+    if (getParameters().isValidate() || !getParameters().isSaveSubmissionBundleFile()) {
+      prefetchSubmissionDecisions(manifestReader.getManifests());
+    }
   }
 
   public final void validateSubmission(ManifestValidationPolicy validationPolicy)
@@ -112,101 +176,448 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
       submissionBundles = new ArrayList<>(manifestsToValidate.size());
     }
 
-    for (M manifest : manifestsToValidate) {
-      File validationDir = createSubmissionDir(manifest, WebinCliConfig.VALIDATE_DIR);
-
-      setIgnoreErrors(manifest);
-
-      checkGenomeSubmissionRatelimit(manifest);
+    prefetchSubmissionDecisions(manifestsToValidate);
 
-      if (!manifest.getFiles().get().isEmpty()) {
-        for (SubmissionFile subFile : (List<SubmissionFile>) manifest.getFiles().get()) {
-          subFile.setReportFile(
-              Paths.get(validationDir.getPath())
-                  .resolve(subFile.getFile().getName() + ".report")
-                  .toFile());
+    batchErrorCount = 0;
+    List<String> failedManifests = new ArrayList<>();
+    try {
+      for (M manifest : manifestsToValidate) {
+        try {
+          Trace.run(
+              "manifest",
+              span -> {
+                span.setAttribute(Span.MANIFEST, manifest.getName());
+                validateManifest(manifest);
+              });
+        } catch (WebinCliException ex) {
+          if (!getParameters().isContinueOnError()
+              || ex.getErrorType() != WebinCliException.ErrorType.VALIDATION_ERROR
+              || isMaxBatchErrorsExceeded()) {
+            throw ex;
+          }
+          log.error(ex.getMessage());
+          failedManifests.add(manifest.getName());
         }
       }
+    } finally {
+      // Makes the bundles of all the validated manifests durable at once.
+      if (submissionBundleStore != null) {
+        submissionBundleStore.close();
+      }
+    }
+
+    if (!failedManifests.isEmpty()) {
+      throw WebinCliException.validationError(
+          WebinCliMessage.EXECUTOR_VALIDATION_FAILED_MANIFESTS.format(
+              String.valueOf(failedManifests.size()),
+              String.valueOf(manifestsToValidate.size()),
+              String.join(", ", failedManifests)));
+    }
+  }
 
-      manifest.setReportFile(getValidationReportFile(validationDir));
-      manifest.setProcessDir(createSubmissionDir(manifest, WebinCliConfig.PROCESS_DIR));
-      manifest.setWebinAuthToken(getAuthTokenFromParam());
-      manifest.setWebinRestUri(RemoteServiceUrlHelper.getWebinRestV1Url(getTestModeFromParam()));
-      manifest.setBiosamplesUri(RemoteServiceUrlHelper.getBiosamplesUrl(getTestModeFromParam()));
+  private void validateManifest(M manifest) {
+    File validationDir = createSubmissionDir(manifest, WebinCliConfig.VALIDATE_DIR);
 
-      try {
-        validationResponse = getValidator().validate(manifest);
+    SubmissionDecision submissionDecision =
+        Trace.call("submissionDecision", span -> getSubmissionDecision(manifest));
 
-        if (validationResponse != null
-            && validationResponse.getStatus() == ValidationResponse.status.VALIDATION_SUCCESS) {
-          prepareSubmissionBundles(manifest);
-        }
-      } catch (RuntimeException ex) {
-        throw WebinCliException.systemError(ex, "Manifest name : " + manifest.getName());
+    setIgnoreErrors(manifest, submissionDecision);
+
+    checkGenomeSubmissionRatelimit(manifest, submissionDecision);
+
+    if (!manifest.getFiles().get().isEmpty()) {
+      for (SubmissionFile subFile : (List<SubmissionFile>) manifest.getFiles().get()) {
+        subFile.setReportFile(
+            Paths.get(validationDir.getPath())
+                .resolve(subFile.getFile().getName() + ".report")
+                .toFile());
       }
+    }
+
+    manifest.setReportFile(getValidationReportFile(validationDir));
+    manifest.setProcessDir(createSubmissionDir(manifest, WebinCliConfig.PROCESS_DIR));
+    manifest.setWebinAuthToken(getAuthTokenFromParam());
+    manifest.setWebinRestUri(RemoteServiceUrlHelper.getWebinRestV1Url(getTestModeFromParam()));
+    manifest.setBiosamplesUri(RemoteServiceUrlHelper.getBiosamplesUrl(getTestModeFromParam()));
+
+    String uploadDir = getUploadDir(manifest).toString();
+    if (speculativeUploader != null) {
+      List<File> files =
+          ((List<SubmissionFile>) manifest.getFiles().get())
+              .stream()
+              .map(SubmissionFile::getFile)
+              .collect(Collectors.toList());
+      speculativeUploader.start(uploadDir, files, getParameters().getInputDir().toPath());
+    }
+
+    boolean validated = false;
+    try {
+      validationResponse =
+          Trace.call(
+              "validate",
+              span -> {
+                span.addBytes(getFilesLength(manifest));
+                R response = runValidator(manifest, validationDir);
+                if (response != null
+                    && response.getStatus() == ValidationResponse.status.VALIDATION_ERROR) {
+                  span.setOutcome(Span.VALIDATION_ERROR);
+                }
+                return response;
+              });
 
       if (validationResponse != null
-          && validationResponse.getStatus() == ValidationResponse.status.VALIDATION_ERROR) {
-        // It is important to notify the directory of validation reports as every manifest's
-        // validation reports will be
-        // written in it's own directory. Not doing this will require searching through every
-        // manifest's validation
-        // directory to find the one that's relevant.
-        throw WebinCliException.validationError(
-            "Manifest name : "
-                + manifest.getName()
-                + ". See reports for details : "
-                + validationDir.getAbsolutePath());
+          && validationResponse.getStatus() == ValidationResponse.status.VALIDATION_SUCCESS) {
+        Trace.run("prepareSubmissionBundle", span -> prepareSubmissionBundles(manifest));
+        validated = true;
+      }
+    } catch (WebinCliException ex) {
+      throw ex;
+    } catch (RuntimeException ex) {
+      throw WebinCliException.systemError(ex, "Manifest name : " + manifest.getName());
+    } finally {
+      // The reports are also reduced when the validation has been stopped after too many errors.
+      Trace.run("aggregateReports", span -> aggregateReports(manifest));
+      if (speculativeUploader != null && !validated) {
+        speculativeUploader.discardUpload(uploadDir);
       }
     }
+
+    if (validationResponse != null
+        && validationResponse.getStatus() == ValidationResponse.status.VALIDATION_ERROR) {
+      // It is important to notify the directory of validation reports as every manifest's
+      // validation reports will be
+      // written in it's own directory. Not doing this will require searching through every
+      // manifest's validation
+      // directory to find the one that's relevant.
+      throw WebinCliException.validationError(
+          "Manifest name : "
+              + manifest.getName()
+              + ". See reports for details : "
+              + validationDir.getAbsolutePath());
+    }
   }
 
-  private void setIgnoreErrors(M manifest) {
-    // if ignore errors is already set to true then do nothing.
+  /**
+   * Validates the manifest. If the number of validation errors is limited then the validator runs
+   * in a separate thread while its reports are checked for errors. Once the errors exceed the limit
+   * the validator thread is interrupted and the manifest fails validation. The validator is given
+   * a limited time to stop so that it no longer writes into the reports. A validator that does not
+   * respond to the interrupt is abandoned and no further manifest is validated while it is running.
+   */
+  R runValidator(M manifest, File validationDir) {
+    checkAbandonedValidators();
+
+    long maxErrors = getMaxErrors(manifest);
+    if (maxErrors == Long.MAX_VALUE) {
+      return getValidator().validate(manifest);
+    }
+
+    Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+    FutureTask<R> task =
+        new FutureTask<>(
+            () -> {
+              if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+              }
+              return getValidator().validate(manifest);
+            });
+    Thread thread = new Thread(task, "validator-" + manifest.getName());
+    thread.setDaemon(true);
+    thread.start();
+
+    ValidationErrorCounter errorCounter = new ValidationErrorCounter();
+    List<File> reportFiles = getReportFiles(manifest);
+    try {
+      while (true) {
+        try {
+          R response = task.get(ERROR_COUNT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+          batchErrorCount += countErrors(errorCounter, reportFiles);
+          return response;
+        } catch (TimeoutException ex) {
+          long errorCount = countErrors(errorCounter, reportFiles);
+          if (errorCount > maxErrors) {
+            stopValidator(task, thread);
+            batchErrorCount += errorCount;
+            String message =
+                isMaxBatchErrorsExceeded()
+                    ? WebinCliMessage.EXECUTOR_MAX_BATCH_ERRORS_EXCEEDED.format(
+                        String.valueOf(getParameters().getMaxBatchErrors()))
+                    : WebinCliMessage.EXECUTOR_MAX_ERRORS_EXCEEDED.format(
+                        String.valueOf(maxErrors), String.valueOf(errorCount));
+            throw WebinCliException.validationError(
+                message,
+                "Manifest name : "
+                    + manifest.getName()
+                    + ". See reports for details : "
+                    + validationDir.getAbsolutePath());
+          }
+        }
+      }
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new RuntimeException(ex.getCause());
+    } catch (InterruptedException ex) {
+      stopValidator(task, thread);
+      Thread.currentThread().interrupt();
+      throw WebinCliException.systemError(ex, "Manifest name : " + manifest.getName());
+    }
+  }
+
+  /**
+   * Interrupts the validator thread and waits a limited time for it to finish. The thread is
+   * abandoned if it is still running after that.
+   */
+  private void stopValidator(FutureTask<R> task, Thread thread) {
+    task.cancel(true);
+    try {
+      thread.join(getValidatorStopTimeoutMillis());
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    if (thread.isAlive()) {
+      abandonedValidators.add(thread);
+      log.warn(
+          WebinCliMessage.EXECUTOR_VALIDATOR_STOP_TIMEOUT.format(
+              String.valueOf(TimeUnit.MILLISECONDS.toSeconds(getValidatorStopTimeoutMillis()))));
+    }
+  }
+
+  long getValidatorStopTimeoutMillis() {
+    return VALIDATOR_STOP_TIMEOUT_MILLIS;
+  }
+
+  /** @return True if a validator that was stopped earlier is still running. */
+  private boolean isAbandonedValidatorRunning() {
+    abandonedValidators.removeIf(thread -> !thread.isAlive());
+    return !abandonedValidators.isEmpty();
+  }
+
+  /**
+   * Fails if a validator that was stopped earlier is still running. It would otherwise run
+   * alongside the next validator and keep writing into its reports.
+   */
+  private void checkAbandonedValidators() {
+    if (isAbandonedValidatorRunning()) {
+      throw WebinCliException.systemError(
+          WebinCliMessage.EXECUTOR_VALIDATOR_STILL_RUNNING.format(
+              abandonedValidators.stream().map(Thread::getName).collect(Collectors.joining(", "))));
+    }
+  }
+
+  /**
+   * @return The maximum number of validation errors of the manifest given the limits for the
+   *     manifest and for all the manifests, or Long.MAX_VALUE if the errors are not limited.
+   */
+  private long getMaxErrors(M manifest) {
+    // Errors are expected when they are ignored.
     if (manifest.isIgnoreErrors()) {
-      return;
+      return Long.MAX_VALUE;
     }
+    long maxErrors =
+        getParameters().getMaxErrors() > 0 ? getParameters().getMaxErrors() : Long.MAX_VALUE;
+    if (getParameters().getMaxBatchErrors() > 0) {
+      maxErrors =
+          Math.min(maxErrors, Math.max(0, getParameters().getMaxBatchErrors() - batchErrorCount));
+    }
+    return maxErrors;
+  }
 
-    manifest.setIgnoreErrors(false);
+  private boolean isMaxBatchErrorsExceeded() {
+    return getParameters().getMaxBatchErrors() > 0
+        && batchErrorCount > getParameters().getMaxBatchErrors();
+  }
+
+  private long countErrors(ValidationErrorCounter errorCounter, List<File> reportFiles) {
     try {
-      IgnoreErrorsService ignoreErrorsService =
-          new IgnoreErrorsService.Builder()
-              .setWebinRestV1Uri(RemoteServiceUrlHelper.getWebinRestV1Url(getParameters().isTest()))
-              .setCredentials(
-                  getParameters().getWebinServiceUserName(), getParameters().getPassword())
-              .build();
-
-      manifest.setIgnoreErrors(
-          ignoreErrorsService.getIgnoreErrors(getContext().name(), manifest.getName()));
-    } catch (RuntimeException ex) {
-      log.warn(WebinCliMessage.IGNORE_ERRORS_SERVICE_SYSTEM_ERROR.text());
+      return errorCounter.count(reportFiles);
+    } catch (IOException ex) {
+      log.warn(WebinCliMessage.EXECUTOR_ERROR_COUNT_ERROR.format(ex.getMessage()));
+      return errorCounter.getErrorCount();
     }
   }
 
-  private void checkGenomeSubmissionRatelimit(M manifest) {
-    if (!(manifest instanceof GenomeManifest) || manifest.isIgnoreErrors()) {
+  private List<File> getReportFiles(M manifest) {
+    List<File> reportFiles = new ArrayList<>();
+    if (manifest.getReportFile() != null) {
+      reportFiles.add(manifest.getReportFile());
+    }
+    for (SubmissionFile file : (List<SubmissionFile>) manifest.getFiles().get()) {
+      if (file.getReportFile() != null) {
+        reportFiles.add(file.getReportFile());
+      }
+    }
+    return reportFiles;
+  }
+
+  /** Reduces the size of the validation reports written by the validator. */
+  private void aggregateReports(M manifest) {
+    // The reports are left as they are while a stopped validator may still write into them.
+    if (isAbandonedValidatorRunning()) {
+      return;
+    }
+    ValidatorReportAggregator aggregator =
+        new ValidatorReportAggregator(getParameters().isReportDetail());
+    for (File reportFile : getReportFiles(manifest)) {
+      try {
+        aggregator.aggregate(reportFile);
+      } catch (IOException ex) {
+        log.warn(
+            WebinCliMessage.CLI_REPORT_AGGREGATION_ERROR.format(reportFile, ex.getMessage()));
+      }
+    }
+  }
+
+  private long getFilesLength(M manifest) {
+    long length = 0;
+    for (SubmissionFile file : (List<SubmissionFile>) manifest.getFiles().get()) {
+      length += FileAttributeCache.getInstance().getLength(file.getFile());
+    }
+    return length;
+  }
+
+  /**
+   * Starts fetching the ignore errors and rate limit decisions of the given manifests concurrently
+   * unless they are already being fetched. The lookups of the manifests are independent so the
+   * validation of the first manifest does not wait for the decisions of the rest.
+   */
+  void prefetchSubmissionDecisions(Collection<M> manifests) {
+    List<M> manifestsToFetch =
+        manifests.stream()
+            .filter(manifest -> !submissionDecisions.containsKey(manifest.getName()))
+            .collect(Collectors.toList());
+    if (manifestsToFetch.isEmpty()) {
       return;
     }
 
-    RateLimitResult ratelimit;
+    IgnoreErrorsService ignoreErrorsService = createIgnoreErrorsService();
+    RatelimitService ratelimitService = createRatelimitService();
+    Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            Math.min(SUBMISSION_DECISION_THREADS, manifestsToFetch.size()),
+            runnable -> {
+              Thread thread = new Thread(runnable, "WebinCliExecutor-submission-decision");
+              thread.setDaemon(true);
+              return thread;
+            });
     try {
-      RatelimitService ratelimitService =
-          new RatelimitService.Builder()
-              .setWebinRestV1Uri(RemoteServiceUrlHelper.getWebinRestV1Url(getParameters().isTest()))
-              .setCredentials(
-                  getParameters().getWebinServiceUserName(), getParameters().getPassword())
-              .build();
+      for (M manifest : manifestsToFetch) {
+        submissionDecisions.put(
+            manifest.getName(),
+            executorService.submit(
+                () -> {
+                  // Retry messages are written into the same log files as this thread's.
+                  if (mdcContext != null) {
+                    MDC.setContextMap(mdcContext);
+                  }
+                  try {
+                    return fetchSubmissionDecision(manifest, ignoreErrorsService, ratelimitService);
+                  } finally {
+                    MDC.clear();
+                  }
+                }));
+      }
+    } finally {
+      // The submitted lookups are completed but the threads are released afterwards.
+      executorService.shutdown();
+    }
+  }
+
+  IgnoreErrorsService createIgnoreErrorsService() {
+    return new IgnoreErrorsService.Builder()
+        .setWebinRestV1Uri(RemoteServiceUrlHelper.getWebinRestV1Url(getParameters().isTest()))
+        .setCredentials(getParameters().getWebinServiceUserName(), getParameters().getPassword())
+        .build();
+  }
 
+  RatelimitService createRatelimitService() {
+    return new RatelimitService.Builder()
+        .setWebinRestV1Uri(RemoteServiceUrlHelper.getWebinRestV1Url(getParameters().isTest()))
+        .setCredentials(getParameters().getWebinServiceUserName(), getParameters().getPassword())
+        .build();
+  }
+
+  private SubmissionDecision fetchSubmissionDecision(
+      M manifest, IgnoreErrorsService ignoreErrorsService, RatelimitService ratelimitService) {
+    // if ignore errors is already set to true then there is nothing to fetch.
+    if (manifest.isIgnoreErrors()) {
+      return new SubmissionDecision(true, null, null);
+    }
+
+    Boolean ignoreErrors;
+    try {
+      ignoreErrors = ignoreErrorsService.getIgnoreErrors(getContext().name(), manifest.getName());
+    } catch (RuntimeException ex) {
+      ignoreErrors = null;
+    }
+
+    if (!(manifest instanceof GenomeManifest) || Boolean.TRUE.equals(ignoreErrors)) {
+      return new SubmissionDecision(ignoreErrors, null, null);
+    }
+
+    try {
       String submissionAccountId = getParameters().getWebinServiceUserName();
       String studyId = manifest.getStudy() == null ? null : manifest.getStudy().getStudyId();
       String sampleId = manifest.getSample() == null ? null : manifest.getSample().getSraSampleId();
 
-      ratelimit =
-          ratelimitService.ratelimit(getContext().name(), submissionAccountId, studyId, sampleId);
+      return new SubmissionDecision(
+          ignoreErrors,
+          ratelimitService.ratelimit(getContext().name(), submissionAccountId, studyId, sampleId),
+          null);
     } catch (RuntimeException ex) {
+      return new SubmissionDecision(ignoreErrors, null, ex);
+    }
+  }
+
+  /**
+   * Waits for the prefetched decision of the manifest. The decision is fetched synchronously if it
+   * was not prefetched or if the prefetch failed.
+   */
+  SubmissionDecision getSubmissionDecision(M manifest) {
+    Future<SubmissionDecision> submissionDecision = submissionDecisions.get(manifest.getName());
+    if (submissionDecision != null) {
+      try {
+        return submissionDecision.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw WebinCliException.systemError(e);
+      } catch (ExecutionException e) {
+        log.warn(
+            WebinCliMessage.EXECUTOR_SUBMISSION_DECISION_PREFETCH_ERROR.format(manifest.getName()),
+            e.getCause());
+      }
+    }
+    return fetchSubmissionDecision(manifest, createIgnoreErrorsService(), createRatelimitService());
+  }
+
+  private void setIgnoreErrors(M manifest, SubmissionDecision submissionDecision) {
+    // if ignore errors is already set to true then do nothing.
+    if (manifest.isIgnoreErrors()) {
+      return;
+    }
+
+    manifest.setIgnoreErrors(false);
+    if (submissionDecision.ignoreErrors == null) {
+      log.warn(WebinCliMessage.IGNORE_ERRORS_SERVICE_SYSTEM_ERROR.text());
+    } else {
+      manifest.setIgnoreErrors(submissionDecision.ignoreErrors);
+    }
+  }
+
+  private void checkGenomeSubmissionRatelimit(M manifest, SubmissionDecision submissionDecision) {
+    if (!(manifest instanceof GenomeManifest) || manifest.isIgnoreErrors()) {
+      return;
+    }
+
+    if (submissionDecision.ratelimitException != null) {
       throw WebinCliException.systemError(
-          ex, WebinCliMessage.RATE_LIMIT_SERVICE_SYSTEM_ERROR.text());
+          submissionDecision.ratelimitException,
+          WebinCliMessage.RATE_LIMIT_SERVICE_SYSTEM_ERROR.text());
     }
+    RateLimitResult ratelimit = submissionDecision.ratelimit;
     if (ratelimit.isRateLimited()) {
       throw WebinCliException.userError(
           WebinCliMessage.CLI_GENOME_RATELIMIT_ERROR_WITH_ANALYSIS_ID.format(
@@ -217,58 +628,62 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
   private void prepareSubmissionBundles(M manifest) {
     File submitDir = createSubmissionDir(manifest, WebinCliConfig.SUBMIT_DIR);
 
-    Path uploadDir =
-        Paths.get(this.parameters.isTest() ? "webin-cli-test" : "webin-cli")
-            .resolve(String.valueOf(this.context))
-            .resolve(WebinCli.getSafeOutputDir(getFileSystemSafeSubmissionName(manifest)));
-
-    Map<SubmissionBundle.SubmissionXMLFileType, String> xmls = new HashMap<>();
-
-    xmls.putAll(
-        new SubmissionXmlWriter()
-            .createXml(
-                getValidationResponse(),
-                getParameters().getCenterName(),
-                WebinCli.getVersionForSubmission(parameters.getWebinSubmissionTool()),
-                getManifestFileContent(),
-                calculateManifestFileMd5()));
+    Path uploadDir = getUploadDir(manifest);
+
+    // Stream the XMLs directly into their files unless the in-memory JDOM output is requested.
+    XmlOutput xmlOutput =
+        getParameters().isXmlStreaming()
+            ? new XmlFileOutput(submitDir.toPath())
+            : new JdomXmlOutput(submitDir.toPath());
+
+    Trace.run(
+        "writeSubmissionXml",
+        span ->
+            new SubmissionXmlWriter()
+                .writeXml(
+                    getValidationResponse(),
+                    getParameters().getCenterName(),
+                    WebinCli.getVersionForSubmission(parameters.getWebinSubmissionTool()),
+                    getManifestFileContent(),
+                    calculateManifestFileMd5(),
+                    xmlOutput));
 
     // Calculate MD5 checksum of data files so it can be written into the generated XML later.
+    // The file attributes are read just before the digest so that they describe the same content.
     List<SubmissionFile> submissionFiles = manifest.files().get();
-    submissionFiles.forEach(file -> file.setMd5(FileUtils.calculateDigest("MD5", file.getFile())));
-
-    xmls.putAll(
-        xmlWriter.createXml(
-            manifest,
-            getValidationResponse(),
-            getParameters().getCenterName(),
-            getSubmissionTitle(manifest),
-            getSubmissionAlias(manifest),
-            getParameters().getInputDir().toPath(),
-            uploadDir));
-
-    List<SubmissionBundle.SubmissionXMLFile> xmlFileList =
-        xmls.entrySet().stream()
-            .map(
-                entry -> {
-                  String xmlFileName = entry.getKey().name().toLowerCase() + ".xml";
-                  Path xmlFilePath = submitDir.toPath().resolve(xmlFileName);
-
-                  return new SubmissionBundle.SubmissionXMLFile(
-                      entry.getKey(), xmlFilePath.toFile(), entry.getValue());
-                })
-            .collect(Collectors.toList());
-
     List<SubmissionBundle.SubmissionUploadFile> uploadFileList = new ArrayList<>();
+    Trace.run(
+        "calculateDigest",
+        span ->
+            submissionFiles.forEach(
+                file -> {
+                  BasicFileAttributes attributes =
+                      FileAttributeCache.getInstance().getCurrent(file.getFile());
+                  file.setMd5(FileUtils.calculateDigest("MD5", file.getFile()));
+                  uploadFileList.add(
+                      new SubmissionBundle.SubmissionUploadFile(
+                          file.getFile(),
+                          attributes.size(),
+                          attributes.lastModifiedTime().toMillis(),
+                          file.getMd5(),
+                          SubmissionBundleHelper.calculateSampledMd5(file.getFile())));
+                  span.addBytes(attributes.size());
+                }));
+
+    Trace.run(
+        "writeXml",
+        span ->
+            xmlWriter.writeXml(
+                manifest,
+                getValidationResponse(),
+                getParameters().getCenterName(),
+                getSubmissionTitle(manifest),
+                getSubmissionAlias(manifest),
+                getParameters().getInputDir().toPath(),
+                uploadDir,
+                xmlOutput));
 
-    submissionFiles.forEach(
-        file ->
-            uploadFileList.add(
-                new SubmissionBundle.SubmissionUploadFile(
-                    file.getFile(),
-                    file.getFile().length(),
-                    FileUtils.getLastModifiedTime(file.getFile()),
-                    file.getMd5())));
+    List<SubmissionBundle.SubmissionXMLFile> xmlFileList = xmlOutput.getXmlFiles();
 
     SubmissionBundle sb =
         new SubmissionBundle(
@@ -281,8 +696,13 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
     submissionBundles.add(sb);
 
     if (getParameters().isSaveSubmissionBundleFile()) {
-      SubmissionBundleHelper.write(sb, getSubmissionBundleFileDir(manifest));
+      Trace.run(
+          "writeSubmissionBundle",
+          span -> getSubmissionBundleStore().write(getSubmissionBundleName(manifest), sb));
     }
+
+    // The XMLs have been written in their files by now and are loaded from them when needed.
+    sb.releaseXmlContents();
   }
 
   /**
@@ -295,20 +715,19 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
           new ArrayList<>(manifestReader.getManifests().size());
       newOrModifiedManifests = new ArrayList<>(manifestReader.getManifests().size());
 
-      manifestReader.getManifests().stream()
-          .forEach(
-              manifest -> {
-                SubmissionBundle sb =
-                    SubmissionBundleHelper.read(
-                        calculateManifestFieldsMd5(manifestReader.getManifestFieldGroup(manifest)),
-                        getSubmissionBundleFileDir(manifest));
-                if (sb == null) {
-                  // Null bundle means the manifest is either new or has been modified.
-                  newOrModifiedManifests.add(manifest);
-                } else {
-                  validatedSubmissionBundles.add(sb);
-                }
-              });
+      List<M> manifests = new ArrayList<>(manifestReader.getManifests());
+      List<SubmissionBundle> readSubmissionBundles = readSubmissionBundles(manifests);
+
+      // The outcome is in the manifest order regardless of the order the bundles were verified in.
+      for (int i = 0; i < manifests.size(); i++) {
+        SubmissionBundle sb = readSubmissionBundles.get(i);
+        if (sb == null) {
+          // Null bundle means the manifest is either new or has been modified.
+          newOrModifiedManifests.add(manifests.get(i));
+        } else {
+          validatedSubmissionBundles.add(sb);
+        }
+      }
 
       if (!validatedSubmissionBundles.isEmpty()) {
         submissionBundles = validatedSubmissionBundles;
@@ -323,6 +742,61 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
     return submissionBundles;
   }
 
+  /**
+   * Reads and verifies the submission bundles of the given manifests concurrently.
+   *
+   * @return The submission bundles in the manifest order. Bundles that could not be read or are no
+   *     longer valid are null.
+   */
+  private List<SubmissionBundle> readSubmissionBundles(List<M> manifests) {
+    SubmissionBundleStore store = getSubmissionBundleStore();
+    SubmissionBundleVerificationLevel verificationLevel =
+        getParameters().getSubmissionBundleVerificationLevel();
+    Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+
+    List<Future<SubmissionBundle>> futures = new ArrayList<>(manifests.size());
+    List<SubmissionBundle> bundles = new ArrayList<>(manifests.size());
+
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            Math.max(1, Math.min(SUBMISSION_BUNDLE_VERIFICATION_THREADS, manifests.size())));
+    try {
+      for (M manifest : manifests) {
+        String submissionName = getSubmissionBundleName(manifest);
+        String manifestFieldsMd5 =
+            calculateManifestFieldsMd5(manifestReader.getManifestFieldGroup(manifest));
+
+        futures.add(
+            executorService.submit(
+                () -> {
+                  // Verification messages are written into the same log files as this thread's.
+                  if (mdcContext != null) {
+                    MDC.setContextMap(mdcContext);
+                  }
+                  try {
+                    return store.read(submissionName, manifestFieldsMd5, verificationLevel);
+                  } finally {
+                    MDC.clear();
+                  }
+                }));
+      }
+      for (Future<SubmissionBundle> future : futures) {
+        bundles.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw WebinCliException.systemError(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof WebinCliException) {
+        throw (WebinCliException) e.getCause();
+      }
+      throw WebinCliException.systemError(e);
+    } finally {
+      executorService.shutdownNow();
+    }
+    return bundles;
+  }
+
   /**
    * This should only be called after {@link WebinCliExecutor#getSubmissionBundles()} has been
    * invoked at least once.
@@ -368,6 +842,10 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
             + WebinCliConfig.REPORT_FILE_SUFFIX);
   }
 
+  public void setSpeculativeUploader(SpeculativeUploader speculativeUploader) {
+    this.speculativeUploader = speculativeUploader;
+  }
+
   public WebinCliParameters getParameters() {
     return this.parameters;
   }
@@ -376,22 +854,44 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
     return validationResponse;
   }
 
-  private File getSubmissionBundleFileDir(M manifest) {
+  private SubmissionBundleStore getSubmissionBundleStore() {
+    if (submissionBundleStore == null) {
+      if (getParameters().isSubmissionBundleLog()) {
+        submissionBundleStore =
+            new LogSubmissionBundleStore(
+                WebinCli.createOutputDir(parameters.getOutputDir(), String.valueOf(context))
+                    .toPath());
+      } else {
+        submissionBundleStore =
+            new DirectorySubmissionBundleStore(
+                submissionName ->
+                    WebinCli.createOutputDir(
+                        parameters.getOutputDir(), String.valueOf(context), submissionName));
+      }
+    }
+    return submissionBundleStore;
+  }
+
+  private String getSubmissionBundleName(M manifest) {
     if (StringUtils.isBlank(getFileSystemSafeSubmissionName(manifest))) {
       throw WebinCliException.systemError(
           WebinCliMessage.EXECUTOR_INIT_ERROR.format("Missing submission name."));
     }
 
-    return WebinCli.createOutputDir(
-        parameters.getOutputDir(),
-        String.valueOf(context),
-        getFileSystemSafeSubmissionName(manifest));
+    return getFileSystemSafeSubmissionName(manifest);
   }
 
   private File getValidationReportFile(File manifestValidationDir) {
     return Paths.get(manifestValidationDir.getPath()).resolve(REPORT_FILE).toFile();
   }
 
+  /** @return The directory on the file upload server the submission files are uploaded into. */
+  private Path getUploadDir(M manifest) {
+    return Paths.get(this.parameters.isTest() ? "webin-cli-test" : "webin-cli")
+        .resolve(String.valueOf(this.context))
+        .resolve(WebinCli.getSafeOutputDir(getFileSystemSafeSubmissionName(manifest)));
+  }
+
   /**
    * @param manifest
    * @return Name of the given manifest after removing all the sensitive characters that may cause
@@ -476,4 +976,23 @@ public class WebinCliExecutor<M extends Manifest, R extends ValidationResponse>
     return FileUtils.calculateDigest(
         "MD5", stringBuilder.toString().getBytes(StandardCharsets.UTF_8));
   }
+
+  /** The ignore errors and rate limit decisions of a manifest. */
+  static class SubmissionDecision {
+    /** Null if the ignore errors status could not be retrieved. */
+    final Boolean ignoreErrors;
+
+    /** Null if the rate limit does not apply or could not be retrieved. */
+    final RateLimitResult ratelimit;
+
+    /** Set if the rate limit could not be retrieved. */
+    final RuntimeException ratelimitException;
+
+    private SubmissionDecision(
+        Boolean ignoreErrors, RateLimitResult ratelimit, RuntimeException ratelimitException) {
+      this.ignoreErrors = ignoreErrors;
+      this.ratelimit = ratelimit;
+      this.ratelimitException = ratelimitException;
+    }
+  }
 }
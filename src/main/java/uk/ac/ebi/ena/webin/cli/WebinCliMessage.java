@@ -30,7 +30,15 @@ public enum WebinCliMessage implements MessageFormatSource {
   CLI_CREATE_DIR_ERROR("Unable to create directory: {0}"),
   CLI_UPLOAD_ERROR("Failed to upload files to server because of a {0}. "),
   CLI_SUBMIT_ERROR("The submission has failed because of a {0}. "),
-  CLI_MULTI_SUBMIT_ERROR("Some or all submissions failed. Please see application logs."),
+  CLI_SUBMIT_FAILED_SUBMISSIONS(
+      "{0} of {1} submissions failed: {2}. Please see application logs."),
+  CLI_JFR_RECORDING("Recording the run with Java Flight Recorder into: {0}"),
+  CLI_JFR_RECORDING_ERROR("Failed to record the run with Java Flight Recorder: {0}"),
+  CLI_REPORT_AGGREGATION_ERROR("Failed to reduce the validation report {0}: {1}"),
+  CLI_BATCH_SUBMIT_FALLBACK(
+      "Batch submission of {0} submissions failed. The submissions will be sent separately."),
+  CLI_BATCH_SUBMIT_RECEIPT_ERROR(
+      "The batch submission receipt contains accessions for {0} submissions instead of {1}."),
   CLI_AUTHENTICATION_ERROR(
       "Invalid submission account user name or password. Please try enclosing your password in single quotes."),
   CLI_GENOME_RATELIMIT_ERROR(
@@ -40,12 +48,43 @@ public enum WebinCliMessage implements MessageFormatSource {
 
   EXECUTOR_INIT_ERROR("Failed to initialise validator. {0}"),
   EXECUTOR_EMPTY_DIRECTORY_ERROR("Unable to empty directory {0}"),
+  EXECUTOR_MAX_ERRORS_EXCEEDED(
+      "Validation was stopped after more than {0} errors were reported. {1} errors were reported."),
+  EXECUTOR_MAX_BATCH_ERRORS_EXCEEDED(
+      "Validation was stopped after more than {0} errors were reported for all submissions."),
+  EXECUTOR_VALIDATION_FAILED_MANIFESTS("{0} of {1} submissions failed validation: {2}"),
+  EXECUTOR_ERROR_COUNT_ERROR("Failed to count the errors in the validation reports: {0}"),
+  EXECUTOR_VALIDATOR_STOP_TIMEOUT(
+      "The validator did not stop within {0} seconds and may still write into the validation reports. The validation reports are not reduced."),
+  EXECUTOR_VALIDATOR_STILL_RUNNING(
+      "Validation cannot continue while stopped validators are still running: {0}"),
+  EXECUTOR_SUBMISSION_DECISION_PREFETCH_ERROR(
+      "Failed to prefetch the ignore errors and rate limit information of {0}. It will be retrieved again."),
   EXECUTOR_DIRECTORY_MANIFEST_NAME_CONFLICT_ERROR(
       "A manifest name {0} conflicts with another manifest name {1} after adjusting the names when creating submission directories. Try changing the names to resolve the conflict."),
 
   SUBMISSION_BUNDLE_REVALIDATE_SUBMISSION("Submission requires re-validation."),
   SUBMISSION_BUNDLE_FILE_ERROR("Unable to create submission bundle file: {0}"),
   SUBMISSION_BUNDLE_VALIDATE_SUBMISSION("Submission has not been validated previously."),
+  SUBMISSION_LEDGER_FILE_ERROR("Unable to record submission in submission ledger file: {0}"),
+  JSON_LINES_FILE_INCOMPLETE_LINE("Ignoring incomplete line in file: {0}"),
+  SUBMISSION_LEDGER_ALREADY_SUBMITTED(
+      "Submission has already been sent on {0}. Assigned accessions: {1}"),
+  SUBMISSION_JOURNAL_FILE_ERROR(
+      "Unable to record submission stage in submission journal file: {0}"),
+  SUBMISSION_JOURNAL_RESUME("Resuming interrupted submission after stage: {0}"),
+  SUBMISSION_JOURNAL_RECOVERED_RECEIPT(
+      "Recovered the receipt of the interrupted submission. The submission will not be sent again."),
+  SUBMISSION_JOURNAL_UNKNOWN_RECEIPT(
+      "The receipt of the interrupted submission is not available. The submission will be sent again."),
+
+  UPLOAD_METRICS("Upload metrics: {0}"),
+  HTTP_METRICS("HTTP metrics for {0}: {1}"),
+  HTTP_HEDGING_METRICS("Request hedging metrics for {0} requests: {1}"),
+  SPECULATIVE_UPLOAD_START("Uploading files into \"{0}\" while the submission is validated."),
+  SPECULATIVE_UPLOAD_ERROR(
+      "Failed to upload files while the submission was validated. The remaining files will be uploaded when the submission is sent: {0}"),
+  SPECULATIVE_UPLOAD_DISCARD("Deleting files uploaded into \"{0}\" for a failed submission."),
 
   FTP_UPLOAD_DIR_ERROR("Missing upload directory. Failed to upload files to FTP server."),
   FTP_CONNECT_ERROR("Failed to connect to FTP server."),
@@ -60,6 +99,10 @@ public enum WebinCliMessage implements MessageFormatSource {
       "The submission has been completed successfully. The following {0} accession was assigned to the submission: {1}"),
   SUBMIT_SERVICE_SUCCESS_NOACC(
       "The submission has been completed successfully. No accession was assigned to the {0} submission. Please contact the helpdesk."),
+  SUBMIT_SERVICE_BATCH_SUCCESS(
+      "The submission {0} has been completed successfully. The following {1} accession was assigned to the submission: {2}"),
+  SUBMIT_SERVICE_BATCH_SUCCESS_NOACC(
+      "The submission {0} has been completed successfully. No accession was assigned to the {1} submission. Please contact the helpdesk."),
   SUBMIT_SERVICE_SYSTEM_ERROR("A server error occurred when attempting to submit."),
   SUBMIT_SAMPLE_SERVICE_SYSTEM_ERROR("A server error occurred when attempting to submit sample."),
   IGNORE_ERRORS_SERVICE_SYSTEM_ERROR(
@@ -70,6 +113,10 @@ public enum WebinCliMessage implements MessageFormatSource {
   SAMPLE_SERVICE_VALIDATION_ERROR(
       "Unknown sample {0} or the sample cannot be referenced by your submission account. Samples must be submitted before they can be referenced in the submission."),
   SAMPLE_SERVICE_SYSTEM_ERROR("A server error occurred when retrieving sample {0} information."),
+  SAMPLE_PROCESSOR_BATCH_SUBMISSION_FAILED(
+      "Failed to submit {0} samples together. The samples will be submitted separately."),
+  SAMPLE_PROCESSOR_BATCH_PREPARATION_FAILED(
+      "Failed to register samples together. The samples will be registered separately: {0}"),
   STUDY_SERVICE_VALIDATION_ERROR(
       "Unknown study {0} or the study cannot be referenced by your submission account. Studies must be submitted before they can be referenced in the submission."),
   STUDY_SERVICE_SYSTEM_ERROR("A server error occurred when retrieving study {0} information."),
@@ -108,6 +155,12 @@ public enum WebinCliMessage implements MessageFormatSource {
   MANIFEST_READER_NON_UNIQUE_FIELD_GROUP_NAME(
       "Invalid name: {0}. The name field must be unique within the manifest file."),
 
+  REPORT_AGGREGATOR_OMITTED_MESSAGES("{0} more messages were omitted like: {1}"),
+  REPORT_AGGREGATOR_SIZE_LIMIT("The report was truncated at {0} bytes."),
+  REPORT_AGGREGATOR_DETAIL_FILE("The complete report is in: {0}"),
+  REPORT_AGGREGATOR_NO_DETAIL_FILE(
+      "Use the -reportDetail option to write the complete report into a compressed file."),
+
   FILE_SUFFIX_PROCESSOR_ERROR("Invalid {0} file suffix: \"{1}\". Valid file suffixes are: {2}."),
   CV_FIELD_PROCESSOR_ERROR("Invalid {0} field value: \"{1}\". Valid values are: {2}."),
   CV_FIELD_PROCESSOR_FIELD_VALUE_CORRECTED("Field \"{0}\" value \"{1}\" was corrected to \"{2}\"."),
@@ -17,6 +17,9 @@ import uk.ac.ebi.ena.webin.cli.manifest.processor.metadata.RunProcessor;
 import uk.ac.ebi.ena.webin.cli.manifest.processor.metadata.SampleProcessor;
 import uk.ac.ebi.ena.webin.cli.manifest.processor.metadata.SampleXmlProcessor;
 import uk.ac.ebi.ena.webin.cli.manifest.processor.metadata.StudyProcessor;
+import uk.ac.ebi.ena.webin.cli.service.utils.RequestHedger;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundleVerificationLevel;
+import uk.ac.ebi.ena.webin.cli.upload.ASCPService;
 
 public class WebinCliParameters implements MetadataProcessorParameters {
   private String submissionAccount;
@@ -38,12 +41,67 @@ public class WebinCliParameters implements MetadataProcessorParameters {
   private boolean ignoreErrors;
   private boolean isSampleUpdate;
 
+  /** Maximum number of submission bundles sent in a single submission request. */
+  private int submitBatchSize = 1;
+
+  /**
+   * Maximum number of inline JSON samples registered in a single submission request. Values greater
+   * than one enable registering the samples of all the manifest field groups together.
+   */
+  private int sampleBatchSize = 1;
+
   /** Save submission bundle file to avoid unnecessary revalidation. */
   private boolean saveSubmissionBundleFile = true;
 
   /** Save xml files to make them available for diagnostics. */
   private boolean saveSubmissionXmlFiles = true;
 
+  /**
+   * Stream the submission xmls directly into their files. Otherwise, the xmls are created in
+   * memory as JDOM element trees.
+   */
+  private boolean xmlStreaming = true;
+
+  /**
+   * Store the submission bundles in a single append-only log file instead of one file per
+   * submission.
+   */
+  private boolean submissionBundleLog = false;
+
+  /** How thoroughly the saved submission bundles are verified before submission. */
+  private SubmissionBundleVerificationLevel submissionBundleVerificationLevel =
+      SubmissionBundleVerificationLevel.FULL;
+
+  /** Upload the files of the submissions while they are being validated. */
+  private boolean speculativeUpload = false;
+
+  /** Total Aspera target rate in megabits per second. */
+  private int ascpRate = ASCPService.DEFAULT_TARGET_RATE_MBPS;
+
+  /** Maximum number of concurrent Aspera sessions. */
+  private int ascpSessions = 1;
+
+  /** Record the run with Java Flight Recorder. */
+  private boolean jfr = false;
+
+  /** Write the complete validation reports into compressed detail files. */
+  private boolean reportDetail = false;
+
+  /** Maximum number of validation errors per manifest. Zero means no limit. */
+  private int maxErrors = 0;
+
+  /** Maximum number of validation errors of all the manifests. Zero means no limit. */
+  private int maxBatchErrors = 0;
+
+  /** Continue validating the other manifests after a manifest has failed validation. */
+  private boolean continueOnError = false;
+
+  /** Latency percentile after which reference lookups are hedged. Zero disables hedging. */
+  private int hedgePercentile = RequestHedger.DEFAULT_PERCENTILE;
+
+  /** Maximum fraction of the reference lookups that may be hedged. */
+  private double hedgeBudget = RequestHedger.DEFAULT_BUDGET;
+
   private SampleProcessor sampleProcessor;
   private StudyProcessor studyProcessor;
   private SampleXmlProcessor sampleXmlProcessor;
@@ -196,6 +254,119 @@ public class WebinCliParameters implements MetadataProcessorParameters {
     this.saveSubmissionXmlFiles = saveSubmissionXmlFiles;
   }
 
+  public boolean isXmlStreaming() {
+    return xmlStreaming;
+  }
+
+  public void setXmlStreaming(boolean xmlStreaming) {
+    this.xmlStreaming = xmlStreaming;
+  }
+
+  public boolean isSubmissionBundleLog() {
+    return submissionBundleLog;
+  }
+
+  public void setSubmissionBundleLog(boolean submissionBundleLog) {
+    this.submissionBundleLog = submissionBundleLog;
+  }
+
+  public SubmissionBundleVerificationLevel getSubmissionBundleVerificationLevel() {
+    return submissionBundleVerificationLevel;
+  }
+
+  public void setSubmissionBundleVerificationLevel(
+      SubmissionBundleVerificationLevel submissionBundleVerificationLevel) {
+    this.submissionBundleVerificationLevel = submissionBundleVerificationLevel;
+  }
+
+  public boolean isSpeculativeUpload() {
+    return speculativeUpload;
+  }
+
+  public void setSpeculativeUpload(boolean speculativeUpload) {
+    this.speculativeUpload = speculativeUpload;
+  }
+
+  public int getAscpRate() {
+    return ascpRate;
+  }
+
+  public void setAscpRate(int ascpRate) {
+    this.ascpRate = ascpRate;
+  }
+
+  public int getAscpSessions() {
+    return ascpSessions;
+  }
+
+  public void setAscpSessions(int ascpSessions) {
+    this.ascpSessions = ascpSessions;
+  }
+
+  public boolean isJfr() {
+    return jfr;
+  }
+
+  public void setJfr(boolean jfr) {
+    this.jfr = jfr;
+  }
+
+  public boolean isReportDetail() {
+    return reportDetail;
+  }
+
+  public void setReportDetail(boolean reportDetail) {
+    this.reportDetail = reportDetail;
+  }
+
+  public int getMaxErrors() {
+    return maxErrors;
+  }
+
+  public void setMaxErrors(int maxErrors) {
+    this.maxErrors = maxErrors;
+  }
+
+  public int getMaxBatchErrors() {
+    return maxBatchErrors;
+  }
+
+  public void setMaxBatchErrors(int maxBatchErrors) {
+    this.maxBatchErrors = maxBatchErrors;
+  }
+
+  public boolean isContinueOnError() {
+    return continueOnError;
+  }
+
+  public void setContinueOnError(boolean continueOnError) {
+    this.continueOnError = continueOnError;
+  }
+
+  public int getHedgePercentile() {
+    return hedgePercentile;
+  }
+
+  public void setHedgePercentile(int hedgePercentile) {
+    this.hedgePercentile = hedgePercentile;
+  }
+
+  public double getHedgeBudget() {
+    return hedgeBudget;
+  }
+
+  public void setHedgeBudget(double hedgeBudget) {
+    this.hedgeBudget = hedgeBudget;
+  }
+
+  public int getSubmitBatchSize() {
+    return submitBatchSize;
+  }
+
+  public void setSubmitBatchSize(int submitBatchSize) {
+    this.submitBatchSize = submitBatchSize;
+  }
+
   public SampleProcessor getSampleProcessor() {
     return sampleProcessor;
   }
@@ -248,6 +419,14 @@ public class WebinCliParameters implements MetadataProcessorParameters {
     this.isSampleUpdate = sampleUpdate;
   }
 
+  public int getSampleBatchSize() {
+    return sampleBatchSize;
+  }
+
+  public void setSampleBatchSize(int sampleBatchSize) {
+    this.sampleBatchSize = sampleBatchSize;
+  }
+
   public String getFileUploadServiceUserName() {
     // Use su-Webin-N, mg-Webin-N, or Webin-N for FTP and Aspera authentication.
     return (username.startsWith("su-Webin") || username.startsWith("mg-Webin"))
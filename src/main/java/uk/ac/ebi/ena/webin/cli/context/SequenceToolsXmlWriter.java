@@ -10,21 +10,17 @@
  */
 package uk.ac.ebi.ena.webin.cli.context;
 
-import java.io.IOException;
-import java.io.StringWriter;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import org.jdom2.Element;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
-import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
 import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.Manifest;
 import uk.ac.ebi.ena.webin.cli.validator.reference.Analysis;
 import uk.ac.ebi.ena.webin.cli.validator.reference.Run;
+import uk.ac.ebi.ena.webin.cli.xml.XmlElementWriter;
+import uk.ac.ebi.ena.webin.cli.xml.XmlOutput;
 import uk.ac.ebi.ena.webin.cli.xml.XmlWriter;
 
 public abstract class SequenceToolsXmlWriter<M extends Manifest, R extends ValidationResponse>
@@ -39,116 +35,118 @@ public abstract class SequenceToolsXmlWriter<M extends Manifest, R extends Valid
   }
 
   @Override
-  public Map<SubmissionBundle.SubmissionXMLFileType, String> createXml(
+  public void writeXml(
       M manifest,
       R response,
       String centerName,
       String submissionTitle,
       String submissionAlias,
       Path inputDir,
+      Path uploadDir,
+      XmlOutput xmlOutput) {
+    xmlOutput.write(
+        SubmissionBundle.SubmissionXMLFileType.ANALYSIS,
+        writer ->
+            writeAnalysisXml(
+                writer,
+                manifest,
+                centerName,
+                submissionTitle,
+                submissionAlias,
+                inputDir,
+                uploadDir));
+  }
+
+  private void writeAnalysisXml(
+      XmlElementWriter writer,
+      M manifest,
+      String centerName,
+      String submissionTitle,
+      String submissionAlias,
+      Path inputDir,
       Path uploadDir) {
 
-    Element analysisSetE = new Element("ANALYSIS_SET");
-    Element analysisE = new Element("ANALYSIS");
-    analysisSetE.addContent(analysisE);
+    writer.startElement("ANALYSIS_SET");
+    writer.startElement("ANALYSIS");
 
-    analysisE.setAttribute("alias", submissionAlias);
+    writer.attribute("alias", submissionAlias);
 
-    if (null != centerName && !centerName.isEmpty())
-      analysisE.setAttribute("center_name", centerName);
+    if (null != centerName && !centerName.isEmpty()) writer.attribute("center_name", centerName);
 
-    analysisE.addContent(new Element("TITLE").setText(submissionTitle));
+    writer.textElement("TITLE", submissionTitle);
 
     if (null != manifest.getDescription() && !manifest.getDescription().isEmpty())
-      analysisE.addContent(new Element("DESCRIPTION").setText(manifest.getDescription()));
+      writer.textElement("DESCRIPTION", manifest.getDescription());
 
-    Element studyRefE = new Element("STUDY_REF");
-    analysisE.addContent(studyRefE);
-    studyRefE.setAttribute("accession", manifest.getStudy().getBioProjectId());
+    writer
+        .startElement("STUDY_REF")
+        .attribute("accession", manifest.getStudy().getBioProjectId())
+        .endElement();
     if (manifest.getSample() != null
         && manifest.getSample().getBioSampleId() != null
         && !manifest.getSample().getBioSampleId().isEmpty()) {
-      Element sampleRefE = new Element("SAMPLE_REF");
-      analysisE.addContent(sampleRefE);
-      sampleRefE.setAttribute("accession", manifest.getSample().getBioSampleId());
+      writer
+          .startElement("SAMPLE_REF")
+          .attribute("accession", manifest.getSample().getBioSampleId())
+          .endElement();
     }
 
     if (null != manifest.getRun()) {
       List<Run> run = manifest.getRun();
       for (Run r : run) {
-        Element runRefE = new Element("RUN_REF");
-        analysisE.addContent(runRefE);
-        runRefE.setAttribute("accession", r.getRunId());
+        writer.startElement("RUN_REF").attribute("accession", r.getRunId()).endElement();
       }
     }
 
     if (null != manifest.getAnalysis()) {
       List<Analysis> analysis = manifest.getAnalysis();
       for (Analysis a : analysis) {
-        Element analysisRefE = new Element("ANALYSIS_REF");
-        analysisE.addContent(analysisRefE);
-        analysisRefE.setAttribute("accession", a.getAnalysisId());
+        writer.startElement("ANALYSIS_REF").attribute("accession", a.getAnalysisId()).endElement();
       }
     }
 
-    Element analysisTypeE = new Element("ANALYSIS_TYPE");
-    analysisE.addContent(analysisTypeE);
-    Element typeE = createXmlAnalysisTypeElement(manifest);
-    analysisTypeE.addContent(typeE);
-
-    Element filesE = new Element("FILES");
-    analysisE.addContent(filesE);
-
-    for (Element e : createXmlFileElements(manifest, inputDir, uploadDir)) filesE.addContent(e);
+    writer.startElement("ANALYSIS_TYPE");
+    writer.element(createXmlAnalysisTypeElement(manifest));
+    writer.endElement();
 
-    Element analysisAttributesE = new Element("ANALYSIS_ATTRIBUTES");
+    writer.startElement("FILES");
+    for (Element e : createXmlFileElements(manifest, inputDir, uploadDir)) writer.element(e);
+    writer.endElement();
 
-    if (manifest.getSubmissionTool() != null && !manifest.getSubmissionTool().isEmpty()) {
-      Element submissionToolAnalysisAttributeTagE = new Element("TAG").setText("SUBMISSION_TOOL");
-      Element submissionToolAnalysisAttributeValueE =
-          new Element("VALUE").setText(manifest.getSubmissionTool());
+    boolean hasSubmissionTool =
+        manifest.getSubmissionTool() != null && !manifest.getSubmissionTool().isEmpty();
+    boolean hasSubmissionToolVersion =
+        manifest.getSubmissionToolVersion() != null
+            && !manifest.getSubmissionToolVersion().isEmpty();
 
-      Element submissionToolAnalysisAttributeE = new Element("ANALYSIS_ATTRIBUTE");
-      submissionToolAnalysisAttributeE.addContent(submissionToolAnalysisAttributeTagE);
-      submissionToolAnalysisAttributeE.addContent(submissionToolAnalysisAttributeValueE);
+    Element customAttributesE = new Element("ANALYSIS_ATTRIBUTES");
+    addCustomAttributes(manifest, customAttributesE);
 
-      analysisAttributesE.addContent(submissionToolAnalysisAttributeE);
-    }
-
-    if (manifest.getSubmissionToolVersion() != null
-        && !manifest.getSubmissionToolVersion().isEmpty()) {
-      Element submissionToolVersionAnalysisAttributeTagE =
-          new Element("TAG").setText("SUBMISSION_TOOL_VERSION");
-      Element submissionToolVersionAnalysisAttributeValueE =
-          new Element("VALUE").setText(manifest.getSubmissionToolVersion());
-
-      Element submissionToolVersionAnalysisAttributeE = new Element("ANALYSIS_ATTRIBUTE");
-      submissionToolVersionAnalysisAttributeE.addContent(
-          submissionToolVersionAnalysisAttributeTagE);
-      submissionToolVersionAnalysisAttributeE.addContent(
-          submissionToolVersionAnalysisAttributeValueE);
-
-      analysisAttributesE.addContent(submissionToolVersionAnalysisAttributeE);
-    }
+    if (hasSubmissionTool || hasSubmissionToolVersion || customAttributesE.getContentSize() > 0) {
+      writer.startElement("ANALYSIS_ATTRIBUTES");
 
-    addCustomAttributes(manifest, analysisAttributesE);
+      if (hasSubmissionTool) {
+        writer.startElement("ANALYSIS_ATTRIBUTE");
+        writer.textElement("TAG", "SUBMISSION_TOOL");
+        writer.textElement("VALUE", manifest.getSubmissionTool());
+        writer.endElement();
+      }
 
-    if (analysisAttributesE.getContentSize() > 0) {
-      analysisE.addContent(analysisAttributesE);
-    }
+      if (hasSubmissionToolVersion) {
+        writer.startElement("ANALYSIS_ATTRIBUTE");
+        writer.textElement("TAG", "SUBMISSION_TOOL_VERSION");
+        writer.textElement("VALUE", manifest.getSubmissionToolVersion());
+        writer.endElement();
+      }
 
-    XMLOutputter xmlOutput = new XMLOutputter();
-    xmlOutput.setFormat(Format.getPrettyFormat());
-    StringWriter stringWriter = new StringWriter();
+      for (Element customAttributeE : new ArrayList<>(customAttributesE.getChildren())) {
+        writer.element(customAttributeE.detach());
+      }
 
-    try {
-      xmlOutput.output(analysisSetE, stringWriter);
-    } catch (IOException ex) {
-      throw WebinCliException.systemError(ex);
+      writer.endElement();
     }
 
-    Map<SubmissionBundle.SubmissionXMLFileType, String> xmls = new HashMap<>();
-    xmls.put(SubmissionBundle.SubmissionXMLFileType.ANALYSIS, stringWriter.toString());
-    return xmls;
+    writer.endElement(); // ANALYSIS
+    writer.endElement(); // ANALYSIS_SET
   }
 }
@@ -10,20 +10,13 @@
  */
 package uk.ac.ebi.ena.webin.cli.context;
 
-import java.io.IOException;
-import java.io.StringWriter;
-import java.util.HashMap;
 import java.util.Map;
-import org.jdom2.CDATA;
-import org.jdom2.Content;
-import org.jdom2.Element;
-import org.jdom2.Text;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
-import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
 import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.Manifest;
+import uk.ac.ebi.ena.webin.cli.xml.JdomXmlOutput;
+import uk.ac.ebi.ena.webin.cli.xml.XmlElementWriter;
+import uk.ac.ebi.ena.webin.cli.xml.XmlOutput;
 
 public class SubmissionXmlWriter<M extends Manifest, R extends ValidationResponse> {
 
@@ -33,58 +26,58 @@ public class SubmissionXmlWriter<M extends Manifest, R extends ValidationRespons
       String submissionTool,
       String manifestFileContent,
       String manifestFileMd5) {
+    JdomXmlOutput xmlOutput = new JdomXmlOutput(null);
+    writeXml(
+        response, centerName, submissionTool, manifestFileContent, manifestFileMd5, xmlOutput);
+    return xmlOutput.getXmls();
+  }
 
-    Element submissionSetE = new Element("SUBMISSION_SET");
-
-    Element submissionE = new Element("SUBMISSION");
-    if (centerName != null && !centerName.isEmpty()) {
-      submissionE.setAttribute("center_name", centerName);
-    }
-    submissionSetE.addContent(submissionE);
-
-    Element actionsE = new Element("ACTIONS");
-    submissionE.addContent(actionsE);
-
-    Element actionE = new Element("ACTION");
-    actionsE.addContent(actionE);
-
-    Element addE = new Element("ADD");
-    actionE.addContent(addE);
-
-    Element submissionAttributesE = new Element("SUBMISSION_ATTRIBUTES");
-    submissionE.addContent(submissionAttributesE);
-
-    addAttribute(submissionAttributesE, "ENA-SUBMISSION-TOOL", new Text(submissionTool));
-    addAttribute(submissionAttributesE, "ENA-MANIFEST-FILE", new CDATA(manifestFileContent));
-    addAttribute(submissionAttributesE, "ENA-MANIFEST-FILE-MD5", new Text(manifestFileMd5));
-
-    Format format = Format.getPrettyFormat();
-
-    XMLOutputter xmlOutput = new XMLOutputter();
-    xmlOutput.setFormat(format);
-    StringWriter stringWriter = new StringWriter();
-
-    try {
-      xmlOutput.output(submissionSetE, stringWriter);
-    } catch (IOException ex) {
-      throw WebinCliException.systemError(ex);
-    }
-
-    Map<SubmissionBundle.SubmissionXMLFileType, String> xmls = new HashMap<>();
-    xmls.put(SubmissionBundle.SubmissionXMLFileType.SUBMISSION, stringWriter.toString());
-    return xmls;
+  public void writeXml(
+      R response,
+      String centerName,
+      String submissionTool,
+      String manifestFileContent,
+      String manifestFileMd5,
+      XmlOutput xmlOutput) {
+    xmlOutput.write(
+        SubmissionBundle.SubmissionXMLFileType.SUBMISSION,
+        writer -> {
+          writer.startElement("SUBMISSION_SET");
+
+          writer.startElement("SUBMISSION");
+          if (centerName != null && !centerName.isEmpty()) {
+            writer.attribute("center_name", centerName);
+          }
+
+          writer.startElement("ACTIONS");
+          writer.startElement("ACTION");
+          writer.startElement("ADD").endElement();
+          writer.endElement(); // ACTION
+          writer.endElement(); // ACTIONS
+
+          writer.startElement("SUBMISSION_ATTRIBUTES");
+          addAttribute(writer, "ENA-SUBMISSION-TOOL", submissionTool, false);
+          addAttribute(writer, "ENA-MANIFEST-FILE", manifestFileContent, true);
+          addAttribute(writer, "ENA-MANIFEST-FILE-MD5", manifestFileMd5, false);
+          writer.endElement(); // SUBMISSION_ATTRIBUTES
+
+          writer.endElement(); // SUBMISSION
+          writer.endElement(); // SUBMISSION_SET
+        });
   }
 
-  private void addAttribute(Element submissionAttributesE, String tag, Content value) {
-    Element attributeE = new Element("SUBMISSION_ATTRIBUTE");
-    submissionAttributesE.addContent(attributeE);
+  private void addAttribute(XmlElementWriter writer, String tag, String value, boolean cdata) {
+    writer.startElement("SUBMISSION_ATTRIBUTE");
+    writer.textElement("TAG", tag);
 
-    Element tagE = new Element("TAG");
-    tagE.addContent(tag);
-    attributeE.addContent(tagE);
+    writer.startElement("VALUE");
+    if (cdata) {
+      writer.cdata(value);
+    } else {
+      writer.text(value);
+    }
+    writer.endElement();
 
-    Element valueE = new Element("VALUE");
-    valueE.addContent(value);
-    attributeE.addContent(valueE);
+    writer.endElement();
   }
 }
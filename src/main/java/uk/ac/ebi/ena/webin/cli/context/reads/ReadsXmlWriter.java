@@ -13,45 +13,48 @@ package uk.ac.ebi.ena.webin.cli.context.reads;
 import static uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest.FileType;
 import static uk.ac.ebi.ena.webin.cli.xml.XmlWriterHelper.createFileElement;
 
-import java.io.IOException;
-import java.io.StringWriter;
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import org.apache.commons.lang.StringUtils;
-import org.jdom2.Element;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
-import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.ReadsManifest;
 import uk.ac.ebi.ena.webin.cli.validator.response.ReadsValidationResponse;
+import uk.ac.ebi.ena.webin.cli.xml.XmlElementWriter;
+import uk.ac.ebi.ena.webin.cli.xml.XmlOutput;
 import uk.ac.ebi.ena.webin.cli.xml.XmlWriter;
 
 public class ReadsXmlWriter implements XmlWriter<ReadsManifest, ReadsValidationResponse> {
 
   @Override
-  public Map<SubmissionBundle.SubmissionXMLFileType, String> createXml(
+  public void writeXml(
       ReadsManifest manifest,
       ReadsValidationResponse response,
       String centerName,
       String submissionTitle,
       String submissionAlias,
       Path inputDir,
-      Path uploadDir) {
+      Path uploadDir,
+      XmlOutput xmlOutput) {
 
-    Map<SubmissionBundle.SubmissionXMLFileType, String> xmls = new LinkedHashMap<>();
-    xmls.put(
+    xmlOutput.write(
         SubmissionBundle.SubmissionXMLFileType.EXPERIMENT,
-        createExperimentXml(manifest, response, submissionTitle, submissionAlias, centerName));
-    xmls.put(
+        writer ->
+            writeExperimentXml(
+                writer, manifest, response, submissionTitle, submissionAlias, centerName));
+    xmlOutput.write(
         SubmissionBundle.SubmissionXMLFileType.RUN,
-        createRunXml(manifest, submissionTitle, submissionAlias, centerName, inputDir, uploadDir));
-
-    return xmls;
+        writer ->
+            writeRunXml(
+                writer,
+                manifest,
+                submissionTitle,
+                submissionAlias,
+                centerName,
+                inputDir,
+                uploadDir));
   }
 
-  private String createExperimentXml(
+  private void writeExperimentXml(
+      XmlElementWriter writer,
       ReadsManifest manifest,
       ReadsValidationResponse response,
       String submissionTitle,
@@ -69,241 +72,174 @@ public class ReadsXmlWriter implements XmlWriter<ReadsManifest, ReadsValidationR
     String platform = manifest.getPlatform();
     Integer insertSize = manifest.getInsertSize();
 
-    try {
-      String title = submissionTitle;
-      Element experimentSetE = new Element("EXPERIMENT_SET");
-      Element experimentE = new Element("EXPERIMENT");
-      experimentSetE.addContent(experimentE);
-
-      experimentE.setAttribute("alias", submissionAlias);
-
-      if (null != centerName && !centerName.isEmpty()) {
-        experimentE.setAttribute("center_name", centerName);
-      }
-
-      experimentE.addContent(new Element("TITLE").setText(title));
-
-      Element studyRefE = new Element("STUDY_REF");
-      experimentE.addContent(studyRefE);
-
-      if (manifest.getStudy() != null) {
-        studyRefE.setAttribute("accession", manifest.getStudy().getBioProjectId());
-      }
-
-      Element designE = new Element("DESIGN");
-      experimentE.addContent(designE);
-
-      Element designDescriptionE = new Element("DESIGN_DESCRIPTION");
-      designDescriptionE.setText(description);
-      designE.addContent(designDescriptionE);
+    String title = submissionTitle;
+    writer.startElement("EXPERIMENT_SET");
+    writer.startElement("EXPERIMENT");
 
-      Element sampleDescriptorE = new Element("SAMPLE_DESCRIPTOR");
+    writer.attribute("alias", submissionAlias);
 
-      if (manifest.getStudy() != null) {
-        sampleDescriptorE.setAttribute("accession", manifest.getSample().getBioSampleId());
-      }
-
-      designE.addContent(sampleDescriptorE);
-
-      Element libraryDescriptorE = new Element("LIBRARY_DESCRIPTOR");
-      designE.addContent(libraryDescriptorE);
-
-      if (null != libraryName) {
-        Element libraryNameE = new Element("LIBRARY_NAME");
-        libraryNameE.setText(libraryName);
-        libraryDescriptorE.addContent(libraryNameE);
-      }
-
-      Element libraryStrategyE = new Element("LIBRARY_STRATEGY");
-      libraryStrategyE.setText(libraryStrategy);
-      libraryDescriptorE.addContent(libraryStrategyE);
-
-      Element librarySourceE = new Element("LIBRARY_SOURCE");
-      librarySourceE.setText(librarySource);
-      libraryDescriptorE.addContent(librarySourceE);
-
-      Element librarySelectionE = new Element("LIBRARY_SELECTION");
-      librarySelectionE.setText(librarySelection);
-      libraryDescriptorE.addContent(librarySelectionE);
-
-      Element libraryLayoutE = new Element("LIBRARY_LAYOUT");
+    if (null != centerName && !centerName.isEmpty()) {
+      writer.attribute("center_name", centerName);
+    }
 
-      if (!response.isPaired()) {
-        libraryLayoutE.addContent(new Element("SINGLE"));
-      } else {
-        Element pairedE = new Element("PAIRED");
-        libraryLayoutE.addContent(pairedE);
+    writer.textElement("TITLE", title);
 
-        if (null != insertSize) {
-          pairedE.setAttribute("NOMINAL_LENGTH", String.valueOf(insertSize));
-        }
-      }
+    writer.startElement("STUDY_REF");
+    if (manifest.getStudy() != null) {
+      writer.attribute("accession", manifest.getStudy().getBioProjectId());
+    }
+    writer.endElement();
 
-      libraryDescriptorE.addContent(libraryLayoutE);
+    writer.startElement("DESIGN");
 
-      if (null != libraryConstructorProtocol) {
-        Element libraryConstructorProtocolE = new Element("LIBRARY_CONSTRUCTION_PROTOCOL");
-        libraryConstructorProtocolE.setText(libraryConstructorProtocol);
-        libraryDescriptorE.addContent(libraryConstructorProtocolE);
-      }
+    writer.textElement("DESIGN_DESCRIPTION", description);
 
-      Element platformE = new Element("PLATFORM");
-      experimentE.addContent(platformE);
+    writer.startElement("SAMPLE_DESCRIPTOR");
+    if (manifest.getStudy() != null) {
+      writer.attribute("accession", manifest.getSample().getBioSampleId());
+    }
+    writer.endElement();
 
-      Element platformRefE = new Element(platform);
-      platformE.addContent(platformRefE);
-      Element instrumentModelE = new Element("INSTRUMENT_MODEL");
-      instrumentModelE.setText(instrument);
-      platformRefE.addContent(instrumentModelE);
+    writer.startElement("LIBRARY_DESCRIPTOR");
 
-      Element expAttributesE = new Element("EXPERIMENT_ATTRIBUTES");
+    if (null != libraryName) {
+      writer.textElement("LIBRARY_NAME", libraryName);
+    }
 
-      if (manifest.getSubmissionTool() != null && !manifest.getSubmissionTool().isEmpty()) {
-        Element submissionToolExpAttributeTagE = new Element("TAG").setText("SUBMISSION_TOOL");
-        Element submissionToolExpAttributeValueE =
-            new Element("VALUE").setText(manifest.getSubmissionTool());
+    writer.textElement("LIBRARY_STRATEGY", libraryStrategy);
+    writer.textElement("LIBRARY_SOURCE", librarySource);
+    writer.textElement("LIBRARY_SELECTION", librarySelection);
 
-        Element submissionToolExpAttributeE = new Element("EXPERIMENT_ATTRIBUTE");
-        submissionToolExpAttributeE.addContent(submissionToolExpAttributeTagE);
-        submissionToolExpAttributeE.addContent(submissionToolExpAttributeValueE);
+    writer.startElement("LIBRARY_LAYOUT");
 
-        expAttributesE.addContent(submissionToolExpAttributeE);
+    if (!response.isPaired()) {
+      writer.startElement("SINGLE").endElement();
+    } else {
+      writer.startElement("PAIRED");
+      if (null != insertSize) {
+        writer.attribute("NOMINAL_LENGTH", String.valueOf(insertSize));
       }
+      writer.endElement();
+    }
 
-      if (manifest.getSubmissionToolVersion() != null
-          && !manifest.getSubmissionToolVersion().isEmpty()) {
-        Element submissionToolVersionExpAttributeTagE =
-            new Element("TAG").setText("SUBMISSION_TOOL_VERSION");
-        Element submissionToolVersionExpAttributeValueE =
-            new Element("VALUE").setText(manifest.getSubmissionToolVersion());
+    writer.endElement(); // LIBRARY_LAYOUT
 
-        Element submissionToolVersionExpAttributeE = new Element("EXPERIMENT_ATTRIBUTE");
-        submissionToolVersionExpAttributeE.addContent(submissionToolVersionExpAttributeTagE);
-        submissionToolVersionExpAttributeE.addContent(submissionToolVersionExpAttributeValueE);
+    if (null != libraryConstructorProtocol) {
+      writer.textElement("LIBRARY_CONSTRUCTION_PROTOCOL", libraryConstructorProtocol);
+    }
 
-        expAttributesE.addContent(submissionToolVersionExpAttributeE);
-      }
+    writer.endElement(); // LIBRARY_DESCRIPTOR
+    writer.endElement(); // DESIGN
 
-      if (expAttributesE.getContentSize() > 0) {
-        experimentE.addContent(expAttributesE);
-      }
+    writer.startElement("PLATFORM");
+    writer.startElement(platform);
+    writer.textElement("INSTRUMENT_MODEL", instrument);
+    writer.endElement();
+    writer.endElement(); // PLATFORM
 
-      XMLOutputter xmlOutput = new XMLOutputter();
-      xmlOutput.setFormat(Format.getPrettyFormat());
-      StringWriter stringWriter = new StringWriter();
-      xmlOutput.output(experimentSetE, stringWriter);
-      return stringWriter.toString();
+    writeSubmissionToolAttributes(
+        writer, manifest, "EXPERIMENT_ATTRIBUTES", "EXPERIMENT_ATTRIBUTE");
 
-    } catch (IOException ex) {
-      throw WebinCliException.systemError(ex);
-    }
+    writer.endElement(); // EXPERIMENT
+    writer.endElement(); // EXPERIMENT_SET
   }
 
-  String createRunXml(
+  void writeRunXml(
+      XmlElementWriter writer,
       ReadsManifest manifest,
       String submissionTitle,
       String submissionAlias,
       String centerName,
       Path inputDir,
       Path uploadDir) {
-    try {
-      String title = submissionTitle;
-      Element runSetE = new Element("RUN_SET");
-      Element runE = new Element("RUN");
-      runSetE.addContent(runE);
+    String title = submissionTitle;
+    writer.startElement("RUN_SET");
+    writer.startElement("RUN");
 
-      runE.setAttribute("alias", submissionAlias);
-
-      if (null != centerName && !centerName.isEmpty()) {
-        runE.setAttribute("center_name", centerName);
-      }
+    writer.attribute("alias", submissionAlias);
 
-      runE.addContent(new Element("TITLE").setText(title));
-      Element experimentRefE = new Element("EXPERIMENT_REF");
-      runE.addContent(experimentRefE);
-      experimentRefE.setAttribute("refname", submissionAlias);
-
-      Element dataBlockE = new Element("DATA_BLOCK");
-      runE.addContent(dataBlockE);
-      Element filesE = new Element("FILES");
-      dataBlockE.addContent(filesE);
-
-      manifest.files(FileType.BAM).stream()
-          .forEach(
-              file ->
-                  filesE.addContent(
-                      createFileElement(
-                          inputDir,
-                          uploadDir,
-                          file.getFile().toPath(),
-                          file.getMd5(),
-                          "bam",
-                          null)));
-
-      manifest.files(FileType.CRAM).stream()
-          .forEach(
-              file ->
-                  filesE.addContent(
-                      createFileElement(
-                          inputDir,
-                          uploadDir,
-                          file.getFile().toPath(),
-                          file.getMd5(),
-                          "cram",
-                          null)));
-
-      manifest.files(FileType.FASTQ).stream()
-          .forEach(
-              file ->
-                  filesE.addContent(
-                      createFileElement(
-                          inputDir,
-                          uploadDir,
-                          file.getFile().toPath(),
-                          file.getMd5(),
-                          "fastq",
-                          file.getAttributes())));
-
-      Element runAttributesE = new Element("RUN_ATTRIBUTES");
-
-      if (manifest.getSubmissionTool() != null && !manifest.getSubmissionTool().isEmpty()) {
-        Element submissionToolRunAttributeTagE = new Element("TAG").setText("SUBMISSION_TOOL");
-        Element submissionToolRunAttributeValueE =
-            new Element("VALUE").setText(manifest.getSubmissionTool());
-
-        Element submissionToolRunAttributeE = new Element("RUN_ATTRIBUTE");
-        submissionToolRunAttributeE.addContent(submissionToolRunAttributeTagE);
-        submissionToolRunAttributeE.addContent(submissionToolRunAttributeValueE);
-
-        runAttributesE.addContent(submissionToolRunAttributeE);
-      }
-
-      if (manifest.getSubmissionToolVersion() != null
-          && !manifest.getSubmissionToolVersion().isEmpty()) {
-        Element submissionToolVersionRunAttributeTagE =
-            new Element("TAG").setText("SUBMISSION_TOOL_VERSION");
-        Element submissionToolVersionRunAttributeValueE =
-            new Element("VALUE").setText(manifest.getSubmissionToolVersion());
+    if (null != centerName && !centerName.isEmpty()) {
+      writer.attribute("center_name", centerName);
+    }
 
-        Element submissionToolVersionRunAttributeE = new Element("RUN_ATTRIBUTE");
-        submissionToolVersionRunAttributeE.addContent(submissionToolVersionRunAttributeTagE);
-        submissionToolVersionRunAttributeE.addContent(submissionToolVersionRunAttributeValueE);
+    writer.textElement("TITLE", title);
+    writer.startElement("EXPERIMENT_REF").attribute("refname", submissionAlias).endElement();
+
+    writer.startElement("DATA_BLOCK");
+    writer.startElement("FILES");
+
+    // File elements are written one by one so that runs with many files are not held in memory.
+    manifest.files(FileType.BAM).stream()
+        .forEach(
+            file ->
+                writer.element(
+                    createFileElement(
+                        inputDir, uploadDir, file.getFile().toPath(), file.getMd5(), "bam", null)));
+
+    manifest.files(FileType.CRAM).stream()
+        .forEach(
+            file ->
+                writer.element(
+                    createFileElement(
+                        inputDir,
+                        uploadDir,
+                        file.getFile().toPath(),
+                        file.getMd5(),
+                        "cram",
+                        null)));
+
+    manifest.files(FileType.FASTQ).stream()
+        .forEach(
+            file ->
+                writer.element(
+                    createFileElement(
+                        inputDir,
+                        uploadDir,
+                        file.getFile().toPath(),
+                        file.getMd5(),
+                        "fastq",
+                        file.getAttributes())));
+
+    writer.endElement(); // FILES
+    writer.endElement(); // DATA_BLOCK
+
+    writeSubmissionToolAttributes(writer, manifest, "RUN_ATTRIBUTES", "RUN_ATTRIBUTE");
+
+    writer.endElement(); // RUN
+    writer.endElement(); // RUN_SET
+  }
 
-        runAttributesE.addContent(submissionToolVersionRunAttributeE);
-      }
+  private void writeSubmissionToolAttributes(
+      XmlElementWriter writer,
+      ReadsManifest manifest,
+      String attributesElementName,
+      String attributeElementName) {
+    boolean hasSubmissionTool =
+        manifest.getSubmissionTool() != null && !manifest.getSubmissionTool().isEmpty();
+    boolean hasSubmissionToolVersion =
+        manifest.getSubmissionToolVersion() != null
+            && !manifest.getSubmissionToolVersion().isEmpty();
+
+    if (!hasSubmissionTool && !hasSubmissionToolVersion) {
+      return;
+    }
 
-      if (runAttributesE.getContentSize() > 0) {
-        runE.addContent(runAttributesE);
-      }
+    writer.startElement(attributesElementName);
 
-      XMLOutputter xmlOutput = new XMLOutputter();
-      xmlOutput.setFormat(Format.getPrettyFormat());
-      StringWriter stringWriter = new StringWriter();
-      xmlOutput.output(runSetE, stringWriter);
-      return stringWriter.toString();
+    if (hasSubmissionTool) {
+      writer.startElement(attributeElementName);
+      writer.textElement("TAG", "SUBMISSION_TOOL");
+      writer.textElement("VALUE", manifest.getSubmissionTool());
+      writer.endElement();
+    }
 
-    } catch (IOException ex) {
-      throw WebinCliException.systemError(ex);
+    if (hasSubmissionToolVersion) {
+      writer.startElement(attributeElementName);
+      writer.textElement("TAG", "SUBMISSION_TOOL_VERSION");
+      writer.textElement("VALUE", manifest.getSubmissionToolVersion());
+      writer.endElement();
     }
+
+    writer.endElement();
   }
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.manifest;
+
+import java.util.List;
+import uk.ac.ebi.ena.webin.cli.validator.message.ValidationResult;
+
+/**
+ * Field processor that is given all the values of its fields from all the field groups before the
+ * values are processed one by one. This allows expensive work such as remote service calls to be
+ * done once for all the values instead of once per value.
+ */
+public interface ManifestFieldBatchProcessor extends ManifestFieldProcessor {
+
+  /**
+   * Prepares the processing of the given field values. Values that could not be prepared must still
+   * be processed correctly by {@link #process(ValidationResult, ManifestFieldGroup,
+   * ManifestFieldValue)}.
+   */
+  void prepare(ValidationResult result, List<ManifestFieldValue> fieldValues);
+}
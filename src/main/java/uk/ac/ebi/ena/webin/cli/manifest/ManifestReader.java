@@ -21,14 +21,23 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.lang.StringUtils;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
 import uk.ac.ebi.ena.webin.cli.WebinCliParameters;
+import uk.ac.ebi.ena.webin.cli.trace.Span;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
+import uk.ac.ebi.ena.webin.cli.utils.FileAttributeCache;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.Manifest;
 import uk.ac.ebi.ena.webin.cli.validator.message.ValidationMessage;
 import uk.ac.ebi.ena.webin.cli.validator.message.ValidationOrigin;
@@ -39,6 +48,12 @@ public abstract class ManifestReader<M extends Manifest> {
 
   public static final String KEY_VALUE_COMMENT_REGEX = "^[\\s]*(#|;|\\/\\/).*$";
 
+  /** System property for the maximum number of files checked concurrently. */
+  public static final String FILE_CHECK_THREADS_PROPERTY = "webin.cli.manifest.fileCheckThreads";
+
+  private static final int FILE_CHECK_THREADS =
+      Math.max(1, Integer.getInteger(FILE_CHECK_THREADS_PROPERTY, 16));
+
   public abstract Collection<M> getManifests();
 
   protected abstract M createManifest();
@@ -81,6 +96,18 @@ public abstract class ManifestReader<M extends Manifest> {
     final Path inputDir;
     String fileName;
     int lineNo = 0;
+
+    /** File fields whose files have not been checked yet. */
+    final List<ManifestFieldValue> uncheckedFileFields = new ArrayList<>();
+  }
+
+  /** The outcome of checking the file of a file field. */
+  private static class FileCheck {
+    /** The field value the readable file was found with or null if it was not found. */
+    private String value;
+
+    /** The compression the file could not be uncompressed with or null. */
+    private String compressionError;
   }
 
   private final WebinCliParameters webinCliParameters;
@@ -161,15 +188,21 @@ public abstract class ManifestReader<M extends Manifest> {
     // A manifest file is essentially a list of field groups. Parsing step reads all such field
     // groups from the
     // file and puts them inside a collection.
-    Collection<ManifestFieldGroup> parsedFieldGroups = parseManifest(inputDir, manifestLines);
+    Collection<ManifestFieldGroup> parsedFieldGroups =
+        Trace.call("parseManifest", span -> parseManifest(inputDir, manifestLines));
 
     manifestReaderResult.getManifestFieldGroups().addAll(parsedFieldGroups);
 
-    expandInfoFields(inputDir);
+    Trace.run("checkFiles", span -> checkFiles(inputDir));
 
-    validateFields();
+    Trace.run("expandInfoFields", span -> expandInfoFields(inputDir));
 
-    processManifest();
+    // Checks the files referenced by the info files.
+    Trace.run("checkFiles", span -> checkFiles(inputDir));
+
+    Trace.run("validateFields", span -> validateFields());
+
+    Trace.run("processManifest", span -> processManifest());
   }
 
   public WebinCliParameters getWebinCliParameters() {
@@ -264,8 +297,8 @@ public abstract class ManifestReader<M extends Manifest> {
         getValidationResult().create(field.getOrigin());
 
         if (field.getDefinition().getType() == ManifestFieldType.FILE) {
-          // Validate file exists.
-          validateFileExists(inputDir, field);
+          // The files are checked once the manifest has been parsed.
+          state.uncheckedFileFields.add(field);
         }
 
         return field;
@@ -410,7 +443,8 @@ public abstract class ManifestReader<M extends Manifest> {
     getValidationResult().create(manifestField.getOrigin());
 
     if (manifestField.getDefinition().getType() == ManifestFieldType.FILE) {
-      validateFileExists(inputDir, manifestField);
+      // The files are checked once the manifest has been parsed.
+      state.uncheckedFileFields.add(manifestField);
     }
 
     fieldGroup.add(manifestField);
@@ -572,30 +606,37 @@ public abstract class ManifestReader<M extends Manifest> {
               }
             });
 
+    // Give batch processors all their field values before the fields are processed one by one.
+    Trace.run("prepareBatchProcessors", span -> prepareBatchProcessors());
+
     // Validate/fix fields and run their processors.
     manifestReaderResult
         .getManifestFieldGroups()
         .forEach(
             fieldGroup -> {
-              for (ManifestFieldValue fieldValue : fieldGroup) {
-                ManifestFieldDefinition fieldDefinition = fieldValue.getDefinition();
-
-                for (ManifestFieldProcessor processor : fieldDefinition.getFieldProcessors()) {
-                  ValidationResult result = getValidationResult().create(fieldValue.getOrigin());
-                  processor.process(result, fieldGroup, fieldValue);
-                  fieldValue.setValidFieldValueOrFileSuffix(result.isValid());
-                }
+              try (Span span = Trace.startSpan("processFields")) {
+                span.setAttribute(Span.MANIFEST, fieldGroup.getValue(Fields.NAME));
+                for (ManifestFieldValue fieldValue : fieldGroup) {
+                  ManifestFieldDefinition fieldDefinition = fieldValue.getDefinition();
+
+                  for (ManifestFieldProcessor processor : fieldDefinition.getFieldProcessors()) {
+                    ValidationResult result = getValidationResult().create(fieldValue.getOrigin());
+                    processor.process(result, fieldGroup, fieldValue);
+                    fieldValue.setValidFieldValueOrFileSuffix(result.isValid());
+                  }
 
-                // iterate over field attributes and run their processors.
-                for (ManifestFieldValue att : fieldValue.getAttributes()) {
-                  ManifestFieldDefinition attDef = att.getDefinition();
+                  // iterate over field attributes and run their processors.
+                  for (ManifestFieldValue att : fieldValue.getAttributes()) {
+                    ManifestFieldDefinition attDef = att.getDefinition();
 
-                  for (ManifestFieldProcessor attProcessor : attDef.getFieldProcessors()) {
-                    ValidationResult result = getValidationResult().create(att.getOrigin());
-                    attProcessor.process(result, fieldGroup, att);
-                    att.setValidFieldValueOrFileSuffix(result.isValid());
+                    for (ManifestFieldProcessor attProcessor : attDef.getFieldProcessors()) {
+                      ValidationResult result = getValidationResult().create(att.getOrigin());
+                      attProcessor.process(result, fieldGroup, att);
+                      att.setValidFieldValueOrFileSuffix(result.isValid());
+                    }
                   }
                 }
+                span.success();
               }
             });
 
@@ -606,6 +647,27 @@ public abstract class ManifestReader<M extends Manifest> {
     validateUniqueFileNames();
   }
 
+  private void prepareBatchProcessors() {
+    Map<ManifestFieldBatchProcessor, List<ManifestFieldValue>> batchProcessorFieldValues =
+        new LinkedHashMap<>();
+
+    for (ManifestFieldGroup fieldGroup : manifestReaderResult.getManifestFieldGroups()) {
+      for (ManifestFieldValue fieldValue : fieldGroup) {
+        for (ManifestFieldProcessor processor : fieldValue.getDefinition().getFieldProcessors()) {
+          if (processor instanceof ManifestFieldBatchProcessor) {
+            batchProcessorFieldValues
+                .computeIfAbsent(
+                    (ManifestFieldBatchProcessor) processor, key -> new ArrayList<>())
+                .add(fieldValue);
+          }
+        }
+      }
+    }
+
+    batchProcessorFieldValues.forEach(
+        (processor, fieldValues) -> processor.prepare(getValidationResult(), fieldValues));
+  }
+
   /**
    * Objects that override this method take all the parsed and validated field groups and create
    * manifest objects using them. As one field group maps to a single manifest object, there should
@@ -613,26 +675,92 @@ public abstract class ManifestReader<M extends Manifest> {
    */
   protected abstract void processManifest();
 
-  private void validateFileExists(Path inputDir, ManifestFieldValue field) {
-    ValidationResult result = getValidationResult().create(field.getOrigin());
+  /**
+   * Checks that the files of the parsed file fields exist, are readable and can be uncompressed.
+   * The files are checked concurrently as every file system operation may take milliseconds on
+   * network file systems. The file attributes are cached for later use. The errors are reported in
+   * the order of the fields.
+   */
+  private void checkFiles(Path inputDir) {
+    List<ManifestFieldValue> fields = new ArrayList<>(state.uncheckedFileFields);
+    state.uncheckedFileFields.clear();
+    if (fields.isEmpty()) {
+      return;
+    }
 
-    String fieldValue = field.getValue();
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            Math.min(FILE_CHECK_THREADS, fields.size()),
+            runnable -> {
+              Thread thread = new Thread(runnable, "ManifestReader-file-check");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      List<Future<FileCheck>> fileChecks = new ArrayList<>(fields.size());
+      for (ManifestFieldValue field : fields) {
+        String fieldValue = field.getValue();
+        fileChecks.add(executorService.submit(() -> checkFile(inputDir, fieldValue)));
+      }
 
+      for (int i = 0; i < fields.size(); i++) {
+        FileCheck fileCheck;
+        try {
+          fileCheck = fileChecks.get(i).get();
+        } catch (ExecutionException ex) {
+          fileCheck = new FileCheck();
+        }
+        reportFileCheck(fields.get(i), fileCheck);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw WebinCliException.systemError(ex);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static FileCheck checkFile(Path inputDir, String fieldValue) {
+    FileCheck fileCheck = new FileCheck();
     try {
-      if (Files.isReadable(Paths.get(fieldValue)) && !Files.isDirectory(Paths.get(fieldValue))) {
+      if (isReadableFile(Paths.get(fieldValue))) {
         // File is readable relative to default working dir.
-      } else if (Files.isReadable(inputDir.resolve(Paths.get(fieldValue)))
-          && !Files.isDirectory(inputDir.resolve(Paths.get(fieldValue)))) {
+        fileCheck.value = fieldValue;
+      } else if (isReadableFile(inputDir.resolve(Paths.get(fieldValue)))) {
         // File is readable relative to defined input dir.
-        field.setValue(inputDir.resolve(Paths.get(fieldValue)).toString());
+        fileCheck.value = inputDir.resolve(Paths.get(fieldValue)).toString();
       } else {
-        error(result, WebinCliMessage.MANIFEST_READER_INVALID_FILE_FIELD_ERROR, fieldValue);
-        return;
+        return fileCheck;
       }
 
-      validateFileCompression(result, field.getValue());
+      fileCheck.compressionError = getFileCompressionError(fileCheck.value);
     } catch (Throwable ex) {
-      error(result, WebinCliMessage.MANIFEST_READER_INVALID_FILE_FIELD_ERROR, fieldValue);
+      fileCheck.value = null;
+    }
+    return fileCheck;
+  }
+
+  private static boolean isReadableFile(Path file) {
+    BasicFileAttributes attributes = FileAttributeCache.getInstance().read(file);
+    return attributes != null && !attributes.isDirectory() && Files.isReadable(file);
+  }
+
+  private void reportFileCheck(ManifestFieldValue field, FileCheck fileCheck) {
+    ValidationResult result = getValidationResult().create(field.getOrigin());
+
+    if (fileCheck.value == null) {
+      error(result, WebinCliMessage.MANIFEST_READER_INVALID_FILE_FIELD_ERROR, field.getValue());
+      return;
+    }
+
+    field.setValue(fileCheck.value);
+
+    if (fileCheck.compressionError != null) {
+      error(
+          result,
+          WebinCliMessage.MANIFEST_READER_INVALID_FILE_COMPRESSION_ERROR,
+          field.getValue(),
+          fileCheck.compressionError);
     }
   }
 
@@ -749,27 +877,21 @@ public abstract class ManifestReader<M extends Manifest> {
     }
   }
 
-  private void validateFileCompression(ValidationResult result, String filePath) {
+  /** @return The compression the file could not be uncompressed with or null. */
+  private static String getFileCompressionError(String filePath) {
     if (filePath.endsWith(ManifestFileSuffix.GZIP_FILE_SUFFIX)) {
       try (GZIPInputStream gz = new GZIPInputStream(new FileInputStream(filePath))) {
       } catch (Exception e) {
-        error(
-            result,
-            WebinCliMessage.MANIFEST_READER_INVALID_FILE_COMPRESSION_ERROR,
-            filePath,
-            "gzip");
+        return "gzip";
       }
     } else if (filePath.endsWith(ManifestFileSuffix.BZIP2_FILE_SUFFIX)) {
       try (BZip2CompressorInputStream bz2 =
           new BZip2CompressorInputStream(new FileInputStream(filePath))) {
       } catch (Exception e) {
-        error(
-            result,
-            WebinCliMessage.MANIFEST_READER_INVALID_FILE_COMPRESSION_ERROR,
-            filePath,
-            "bzip2");
+        return "bzip2";
       }
     }
+    return null;
   }
 
   protected final Integer getAndValidatePositiveInteger(ManifestFieldValue field) {
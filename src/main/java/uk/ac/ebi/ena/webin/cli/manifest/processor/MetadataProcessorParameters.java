@@ -32,4 +32,6 @@ public interface MetadataProcessorParameters {
   AnalysisProcessor getAnalysisProcessor();
 
   boolean isSampleUpdate();
+
+  int getSampleBatchSize();
 }
@@ -14,10 +14,20 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.client.HttpClientErrorException;
 import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+import uk.ac.ebi.ena.webin.cli.manifest.ManifestFieldBatchProcessor;
 import uk.ac.ebi.ena.webin.cli.manifest.ManifestFieldGroup;
 import uk.ac.ebi.ena.webin.cli.manifest.ManifestFieldProcessor;
 import uk.ac.ebi.ena.webin.cli.manifest.ManifestFieldValue;
@@ -28,17 +38,26 @@ import uk.ac.ebi.ena.webin.cli.utils.ExceptionUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RemoteServiceUrlHelper;
 import uk.ac.ebi.ena.webin.cli.validator.message.ValidationMessage;
 import uk.ac.ebi.ena.webin.cli.validator.message.ValidationResult;
+import uk.ac.ebi.ena.webin.cli.validator.reference.Attribute;
 import uk.ac.ebi.ena.webin.cli.validator.reference.Sample;
 import uk.ac.ebi.ena.webin.xml.conversion.json.model.WebinSubmission;
 import uk.ac.ebi.ena.webin.xml.conversion.json.model.submission.Submission;
 import uk.ac.ebi.ena.webin.xml.conversion.json.model.submission.action.Action;
 import uk.ac.ebi.ena.webin.xml.conversion.json.model.submission.action.ActionType;
 
-public class SampleProcessor implements ManifestFieldProcessor {
+public class SampleProcessor implements ManifestFieldBatchProcessor {
+
+  private static final Logger log = LoggerFactory.getLogger(SampleProcessor.class);
+
+  /** Maximum number of concurrent sample lookups when samples are registered in batches. */
+  private static final int SAMPLE_LOOKUP_THREADS = 8;
 
   private final MetadataProcessorParameters parameters;
   private ManifestFieldProcessor.Callback<Sample> callback;
 
+  /** Samples resolved by {@link #prepare} mapped by their aliases. */
+  private final Map<String, Sample> preparedSamples = new ConcurrentHashMap<>();
+
   public SampleProcessor(
       MetadataProcessorParameters parameters, ManifestFieldProcessor.Callback<Sample> callback) {
     this.parameters = parameters;
@@ -57,6 +76,105 @@ public class SampleProcessor implements ManifestFieldProcessor {
     return callback;
   }
 
+  /**
+   * Registers the JSON samples of all the field groups together when the sample batch size is
+   * greater than one. Existing samples are looked up concurrently and new or modified samples are
+   * submitted in as few JSON submissions as the batch size allows. The submitted samples are
+   * created from their JSON and the accessions in the submission receipts without retrieving them
+   * again. Samples that fail here are registered one by one by {@link #process}, which also reports
+   * their errors.
+   */
+  @Override
+  public void prepare(ValidationResult result, List<ManifestFieldValue> fieldValues) {
+    int batchSize = parameters.getSampleBatchSize();
+    if (batchSize <= 1) {
+      return;
+    }
+
+    Map<String, uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample> jsonSamples =
+        new LinkedHashMap<>();
+    Map<String, JsonNode> jsonSampleNodes = new LinkedHashMap<>();
+    for (ManifestFieldValue fieldValue : fieldValues) {
+      String sampleValue = fieldValue.getValue();
+      if (!isJsonValue(sampleValue)) {
+        continue;
+      }
+      try {
+        uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample jsonSample =
+            getJsonSample(sampleValue);
+        if (jsonSample.getAlias() != null && !preparedSamples.containsKey(jsonSample.getAlias())) {
+          jsonSamples.put(jsonSample.getAlias(), jsonSample);
+          jsonSampleNodes.put(jsonSample.getAlias(), new ObjectMapper().readTree(sampleValue));
+        }
+      } catch (JsonProcessingException e) {
+        // Reported when the field value is processed.
+      }
+    }
+    if (jsonSamples.isEmpty()) {
+      return;
+    }
+
+    try {
+      prepareSamples(jsonSamples, jsonSampleNodes, batchSize);
+    } catch (WebinCliException e) {
+      // The samples that were not prepared are registered and reported by process.
+      log.warn(WebinCliMessage.SAMPLE_PROCESSOR_BATCH_PREPARATION_FAILED.format(e.getMessage()));
+    }
+  }
+
+  private void prepareSamples(
+      Map<String, uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample> jsonSamples,
+      Map<String, JsonNode> jsonSampleNodes,
+      int batchSize) {
+    Map<String, Sample> existingSamples = findSamples(jsonSamples.keySet());
+
+    List<uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample> addSamples =
+        new ArrayList<>();
+    List<uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample> modifySamples =
+        new ArrayList<>();
+    jsonSamples.forEach(
+        (alias, jsonSample) -> {
+          Sample existingSample = existingSamples.get(alias);
+          if (existingSample == null) {
+            addSamples.add(jsonSample);
+          } else if (parameters.isSampleUpdate()) {
+            modifySamples.add(jsonSample);
+          } else {
+            preparedSamples.put(alias, existingSample);
+          }
+        });
+
+    Map<String, Sample> submittedSamples = new LinkedHashMap<>();
+    submittedSamples.putAll(submitSamples(addSamples, ActionType.ADD, batchSize));
+    submittedSamples.putAll(submitSamples(modifySamples, ActionType.MODIFY, batchSize));
+
+    // Only the samples whose JSON does not contain the organism are retrieved.
+    Map<String, String> bioSampleIds = new LinkedHashMap<>();
+    submittedSamples.forEach(
+        (alias, submittedSample) -> {
+          if (submittedSample.getBioSampleId() == null) {
+            return;
+          }
+          Sample sample = createSample(jsonSampleNodes.get(alias), submittedSample);
+          if (sample != null) {
+            preparedSamples.put(alias, sample);
+          } else {
+            bioSampleIds.put(alias, submittedSample.getBioSampleId());
+          }
+        });
+    if (bioSampleIds.isEmpty()) {
+      return;
+    }
+    Map<String, Sample> samples = findSamples(bioSampleIds.values());
+    bioSampleIds.forEach(
+        (alias, bioSampleId) -> {
+          Sample sample = samples.get(bioSampleId);
+          if (sample != null) {
+            preparedSamples.put(alias, sample);
+          }
+        });
+  }
+
   @Override
   public void process(
       ValidationResult result, ManifestFieldGroup fieldGroup, ManifestFieldValue fieldValue) {
@@ -65,6 +183,13 @@ public class SampleProcessor implements ManifestFieldProcessor {
       if (isJsonValue(sampleValue)) {
         uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample jsonSample =
             getJsonSample(sampleValue);
+        Sample preparedSample =
+            jsonSample.getAlias() == null ? null : preparedSamples.get(jsonSample.getAlias());
+        if (preparedSample != null) {
+          fieldValue.setValue(preparedSample.getBioSampleId());
+          callback.notify(fieldGroup, preparedSample);
+          return;
+        }
         Submission submission = createSubmission(jsonSample);
         WebinSubmission webinSubmission = createWebinSubmission(jsonSample, submission);
 
@@ -91,12 +216,129 @@ public class SampleProcessor implements ManifestFieldProcessor {
       uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample sample, Submission submission) {
     List<uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample> sampleList = new ArrayList();
     sampleList.add(sample);
+    return createWebinSubmission(sampleList, submission);
+  }
+
+  private WebinSubmission createWebinSubmission(
+      List<uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample> sampleList,
+      Submission submission) {
     WebinSubmission webinSubmission = new WebinSubmission();
     webinSubmission.setSubmission(submission);
     webinSubmission.setSamples(sampleList);
     return webinSubmission;
   }
 
+  /**
+   * Looks up the given sample aliases or accessions concurrently.
+   *
+   * @return Existing samples mapped by the given aliases or accessions.
+   */
+  private Map<String, Sample> findSamples(Iterable<String> aliases) {
+    SampleService sampleService = getSampleService();
+    Map<String, Future<Sample>> futures = new LinkedHashMap<>();
+    Map<String, Sample> samples = new LinkedHashMap<>();
+
+    ExecutorService executorService = Executors.newFixedThreadPool(SAMPLE_LOOKUP_THREADS);
+    try {
+      for (String alias : aliases) {
+        futures.put(alias, executorService.submit(() -> findSample(sampleService, alias)));
+      }
+      for (Map.Entry<String, Future<Sample>> entry : futures.entrySet()) {
+        Sample sample = entry.getValue().get();
+        if (sample != null) {
+          samples.put(entry.getKey(), sample);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw WebinCliException.systemError(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof WebinCliException) {
+        throw (WebinCliException) e.getCause();
+      }
+      throw WebinCliException.systemError(e);
+    } finally {
+      executorService.shutdownNow();
+    }
+    return samples;
+  }
+
+  private static Sample findSample(SampleService sampleService, String alias) {
+    try {
+      return sampleService.getSample(alias);
+    } catch (HttpClientErrorException.NotFound notFound) {
+      return null;
+    } catch (Exception ex) {
+      throw WebinCliException.systemError(
+          WebinCliMessage.SAMPLE_SERVICE_SYSTEM_ERROR.format(alias));
+    }
+  }
+
+  /**
+   * Submits the given samples in JSON submissions of at most batch size samples. If a submission
+   * fails then its samples are left to be submitted one by one.
+   *
+   * @return Submitted samples with their accessions mapped by their aliases.
+   */
+  private Map<String, Sample> submitSamples(
+      List<uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample> samples,
+      ActionType actionType,
+      int batchSize) {
+    Map<String, Sample> submittedSamples = new LinkedHashMap<>();
+    SubmitService submitService = getSubmitService();
+
+    for (int i = 0; i < samples.size(); i += batchSize) {
+      List<uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample> batch =
+          samples.subList(i, Math.min(i + batchSize, samples.size()));
+
+      Submission submission = new Submission();
+      List<Action> actions = new ArrayList<>();
+      actions.add(createAction(actionType));
+      submission.setActions(actions);
+
+      try {
+        submittedSamples.putAll(
+            submitService.doJsonSampleSubmission(
+                createWebinSubmission(new ArrayList<>(batch), submission)));
+      } catch (WebinCliException | JsonProcessingException e) {
+        log.warn(WebinCliMessage.SAMPLE_PROCESSOR_BATCH_SUBMISSION_FAILED.format(batch.size()), e);
+      }
+    }
+    return submittedSamples;
+  }
+
+  /**
+   * Creates the sample from the submitted sample JSON and the accessions assigned to it.
+   *
+   * @return The sample or null if the JSON does not contain the scientific name of the organism,
+   *     which the validators need.
+   */
+  private static Sample createSample(JsonNode sampleJson, Sample submittedSample) {
+    JsonNode organismJson = sampleJson.path("organism");
+    String scientificName = organismJson.path("scientificName").asText(null);
+    if (scientificName == null) {
+      return null;
+    }
+
+    Sample sample = new Sample();
+    sample.setBioSampleId(submittedSample.getBioSampleId());
+    sample.setSraSampleId(submittedSample.getSraSampleId());
+    sample.setName(sampleJson.path("alias").asText());
+    sample.setOrganism(scientificName);
+    if (organismJson.hasNonNull("taxonId")) {
+      sample.setTaxId(organismJson.path("taxonId").asInt());
+    }
+
+    List<Attribute> attributes = new ArrayList<>();
+    for (JsonNode attributeJson : sampleJson.path("attributes")) {
+      attributes.add(
+          new Attribute(
+              attributeJson.path("tag").asText(), attributeJson.path("value").asText(null)));
+    }
+    sample.setAttributes(attributes);
+    return sample;
+  }
+
   private uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample getJsonSample(
       String sampleValue) throws JsonProcessingException {
     uk.ac.ebi.ena.webin.xml.conversion.json.model.sample.Sample sampleFromUser =
@@ -149,7 +391,7 @@ public class SampleProcessor implements ManifestFieldProcessor {
     }
   }
 
-  private SampleService getSampleService() {
+  SampleService getSampleService() {
     return new SampleService.Builder()
         .setWebinRestV1Uri(RemoteServiceUrlHelper.getWebinRestV1Url(parameters.isTest()))
         .setCredentials(parameters.getWebinServiceUserName(), parameters.getPassword())
@@ -160,7 +402,7 @@ public class SampleProcessor implements ManifestFieldProcessor {
         .build();
   }
 
-  private SubmitService getSubmitService() {
+  SubmitService getSubmitService() {
 
     return new SubmitService.Builder()
         .setWebinRestV2Uri(RemoteServiceUrlHelper.getWebinRestV2Url(parameters.isTest()))
@@ -172,8 +414,4 @@ public class SampleProcessor implements ManifestFieldProcessor {
   private boolean isJsonValue(String value) {
     return value.startsWith("{");
   }
-
-  private static String getAlias(JsonNode sampleJson) {
-    return sampleJson.get("alias").asText();
-  }
 }
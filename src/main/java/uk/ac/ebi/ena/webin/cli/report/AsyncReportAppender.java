@@ -0,0 +1,299 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.report;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the report messages into the attached appenders in a background thread. The messages are
+ * queued in a bounded queue and written in batches. The attached output stream appenders that do
+ * not flush immediately are flushed after every batch. The messages are written in the order they
+ * were logged.
+ *
+ * <p>When the queue is full the messages are handled according to the {@link OverflowPolicy}. By
+ * default the logging thread waits so that no messages are lost. Error messages are never dropped.
+ * The queue size and the policy can be set using the {@link #QUEUE_SIZE_PROPERTY} and {@link
+ * #OVERFLOW_POLICY_PROPERTY} system properties, for example -Dwebin.cli.report.overflow=SUMMARIZE.
+ * An invalid policy is ignored with a warning.
+ */
+public class AsyncReportAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+    implements AppenderAttachable<ILoggingEvent> {
+
+  public static final String QUEUE_SIZE_PROPERTY = "webin.cli.report.queueSize";
+  public static final String OVERFLOW_POLICY_PROPERTY = "webin.cli.report.overflow";
+
+  static final int DEFAULT_QUEUE_SIZE = 8192;
+  static final int DEFAULT_BATCH_SIZE = 512;
+  static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.BLOCK;
+
+  /** Maximum time the remaining messages are written for when the appender is stopped. */
+  private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private static final Comparator<Level> LEVEL_ORDER = Comparator.comparingInt(Level::toInt);
+
+  public enum OverflowPolicy {
+    /** The logging thread waits until there is space in the queue. */
+    BLOCK,
+    /** Messages that do not fit into the queue are dropped. */
+    DROP,
+    /**
+     * Messages that do not fit into the queue are dropped and the number of dropped messages is
+     * written into the report once the queue has space again.
+     */
+    SUMMARIZE
+  }
+
+  private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+  private int queueSize = Integer.getInteger(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE);
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  /** The overflow policy or null if it is read from the system property when started. */
+  private OverflowPolicy overflowPolicy;
+
+  private BlockingQueue<ILoggingEvent> queue;
+  private Thread worker;
+
+  /** Number of dropped messages per level since the last summary. */
+  private final Map<Level, Long> droppedCounts = new TreeMap<>(LEVEL_ORDER);
+
+  private long droppedCount;
+
+  /** @return The overflow policy or the default policy if the value is not a valid policy. */
+  private OverflowPolicy readOverflowPolicy(String value) {
+    if (value == null || value.trim().isEmpty()) {
+      return DEFAULT_OVERFLOW_POLICY;
+    }
+    try {
+      return OverflowPolicy.valueOf(value.trim().toUpperCase());
+    } catch (IllegalArgumentException ex) {
+      addWarn(
+          "Invalid report overflow policy \""
+              + value
+              + "\". The "
+              + DEFAULT_OVERFLOW_POLICY
+              + " policy is used instead.");
+      return DEFAULT_OVERFLOW_POLICY;
+    }
+  }
+
+  public void setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /** @return The number of messages dropped since the appender was started. */
+  public synchronized long getDroppedCount() {
+    return droppedCount;
+  }
+
+  @Override
+  public void start() {
+    if (isStarted()) {
+      return;
+    }
+    if (queueSize < 1 || batchSize < 1) {
+      addError("Invalid queue size " + queueSize + " or batch size " + batchSize);
+      return;
+    }
+    if (overflowPolicy == null) {
+      overflowPolicy = readOverflowPolicy(System.getProperty(OVERFLOW_POLICY_PROPERTY));
+    }
+    queue = new ArrayBlockingQueue<>(queueSize);
+    worker = new Thread(this::writeMessages, "AsyncReportAppender-" + getName());
+    worker.setDaemon(true);
+    super.start();
+    worker.start();
+  }
+
+  /** Writes the queued messages and stops the attached appenders. */
+  @Override
+  public void stop() {
+    if (!isStarted()) {
+      return;
+    }
+    super.stop();
+    worker.interrupt();
+    try {
+      worker.join(STOP_TIMEOUT_MILLIS);
+      if (worker.isAlive()) {
+        addWarn("Not all report messages were written in " + STOP_TIMEOUT_MILLIS + " ms.");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    appenders.detachAndStopAllAppenders();
+  }
+
+  @Override
+  protected void append(ILoggingEvent event) {
+    // The message is formatted and the MDC copied in the logging thread.
+    event.prepareForDeferredProcessing();
+
+    if (queue.offer(event)) {
+      return;
+    }
+    if (overflowPolicy == OverflowPolicy.BLOCK || event.getLevel().isGreaterOrEqual(Level.ERROR)) {
+      try {
+        queue.put(event);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return;
+    }
+    synchronized (this) {
+      droppedCounts.merge(event.getLevel(), 1L, Long::sum);
+      droppedCount++;
+    }
+  }
+
+  private void writeMessages() {
+    List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+    boolean stopping = false;
+    while (true) {
+      try {
+        if (!stopping) {
+          ILoggingEvent event = queue.poll(1, TimeUnit.SECONDS);
+          if (event != null) {
+            batch.add(event);
+          }
+        }
+      } catch (InterruptedException ex) {
+        stopping = true;
+      }
+      queue.drainTo(batch, batchSize - batch.size());
+
+      batch.forEach(appenders::appendLoopOnAppenders);
+      if (overflowPolicy == OverflowPolicy.SUMMARIZE) {
+        writeDroppedSummary();
+      }
+      if (!batch.isEmpty()) {
+        flush();
+      }
+
+      if (stopping && batch.isEmpty()) {
+        return;
+      }
+      batch.clear();
+    }
+  }
+
+  private void writeDroppedSummary() {
+    Map<Level, Long> counts;
+    synchronized (this) {
+      if (droppedCounts.isEmpty()) {
+        return;
+      }
+      counts = new TreeMap<>(LEVEL_ORDER);
+      counts.putAll(droppedCounts);
+      droppedCounts.clear();
+    }
+    long total = counts.values().stream().mapToLong(Long::longValue).sum();
+    LoggingEvent summary =
+        new LoggingEvent(
+            AsyncReportAppender.class.getName(),
+            ((LoggerContext) getContext()).getLogger(AsyncReportAppender.class),
+            Level.WARN,
+            total
+                + " report messages were not written because they were logged faster than they "
+                + "could be written: "
+                + counts,
+            null,
+            null);
+    appenders.appendLoopOnAppenders(summary);
+  }
+
+  private void flush() {
+    Iterator<Appender<ILoggingEvent>> iterator = appenders.iteratorForAppenders();
+    while (iterator.hasNext()) {
+      Appender<ILoggingEvent> appender = iterator.next();
+      if (!(appender instanceof OutputStreamAppender)) {
+        continue;
+      }
+      OutputStreamAppender<ILoggingEvent> outputStreamAppender =
+          (OutputStreamAppender<ILoggingEvent>) appender;
+      if (!outputStreamAppender.isImmediateFlush()) {
+        OutputStream outputStream = outputStreamAppender.getOutputStream();
+        if (outputStream != null) {
+          try {
+            outputStream.flush();
+          } catch (IOException ex) {
+            addError("Failed to flush the report", ex);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void addAppender(Appender<ILoggingEvent> appender) {
+    appenders.addAppender(appender);
+  }
+
+  @Override
+  public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+    return appenders.iteratorForAppenders();
+  }
+
+  @Override
+  public Appender<ILoggingEvent> getAppender(String name) {
+    return appenders.getAppender(name);
+  }
+
+  @Override
+  public boolean isAttached(Appender<ILoggingEvent> appender) {
+    return appenders.isAttached(appender);
+  }
+
+  @Override
+  public void detachAndStopAllAppenders() {
+    appenders.detachAndStopAllAppenders();
+  }
+
+  @Override
+  public boolean detachAppender(Appender<ILoggingEvent> appender) {
+    return appenders.detachAppender(appender);
+  }
+
+  @Override
+  public boolean detachAppender(String name) {
+    return appenders.detachAppender(name);
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the error messages written into validation reports while they are being written. Every
+ * call reads only the complete lines appended to the report since the previous call.
+ */
+public class ValidationErrorCounter {
+
+  private static final String ERROR_PREFIX = "ERROR: ";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Read positions of the report files. */
+  private final Map<File, Long> positions = new HashMap<>();
+
+  /** Content of the last incomplete line of the report files. */
+  private final Map<File, StringBuilder> partialLines = new HashMap<>();
+
+  private long errorCount;
+
+  /** @return The number of error messages counted so far. */
+  public long getErrorCount() {
+    return errorCount;
+  }
+
+  /**
+   * Reads the lines appended to the given report files since the previous call.
+   *
+   * @return The number of error messages counted so far.
+   */
+  public long count(Iterable<File> reportFiles) throws IOException {
+    for (File reportFile : reportFiles) {
+      if (reportFile != null && reportFile.isFile()) {
+        count(reportFile);
+      }
+    }
+    return errorCount;
+  }
+
+  private void count(File reportFile) throws IOException {
+    long position = positions.getOrDefault(reportFile, 0L);
+    if (reportFile.length() <= position) {
+      return;
+    }
+    StringBuilder line = partialLines.computeIfAbsent(reportFile, file -> new StringBuilder());
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try (RandomAccessFile file = new RandomAccessFile(reportFile, "r")) {
+      file.seek(position);
+      int length;
+      while ((length = file.read(buffer)) > 0) {
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+          if (buffer[i] == '\n') {
+            line.append(new String(buffer, start, i - start, StandardCharsets.UTF_8));
+            countLine(line);
+            line.setLength(0);
+            start = i + 1;
+          }
+        }
+        line.append(new String(buffer, start, length - start, StandardCharsets.UTF_8));
+        position += length;
+      }
+    }
+    positions.put(reportFile, position);
+  }
+
+  private void countLine(CharSequence line) {
+    String text = line.toString();
+    // The messages may be prefixed with a timestamp.
+    int index = text.indexOf(' ');
+    if (text.startsWith(ERROR_PREFIX)
+        || (index > 0
+            && text.charAt(index - 1) != ':'
+            && text.startsWith(ERROR_PREFIX, index + 1))) {
+      errorCount++;
+    }
+  }
+}
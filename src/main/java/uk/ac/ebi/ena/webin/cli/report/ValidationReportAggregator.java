@@ -0,0 +1,293 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.report;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+import uk.ac.ebi.ena.webin.cli.validator.message.ValidationMessage;
+import uk.ac.ebi.ena.webin.cli.validator.message.ValidationOrigin;
+
+/**
+ * Writes a reduced validation report as the messages are added to a validation result. The
+ * messages are grouped by their severity, their text with the variable parts removed and the kinds
+ * of their origins, for example "line". The first messages of every group are written and the
+ * rest are only counted. The number of omitted messages in every group is written when the
+ * aggregator is closed.
+ *
+ * <p>The size of the report is capped. The complete report can be written into a gzip compressed
+ * detail file next to the reduced report. The detail file is deleted if no messages were omitted.
+ *
+ * <p>The report file is created when the first message is written.
+ */
+public class ValidationReportAggregator implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(ValidationReportAggregator.class);
+
+  public static final String EXEMPLARS_PROPERTY = "webin.cli.report.exemplars";
+  public static final String MAX_REPORT_SIZE_PROPERTY = "webin.cli.report.maxSize";
+
+  static final int DEFAULT_EXEMPLARS = 10;
+  static final long DEFAULT_MAX_REPORT_SIZE = 1024 * 1024;
+
+  /** Maximum number of groups. The messages of any further groups are counted together. */
+  static final int MAX_GROUPS = 1000;
+
+  public static final String DETAIL_FILE_SUFFIX = ".gz";
+
+  private static final Pattern MESSAGE_PATTERN =
+      Pattern.compile("^(?:\\S+\\s+)?(ERROR|WARNING|INFO): (.*?)(?: ?\\[(.*)\\])?$");
+
+  private static final Pattern QUOTED_PATTERN = Pattern.compile("\"[^\"]*\"|'[^']*'");
+  private static final Pattern NUMBER_PATTERN = Pattern.compile("\\d+(?:\\.\\d+)?");
+
+  private static final String OTHER_GROUP = "other messages";
+
+  private final File reportFile;
+  private final File detailFile;
+  private final int exemplars;
+  private final long maxReportSize;
+  private final boolean writeDetail;
+
+  private final Map<String, Integer> keptCounts = new HashMap<>();
+  private final Map<String, Long> omittedCounts = new LinkedHashMap<>();
+
+  private Writer writer;
+  private Writer detailWriter;
+  private long size;
+  private boolean truncated;
+  private boolean failed;
+
+  /**
+   * @param reportFile The report file.
+   * @param writeDetail If true then the complete report is written into a detail file.
+   */
+  public ValidationReportAggregator(File reportFile, boolean writeDetail) {
+    this(
+        reportFile,
+        Integer.getInteger(EXEMPLARS_PROPERTY, DEFAULT_EXEMPLARS),
+        Long.getLong(MAX_REPORT_SIZE_PROPERTY, DEFAULT_MAX_REPORT_SIZE),
+        writeDetail);
+  }
+
+  ValidationReportAggregator(
+      File reportFile, int exemplars, long maxReportSize, boolean writeDetail) {
+    this(reportFile, getDetailFile(reportFile), exemplars, maxReportSize, writeDetail);
+  }
+
+  ValidationReportAggregator(
+      File reportFile, File detailFile, int exemplars, long maxReportSize, boolean writeDetail) {
+    this.reportFile = reportFile;
+    this.detailFile = detailFile;
+    this.exemplars = exemplars;
+    this.maxReportSize = maxReportSize;
+    this.writeDetail = writeDetail;
+  }
+
+  /** @return The detail file of the given report file. */
+  public static File getDetailFile(File reportFile) {
+    return new File(reportFile.getPath() + DETAIL_FILE_SUFFIX);
+  }
+
+  /** Writes the message into the report unless similar messages have already been written. */
+  public void write(ValidationMessage message) {
+    StringBuilder line =
+        new StringBuilder(message.getSeverity().name())
+            .append(": ")
+            .append(message.getMessage());
+    if (message.getOrigin() != null && !message.getOrigin().isEmpty()) {
+      line.append(" [");
+      String separator = "";
+      for (ValidationOrigin origin : message.getOrigin()) {
+        line.append(separator).append(origin.getName()).append(": ").append(origin.getValue());
+        separator = ", ";
+      }
+      line.append("]");
+    }
+    writeLine(line.toString());
+  }
+
+  synchronized void writeLine(String line) {
+    if (failed) {
+      return;
+    }
+    try {
+      if (writer == null) {
+        open();
+      }
+      if (detailWriter != null) {
+        detailWriter.write(line);
+        detailWriter.write(System.lineSeparator());
+      }
+
+      String group = getGroup(line.split("\\R", 2)[0]);
+      if (group == null) {
+        group = OTHER_GROUP;
+      } else if (!keptCounts.containsKey(group) && keptCounts.size() >= MAX_GROUPS) {
+        group = OTHER_GROUP;
+      }
+      int keptCount = keptCounts.getOrDefault(group, 0);
+      if (keptCount >= exemplars) {
+        omittedCounts.merge(group, 1L, Long::sum);
+        return;
+      }
+
+      long lineSize = getSize(line);
+      if (truncated || size + lineSize > maxReportSize) {
+        truncated = true;
+        omittedCounts.merge(group, 1L, Long::sum);
+        return;
+      }
+      keptCounts.put(group, keptCount + 1);
+      writer.write(line);
+      writer.write(System.lineSeparator());
+      writer.flush();
+      size += lineSize;
+    } catch (IOException ex) {
+      fail(ex);
+    }
+  }
+
+  /** Writes the number of omitted messages and closes the report. */
+  @Override
+  public synchronized void close() {
+    if (writer == null) {
+      return;
+    }
+    try {
+      boolean reduced = isReduced();
+      if (reduced && !failed) {
+        writeSummary();
+      }
+      writer.close();
+      if (detailWriter != null) {
+        detailWriter.close();
+        if (!reduced) {
+          Files.deleteIfExists(detailFile.toPath());
+        }
+      }
+    } catch (IOException ex) {
+      fail(ex);
+    } finally {
+      writer = null;
+      detailWriter = null;
+    }
+  }
+
+  /** @return True if messages were omitted from the report. */
+  public synchronized boolean isReduced() {
+    return truncated || !omittedCounts.isEmpty();
+  }
+
+  /** @return True if the report could not be written. */
+  public synchronized boolean isFailed() {
+    return failed;
+  }
+
+  /** @return The number of bytes written into the report. */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  private void open() throws IOException {
+    writer =
+        new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(reportFile), StandardCharsets.UTF_8));
+    if (writeDetail) {
+      detailWriter =
+          new BufferedWriter(
+              new OutputStreamWriter(
+                  new GZIPOutputStream(new FileOutputStream(detailFile)),
+                  StandardCharsets.UTF_8));
+    }
+  }
+
+  private void fail(IOException ex) {
+    failed = true;
+    log.warn(WebinCliMessage.CLI_REPORT_AGGREGATION_ERROR.format(reportFile, ex.getMessage()));
+  }
+
+  private void writeSummary() throws IOException {
+    if (truncated) {
+      writeInfo(WebinCliMessage.REPORT_AGGREGATOR_SIZE_LIMIT.format(String.valueOf(maxReportSize)));
+    }
+    for (Map.Entry<String, Long> entry : omittedCounts.entrySet()) {
+      writeInfo(
+          WebinCliMessage.REPORT_AGGREGATOR_OMITTED_MESSAGES.format(
+              String.valueOf(entry.getValue()), entry.getKey()));
+    }
+    writeInfo(
+        writeDetail
+            ? WebinCliMessage.REPORT_AGGREGATOR_DETAIL_FILE.format(detailFile.getName())
+            : WebinCliMessage.REPORT_AGGREGATOR_NO_DETAIL_FILE.text());
+  }
+
+  private void writeInfo(String message) throws IOException {
+    String line = "INFO: " + message;
+    writer.write(line);
+    writer.write(System.lineSeparator());
+    size += getSize(line);
+  }
+
+  private static long getSize(String line) {
+    return line.getBytes(StandardCharsets.UTF_8).length + System.lineSeparator().length();
+  }
+
+  /**
+   * @return The group of the report message, for example "ERROR: Invalid ID line format [line]",
+   *     or null if the line is not a report message.
+   */
+  static String getGroup(String line) {
+    Matcher matcher = MESSAGE_PATTERN.matcher(line);
+    if (!matcher.matches()) {
+      return null;
+    }
+    String template = QUOTED_PATTERN.matcher(matcher.group(2)).replaceAll("\"*\"");
+    template = NUMBER_PATTERN.matcher(template).replaceAll("#");
+
+    StringBuilder group = new StringBuilder(matcher.group(1)).append(": ").append(template);
+    if (matcher.group(3) != null) {
+      group.append(" [").append(getOriginKinds(matcher.group(3))).append("]");
+    }
+    return group.toString();
+  }
+
+  /** @return The keys of the given origins, for example "file, line" for "file: a, line: 1". */
+  private static String getOriginKinds(String origins) {
+    StringBuilder kinds = new StringBuilder();
+    for (String origin : origins.split(",")) {
+      int index = origin.indexOf(':');
+      if (index < 0) {
+        continue;
+      }
+      if (kinds.length() > 0) {
+        kinds.append(", ");
+      }
+      kinds.append(origin.substring(0, index).trim());
+    }
+    return kinds.toString();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.report;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Reduces the validation reports written by the validators once a manifest has been validated.
+ * The validators write their reports directly, so every report is rewritten through a {@link
+ * ValidationReportAggregator}. Lines that are not messages belong to the previous message.
+ *
+ * <p>The size of every report and the total size of the reports of a manifest are capped. The
+ * reports that do not need to be reduced are left unchanged.
+ *
+ * <p>One aggregator should be used for all the reports of a manifest.
+ */
+public class ValidatorReportAggregator {
+
+  public static final String MAX_MANIFEST_REPORT_SIZE_PROPERTY = "webin.cli.report.maxManifestSize";
+
+  static final long DEFAULT_MAX_MANIFEST_REPORT_SIZE = 10 * 1024 * 1024;
+
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+  private final int exemplars;
+  private final long maxReportSize;
+  private final boolean writeDetail;
+
+  private long remainingManifestReportSize;
+
+  /** @param writeDetail If true then the complete reports are written into detail files. */
+  public ValidatorReportAggregator(boolean writeDetail) {
+    this(
+        Integer.getInteger(
+            ValidationReportAggregator.EXEMPLARS_PROPERTY,
+            ValidationReportAggregator.DEFAULT_EXEMPLARS),
+        Long.getLong(
+            ValidationReportAggregator.MAX_REPORT_SIZE_PROPERTY,
+            ValidationReportAggregator.DEFAULT_MAX_REPORT_SIZE),
+        Long.getLong(MAX_MANIFEST_REPORT_SIZE_PROPERTY, DEFAULT_MAX_MANIFEST_REPORT_SIZE),
+        writeDetail);
+  }
+
+  ValidatorReportAggregator(
+      int exemplars, long maxReportSize, long maxManifestReportSize, boolean writeDetail) {
+    this.exemplars = exemplars;
+    this.maxReportSize = maxReportSize;
+    this.remainingManifestReportSize = maxManifestReportSize;
+    this.writeDetail = writeDetail;
+  }
+
+  /**
+   * Reduces the given report file if it contains more similar messages than are kept or if it is
+   * larger than the size limit.
+   *
+   * @return True if the report was reduced.
+   */
+  public boolean aggregate(File reportFile) throws IOException {
+    if (!reportFile.isFile() || reportFile.length() == 0) {
+      return false;
+    }
+
+    File tempFile = new File(reportFile.getPath() + TEMP_FILE_SUFFIX);
+    File detailFile = ValidationReportAggregator.getDetailFile(reportFile);
+    long maxSize = Math.max(0, Math.min(maxReportSize, remainingManifestReportSize));
+
+    ValidationReportAggregator aggregator =
+        new ValidationReportAggregator(tempFile, detailFile, exemplars, maxSize, writeDetail);
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(new FileInputStream(reportFile), StandardCharsets.UTF_8))) {
+      StringBuilder message = null;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (message != null && ValidationReportAggregator.getGroup(line) == null) {
+          message.append(System.lineSeparator()).append(line);
+          continue;
+        }
+        if (message != null) {
+          aggregator.writeLine(message.toString());
+        }
+        message = new StringBuilder(line);
+      }
+      if (message != null) {
+        aggregator.writeLine(message.toString());
+      }
+    } catch (IOException ex) {
+      aggregator.close();
+      Files.deleteIfExists(tempFile.toPath());
+      Files.deleteIfExists(detailFile.toPath());
+      throw ex;
+    }
+    aggregator.close();
+
+    if (aggregator.isFailed() || !aggregator.isReduced()) {
+      Files.deleteIfExists(tempFile.toPath());
+      Files.deleteIfExists(detailFile.toPath());
+      remainingManifestReportSize -= reportFile.length();
+      return false;
+    }
+
+    Files.move(tempFile.toPath(), reportFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    remainingManifestReportSize -= aggregator.getSize();
+    return true;
+  }
+}
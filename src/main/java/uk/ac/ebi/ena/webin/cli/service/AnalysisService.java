@@ -16,12 +16,16 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
 import uk.ac.ebi.ena.webin.cli.service.utils.HttpHeaderBuilder;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetricsRequestFactory;
+import uk.ac.ebi.ena.webin.cli.service.utils.RequestHedger;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
 import uk.ac.ebi.ena.webin.cli.utils.ExceptionUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
 import uk.ac.ebi.ena.webin.cli.validator.reference.Analysis;
@@ -47,11 +51,17 @@ public class AnalysisService extends WebinService {
   }
 
   public Analysis getAnalysis(String analysisId) {
-    return getAnalysis(analysisId, getUserName(), getPassword());
+    return Trace.call(
+        "getAnalysis",
+        span -> {
+          span.setAttribute("id", analysisId);
+          return getAnalysis(analysisId, getUserName(), getPassword());
+        });
   }
 
   private Analysis getAnalysis(String analysisId, String userName, String password) {
-    RestTemplate restTemplate = new RestTemplate();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
 
     HttpHeaders headers = new HttpHeaderBuilder().basicAuth(userName, password).build();
 
@@ -59,15 +69,19 @@ public class AnalysisService extends WebinService {
         ExceptionUtils.executeWithRestExceptionHandling(
             () ->
                 RetryUtils.executeWithRetry(
-                    context ->
-                        restTemplate.exchange(
-                            resolveAgainstWebinRestV1Uri("cli/reference/analysis/{id}"),
-                            HttpMethod.GET,
-                            new HttpEntity<>(headers),
-                            AnalysisResponse.class,
-                            analysisId.trim()),
+                    requestFactory.recordRetries(
+                        context ->
+                            RequestHedger.REFERENCE.execute(
+                                () ->
+                                    restTemplate.exchange(
+                                        resolveAgainstWebinRestV1Uri("cli/reference/analysis/{id}"),
+                                        HttpMethod.GET,
+                                        new HttpEntity<>(headers),
+                                        AnalysisResponse.class,
+                                        analysisId.trim()))),
                     context -> log.warn("Retrying analysis retrieval from server."),
                     HttpServerErrorException.class,
+                    HttpClientErrorException.TooManyRequests.class,
                     ResourceAccessException.class),
             WebinCliMessage.SERVICE_AUTHENTICATION_ERROR.format("Analysis"),
             WebinCliMessage.ANALYSIS_SERVICE_VALIDATION_ERROR.format(analysisId),
@@ -16,11 +16,14 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+import uk.ac.ebi.ena.webin.cli.service.utils.AdaptiveConcurrencyLimiter;
 import uk.ac.ebi.ena.webin.cli.service.utils.HttpHeaderBuilder;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetricsRequestFactory;
 import uk.ac.ebi.ena.webin.cli.utils.ExceptionUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
 
@@ -55,7 +58,8 @@ public class IgnoreErrorsService extends WebinService {
 
   private boolean getIgnoreErrors(String userName, String password, String context, String name) {
 
-    RestTemplate restTemplate = new RestTemplate();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
 
     HttpHeaders headers = new HttpHeaderBuilder().basicAuth(userName, password).build();
 
@@ -63,14 +67,19 @@ public class IgnoreErrorsService extends WebinService {
         ExceptionUtils.executeWithRestExceptionHandling(
             () ->
                 RetryUtils.executeWithRetry(
-                    retryContext ->
-                        restTemplate.exchange(
-                            resolveAgainstWebinRestV1Uri("cli/ignore_errors/"),
-                            HttpMethod.POST,
-                            new HttpEntity<>(new IgnoreErrorsRequest(context, name), headers),
-                            String.class),
+                    requestFactory.recordRetries(
+                        retryContext ->
+                            AdaptiveConcurrencyLimiter.SUBMISSION_CHECK.execute(
+                                () ->
+                                    restTemplate.exchange(
+                                        resolveAgainstWebinRestV1Uri("cli/ignore_errors/"),
+                                        HttpMethod.POST,
+                                        new HttpEntity<>(
+                                            new IgnoreErrorsRequest(context, name), headers),
+                                        String.class))),
                     retryContext -> log.warn("Retrying getting ignore error status from server."),
                     HttpServerErrorException.class,
+                    HttpClientErrorException.TooManyRequests.class,
                     ResourceAccessException.class),
             WebinCliMessage.SERVICE_AUTHENTICATION_ERROR.format("IgnoreError"),
             null,
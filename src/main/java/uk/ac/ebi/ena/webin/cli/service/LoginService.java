@@ -25,13 +25,13 @@ import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
 import uk.ac.ebi.ena.webin.cli.service.utils.HttpHeaderBuilder;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetricsRequestFactory;
 import uk.ac.ebi.ena.webin.cli.utils.ExceptionUtils;
+import uk.ac.ebi.ena.webin.cli.utils.RemoteServiceUrlHelper;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
 
 public class LoginService {
   private static final Logger log = LoggerFactory.getLogger(LoginService.class);
-  private static final String TEST_URL = "https://www.ebi.ac.uk/ena/submit/webin/auth";
-  private static final String PRODUCTION_URL = "https://www.ebi.ac.uk/ena/submit/webin/auth";
   private final String username;
   private final String password;
   private final boolean test;
@@ -56,7 +56,7 @@ public class LoginService {
   }
 
   private String getUri(String uri, boolean test) {
-    return (test) ? TEST_URL + uri : PRODUCTION_URL + uri;
+    return RemoteServiceUrlHelper.getWebinLoginUrl(test) + uri;
   }
 
   public LoginService(String username, String password, boolean test) {
@@ -68,13 +68,16 @@ public class LoginService {
   public String login() throws WebinCliException, RuntimeException {
     RequestEntity<LoginRequestBody> request = getAuthRequest("/login");
 
-    RestTemplate restTemplate = new RestTemplate();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
 
     LoginResponseBody responseBody =
         ExceptionUtils.executeWithRestExceptionHandling(
             () ->
                 RetryUtils.executeWithRetry(
-                    context -> restTemplate.exchange(request, LoginResponseBody.class).getBody(),
+                    requestFactory.recordRetries(
+                        context ->
+                            restTemplate.exchange(request, LoginResponseBody.class).getBody()),
                     context -> log.warn("Retrying authentication."),
                     HttpServerErrorException.class,
                     ResourceAccessException.class),
@@ -99,12 +102,14 @@ public class LoginService {
   public String getAuthToken() throws WebinCliException, RuntimeException {
     RequestEntity<LoginRequestBody> request = getAuthRequest("/token");
 
-    RestTemplate restTemplate = new RestTemplate();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
 
     return ExceptionUtils.executeWithRestExceptionHandling(
         () ->
             RetryUtils.executeWithRetry(
-                context -> restTemplate.exchange(request, String.class).getBody(),
+                requestFactory.recordRetries(
+                    context -> restTemplate.exchange(request, String.class).getBody()),
                 context -> log.warn("Retrying authentication."),
                 HttpServerErrorException.class,
                 ResourceAccessException.class),
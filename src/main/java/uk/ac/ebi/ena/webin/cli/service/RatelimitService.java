@@ -16,12 +16,15 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
 import uk.ac.ebi.ena.webin.cli.service.models.RateLimitResult;
+import uk.ac.ebi.ena.webin.cli.service.utils.AdaptiveConcurrencyLimiter;
 import uk.ac.ebi.ena.webin.cli.service.utils.HttpHeaderBuilder;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetricsRequestFactory;
 import uk.ac.ebi.ena.webin.cli.utils.ExceptionUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
 
@@ -57,7 +60,8 @@ public class RatelimitService extends WebinService {
 
   public RateLimitResult ratelimit(
       String context, String submissionAccountId, String studyId, String sampleId) {
-    RestTemplate restTemplate = new RestTemplate();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
 
     HttpHeaders headers = new HttpHeaderBuilder().basicAuth(getUserName(), getPassword()).build();
     String url = resolveAgainstWebinRestV1Uri("cli/submission/v2/ratelimit/");
@@ -66,17 +70,21 @@ public class RatelimitService extends WebinService {
         ExceptionUtils.executeWithRestExceptionHandling(
             () ->
                 RetryUtils.executeWithRetry(
-                    retryContext ->
-                        restTemplate.exchange(
-                            url,
-                            HttpMethod.POST,
-                            new HttpEntity<>(
-                                new RatelimitService.RatelimitServiceRequest(
-                                    context, submissionAccountId, studyId, sampleId),
-                                headers),
-                            RateLimitResult.class),
+                    requestFactory.recordRetries(
+                        retryContext ->
+                            AdaptiveConcurrencyLimiter.SUBMISSION_CHECK.execute(
+                                () ->
+                                    restTemplate.exchange(
+                                        url,
+                                        HttpMethod.POST,
+                                        new HttpEntity<>(
+                                            new RatelimitService.RatelimitServiceRequest(
+                                                context, submissionAccountId, studyId, sampleId),
+                                            headers),
+                                        RateLimitResult.class))),
                     retryContext -> log.warn("Retrying submission rate limiting check on server."),
                     HttpServerErrorException.class,
+                    HttpClientErrorException.TooManyRequests.class,
                     ResourceAccessException.class),
             WebinCliMessage.SERVICE_AUTHENTICATION_ERROR.format("RateLimit"),
             null,
@@ -16,12 +16,16 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
 import uk.ac.ebi.ena.webin.cli.service.utils.HttpHeaderBuilder;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetricsRequestFactory;
+import uk.ac.ebi.ena.webin.cli.service.utils.RequestHedger;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
 import uk.ac.ebi.ena.webin.cli.utils.ExceptionUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
 import uk.ac.ebi.ena.webin.cli.validator.reference.Run;
@@ -47,11 +51,17 @@ public class RunService extends WebinService {
   }
 
   public Run getRun(String runId) {
-    return getRun(runId, getUserName(), getPassword());
+    return Trace.call(
+        "getRun",
+        span -> {
+          span.setAttribute("id", runId);
+          return getRun(runId, getUserName(), getPassword());
+        });
   }
 
   private Run getRun(String runId, String userName, String password) {
-    RestTemplate restTemplate = new RestTemplate();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
 
     HttpHeaders headers = new HttpHeaderBuilder().basicAuth(userName, password).build();
 
@@ -59,15 +69,19 @@ public class RunService extends WebinService {
         ExceptionUtils.executeWithRestExceptionHandling(
             () ->
                 RetryUtils.executeWithRetry(
-                    retryContext ->
-                        restTemplate.exchange(
-                            resolveAgainstWebinRestV1Uri("cli/reference/run/{id}"),
-                            HttpMethod.GET,
-                            new HttpEntity<>(headers),
-                            RunResponse.class,
-                            runId.trim()),
+                    requestFactory.recordRetries(
+                        retryContext ->
+                            RequestHedger.REFERENCE.execute(
+                                () ->
+                                    restTemplate.exchange(
+                                        resolveAgainstWebinRestV1Uri("cli/reference/run/{id}"),
+                                        HttpMethod.GET,
+                                        new HttpEntity<>(headers),
+                                        RunResponse.class,
+                                        runId.trim()))),
                     retryContext -> log.warn("Retrying run retrieval from server."),
                     HttpServerErrorException.class,
+                    HttpClientErrorException.TooManyRequests.class,
                     ResourceAccessException.class),
             WebinCliMessage.SERVICE_AUTHENTICATION_ERROR.format("Run"),
             WebinCliMessage.RUN_SERVICE_VALIDATION_ERROR.format(runId),
@@ -17,12 +17,16 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
 import uk.ac.ebi.ena.webin.cli.service.utils.HttpHeaderBuilder;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetricsRequestFactory;
+import uk.ac.ebi.ena.webin.cli.service.utils.RequestHedger;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
 import uk.ac.ebi.ena.webin.cli.utils.ExceptionUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
 import uk.ac.ebi.ena.webin.cli.validator.reference.Study;
@@ -51,11 +55,17 @@ public class StudyService extends WebinService {
   }
 
   public Study getStudy(String studyId) {
-    return getStudy(studyId, getUserName(), getPassword());
+    return Trace.call(
+        "getStudy",
+        span -> {
+          span.setAttribute("id", studyId);
+          return getStudy(studyId, getUserName(), getPassword());
+        });
   }
 
   private Study getStudy(String studyId, String userName, String password) {
-    RestTemplate restTemplate = new RestTemplate();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
 
     HttpHeaders headers = new HttpHeaderBuilder().basicAuth(userName, password).build();
 
@@ -63,15 +73,19 @@ public class StudyService extends WebinService {
         ExceptionUtils.executeWithRestExceptionHandling(
             () ->
                 RetryUtils.executeWithRetry(
-                    retryContext ->
-                        restTemplate.exchange(
-                            resolveAgainstWebinRestV1Uri("cli/reference/project/{id}"),
-                            HttpMethod.GET,
-                            new HttpEntity<>(headers),
-                            StudyResponse.class,
-                            studyId.trim()),
+                    requestFactory.recordRetries(
+                        retryContext ->
+                            RequestHedger.REFERENCE.execute(
+                                () ->
+                                    restTemplate.exchange(
+                                        resolveAgainstWebinRestV1Uri("cli/reference/project/{id}"),
+                                        HttpMethod.GET,
+                                        new HttpEntity<>(headers),
+                                        StudyResponse.class,
+                                        studyId.trim()))),
                     retryContext -> log.warn("Retrying study retrieval from server."),
                     HttpServerErrorException.class,
+                    HttpClientErrorException.TooManyRequests.class,
                     ResourceAccessException.class),
             WebinCliMessage.SERVICE_AUTHENTICATION_ERROR.format(SERVICE_NAME),
             WebinCliMessage.STUDY_SERVICE_VALIDATION_ERROR.format(studyId),
@@ -12,44 +12,75 @@ package uk.ac.ebi.ena.webin.cli.service;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.File;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
 import java.io.StringReader;
-import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.EndElement;
+import javax.xml.stream.events.XMLEvent;
 import org.apache.commons.lang3.StringUtils;
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.JDOMException;
-import org.jdom2.input.SAXBuilder;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.AbstractResource;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+import uk.ac.ebi.ena.webin.cli.service.utils.AdaptiveConcurrencyLimiter;
 import uk.ac.ebi.ena.webin.cli.service.utils.HttpHeaderBuilder;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetricsRequestFactory;
 import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
+import uk.ac.ebi.ena.webin.cli.trace.SubmissionEvent;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
 import uk.ac.ebi.ena.webin.cli.utils.ExceptionUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
+import uk.ac.ebi.ena.webin.cli.validator.reference.Sample;
 import uk.ac.ebi.ena.webin.xml.conversion.json.model.WebinSubmission;
 import uk.ac.ebi.ena.webin.xml.conversion.json.model.receipt.Receipt;
 import uk.ac.ebi.ena.webin.xml.conversion.json.model.receipt.ReceiptObject;
@@ -92,49 +123,250 @@ public class SubmitService extends WebinService {
     this.saveSubmissionXmlFiles = builder.saveSubmissionXmlFiles;
   }
 
-  public void doSubmission(List<SubmissionBundle.SubmissionXMLFile> xmlFileList)
+  /** @return Accessions assigned to the submitted objects mapped by their XML file type. */
+  public Map<SubmissionBundle.SubmissionXMLFileType, String> doSubmission(
+      List<SubmissionBundle.SubmissionXMLFile> xmlFileList) throws WebinCliException {
+    SubmissionEvent event = new SubmissionEvent();
+    event.begin();
+    try {
+      Resource submissionXml = new SubmissionXmlResource(xmlFileList);
+      if (saveSubmissionXmlFiles) {
+        Path submissionXmlFile = Paths.get(submitDir, SUBMISSION_XML_NAME);
+        saveToFile(submissionXmlFile, submissionXml);
+        submissionXml = new FileSystemResource(submissionXmlFile);
+      }
+
+      Map<SubmissionBundle.SubmissionXMLFileType, String> accessions =
+          processReceipt(readReceipt(submit(submissionXml)), xmlFileList);
+      event.success = true;
+      return accessions;
+    } finally {
+      commitSubmissionEvent(event, Collections.singletonList(xmlFileList));
+    }
+  }
+
+  /**
+   * Reads the receipt left in the submit directory by a submission that was interrupted before
+   * its receipt was processed. The receipt may be the receipt of a batch submission, so the
+   * submitted objects of the bundle are found by their aliases.
+   *
+   * @return Accessions assigned to the submitted objects mapped by their XML file type or 'null' if
+   *     the submit directory does not contain a complete receipt of a successful submission of the
+   *     bundle.
+   */
+  public Map<SubmissionBundle.SubmissionXMLFileType, String> recoverSubmission(
+      List<SubmissionBundle.SubmissionXMLFile> xmlFileList) throws WebinCliException {
+    Path receiptFile = Paths.get(submitDir, RECEIPT_XML_NAME);
+    if (!Files.exists(receiptFile)) {
+      return null;
+    }
+
+    SubmissionReceipt receipt;
+    try {
+      receipt = readReceipt(receiptFile);
+    } catch (WebinCliException ex) {
+      // The receipt was only partially written.
+      log.warn(ex.getMessage());
+      return null;
+    }
+    if (!receipt.isSuccess()) {
+      return null;
+    }
+
+    Map<String, Integer> aliasToBundleIndexMap = new HashMap<>();
+    for (SubmissionBundle.SubmissionXMLFile xmlFile : xmlFileList) {
+      if (xmlFile.getType() != SubmissionBundle.SubmissionXMLFileType.SUBMISSION) {
+        readAliases(xmlFile, alias -> aliasToBundleIndexMap.put(alias, 0));
+      }
+    }
+    Map<SubmissionBundle.SubmissionXMLFileType, String> accessions =
+        processBatchReceipt(receipt, 1, aliasToBundleIndexMap).get(0);
+    // The receipt does not contain the objects of the bundle.
+    return accessions.isEmpty() ? null : accessions;
+  }
+
+  /**
+   * Sends the XMLs of multiple submission bundles in a single submission request. The SUBMISSION
+   * XML is taken from the first bundle as it is the same for all the bundles created from one
+   * manifest file. The XMLs of every other type are merged into a single set element per type.
+   *
+   * <p>Webin processes the request atomically. If the receipt says that the submission failed then
+   * none of the bundles have been submitted and null is returned. An exception is thrown if the
+   * request fails without a receipt, in which case the bundles may have been submitted.
+   *
+   * @return Accessions assigned to the submitted objects of each bundle, in the same order as the
+   *     given bundle XML file lists, or null if the receipt says that the submission failed.
+   */
+  public List<Map<SubmissionBundle.SubmissionXMLFileType, String>> doBatchSubmission(
+      List<List<SubmissionBundle.SubmissionXMLFile>> bundleXmlFileLists)
       throws WebinCliException {
-    String submissionXml = createSubmissionXml(xmlFileList);
-    if (saveSubmissionXmlFiles) {
-      saveToFile(Paths.get(submitDir, SUBMISSION_XML_NAME), submissionXml);
+    Map<String, Integer> aliasToBundleIndexMap = new HashMap<>();
+
+    SubmissionEvent event = new SubmissionEvent();
+    event.begin();
+
+    // The merged XML is always written into a file so that it can be streamed to the server.
+    Path submissionXmlFile = Paths.get(submitDir, SUBMISSION_XML_NAME);
+    try {
+      try (OutputStream out = Files.newOutputStream(submissionXmlFile)) {
+        writeBatchSubmissionXml(bundleXmlFileLists, aliasToBundleIndexMap, out);
+      }
+
+      Path receiptFile = submit(new FileSystemResource(submissionXmlFile));
+      List<Map<SubmissionBundle.SubmissionXMLFileType, String>> accessions =
+          processBatchReceipt(
+              readReceipt(receiptFile), bundleXmlFileLists.size(), aliasToBundleIndexMap);
+      event.success = true;
+      return accessions;
+    } catch (IOException ex) {
+      throw WebinCliException.systemError(ex);
+    } finally {
+      if (!saveSubmissionXmlFiles) {
+        submissionXmlFile.toFile().delete();
+      }
+      commitSubmissionEvent(event, bundleXmlFileLists);
     }
+  }
 
-    MultiValueMap<String, Object> body = getRequestBody(submissionXml, SUBMISSION_XML_NAME);
-    ResponseEntity<String> response = submit(body);
-    processReceipt(response.getBody(), xmlFileList);
+  private void commitSubmissionEvent(
+      SubmissionEvent event, List<List<SubmissionBundle.SubmissionXMLFile>> bundleXmlFileLists) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.manifest = Trace.getCurrentSpan().getManifest();
+      event.submitDir = submitDir;
+      event.bundleCount = bundleXmlFileLists.size();
+      for (List<SubmissionBundle.SubmissionXMLFile> xmlFileList : bundleXmlFileLists) {
+        for (SubmissionBundle.SubmissionXMLFile xmlFile : xmlFileList) {
+          if (xmlFile.getFile() != null) {
+            event.xmlBytes += xmlFile.getFile().length();
+          }
+        }
+      }
+      event.commit();
+    }
   }
 
   public void doJsonSubmission(WebinSubmission jsonSubmission) throws JsonProcessingException {
+    processJsonReceipt(submitJson(jsonSubmission));
+  }
+
+  /**
+   * Submits the samples in the given JSON submission.
+   *
+   * @return Samples with the assigned BioSample and ENA accessions mapped by their aliases. No
+   *     other sample fields are set.
+   */
+  public Map<String, Sample> doJsonSampleSubmission(WebinSubmission jsonSubmission)
+      throws JsonProcessingException {
+    ResponseEntity<String> response = submitJson(jsonSubmission);
+    processJsonReceipt(response);
+    return getSubmittedSamples(response.getBody());
+  }
+
+  private ResponseEntity<String> submitJson(WebinSubmission jsonSubmission)
+      throws JsonProcessingException {
     ObjectMapper objectMapper = new ObjectMapper();
     objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
     MultiValueMap<String, Object> body =
         getRequestBody(objectMapper.writeValueAsString(jsonSubmission), SUBMISSION_JSON_NAME);
-    ResponseEntity<String> response = submit(body);
-    processJsonReceipt(response);
+    return submit(body);
+  }
+
+  static Map<String, Sample> getSubmittedSamples(String receiptJson)
+      throws JsonProcessingException {
+    Map<String, Sample> samples = new HashMap<>();
+    for (JsonNode sampleNode : new ObjectMapper().readTree(receiptJson).path("samples")) {
+      String alias = sampleNode.path("alias").asText(null);
+      if (alias == null) {
+        continue;
+      }
+      Sample sample = new Sample();
+      sample.setSraSampleId(sampleNode.path("accession").asText(null));
+      sample.setBioSampleId(sampleNode.path("externalAccession").path("id").asText(null));
+      samples.put(alias, sample);
+    }
+    return samples;
   }
 
   private ResponseEntity<String> submit(MultiValueMap<String, Object> body) {
-    RestTemplate restTemplate = new RestTemplate();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
     HttpHeaders headers =
         new HttpHeaderBuilder().basicAuth(getUserName(), getPassword()).multipartFormData().build();
 
     return ExceptionUtils.executeWithRestExceptionHandling(
         () ->
             RetryUtils.executeWithRetry(
-                context ->
-                    restTemplate.exchange(
-                        resolveAgainstWebinRestV2Uri("submit/"),
-                        HttpMethod.POST,
-                        new HttpEntity<>(body, headers),
-                        String.class),
+                requestFactory.recordRetries(
+                    context ->
+                        AdaptiveConcurrencyLimiter.SUBMIT.execute(
+                            () ->
+                                restTemplate.exchange(
+                                    resolveAgainstWebinRestV2Uri("submit/"),
+                                    HttpMethod.POST,
+                                    new HttpEntity<>(body, headers),
+                                    String.class))),
                 context -> log.warn("Retrying sending submission to server."),
                 HttpServerErrorException.class,
+                HttpClientErrorException.TooManyRequests.class,
                 ResourceAccessException.class),
         WebinCliMessage.SERVICE_AUTHENTICATION_ERROR.format("Submit"),
         null,
         WebinCliMessage.SUBMIT_SAMPLE_SERVICE_SYSTEM_ERROR.text());
   }
 
+  /**
+   * Streams the submission XML to the server and the receipt XML from the server into the submit
+   * directory.
+   *
+   * @return The receipt XML file.
+   */
+  private Path submit(Resource submissionXml) {
+    Path receiptFile = Paths.get(submitDir, RECEIPT_XML_NAME);
+
+    // A receipt left by an earlier submission must not be mistaken for the receipt of this one.
+    try {
+      Files.deleteIfExists(receiptFile);
+    } catch (IOException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
+    HttpHeaders headers =
+        new HttpHeaderBuilder().basicAuth(getUserName(), getPassword()).multipartFormData().build();
+    MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+    body.add("file", submissionXml);
+
+    RequestCallback requestCallback =
+        restTemplate.httpEntityCallback(new HttpEntity<>(body, headers), String.class);
+    ResponseExtractor<Path> receiptExtractor =
+        response -> {
+          Files.copy(response.getBody(), receiptFile, StandardCopyOption.REPLACE_EXISTING);
+          return receiptFile;
+        };
+
+    return ExceptionUtils.executeWithRestExceptionHandling(
+        () ->
+            RetryUtils.executeWithRetry(
+                requestFactory.recordRetries(
+                    context ->
+                        AdaptiveConcurrencyLimiter.SUBMIT.execute(
+                            () ->
+                                restTemplate.execute(
+                                    resolveAgainstWebinRestV2Uri("submit/"),
+                                    HttpMethod.POST,
+                                    requestCallback,
+                                    receiptExtractor))),
+                context -> log.warn("Retrying sending submission to server."),
+                HttpServerErrorException.class,
+                HttpClientErrorException.TooManyRequests.class,
+                ResourceAccessException.class),
+        WebinCliMessage.SERVICE_AUTHENTICATION_ERROR.format("Submit"),
+        null,
+        WebinCliMessage.SUBMIT_SERVICE_SYSTEM_ERROR.text());
+  }
+
   private MultiValueMap<String, Object> getRequestBody(String requestContent, String fileName) {
 
     MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
@@ -153,73 +385,291 @@ public class SubmitService extends WebinService {
     return body;
   }
 
-  private String createSubmissionXml(List<SubmissionBundle.SubmissionXMLFile> xmlFileList) {
-    StringBuilder sb = new StringBuilder(32768);
+  /**
+   * Writes a single WEBIN document out of the XMLs of the given bundles and records the bundle each
+   * object alias belongs to so that the receipt can be mapped back to the bundles. The SUBMISSION
+   * XML is taken from the first bundle as it is the same for all the bundles created from one
+   * manifest file. The objects of every other type are merged into a single set element per type.
+   * The XMLs are copied event by event and are never loaded into memory as a whole.
+   */
+  static void writeBatchSubmissionXml(
+      List<List<SubmissionBundle.SubmissionXMLFile>> bundleXmlFileLists,
+      Map<String, Integer> aliasToBundleIndexMap,
+      OutputStream out) {
+    XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+    try {
+      XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out, "UTF-8");
+      writer.add(eventFactory.createStartElement("", "", "WEBIN"));
+
+      for (SubmissionBundle.SubmissionXMLFileType type :
+          SubmissionBundle.SubmissionXMLFileType.values()) {
+        EndElement setEnd = null;
+
+        for (int i = 0; i < bundleXmlFileLists.size(); i++) {
+          final int bundleIndex = i;
+          for (SubmissionBundle.SubmissionXMLFile xmlFile : bundleXmlFileLists.get(bundleIndex)) {
+            if (xmlFile.getType() != type) {
+              continue;
+            }
+            if (type == SubmissionBundle.SubmissionXMLFileType.SUBMISSION && setEnd != null) {
+              continue;
+            }
+
+            if (setEnd == null) {
+              writer.add(eventFactory.createCharacters(System.lineSeparator()));
+            }
+            EndElement end =
+                copySetElement(
+                    xmlFile,
+                    writer,
+                    setEnd == null,
+                    type == SubmissionBundle.SubmissionXMLFileType.SUBMISSION
+                        ? null
+                        : alias -> aliasToBundleIndexMap.put(alias, bundleIndex));
+            if (setEnd == null) {
+              setEnd = end;
+            }
+          }
+        }
+
+        if (setEnd != null) {
+          writer.add(setEnd);
+        }
+      }
 
-    sb.append("<WEBIN>" + System.lineSeparator());
-    xmlFileList.forEach(
-        xmlFile -> {
-          sb.append(xmlFile.getXmlContent());
-          sb.append(System.lineSeparator());
-        });
-    sb.append("</WEBIN>");
+      writer.add(eventFactory.createCharacters(System.lineSeparator()));
+      writer.add(eventFactory.createEndElement("", "", "WEBIN"));
+      writer.flush();
+      writer.close();
+    } catch (IOException | XMLStreamException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+  }
 
-    return sb.toString();
+  /**
+   * Copies the objects of the set element in the given XML. The set start element is copied only
+   * if requested and the set end element is never copied but returned instead.
+   */
+  private static EndElement copySetElement(
+      SubmissionBundle.SubmissionXMLFile xmlFile,
+      XMLEventWriter writer,
+      boolean copySetStart,
+      Consumer<String> aliasConsumer)
+      throws IOException, XMLStreamException {
+    EndElement setEnd = null;
+    try (Reader xmlReader = openXml(xmlFile)) {
+      XMLEventReader reader = createXmlInputFactory().createXMLEventReader(xmlReader);
+      int depth = 0;
+      while (reader.hasNext()) {
+        XMLEvent event = reader.nextEvent();
+        if (event.isStartDocument() || event.isEndDocument()) {
+          continue;
+        }
+        if (event.isStartElement()) {
+          depth++;
+          if (depth == 1) {
+            if (copySetStart) {
+              writer.add(event);
+            }
+            continue;
+          }
+          if (depth == 2 && aliasConsumer != null) {
+            Attribute alias = event.asStartElement().getAttributeByName(new QName("alias"));
+            if (alias != null) {
+              aliasConsumer.accept(alias.getValue());
+            }
+          }
+        } else if (event.isEndElement()) {
+          depth--;
+          if (depth == 0) {
+            setEnd = event.asEndElement();
+            continue;
+          }
+        }
+        writer.add(event);
+      }
+      reader.close();
+    }
+    return setEnd;
   }
 
-  private void processReceipt(
-      String receiptXml, List<SubmissionBundle.SubmissionXMLFile> xmlFileList)
+  /** Reads the aliases of the objects in the set element of the given XML. */
+  static void readAliases(
+      SubmissionBundle.SubmissionXMLFile xmlFile, Consumer<String> aliasConsumer)
       throws WebinCliException {
-    StringBuilder errorsSb = new StringBuilder();
-    try {
-      SAXBuilder builder = new SAXBuilder();
-      Document doc = builder.build(new StringReader(receiptXml));
-      XMLOutputter xmlOutput = new XMLOutputter();
-      xmlOutput.setFormat(Format.getPrettyFormat());
-      StringWriter stringWriter = new StringWriter();
-      xmlOutput.output(doc, stringWriter);
+    try (Reader xmlReader = openXml(xmlFile)) {
+      XMLStreamReader reader = createXmlInputFactory().createXMLStreamReader(xmlReader);
+      int depth = 0;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          String alias = depth == 2 ? reader.getAttributeValue(null, "alias") : null;
+          if (alias != null) {
+            aliasConsumer.accept(alias);
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
+      }
+      reader.close();
+    } catch (IOException | XMLStreamException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+  }
 
-      saveToFile(Paths.get(submitDir + File.separator + RECEIPT_XML_NAME), stringWriter.toString());
+  private static Reader openXml(SubmissionBundle.SubmissionXMLFile xmlFile) throws IOException {
+    if (xmlFile.hasXmlContent()) {
+      return new StringReader(xmlFile.getXmlContent());
+    }
+    return Files.newBufferedReader(xmlFile.getFile().toPath(), StandardCharsets.UTF_8);
+  }
 
-      Element rootNode = doc.getRootElement();
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
 
-      if (Boolean.valueOf(rootNode.getAttributeValue("success"))) {
-        for (SubmissionBundle.SubmissionXMLFile xmlFile : xmlFileList) {
-          // Do not show submission accession in the output.
-          if (xmlFile.getType() == SubmissionBundle.SubmissionXMLFileType.SUBMISSION) {
-            continue;
-          }
+  private Map<SubmissionBundle.SubmissionXMLFileType, String> processReceipt(
+      SubmissionReceipt receipt, List<SubmissionBundle.SubmissionXMLFile> xmlFileList)
+      throws WebinCliException {
+    Map<SubmissionBundle.SubmissionXMLFileType, String> accessions =
+        new EnumMap<>(SubmissionBundle.SubmissionXMLFileType.class);
+
+    if (!receipt.isSuccess()) {
+      if (!receipt.getErrors().isEmpty()) {
+        throw WebinCliException.systemError(String.join("", receipt.getErrors()));
+      }
+      return accessions;
+    }
 
-          String xmlFileType = String.valueOf(xmlFile.getType());
-          String accession = rootNode.getChild(xmlFileType).getAttributeValue("accession");
+    for (SubmissionBundle.SubmissionXMLFile xmlFile : xmlFileList) {
+      // Do not show submission accession in the output.
+      if (xmlFile.getType() == SubmissionBundle.SubmissionXMLFileType.SUBMISSION) {
+        continue;
+      }
 
-          String msg =
-              WebinCliMessage.SUBMIT_SERVICE_SUCCESS.format(xmlFileType.toLowerCase(), accession);
+      String xmlFileType = String.valueOf(xmlFile.getType());
+      String accession =
+          receipt.getObjects().stream()
+              .filter(object -> object.getType().equals(xmlFileType))
+              .map(SubmissionReceiptObject::getAccession)
+              .findFirst()
+              .orElse(null);
+      accessions.put(xmlFile.getType(), accession);
 
-          if (null == accession || accession.isEmpty()) {
-            msg = WebinCliMessage.SUBMIT_SERVICE_SUCCESS_NOACC.format(xmlFileType.toLowerCase());
-          }
+      String msg =
+          WebinCliMessage.SUBMIT_SERVICE_SUCCESS.format(xmlFileType.toLowerCase(), accession);
 
-          log.info(msg);
-        }
+      if (null == accession || accession.isEmpty()) {
+        msg = WebinCliMessage.SUBMIT_SERVICE_SUCCESS_NOACC.format(xmlFileType.toLowerCase());
+      }
+
+      log.info(msg);
+    }
+
+    return accessions;
+  }
+
+  private List<Map<SubmissionBundle.SubmissionXMLFileType, String>> processBatchReceipt(
+      SubmissionReceipt receipt, int bundleCount, Map<String, Integer> aliasToBundleIndexMap)
+      throws WebinCliException {
+    List<Map<SubmissionBundle.SubmissionXMLFileType, String>> bundleAccessions =
+        new ArrayList<>(bundleCount);
+    for (int i = 0; i < bundleCount; i++) {
+      bundleAccessions.add(new EnumMap<>(SubmissionBundle.SubmissionXMLFileType.class));
+    }
+
+    if (!receipt.isSuccess()) {
+      receipt.getErrors().forEach(log::warn);
+      return null;
+    }
+
+    for (SubmissionReceiptObject object : receipt.getObjects()) {
+      SubmissionBundle.SubmissionXMLFileType type = getXmlFileType(object.getType());
+      // Do not show submission accession in the output.
+      if (type == null || type == SubmissionBundle.SubmissionXMLFileType.SUBMISSION) {
+        continue;
+      }
+
+      String alias = object.getAlias();
+      Integer bundleIndex = aliasToBundleIndexMap.get(alias);
+      if (bundleIndex == null) {
+        continue;
+      }
+
+      String accession = object.getAccession();
+      bundleAccessions.get(bundleIndex).put(type, accession);
+
+      String xmlFileType = type.name().toLowerCase();
+      if (null == accession || accession.isEmpty()) {
+        log.info(WebinCliMessage.SUBMIT_SERVICE_BATCH_SUCCESS_NOACC.format(alias, xmlFileType));
       } else {
-        List<Element> childrenList = rootNode.getChildren("MESSAGES");
-        for (Element child : childrenList) {
-          List<Element> errorList = child.getChildren("ERROR");
-          if (errorList != null && !errorList.isEmpty()) {
-            errorList.stream().forEach(e -> errorsSb.append(e.getValue()));
-          } else {
-            errorsSb.append("The submission failed because of an XML submission error.");
+        log.info(
+            WebinCliMessage.SUBMIT_SERVICE_BATCH_SUCCESS.format(alias, xmlFileType, accession));
+      }
+    }
+
+    return bundleAccessions;
+  }
+
+  /** Reads the receipt XML file without building a document tree. */
+  static SubmissionReceipt readReceipt(Path receiptFile) throws WebinCliException {
+    SubmissionReceipt receipt = new SubmissionReceipt();
+
+    try (InputStream in = Files.newInputStream(receiptFile)) {
+      XMLStreamReader reader = createXmlInputFactory().createXMLStreamReader(in);
+      int depth = 0;
+      int messagesErrorCount = -1;
+
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          String name = reader.getLocalName();
+          if (depth == 1) {
+            receipt.success = Boolean.parseBoolean(reader.getAttributeValue(null, "success"));
+          } else if (depth == 2 && name.equals("MESSAGES")) {
+            messagesErrorCount = receipt.errors.size();
+          } else if (depth == 2) {
+            receipt.objects.add(
+                new SubmissionReceiptObject(
+                    name,
+                    reader.getAttributeValue(null, "alias"),
+                    reader.getAttributeValue(null, "accession")));
+          } else if (depth == 3 && messagesErrorCount >= 0 && name.equals("ERROR")) {
+            // Reads up to and including the end element.
+            receipt.errors.add(reader.getElementText());
+            depth--;
           }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (depth == 2 && messagesErrorCount >= 0) {
+            if (receipt.errors.size() == messagesErrorCount) {
+              receipt.errors.add("The submission failed because of an XML submission error.");
+            }
+            messagesErrorCount = -1;
+          }
+          depth--;
         }
       }
+      reader.close();
+    } catch (IOException | XMLStreamException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+
+    return receipt;
+  }
 
-      if (errorsSb.length() != 0) {
-        throw WebinCliException.systemError(errorsSb.toString());
+  private static SubmissionBundle.SubmissionXMLFileType getXmlFileType(String elementName) {
+    for (SubmissionBundle.SubmissionXMLFileType type :
+        SubmissionBundle.SubmissionXMLFileType.values()) {
+      if (type.name().equals(elementName)) {
+        return type;
       }
-    } catch (IOException | JDOMException ex) {
-      throw WebinCliException.systemError(ex);
     }
+    return null;
   }
 
   private void processJsonReceipt(ResponseEntity<String> response) {
@@ -276,15 +726,126 @@ public class SubmitService extends WebinService {
     return submissionsAccessions;
   }
 
-  private void saveToFile(Path filePath, String data) {
-    try {
-      if (Files.exists(filePath)) {
-        Files.delete(filePath);
-      }
-      Files.createFile(filePath);
-      Files.write(filePath, data.getBytes(StandardCharsets.UTF_8));
+  private void saveToFile(Path filePath, Resource data) {
+    try (InputStream in = data.getInputStream()) {
+      Files.copy(in, filePath, StandardCopyOption.REPLACE_EXISTING);
     } catch (IOException ex) {
       throw WebinCliException.systemError(ex);
     }
   }
+
+  /** Receipt of an XML submission. */
+  static class SubmissionReceipt {
+    private boolean success;
+    private final List<SubmissionReceiptObject> objects = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+
+    public boolean isSuccess() {
+      return success;
+    }
+
+    /** @return Receipt elements other than MESSAGES in document order. */
+    public List<SubmissionReceiptObject> getObjects() {
+      return objects;
+    }
+
+    public List<String> getErrors() {
+      return errors;
+    }
+  }
+
+  static class SubmissionReceiptObject {
+    private final String type;
+    private final String alias;
+    private final String accession;
+
+    SubmissionReceiptObject(String type, String alias, String accession) {
+      this.type = type;
+      this.alias = alias;
+      this.accession = accession;
+    }
+
+    /** @return The receipt element name e.g. RUN. */
+    public String getType() {
+      return type;
+    }
+
+    public String getAlias() {
+      return alias;
+    }
+
+    public String getAccession() {
+      return accession;
+    }
+  }
+
+  /**
+   * WEBIN document streamed from the given submission XMLs. XMLs that are not held in memory are
+   * read from their files one at a time.
+   */
+  static class SubmissionXmlResource extends AbstractResource {
+    private final List<SubmissionBundle.SubmissionXMLFile> xmlFileList;
+
+    SubmissionXmlResource(List<SubmissionBundle.SubmissionXMLFile> xmlFileList) {
+      this.xmlFileList = xmlFileList;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      List<Supplier<InputStream>> parts = new ArrayList<>();
+      parts.add(() -> toInputStream("<WEBIN>" + System.lineSeparator()));
+      for (SubmissionBundle.SubmissionXMLFile xmlFile : xmlFileList) {
+        parts.add(() -> openXmlStream(xmlFile));
+        parts.add(() -> toInputStream(System.lineSeparator()));
+      }
+      parts.add(() -> toInputStream("</WEBIN>"));
+
+      Iterator<Supplier<InputStream>> partIterator = parts.iterator();
+      return new SequenceInputStream(
+          new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+              return partIterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+              return partIterator.next().get();
+            }
+          });
+    }
+
+    /** The length is not known without reading the XMLs. */
+    @Override
+    public long contentLength() {
+      return -1;
+    }
+
+    @Override
+    public String getFilename() {
+      // The remote endpoint responds back with 400 status code if file name is not present in
+      // content-disposition header.
+      return SUBMISSION_XML_NAME;
+    }
+
+    @Override
+    public String getDescription() {
+      return "Submission XML [" + SUBMISSION_XML_NAME + "]";
+    }
+
+    private static InputStream openXmlStream(SubmissionBundle.SubmissionXMLFile xmlFile) {
+      if (xmlFile.hasXmlContent()) {
+        return toInputStream(xmlFile.getXmlContent());
+      }
+      try {
+        return new BufferedInputStream(Files.newInputStream(xmlFile.getFile().toPath()));
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    private static InputStream toInputStream(String str) {
+      return new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8));
+    }
+  }
 }
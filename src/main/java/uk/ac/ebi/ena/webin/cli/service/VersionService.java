@@ -17,6 +17,7 @@ import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
 import uk.ac.ebi.ena.webin.cli.entity.Version;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetricsRequestFactory;
 import uk.ac.ebi.ena.webin.cli.utils.ExceptionUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
 
@@ -34,14 +35,18 @@ public class VersionService extends WebinService {
   }
 
   public Version getVersion(String version) {
-    RestTemplate restTemplate = new RestTemplate();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory();
+    RestTemplate restTemplate = new RestTemplate(requestFactory);
 
     return ExceptionUtils.executeWithRestExceptionHandling(
         () ->
             RetryUtils.executeWithRetry(
-                retryContext ->
-                    restTemplate.getForObject(
-                        resolveAgainstWebinRestV1Uri("/cli/{version}"), Version.class, version),
+                requestFactory.recordRetries(
+                    retryContext ->
+                        restTemplate.getForObject(
+                            resolveAgainstWebinRestV1Uri("/cli/{version}"),
+                            Version.class,
+                            version)),
                 retryContext -> log.warn("Retrying version retrieval from server."),
                 HttpServerErrorException.class,
                 ResourceAccessException.class),
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.service.utils;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+
+/**
+ * Limits the number of concurrent requests to a family of Webin REST endpoints. The limit is
+ * adapted with additive increase and multiplicative decrease (AIMD):
+ *
+ * <ul>
+ *   <li>A successful request whose latency is within {@link #LATENCY_TOLERANCE} times the lowest
+ *       observed latency increases the limit by one per limit's worth of such requests if at least
+ *       half of the limit is in use.
+ *   <li>A request rejected by the server with 429 (Too Many Requests) or 503 (Service Unavailable)
+ *       halves the limit. If the response has a Retry-After header then no new requests are started
+ *       until the given time.
+ *   <li>Other outcomes leave the limit unchanged.
+ * </ul>
+ *
+ * The limiters are shared by all the services so that concurrent lookups and submissions see the
+ * same limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final Logger log = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+  /** Study, run and analysis reference lookups. Sample lookups are not limited. */
+  public static final AdaptiveConcurrencyLimiter REFERENCE =
+      new AdaptiveConcurrencyLimiter("reference");
+
+  /** Ignore errors and rate limit checks made before a manifest is validated. */
+  public static final AdaptiveConcurrencyLimiter SUBMISSION_CHECK =
+      new AdaptiveConcurrencyLimiter("submission check");
+
+  /** Submissions. */
+  public static final AdaptiveConcurrencyLimiter SUBMIT = new AdaptiveConcurrencyLimiter("submit");
+
+  static final int INITIAL_LIMIT = 8;
+  static final int MIN_LIMIT = 1;
+  static final int MAX_LIMIT = 64;
+
+  /** Latencies up to this multiple of the lowest observed latency are considered stable. */
+  static final double LATENCY_TOLERANCE = 2.0;
+
+  /** Latency variation that is always considered stable. */
+  private static final long LATENCY_JITTER_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /** The limit is multiplied by this when the server rejects a request as overloaded. */
+  static final double BACKOFF_RATIO = 0.5;
+
+  /** Longer Retry-After delays are shortened to this. */
+  static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(1);
+
+  /** How quickly the lowest observed latency follows higher latencies. */
+  private static final double BASELINE_LATENCY_DRIFT = 0.01;
+
+  private final String name;
+
+  private double limit;
+  private int inFlight;
+  private double baselineLatencyNanos = -1;
+  private long blockedUntilNanos;
+
+  AdaptiveConcurrencyLimiter(String name) {
+    this(name, INITIAL_LIMIT);
+  }
+
+  AdaptiveConcurrencyLimiter(String name, int initialLimit) {
+    this.name = name;
+    this.limit = initialLimit;
+  }
+
+  /**
+   * Executes the request once a slot is available and adapts the limit to its outcome.
+   *
+   * @throws WebinCliException If the thread is interrupted while waiting for a slot.
+   */
+  public <T> T execute(Supplier<T> request) {
+    try {
+      acquire();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw WebinCliException.systemError(ex);
+    }
+
+    long startNanos = System.nanoTime();
+    boolean released = false;
+    try {
+      T result = request.get();
+      onSuccess(System.nanoTime() - startNanos);
+      released = true;
+      return result;
+    } catch (HttpStatusCodeException ex) {
+      if (isOverloaded(ex.getStatusCode().value())) {
+        onOverload(getRetryAfter(ex.getResponseHeaders()));
+        released = true;
+      }
+      throw ex;
+    } finally {
+      if (!released) {
+        onIgnore();
+      }
+    }
+  }
+
+  /** @return The current concurrency limit. */
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  synchronized void acquire() throws InterruptedException {
+    while (true) {
+      long blockedNanos = blockedUntilNanos - System.nanoTime();
+      if (blockedNanos > 0) {
+        TimeUnit.NANOSECONDS.timedWait(this, blockedNanos);
+      } else if (inFlight >= (int) limit) {
+        wait();
+      } else {
+        inFlight++;
+        return;
+      }
+    }
+  }
+
+  synchronized void onSuccess(long latencyNanos) {
+    release();
+    if (baselineLatencyNanos < 0 || latencyNanos < baselineLatencyNanos) {
+      baselineLatencyNanos = latencyNanos;
+    } else {
+      baselineLatencyNanos += (latencyNanos - baselineLatencyNanos) * BASELINE_LATENCY_DRIFT;
+    }
+
+    // Only grow the limit if it is being used and the server is keeping up.
+    if (latencyNanos <= baselineLatencyNanos * LATENCY_TOLERANCE + LATENCY_JITTER_NANOS
+        && inFlight + 1 >= limit / 2) {
+      limit = Math.min(MAX_LIMIT, limit + 1 / limit);
+    }
+  }
+
+  synchronized void onOverload(Duration retryAfter) {
+    release();
+    limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+    if (retryAfter != null) {
+      if (retryAfter.compareTo(MAX_RETRY_AFTER) > 0) {
+        retryAfter = MAX_RETRY_AFTER;
+      }
+      blockedUntilNanos = Math.max(blockedUntilNanos, System.nanoTime() + retryAfter.toNanos());
+    }
+    log.debug(
+        "Webin {} requests limited to {} concurrent requests{}",
+        name,
+        (int) limit,
+        retryAfter == null ? "" : " after " + retryAfter.toMillis() + " ms");
+  }
+
+  synchronized void onIgnore() {
+    release();
+  }
+
+  private void release() {
+    inFlight--;
+    notifyAll();
+  }
+
+  static boolean isOverloaded(int statusCode) {
+    return statusCode == HttpStatus.TOO_MANY_REQUESTS.value()
+        || statusCode == HttpStatus.SERVICE_UNAVAILABLE.value();
+  }
+
+  /** @return The delay in the Retry-After header given in seconds or as a date, or null. */
+  static Duration getRetryAfter(HttpHeaders headers) {
+    String retryAfter = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+    if (retryAfter == null || retryAfter.trim().isEmpty()) {
+      return null;
+    }
+    retryAfter = retryAfter.trim();
+    try {
+      return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter)));
+    } catch (NumberFormatException ex) {
+      // Not in seconds.
+    }
+    try {
+      Duration delay =
+          Duration.between(
+              ZonedDateTime.now(),
+              ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME));
+      return delay.isNegative() ? Duration.ZERO : delay;
+    } catch (DateTimeParseException ex) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.service.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpMethod;
+
+/**
+ * Per-endpoint request counts, response status classes, retries and latency histograms of the
+ * requests sent to the Webin services. The requests are recorded by {@link
+ * HttpMetricsRequestFactory}.
+ *
+ * <p>An endpoint is identified by the request method and the URI path, with the path segments
+ * that contain digits, for example accessions and versions, replaced by {@value #ID_SEGMENT}.
+ * The requests sent by retry attempts are marked as retries by the caller. The counters of the
+ * request hedgers are written together with the endpoint metrics.
+ */
+public class HttpMetrics {
+
+  public static final String IO_ERROR = "ioError";
+
+  static final String ID_SEGMENT = "{id}";
+
+  /** Upper bound of the first latency histogram bucket. */
+  static final long MIN_LATENCY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  /** Ratio of the upper bounds of consecutive latency histogram buckets. */
+  static final double BUCKET_RATIO = 1.1;
+
+  /** The last bucket holds all latencies above about fifteen minutes. */
+  static final int BUCKET_COUNT = 170;
+
+  private static final Pattern ID_SEGMENT_PATTERN = Pattern.compile("(?!v\\d+$).*\\d.*");
+
+  private static final HttpMetrics INSTANCE = new HttpMetrics();
+
+  private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+  private final List<RequestHedger> hedgers;
+
+  HttpMetrics() {
+    this(Collections.singletonList(RequestHedger.REFERENCE));
+  }
+
+  HttpMetrics(List<RequestHedger> hedgers) {
+    this.hedgers = hedgers;
+  }
+
+  public static HttpMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  public static String getEndpoint(HttpMethod method, URI uri) {
+    StringBuilder endpoint = new StringBuilder(method.name()).append(' ');
+    String path = uri.getPath();
+    if (path == null || path.isEmpty()) {
+      return endpoint.append('/').toString();
+    }
+    String[] segments = path.split("/", -1);
+    for (int i = 0; i < segments.length; i++) {
+      if (i > 0) {
+        endpoint.append('/');
+      }
+      endpoint.append(
+          ID_SEGMENT_PATTERN.matcher(segments[i]).matches() ? ID_SEGMENT : segments[i]);
+    }
+    return endpoint.toString();
+  }
+
+  /** @return The status class of the response status code, for example 2xx. */
+  public static String getStatusClass(int statusCode) {
+    return (statusCode / 100) + "xx";
+  }
+
+  /**
+   * @param statusCode The response status code or 0 if no response was received because of an I/O
+   *     error.
+   * @param retry True if the request was sent by a retry attempt.
+   */
+  public void record(String endpoint, int statusCode, long latencyNanos, boolean retry) {
+    endpoints
+        .computeIfAbsent(endpoint, e -> new EndpointMetrics())
+        .record(statusCode == 0 ? IO_ERROR : getStatusClass(statusCode), latencyNanos, retry);
+  }
+
+  /** @return The metrics of the endpoints sorted by the endpoint. */
+  public Map<String, EndpointMetrics> getEndpoints() {
+    return new TreeMap<>(endpoints);
+  }
+
+  public List<RequestHedger> getHedgers() {
+    return hedgers;
+  }
+
+  public void clear() {
+    endpoints.clear();
+  }
+
+  public void writeJson(Path file) throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    ObjectNode root = objectMapper.createObjectNode();
+    ObjectNode endpointsNode = root.putObject("endpoints");
+    getEndpoints()
+        .forEach(
+            (endpoint, metrics) -> {
+              ObjectNode node = endpointsNode.putObject(endpoint);
+              node.put("requests", metrics.getRequestCount());
+              node.put("retries", metrics.getRetryCount());
+              ObjectNode statusesNode = node.putObject("statuses");
+              metrics.getStatusClassCounts().forEach(statusesNode::put);
+              ObjectNode latencyNode = node.putObject("latencyMillis");
+              latencyNode.put("p50", metrics.getLatencyPercentile(50).toMillis());
+              latencyNode.put("p95", metrics.getLatencyPercentile(95).toMillis());
+              latencyNode.put("p99", metrics.getLatencyPercentile(99).toMillis());
+              latencyNode.put("max", metrics.getMaxLatency().toMillis());
+              latencyNode.put("mean", metrics.getMeanLatency().toMillis());
+            });
+    ObjectNode hedgingNode = root.putObject("hedging");
+    for (RequestHedger hedger : hedgers) {
+      ObjectNode node = hedgingNode.putObject(hedger.getName());
+      node.put("requests", hedger.getRequestCount());
+      node.put("hedged", hedger.getHedgedRequestCount());
+      node.put("hedgeWins", hedger.getHedgeWinCount());
+    }
+    objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), root);
+  }
+
+  static int getBucket(long latencyNanos) {
+    if (latencyNanos <= MIN_LATENCY_NANOS) {
+      return 0;
+    }
+    double ratio = (double) latencyNanos / MIN_LATENCY_NANOS;
+    int bucket = (int) Math.ceil(Math.log(ratio) / Math.log(BUCKET_RATIO));
+    return Math.min(bucket, BUCKET_COUNT - 1);
+  }
+
+  static long getBucketUpperBoundNanos(int bucket) {
+    return (long) (MIN_LATENCY_NANOS * Math.pow(BUCKET_RATIO, bucket));
+  }
+
+  public static class EndpointMetrics {
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private final Map<String, Long> statusClassCounts = new TreeMap<>();
+    private long requestCount;
+    private long retryCount;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    synchronized void record(String statusClass, long latencyNanos, boolean retry) {
+      requestCount++;
+      if (retry) {
+        retryCount++;
+      }
+      statusClassCounts.merge(statusClass, 1L, Long::sum);
+      buckets[getBucket(latencyNanos)]++;
+      totalLatencyNanos += latencyNanos;
+      maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+    }
+
+    public synchronized long getRequestCount() {
+      return requestCount;
+    }
+
+    public synchronized long getRetryCount() {
+      return retryCount;
+    }
+
+    /** @return The number of responses per status class. */
+    public synchronized Map<String, Long> getStatusClassCounts() {
+      return new TreeMap<>(statusClassCounts);
+    }
+
+    /**
+     * @return The upper bound of the histogram bucket the percentile falls into, which is within
+     *     ten percent of the actual latency, or the maximum latency if smaller.
+     */
+    public synchronized Duration getLatencyPercentile(int percentile) {
+      if (requestCount == 0) {
+        return Duration.ZERO;
+      }
+      long rank = (long) Math.ceil(requestCount * percentile / 100.0);
+      long count = 0;
+      for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+        count += buckets[bucket];
+        if (count >= rank) {
+          return Duration.ofNanos(Math.min(getBucketUpperBoundNanos(bucket), maxLatencyNanos));
+        }
+      }
+      return Duration.ofNanos(maxLatencyNanos);
+    }
+
+    public synchronized Duration getMaxLatency() {
+      return Duration.ofNanos(maxLatencyNanos);
+    }
+
+    public synchronized Duration getMeanLatency() {
+      return requestCount == 0 ? Duration.ZERO : Duration.ofNanos(totalLatencyNanos / requestCount);
+    }
+
+    /** @return A one line summary of the metrics for the reports. */
+    public synchronized String getSummary() {
+      return String.format(
+          "requests=%d, retries=%d, statuses=%s, p50=%dms, p95=%dms, p99=%dms",
+          requestCount,
+          retryCount,
+          statusClassCounts,
+          getLatencyPercentile(50).toMillis(),
+          getLatencyPercentile(95).toMillis(),
+          getLatencyPercentile(99).toMillis());
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.service.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.retry.RetryCallback;
+
+/**
+ * Records the requests in {@link HttpMetrics}. The latency of a request is measured from the
+ * creation of the request until the response status and headers have been received, and so
+ * includes sending the request body.
+ *
+ * <p>A request factory is used instead of a {@link
+ * org.springframework.http.client.ClientHttpRequestInterceptor} because the interceptors require
+ * the request body to be buffered in memory, which would defeat streaming the submission XML.
+ *
+ * <p>The requests are recorded as retries if they are created by a retry attempt of a callback
+ * wrapped with {@link #recordRetries(RetryCallback)}. The attempt is tracked by the factory rather
+ * than the thread because the requests may be sent by other threads, for example by a {@link
+ * RequestHedger}. A factory should therefore not be shared by concurrently retried requests.
+ */
+public class HttpMetricsRequestFactory implements ClientHttpRequestFactory {
+
+  private final ClientHttpRequestFactory requestFactory;
+  private final HttpMetrics metrics;
+
+  /** True if the requests are created by a retry attempt. */
+  private volatile boolean retry;
+
+  public HttpMetricsRequestFactory() {
+    this(new SimpleClientHttpRequestFactory(), HttpMetrics.getInstance());
+  }
+
+  HttpMetricsRequestFactory(ClientHttpRequestFactory requestFactory, HttpMetrics metrics) {
+    this.requestFactory = requestFactory;
+    this.metrics = metrics;
+  }
+
+  /**
+   * @return A callback that records the requests created by its retry attempts as retries before
+   *     calling the given callback.
+   */
+  public <T, E extends Throwable> RetryCallback<T, E> recordRetries(RetryCallback<T, E> callback) {
+    return context -> {
+      retry = context.getRetryCount() > 0;
+      return callback.doWithRetry(context);
+    };
+  }
+
+  @Override
+  public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+    return new MetricsRequest(
+        requestFactory.createRequest(uri, httpMethod), System.nanoTime(), retry);
+  }
+
+  private class MetricsRequest implements ClientHttpRequest {
+    private final ClientHttpRequest request;
+    private final long startNanos;
+    private final boolean retry;
+
+    private MetricsRequest(ClientHttpRequest request, long startNanos, boolean retry) {
+      this.request = request;
+      this.startNanos = startNanos;
+      this.retry = retry;
+    }
+
+    @Override
+    public ClientHttpResponse execute() throws IOException {
+      String endpoint = HttpMetrics.getEndpoint(getMethod(), getURI());
+      try {
+        ClientHttpResponse response = request.execute();
+        metrics.record(
+            endpoint, response.getStatusCode().value(), System.nanoTime() - startNanos, retry);
+        return response;
+      } catch (IOException ex) {
+        metrics.record(endpoint, 0, System.nanoTime() - startNanos, retry);
+        throw ex;
+      }
+    }
+
+    @Override
+    public OutputStream getBody() throws IOException {
+      return request.getBody();
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+      return request.getMethod();
+    }
+
+    @Override
+    public URI getURI() {
+      return request.getURI();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return request.getHeaders();
+    }
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.service.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+
+/**
+ * Hedges idempotent requests. If a request has not completed within the configured percentile of
+ * the recent request latencies then a duplicate request is sent and the result of whichever
+ * completes first is used. The duplicate requests are limited to a fraction of all the requests.
+ * Every request, including the duplicates, is executed through the concurrency limiter of the
+ * endpoint family.
+ *
+ * <p>Hedging is disabled unless a percentile is configured, for example using the -hedgePercentile
+ * option. The fraction of the requests that may be duplicated defaults to {@link
+ * #DEFAULT_BUDGET}.
+ */
+public class RequestHedger {
+
+  private static final Logger log = LoggerFactory.getLogger(RequestHedger.class);
+
+  /** Hedging is disabled by default. */
+  public static final int DEFAULT_PERCENTILE = 0;
+
+  public static final double DEFAULT_BUDGET = 0.05;
+
+  /** Number of the most recent request latencies the hedge delay is calculated from. */
+  static final int LATENCY_SAMPLES = 100;
+
+  /** Requests are not hedged until this many latencies have been observed. */
+  static final int MIN_LATENCY_SAMPLES = 10;
+
+  /** Unused budget is accumulated up to this many duplicate requests. */
+  static final double MAX_BUDGET = 10;
+
+  /** Study, run and analysis reference lookups. */
+  public static final RequestHedger REFERENCE =
+      new RequestHedger(
+          "reference", AdaptiveConcurrencyLimiter.REFERENCE, DEFAULT_PERCENTILE, DEFAULT_BUDGET);
+
+  private static final ExecutorService EXECUTOR_SERVICE =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread = new Thread(runnable, "RequestHedger");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final String name;
+  private final AdaptiveConcurrencyLimiter limiter;
+  private volatile int percentile;
+  private volatile double budget;
+
+  private final long[] latencies = new long[LATENCY_SAMPLES];
+  private int latencyCount;
+  private int nextLatency;
+  private double availableBudget;
+
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong hedgedRequestCount = new AtomicLong();
+  private final AtomicLong hedgeWinCount = new AtomicLong();
+
+  /**
+   * @param percentile The latency percentile after which a request is hedged, or 0 to disable
+   *     hedging.
+   * @param budget The fraction of the requests that may be hedged.
+   */
+  RequestHedger(String name, AdaptiveConcurrencyLimiter limiter, int percentile, double budget) {
+    this.name = name;
+    this.limiter = limiter;
+    configure(percentile, budget);
+  }
+
+  /**
+   * @param percentile The latency percentile after which a request is hedged, or 0 to disable
+   *     hedging.
+   * @param budget The fraction of the requests that may be hedged.
+   */
+  public void configure(int percentile, double budget) {
+    this.percentile = Math.max(0, Math.min(100, percentile));
+    this.budget = Math.max(0, budget);
+  }
+
+  public boolean isEnabled() {
+    return percentile > 0;
+  }
+
+  /**
+   * Executes the request and, if it is slow, a duplicate of it. The request must be idempotent.
+   *
+   * @return The result of the request that completed first.
+   */
+  public <T> T execute(Supplier<T> request) {
+    requestCount.incrementAndGet();
+    if (!isEnabled()) {
+      return limiter.execute(request);
+    }
+
+    long delayNanos;
+    synchronized (this) {
+      availableBudget = Math.min(MAX_BUDGET, availableBudget + budget);
+      delayNanos = getHedgeDelayNanos();
+    }
+    if (delayNanos < 0) {
+      return timed(request).get();
+    }
+
+    CompletableFuture<T> primary = CompletableFuture.supplyAsync(timed(request), EXECUTOR_SERVICE);
+    try {
+      return primary.get(delayNanos, TimeUnit.NANOSECONDS);
+    } catch (TimeoutException ex) {
+      if (!tryHedge()) {
+        return get(primary);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw WebinCliException.systemError(ex);
+    } catch (ExecutionException ex) {
+      throw unwrap(ex);
+    }
+
+    log.debug("Hedging {} request after {} ms", name, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+    hedgedRequestCount.incrementAndGet();
+    CompletableFuture<T> hedge = CompletableFuture.supplyAsync(timed(request), EXECUTOR_SERVICE);
+
+    // The first successful result is used. The request fails only if both requests fail.
+    CompletableFuture<T> result = new CompletableFuture<>();
+    AtomicInteger failures = new AtomicInteger();
+    primary.whenComplete(
+        (value, failure) -> {
+          if (failure == null) {
+            result.complete(value);
+          } else if (failures.incrementAndGet() == 2) {
+            result.completeExceptionally(getCause(failure));
+          }
+        });
+    hedge.whenComplete(
+        (value, failure) -> {
+          if (failure == null) {
+            if (result.complete(value)) {
+              hedgeWinCount.incrementAndGet();
+            }
+          } else if (failures.incrementAndGet() == 2) {
+            result.completeExceptionally(getCause(failure));
+          }
+        });
+    return get(result);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /** @return The number of executed requests. */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /** @return The number of requests for which a duplicate request was sent. */
+  public long getHedgedRequestCount() {
+    return hedgedRequestCount.get();
+  }
+
+  /** @return The number of hedged requests whose duplicate request completed first. */
+  public long getHedgeWinCount() {
+    return hedgeWinCount.get();
+  }
+
+  /** @return A one line summary of the hedging counters for the reports. */
+  public String getSummary() {
+    return String.format(
+        "requests=%d, hedged=%d, hedgeWins=%d",
+        getRequestCount(), getHedgedRequestCount(), getHedgeWinCount());
+  }
+
+  /** @return The hedge delay or -1 if not enough latencies have been observed. */
+  synchronized long getHedgeDelayNanos() {
+    if (latencyCount < MIN_LATENCY_SAMPLES) {
+      return -1;
+    }
+    long[] sorted = Arrays.copyOf(latencies, latencyCount);
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, index)];
+  }
+
+  synchronized void addLatency(long latencyNanos) {
+    latencies[nextLatency] = latencyNanos;
+    nextLatency = (nextLatency + 1) % latencies.length;
+    latencyCount = Math.min(latencyCount + 1, latencies.length);
+  }
+
+  private synchronized boolean tryHedge() {
+    if (availableBudget < 1) {
+      return false;
+    }
+    availableBudget--;
+    return true;
+  }
+
+  /**
+   * @return The limited request that records its latency, excluding the time waiting for the
+   *     limiter, if it succeeds.
+   */
+  private <T> Supplier<T> timed(Supplier<T> request) {
+    return () ->
+        limiter.execute(
+            () -> {
+              long startNanos = System.nanoTime();
+              T result = request.get();
+              addLatency(System.nanoTime() - startNanos);
+              return result;
+            });
+  }
+
+  private static <T> T get(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw WebinCliException.systemError(ex);
+    } catch (ExecutionException ex) {
+      throw unwrap(ex);
+    }
+  }
+
+  /** @return The exception thrown by the request. */
+  private static RuntimeException unwrap(ExecutionException ex) {
+    Throwable cause = ex.getCause();
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return WebinCliException.systemError(ex);
+  }
+
+  /** @return The exception thrown by the request from the exception of the dependent future. */
+  private static Throwable getCause(Throwable failure) {
+    return failure instanceof CompletionException && failure.getCause() != null
+        ? failure.getCause()
+        : failure;
+  }
+}
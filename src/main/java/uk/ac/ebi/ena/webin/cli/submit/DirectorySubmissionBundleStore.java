@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+import java.io.File;
+import java.util.function.Function;
+
+/**
+ * Stores every submission bundle in its own file in the submission's output directory. Every
+ * bundle is written synchronously so there is nothing to commit.
+ */
+public class DirectorySubmissionBundleStore implements SubmissionBundleStore {
+
+  private final Function<String, File> submissionBundleDir;
+
+  /** @param submissionBundleDir Returns the bundle directory for a submission name. */
+  public DirectorySubmissionBundleStore(Function<String, File> submissionBundleDir) {
+    this.submissionBundleDir = submissionBundleDir;
+  }
+
+  @Override
+  public SubmissionBundle read(
+      String submissionName,
+      String manifestFieldsMd5,
+      SubmissionBundleVerificationLevel verificationLevel) {
+    return SubmissionBundleHelper.read(
+        manifestFieldsMd5, submissionBundleDir.apply(submissionName), verificationLevel);
+  }
+
+  @Override
+  public void write(String submissionName, SubmissionBundle sb) {
+    SubmissionBundleHelper.write(sb, submissionBundleDir.apply(submissionName));
+  }
+
+  @Override
+  public void commit() {}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+
+/**
+ * Append-only file of JSON records, one record per line. Every appended record is synchronously
+ * written to the storage device. A partially written line left by a crash is ignored when the file
+ * is read.
+ */
+class JsonLinesFile<T> implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(JsonLinesFile.class);
+
+  private final Path file;
+
+  private final Class<T> recordClass;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private FileChannel channel;
+
+  JsonLinesFile(Path file, Class<T> recordClass) {
+    this.file = file;
+    this.recordClass = recordClass;
+  }
+
+  Path getFile() {
+    return file;
+  }
+
+  /** Reads all the complete records in the order they were appended. */
+  void read(Consumer<T> recordConsumer) throws IOException {
+    if (!Files.exists(file)) {
+      return;
+    }
+
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+
+        T record;
+        try {
+          record = objectMapper.readValue(line, recordClass);
+        } catch (IOException ex) {
+          log.warn(WebinCliMessage.JSON_LINES_FILE_INCOMPLETE_LINE.format(file));
+          continue;
+        }
+        recordConsumer.accept(record);
+      }
+    }
+  }
+
+  void append(T record) throws IOException {
+    byte[] line = objectMapper.writeValueAsBytes(record);
+
+    ByteBuffer buffer = ByteBuffer.allocate(line.length + 1);
+    buffer.put(line).put((byte) '\n').flip();
+
+    FileChannel channel = getChannel();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+  }
+
+  @Override
+  public void close() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException ex) {
+        log.warn(ex.getMessage());
+      }
+      channel = null;
+    }
+  }
+
+  private FileChannel getChannel() throws IOException {
+    if (channel == null) {
+      channel =
+          FileChannel.open(
+              file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+      // Terminates a partially written last line so that it is not joined with the next line.
+      long size = channel.size();
+      if (size > 0) {
+        ByteBuffer lastByte = ByteBuffer.allocate(1);
+        try (FileChannel readChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+          readChannel.read(lastByte, size - 1);
+        }
+        if (lastByte.get(0) != '\n') {
+          channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+        }
+      }
+    }
+    return channel;
+  }
+}
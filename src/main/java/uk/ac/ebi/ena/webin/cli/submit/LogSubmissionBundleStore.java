@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+
+/**
+ * Stores all the submission bundles in a single append-only log file with an index file next to
+ * it. The index maps submission names to the position of their latest bundle in the log.
+ *
+ * <p>Written bundles are appended to the log without synchronous writes. Commit makes all of them
+ * durable with a single fsync of the log and then checkpoints the index by atomically replacing
+ * the index file. Bundles appended after the last checkpoint are not in the index and their
+ * manifests are simply validated again. A bundle is read without reading any other bundle in the
+ * log, and bundles can be read concurrently.
+ */
+public class LogSubmissionBundleStore implements SubmissionBundleStore {
+  private static final Logger log = LoggerFactory.getLogger(LogSubmissionBundleStore.class);
+
+  public static final String LOG_FILE_NAME = "validate.log";
+  public static final String INDEX_FILE_NAME = "validate.idx";
+
+  private final Path logFile;
+  private final Path indexFile;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  /** The index as of the last checkpoint. Loaded on first use. */
+  private Map<String, IndexEntry> index;
+
+  /** Bundles appended to the log since the last checkpoint. */
+  private final Map<String, IndexEntry> uncommittedIndex = new LinkedHashMap<>();
+
+  private FileChannel logChannel;
+
+  /** @param dir The directory of the log and index files. */
+  public LogSubmissionBundleStore(Path dir) {
+    this.logFile = dir.resolve(LOG_FILE_NAME);
+    this.indexFile = dir.resolve(INDEX_FILE_NAME);
+  }
+
+  @Override
+  public SubmissionBundle read(
+      String submissionName,
+      String manifestFieldsMd5,
+      SubmissionBundleVerificationLevel verificationLevel) {
+    IndexEntry entry = getIndexEntry(submissionName);
+    if (entry == null) {
+      log.info(WebinCliMessage.SUBMISSION_BUNDLE_VALIDATE_SUBMISSION.text());
+      return null;
+    }
+
+    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(entry.getLength());
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, entry.getOffset() + buffer.position()) < 0) {
+          throw new EOFException();
+        }
+      }
+
+      SubmissionBundle sb = objectMapper.readValue(buffer.array(), SubmissionBundle.class);
+
+      return SubmissionBundleHelper.validate(
+          manifestFieldsMd5,
+          sb,
+          logFile.toAbsolutePath() + "#" + submissionName,
+          verificationLevel);
+
+    } catch (IOException e) {
+      // Submission bundle could not be read.
+      log.info(WebinCliMessage.SUBMISSION_BUNDLE_VALIDATE_SUBMISSION.text());
+      return null;
+    }
+  }
+
+  @Override
+  public synchronized void write(String submissionName, SubmissionBundle sb) {
+    try {
+      SubmissionBundleHelper.computeXmlFilesChecksums(sb);
+      SubmissionBundleHelper.writeXmls(sb, false);
+
+      byte[] record = objectMapper.writeValueAsBytes(sb);
+
+      FileChannel channel = getLogChannel();
+      long offset = channel.size();
+
+      ByteBuffer buffer = ByteBuffer.allocate(record.length + 1);
+      buffer.put(record).put((byte) '\n').flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer, offset + buffer.position());
+      }
+
+      uncommittedIndex.put(submissionName, new IndexEntry(offset, record.length));
+    } catch (IOException ex) {
+      throw WebinCliException.systemError(
+          ex, WebinCliMessage.SUBMISSION_BUNDLE_FILE_ERROR.format(logFile));
+    }
+  }
+
+  @Override
+  public synchronized void commit() {
+    if (uncommittedIndex.isEmpty()) {
+      return;
+    }
+
+    try {
+      // Group commit. A single fsync makes all the bundles appended since the last commit durable.
+      getLogChannel().force(false);
+
+      Map<String, IndexEntry> newIndex = new LinkedHashMap<>(getIndex());
+      newIndex.putAll(uncommittedIndex);
+      writeIndex(newIndex);
+
+      index = newIndex;
+      uncommittedIndex.clear();
+    } catch (IOException ex) {
+      throw WebinCliException.systemError(
+          ex, WebinCliMessage.SUBMISSION_BUNDLE_FILE_ERROR.format(indexFile));
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      commit();
+    } finally {
+      if (logChannel != null) {
+        try {
+          logChannel.close();
+        } catch (IOException ex) {
+          log.warn(ex.getMessage());
+        }
+        logChannel = null;
+      }
+    }
+  }
+
+  private synchronized IndexEntry getIndexEntry(String submissionName) {
+    IndexEntry entry = uncommittedIndex.get(submissionName);
+    return entry != null ? entry : getIndex().get(submissionName);
+  }
+
+  private FileChannel getLogChannel() throws IOException {
+    if (logChannel == null) {
+      logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+    return logChannel;
+  }
+
+  private Map<String, IndexEntry> getIndex() {
+    if (index == null) {
+      index = new LinkedHashMap<>();
+      if (Files.exists(indexFile)) {
+        try {
+          index =
+              objectMapper.readValue(
+                  indexFile.toFile(), new TypeReference<LinkedHashMap<String, IndexEntry>>() {});
+        } catch (IOException ex) {
+          // All the manifests will be validated again.
+          log.warn(ex.getMessage());
+        }
+      }
+    }
+    return index;
+  }
+
+  /** Writes the index into a temporary file which then atomically replaces the index file. */
+  private void writeIndex(Map<String, IndexEntry> index) throws IOException {
+    Path tempIndexFile = indexFile.resolveSibling(INDEX_FILE_NAME + ".tmp");
+
+    try (FileChannel channel =
+        FileChannel.open(
+            tempIndexFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(objectMapper.writeValueAsBytes(index));
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    }
+
+    try {
+      Files.move(
+          tempIndexFile,
+          indexFile,
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException ex) {
+      Files.move(tempIndexFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /** Position of a bundle in the log file. */
+  public static class IndexEntry {
+    private final long offset;
+
+    private final int length;
+
+    @JsonCreator
+    public IndexEntry(@JsonProperty("offset") long offset, @JsonProperty("length") int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+
+    public long getOffset() {
+      return offset;
+    }
+
+    public int getLength() {
+      return length;
+    }
+  }
+}
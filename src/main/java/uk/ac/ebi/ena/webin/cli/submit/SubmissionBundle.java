@@ -11,12 +11,17 @@
 package uk.ac.ebi.ena.webin.cli.submit;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Objects;
 import uk.ac.ebi.ena.webin.cli.WebinCli;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
 
 public class SubmissionBundle implements Serializable {
   protected static final long serialVersionUID = 1L;
@@ -40,6 +45,11 @@ public class SubmissionBundle implements Serializable {
     EXPERIMENT
   }
 
+  /**
+   * The XML content is never serialized. It gets written in the XML file separately and is loaded
+   * from it on demand.
+   */
+  @JsonIgnoreProperties("xmlContent")
   public static class SubmissionXMLFile implements Serializable {
     private static final long serialVersionUID = 1L;
 
@@ -54,19 +64,24 @@ public class SubmissionBundle implements Serializable {
      */
     private String md5;
 
-    /** XML cached in memory. No need to serialize as it gets written in an xml file separately. */
+    /**
+     * XML cached in memory until it has been written in the xml file. No need to serialize as it
+     * gets written in an xml file separately.
+     */
     private transient String xmlContent;
 
-    @JsonCreator
-    public SubmissionXMLFile(
-        @JsonProperty("type") SubmissionXMLFileType type,
-        @JsonProperty("file") File file,
-        @JsonProperty("xmlContent") String xmlContent) {
+    public SubmissionXMLFile(SubmissionXMLFileType type, File file, String xmlContent) {
       this.type = type;
       this.file = file;
       this.xmlContent = xmlContent;
     }
 
+    @JsonCreator
+    private SubmissionXMLFile(
+        @JsonProperty("type") SubmissionXMLFileType type, @JsonProperty("file") File file) {
+      this(type, file, null);
+    }
+
     public String toString() {
       return String.format("%s|%s|%s", type, file, md5);
     }
@@ -95,13 +110,36 @@ public class SubmissionBundle implements Serializable {
       this.md5 = md5;
     }
 
+    /**
+     * @return The XML cached in memory or, if it has already been released, the XML loaded from
+     *     the xml file. The loaded XML is not cached.
+     */
     public String getXmlContent() {
-      return xmlContent;
+      if (xmlContent != null || file == null || !file.exists()) {
+        return xmlContent;
+      }
+      try {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+      } catch (IOException ex) {
+        throw WebinCliException.systemError(ex);
+      }
     }
 
     public void setXmlContent(String xmlContent) {
       this.xmlContent = xmlContent;
     }
+
+    /** @return 'true' if the XML is cached in memory. */
+    public boolean hasXmlContent() {
+      return xmlContent != null;
+    }
+
+    /** Releases the XML cached in memory if it has already been written in the xml file. */
+    public void releaseXmlContent() {
+      if (file != null && file.exists()) {
+        xmlContent = null;
+      }
+    }
   }
 
   public static class SubmissionUploadFile implements Serializable {
@@ -115,16 +153,29 @@ public class SubmissionBundle implements Serializable {
 
     private final String cachedMd5;
 
+    /**
+     * MD5 checksum of blocks sampled from the file. Can be null for bundles saved by older
+     * versions.
+     */
+    private final String cachedSampledMd5;
+
+    public SubmissionUploadFile(
+        File file, Long cachedLength, Long cachedLastModifiedTime, String cachedMd5) {
+      this(file, cachedLength, cachedLastModifiedTime, cachedMd5, null);
+    }
+
     @JsonCreator
     public SubmissionUploadFile(
         @JsonProperty("file") File file,
         @JsonProperty("cachedLength") Long cachedLength,
         @JsonProperty("cachedLastModifiedTime") Long cachedLastModifiedTime,
-        @JsonProperty("cachedMd5") String cachedMd5) {
+        @JsonProperty("cachedMd5") String cachedMd5,
+        @JsonProperty("cachedSampledMd5") String cachedSampledMd5) {
       this.file = file;
       this.cachedLength = cachedLength;
       this.cachedLastModifiedTime = cachedLastModifiedTime;
       this.cachedMd5 = cachedMd5;
+      this.cachedSampledMd5 = cachedSampledMd5;
     }
 
     public String toString() {
@@ -139,7 +190,8 @@ public class SubmissionBundle implements Serializable {
       return this.file.equals(otherUploadFile.file)
           && Objects.equals(this.cachedLength, otherUploadFile.cachedLength)
           && Objects.equals(this.cachedLastModifiedTime, otherUploadFile.cachedLastModifiedTime)
-          && Objects.equals(this.cachedMd5, otherUploadFile.cachedMd5);
+          && Objects.equals(this.cachedMd5, otherUploadFile.cachedMd5)
+          && Objects.equals(this.cachedSampledMd5, otherUploadFile.cachedSampledMd5);
     }
 
     public File getFile() {
@@ -157,6 +209,10 @@ public class SubmissionBundle implements Serializable {
     public String getCachedMd5() {
       return cachedMd5;
     }
+
+    public String getCachedSampledMd5() {
+      return cachedSampledMd5;
+    }
   }
 
   @JsonCreator
@@ -210,6 +266,11 @@ public class SubmissionBundle implements Serializable {
     return xmlFileList;
   }
 
+  /** Releases the XMLs cached in memory that have already been written in their xml files. */
+  public void releaseXmlContents() {
+    xmlFileList.forEach(SubmissionXMLFile::releaseXmlContent);
+  }
+
   public SubmissionXMLFile getXMLFile(SubmissionXMLFileType fileType) {
     return xmlFileList.stream().filter(file -> file.getType().equals(fileType)).findFirst().get();
   }
@@ -15,6 +15,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import org.slf4j.Logger;
@@ -31,6 +32,8 @@ import uk.ac.ebi.ena.webin.cli.validator.message.ValidationResult;
 public class SubmissionBundleHelper {
   private static final Logger log = LoggerFactory.getLogger(SubmissionBundleHelper.class);
 
+  private static final int SAMPLED_DIGEST_BLOCK_SIZE = 1024 * 1024;
+
   /**
    * @return The submission bundle loaded from the given directory. If any error occurs during
    *     loading then 'null' is returned. 'null' is also returned if it is found that the submission
@@ -38,6 +41,14 @@ public class SubmissionBundleHelper {
    *     the previously saved submission bundle is no longer valid.
    */
   public static SubmissionBundle read(String manifestFieldsMd5, File submissionBundleDir) {
+    return read(manifestFieldsMd5, submissionBundleDir, SubmissionBundleVerificationLevel.FULL);
+  }
+
+  /** @param verificationLevel How thoroughly the upload files of the bundle are verified. */
+  public static SubmissionBundle read(
+      String manifestFieldsMd5,
+      File submissionBundleDir,
+      SubmissionBundleVerificationLevel verificationLevel) {
     File submissionBundleFile =
         new File(submissionBundleDir, WebinCliConfig.SUBMISSION_BUNDLE_FILE_NAME);
 
@@ -46,25 +57,8 @@ public class SubmissionBundleHelper {
 
       SubmissionBundle sb = objectMapper.readValue(submissionBundleFile, SubmissionBundle.class);
 
-      if (null != manifestFieldsMd5 && !manifestFieldsMd5.equals(sb.getManifestFieldsMd5())) {
-        log.info(WebinCliMessage.SUBMISSION_BUNDLE_REVALIDATE_SUBMISSION.text());
-        return null;
-      }
-
-      readXmls(sb);
-
-      ValidationResult result =
-          new ValidationResult(
-              new ValidationOrigin("submission bundle", submissionBundleFile.getAbsolutePath()));
-      validate(sb, result);
-
-      // TODO: potentially dangerous comparison
-      if (result.count(ValidationMessage.Severity.INFO) > 0) {
-        log.info(WebinCliMessage.SUBMISSION_BUNDLE_REVALIDATE_SUBMISSION.text());
-        return null;
-      }
-
-      return sb;
+      return validate(
+          manifestFieldsMd5, sb, submissionBundleFile.getAbsolutePath(), verificationLevel);
 
     } catch (IOException e) {
       // Submission bundle could not be read.
@@ -83,14 +77,49 @@ public class SubmissionBundleHelper {
       ObjectMapper objectMapper = new ObjectMapper();
       objectMapper.writeValue(submissionBundleFile, sb);
 
-      writeXmls(sb);
+      writeXmls(sb, true);
     } catch (IOException ex) {
       throw WebinCliException.systemError(
           ex, WebinCliMessage.SUBMISSION_BUNDLE_FILE_ERROR.format(submissionBundleFile));
     }
   }
 
-  private static void validate(SubmissionBundle sb, ValidationResult result) {
+  /**
+   * @return The given submission bundle if it is still valid or 'null' if it is different from
+   *     what is in the manifest or its files have changed.
+   */
+  static SubmissionBundle validate(
+      String manifestFieldsMd5,
+      SubmissionBundle sb,
+      String origin,
+      SubmissionBundleVerificationLevel verificationLevel) {
+    if (null != manifestFieldsMd5 && !manifestFieldsMd5.equals(sb.getManifestFieldsMd5())) {
+      log.info(WebinCliMessage.SUBMISSION_BUNDLE_REVALIDATE_SUBMISSION.text());
+      return null;
+    }
+
+    ValidationResult result =
+        new ValidationResult(new ValidationOrigin("submission bundle", origin));
+    validate(sb, verificationLevel, result);
+
+    // TODO: potentially dangerous comparison
+    if (result.count(ValidationMessage.Severity.INFO) > 0) {
+      log.info(WebinCliMessage.SUBMISSION_BUNDLE_REVALIDATE_SUBMISSION.text());
+      return null;
+    }
+
+    return sb;
+  }
+
+  /** @return The MD5 checksum of blocks sampled from the given upload file. */
+  public static String calculateSampledMd5(File file) {
+    return FileUtils.calculateSampledDigest("MD5", file, SAMPLED_DIGEST_BLOCK_SIZE);
+  }
+
+  private static void validate(
+      SubmissionBundle sb,
+      SubmissionBundleVerificationLevel verificationLevel,
+      ValidationResult result) {
     String current = WebinCli.getVersion();
     if (null != current && !current.equals(sb.getVersion())) {
       result.add(ValidationMessage.info("Program version has changed"));
@@ -148,6 +177,27 @@ public class SubmissionBundleHelper {
                 return;
               }
 
+              if (verificationLevel == SubmissionBundleVerificationLevel.STAT) {
+                return;
+              }
+
+              if (verificationLevel == SubmissionBundleVerificationLevel.SAMPLED
+                  && submissionUploadFile.getCachedSampledMd5() != null) {
+                String currentSampledMd5 = calculateSampledMd5(file);
+                if (!currentSampledMd5.equalsIgnoreCase(
+                    submissionUploadFile.getCachedSampledMd5())) {
+                  result.add(
+                      ValidationMessage.info(
+                          "File content changed. Error verifying sampled checksum for: "
+                              + file.getPath()
+                              + ", expected: "
+                              + submissionUploadFile.getCachedSampledMd5()
+                              + " got: "
+                              + currentSampledMd5));
+                }
+                return;
+              }
+
               String currentMd5 = FileUtils.calculateDigest("MD5", file);
               if (!currentMd5.equalsIgnoreCase(submissionUploadFile.getCachedMd5())) {
                 result.add(
@@ -162,8 +212,10 @@ public class SubmissionBundleHelper {
             });
   }
 
-  private static void computeXmlFilesChecksums(SubmissionBundle sb) {
-    sb.getXmlFileList()
+  /** XMLs that have already been streamed into their files have their checksums set. */
+  static void computeXmlFilesChecksums(SubmissionBundle sb) {
+    sb.getXmlFileList().stream()
+        .filter(SubmissionBundle.SubmissionXMLFile::hasXmlContent)
         .forEach(
             xmlFile -> {
               String md5 =
@@ -174,31 +226,29 @@ public class SubmissionBundleHelper {
             });
   }
 
-  private static void readXmls(SubmissionBundle sb) {
-    sb.getXmlFileList()
-        .forEach(
-            xmlFile -> {
-              try {
-                xmlFile.setXmlContent(
-                    new String(
-                        Files.readAllBytes(xmlFile.getFile().toPath()), StandardCharsets.UTF_8));
-              } catch (IOException ex) {
-                throw WebinCliException.systemError(ex);
-              }
-            });
-  }
-
-  private static void writeXmls(SubmissionBundle sb) {
-    sb.getXmlFileList()
+  /**
+   * Writes the XMLs that are cached in memory into their files.
+   *
+   * @param sync 'true' if every file should be written synchronously to the storage device.
+   */
+  static void writeXmls(SubmissionBundle sb, boolean sync) {
+    sb.getXmlFileList().stream()
+        .filter(SubmissionBundle.SubmissionXMLFile::hasXmlContent)
         .forEach(
             xmlFile -> {
               try {
                 Files.write(
                     xmlFile.getFile().toPath(),
                     xmlFile.getXmlContent().getBytes(StandardCharsets.UTF_8),
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING,
-                    StandardOpenOption.SYNC);
+                    sync
+                        ? new OpenOption[] {
+                          StandardOpenOption.CREATE,
+                          StandardOpenOption.TRUNCATE_EXISTING,
+                          StandardOpenOption.SYNC
+                        }
+                        : new OpenOption[] {
+                          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING
+                        });
               } catch (IOException ex) {
                 throw WebinCliException.systemError(ex);
               }
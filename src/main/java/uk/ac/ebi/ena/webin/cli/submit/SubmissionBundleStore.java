@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+/**
+ * Stores the validated submission bundles so that they can be submitted later without having to
+ * validate the manifests again. Bundles are identified by their submission names.
+ */
+public interface SubmissionBundleStore extends AutoCloseable {
+
+  /**
+   * Reads and verifies the submission bundle. Can be called concurrently.
+   *
+   * @return The submission bundle with the given submission name. 'null' is returned if the
+   *     bundle does not exist, could not be read or is no longer valid.
+   */
+  SubmissionBundle read(
+      String submissionName,
+      String manifestFieldsMd5,
+      SubmissionBundleVerificationLevel verificationLevel);
+
+  void write(String submissionName, SubmissionBundle sb);
+
+  /** Makes all the bundles written since the last commit durable. */
+  void commit();
+
+  @Override
+  default void close() {
+    commit();
+  }
+}
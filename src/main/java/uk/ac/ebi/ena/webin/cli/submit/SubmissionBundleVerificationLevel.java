@@ -0,0 +1,21 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+/** How thoroughly the upload files of a saved submission bundle are verified before submission. */
+public enum SubmissionBundleVerificationLevel {
+  /** The file lengths and last modified times are compared. */
+  STAT,
+  /** In addition, the checksums of blocks sampled from the files are compared. */
+  SAMPLED,
+  /** In addition, the MD5 checksums of the whole files are compared. */
+  FULL
+}
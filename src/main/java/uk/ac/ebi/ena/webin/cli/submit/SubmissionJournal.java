@@ -0,0 +1,292 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import uk.ac.ebi.ena.webin.cli.WebinCliConfig;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+
+/**
+ * Append-only journal of the submission stages completed for each submission bundle identified by
+ * its manifest field checksum. Every completed stage is appended as a single JSON line and is
+ * synchronously written to the storage device before the submission continues, so that an
+ * interrupted submission can be resumed from the last completed stage of each bundle.
+ *
+ * <p>Uploaded files are recorded individually together with their length and MD5 checksum. A file
+ * is considered uploaded only if it has not changed since it was recorded.
+ *
+ * <p>Submitted XMLs are recorded together with the directory the receipt is written into. Bundles
+ * submitted in a batch share the receipt in the batch submit directory.
+ */
+public class SubmissionJournal implements AutoCloseable {
+
+  private final JsonLinesFile<Record> journalFile;
+
+  private final Map<String, BundleState> bundleStates = new HashMap<>();
+
+  /** @param dir The directory of the journal file. */
+  public SubmissionJournal(Path dir) {
+    this.journalFile =
+        new JsonLinesFile<>(
+            dir.resolve(WebinCliConfig.SUBMISSION_JOURNAL_FILE_NAME), Record.class);
+
+    try {
+      journalFile.read(this::apply);
+    } catch (IOException ex) {
+      throw WebinCliException.systemError(
+          ex, WebinCliMessage.SUBMISSION_JOURNAL_FILE_ERROR.format(journalFile.getFile()));
+    }
+  }
+
+  /** @return The last completed submission stage or 'null' if no stage has been completed. */
+  public synchronized SubmissionStage getStage(String manifestFieldsMd5) {
+    BundleState state = bundleStates.get(manifestFieldsMd5);
+    return state == null ? null : state.stage;
+  }
+
+  /**
+   * @return The accessions received for the submission bundle or an empty map if they have not
+   *     been received.
+   */
+  public synchronized Map<SubmissionBundle.SubmissionXMLFileType, String> getAccessions(
+      String manifestFieldsMd5) {
+    BundleState state = bundleStates.get(manifestFieldsMd5);
+    return state == null ? Collections.emptyMap() : state.accessions;
+  }
+
+  /**
+   * @return The directory of the receipt of the last submitted XMLs or 'null' if the XMLs have not
+   *     been submitted.
+   */
+  public synchronized File getSubmitDir(String manifestFieldsMd5) {
+    BundleState state = bundleStates.get(manifestFieldsMd5);
+    return state == null ? null : state.submitDir;
+  }
+
+  /**
+   * @return True if the file has been uploaded and its length and MD5 checksum have not changed
+   *     since.
+   */
+  public synchronized boolean isUploaded(
+      String manifestFieldsMd5, SubmissionBundle.SubmissionUploadFile uploadFile) {
+    BundleState state = bundleStates.get(manifestFieldsMd5);
+    if (state == null) {
+      return false;
+    }
+    Record record = state.uploadedFiles.get(uploadFile.getFile().getAbsolutePath());
+    return record != null
+        && Objects.equals(record.getFileLength(), uploadFile.getCachedLength())
+        && Objects.equals(record.getFileMd5(), uploadFile.getCachedMd5());
+  }
+
+  public void validated(String manifestFieldsMd5) {
+    append(
+        new Record(
+            manifestFieldsMd5, SubmissionStage.VALIDATED, now(), null, null, null, null, null));
+  }
+
+  public void fileUploaded(
+      String manifestFieldsMd5, SubmissionBundle.SubmissionUploadFile uploadFile) {
+    append(
+        new Record(
+            manifestFieldsMd5,
+            SubmissionStage.FILE_UPLOADED,
+            now(),
+            uploadFile.getFile().getAbsolutePath(),
+            uploadFile.getCachedLength(),
+            uploadFile.getCachedMd5(),
+            null,
+            null));
+  }
+
+  /** @param submitDir The directory the receipt of the submitted XMLs is written into. */
+  public void xmlSubmitted(String manifestFieldsMd5, File submitDir) {
+    Objects.requireNonNull(submitDir, "submitDir");
+    append(
+        new Record(
+            manifestFieldsMd5,
+            SubmissionStage.XML_SUBMITTED,
+            now(),
+            null,
+            null,
+            null,
+            submitDir.getAbsolutePath(),
+            null));
+  }
+
+  public void accessionReceived(
+      String manifestFieldsMd5, Map<SubmissionBundle.SubmissionXMLFileType, String> accessions) {
+    append(
+        new Record(
+            manifestFieldsMd5,
+            SubmissionStage.ACCESSION_RECEIVED,
+            now(),
+            null,
+            null,
+            null,
+            null,
+            accessions));
+  }
+
+  @Override
+  public synchronized void close() {
+    journalFile.close();
+  }
+
+  private synchronized void append(Record record) {
+    try {
+      journalFile.append(record);
+    } catch (IOException ex) {
+      throw WebinCliException.systemError(
+          ex, WebinCliMessage.SUBMISSION_JOURNAL_FILE_ERROR.format(journalFile.getFile()));
+    }
+
+    apply(record);
+  }
+
+  private void apply(Record record) {
+    if (record.getManifestFieldsMd5() == null || record.getStage() == null) {
+      return;
+    }
+
+    BundleState state =
+        bundleStates.computeIfAbsent(record.getManifestFieldsMd5(), md5 -> new BundleState());
+
+    switch (record.getStage()) {
+      case VALIDATED:
+        // A bundle is validated again when its submission is retried after a failure. The stages
+        // completed before are kept.
+        break;
+      case FILE_UPLOADED:
+        state.uploadedFiles.put(record.getFile(), record);
+        break;
+      case XML_SUBMITTED:
+        if (record.getSubmitDir() != null) {
+          state.submitDir = new File(record.getSubmitDir());
+        }
+        break;
+      case ACCESSION_RECEIVED:
+        if (record.getAccessions() != null) {
+          state.accessions = record.getAccessions();
+        }
+        break;
+      default:
+        break;
+    }
+
+    if (state.stage == null || state.stage.compareTo(record.getStage()) < 0) {
+      state.stage = record.getStage();
+    }
+  }
+
+  private static String now() {
+    return Instant.now().toString();
+  }
+
+  private static class BundleState {
+    private SubmissionStage stage;
+
+    private File submitDir;
+
+    /** Uploaded files mapped by their absolute paths. */
+    private final Map<String, Record> uploadedFiles = new HashMap<>();
+
+    private Map<SubmissionBundle.SubmissionXMLFileType, String> accessions =
+        Collections.emptyMap();
+  }
+
+  /** A completed submission stage. Fields that are not relevant to the stage are null. */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public static class Record {
+    private final String manifestFieldsMd5;
+
+    private final SubmissionStage stage;
+
+    /** ISO-8601 time the stage was completed. */
+    private final String time;
+
+    /** Absolute path of the uploaded file. */
+    private final String file;
+
+    private final Long fileLength;
+
+    private final String fileMd5;
+
+    /** Absolute path of the directory the receipt of the submitted XMLs is written into. */
+    private final String submitDir;
+
+    private final Map<SubmissionBundle.SubmissionXMLFileType, String> accessions;
+
+    @JsonCreator
+    public Record(
+        @JsonProperty("manifestFieldsMd5") String manifestFieldsMd5,
+        @JsonProperty("stage") SubmissionStage stage,
+        @JsonProperty("time") String time,
+        @JsonProperty("file") String file,
+        @JsonProperty("fileLength") Long fileLength,
+        @JsonProperty("fileMd5") String fileMd5,
+        @JsonProperty("submitDir") String submitDir,
+        @JsonProperty("accessions")
+            Map<SubmissionBundle.SubmissionXMLFileType, String> accessions) {
+      this.manifestFieldsMd5 = manifestFieldsMd5;
+      this.stage = stage;
+      this.time = time;
+      this.file = file;
+      this.fileLength = fileLength;
+      this.fileMd5 = fileMd5;
+      this.submitDir = submitDir;
+      this.accessions = accessions;
+    }
+
+    public String getManifestFieldsMd5() {
+      return manifestFieldsMd5;
+    }
+
+    public SubmissionStage getStage() {
+      return stage;
+    }
+
+    public String getTime() {
+      return time;
+    }
+
+    public String getFile() {
+      return file;
+    }
+
+    public Long getFileLength() {
+      return fileLength;
+    }
+
+    public String getFileMd5() {
+      return fileMd5;
+    }
+
+    public String getSubmitDir() {
+      return submitDir;
+    }
+
+    public Map<SubmissionBundle.SubmissionXMLFileType, String> getAccessions() {
+      return accessions;
+    }
+  }
+}
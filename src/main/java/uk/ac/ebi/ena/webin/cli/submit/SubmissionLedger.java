@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.ena.webin.cli.WebinCliConfig;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+
+/**
+ * Append-only ledger of the submitted submission bundles identified by their manifest field
+ * checksums. Every submission is appended as a single JSON line together with the submission time
+ * and the assigned accessions, and is synchronously written to the storage device before the
+ * submission is considered recorded. A partially written last line left by a crash is ignored.
+ *
+ * <p>The ledger is loaded into an in-memory hash index when it is opened. Checksums listed in the
+ * legacy {@link WebinCliConfig#SUBMISSION_STATUS_FILE_NAME} file are imported into the index as
+ * submissions without accessions.
+ */
+public class SubmissionLedger implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(SubmissionLedger.class);
+
+  private final JsonLinesFile<Entry> ledgerFile;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Map<String, Entry> index = new HashMap<>();
+
+  /** @param dir The directory of the ledger file. */
+  public SubmissionLedger(Path dir) {
+    this.ledgerFile =
+        new JsonLinesFile<>(dir.resolve(WebinCliConfig.SUBMISSION_LEDGER_FILE_NAME), Entry.class);
+
+    loadLegacySubmissionStatusFile(dir.resolve(WebinCliConfig.SUBMISSION_STATUS_FILE_NAME));
+    try {
+      ledgerFile.read(entry -> index.put(entry.getManifestFieldsMd5(), entry));
+    } catch (IOException ex) {
+      throw WebinCliException.systemError(
+          ex, WebinCliMessage.SUBMISSION_LEDGER_FILE_ERROR.format(ledgerFile.getFile()));
+    }
+  }
+
+  public synchronized boolean isSubmitted(String manifestFieldsMd5) {
+    return index.containsKey(manifestFieldsMd5);
+  }
+
+  /** @return The recorded submission or 'null' if it has not been submitted. */
+  public synchronized Entry get(String manifestFieldsMd5) {
+    return index.get(manifestFieldsMd5);
+  }
+
+  /** Records the submission durably. */
+  public synchronized void record(
+      String manifestFieldsMd5, Map<SubmissionBundle.SubmissionXMLFileType, String> accessions) {
+    Entry entry = new Entry(manifestFieldsMd5, Instant.now().toString(), accessions);
+    try {
+      ledgerFile.append(entry);
+    } catch (IOException ex) {
+      throw WebinCliException.systemError(
+          ex, WebinCliMessage.SUBMISSION_LEDGER_FILE_ERROR.format(ledgerFile.getFile()));
+    }
+
+    index.put(manifestFieldsMd5, entry);
+  }
+
+  @Override
+  public synchronized void close() {
+    ledgerFile.close();
+  }
+
+  private void loadLegacySubmissionStatusFile(Path submissionStatusFile) {
+    if (!Files.exists(submissionStatusFile)) {
+      return;
+    }
+
+    try {
+      List<String> checksums =
+          objectMapper.readValue(
+              submissionStatusFile.toFile(), new TypeReference<List<String>>() {});
+      checksums.forEach(
+          checksum -> index.put(checksum, new Entry(checksum, null, Collections.emptyMap())));
+    } catch (IOException ex) {
+      log.warn(ex.getMessage());
+    }
+  }
+
+  /** A recorded submission. */
+  public static class Entry {
+    private final String manifestFieldsMd5;
+
+    /** ISO-8601 submission time. Unknown for submissions imported from the legacy file. */
+    private final String submissionTime;
+
+    private final Map<SubmissionBundle.SubmissionXMLFileType, String> accessions;
+
+    @JsonCreator
+    public Entry(
+        @JsonProperty("manifestFieldsMd5") String manifestFieldsMd5,
+        @JsonProperty("submissionTime") String submissionTime,
+        @JsonProperty("accessions")
+            Map<SubmissionBundle.SubmissionXMLFileType, String> accessions) {
+      this.manifestFieldsMd5 = manifestFieldsMd5;
+      this.submissionTime = submissionTime;
+      this.accessions = accessions == null ? Collections.emptyMap() : accessions;
+    }
+
+    public String getManifestFieldsMd5() {
+      return manifestFieldsMd5;
+    }
+
+    public String getSubmissionTime() {
+      return submissionTime;
+    }
+
+    public Map<SubmissionBundle.SubmissionXMLFileType, String> getAccessions() {
+      return accessions;
+    }
+  }
+}
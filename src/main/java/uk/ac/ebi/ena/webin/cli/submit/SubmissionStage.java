@@ -0,0 +1,23 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+/** Submission stages of a submission bundle in the order they are completed. */
+public enum SubmissionStage {
+  /** The submission bundle has been validated and is ready to be submitted. */
+  VALIDATED,
+  /** One of the files of the submission bundle has been uploaded. */
+  FILE_UPLOADED,
+  /** The submission XML has been sent to the server but no receipt has been processed yet. */
+  XML_SUBMITTED,
+  /** The receipt has been processed and the assigned accessions have been recorded. */
+  ACCESSION_RECEIVED
+}
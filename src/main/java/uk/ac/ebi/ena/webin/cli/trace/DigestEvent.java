@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uk.ac.ebi.ena.webin.cli.Digest")
+@Label("File Digest")
+@Category("Webin-CLI")
+@Description("Calculation of the digest of a data file.")
+public class DigestEvent extends Event {
+
+  @Label("Manifest")
+  public String manifest;
+
+  @Label("File")
+  public String file;
+
+  @Label("File Size")
+  @DataAmount
+  public long size;
+
+  @Label("Algorithm")
+  public String algorithm;
+}
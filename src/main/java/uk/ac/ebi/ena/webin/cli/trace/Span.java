@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.trace;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+
+/**
+ * A timed phase of a run. Spans are nested: a span started using {@link #startSpan(String)} or
+ * {@link Trace#startSpan(String)} becomes the current span of the thread until it is closed. Spans
+ * must be closed in the thread that started them.
+ *
+ * <p>The outcome of a span must be set before it is closed. A span that is closed without an
+ * outcome is assumed to have been ended by an exception and its outcome is {@link #ERROR}.
+ *
+ * <p>Every closed span is also recorded as a {@link SpanEvent} when a flight recording is running.
+ * The {@link #MANIFEST} attribute of a span is inherited by its children so that the events can be
+ * attributed to manifests.
+ */
+public class Span implements AutoCloseable {
+
+  public static final String SUCCESS = "success";
+  public static final String ERROR = "error";
+  public static final String VALIDATION_ERROR = "validationError";
+
+  /** The outcome of the spans that had not been closed when the trace was written. */
+  public static final String INCOMPLETE = "incomplete";
+
+  /** Attribute for the name of the manifest the span and its children are processing. */
+  public static final String MANIFEST = "manifest";
+
+  /** A span that records nothing. It is used when there is no active trace. */
+  static final Span NONE = new Span(null, null, "none");
+
+  private final Trace trace;
+  private final Span parent;
+  private final String name;
+  private final Instant startTime = Instant.now();
+  private final long startNanos = System.nanoTime();
+  private final Map<String, Object> attributes = new LinkedHashMap<>();
+  private final List<Span> spans = new ArrayList<>();
+
+  private final SpanEvent event;
+
+  private long durationNanos = -1;
+  private long bytes;
+  private String outcome;
+  private String manifest;
+
+  /** The current span of the thread before this span was started. */
+  private Span previousSpan;
+
+  Span(Trace trace, Span parent, String name) {
+    this.trace = trace;
+    this.parent = parent;
+    this.name = name;
+    this.manifest = parent != null ? parent.getManifest() : null;
+    this.event = trace != null ? new SpanEvent() : null;
+    if (event != null) {
+      event.begin();
+    }
+  }
+
+  /** Starts a child span and makes it the current span of the thread. */
+  public Span startSpan(String name) {
+    if (trace == null) {
+      return NONE;
+    }
+    Span span = new Span(trace, this, name);
+    synchronized (this) {
+      spans.add(span);
+    }
+    span.previousSpan = trace.setCurrentSpan(span);
+    return span;
+  }
+
+  public synchronized Span setAttribute(String key, Object value) {
+    if (trace != null) {
+      attributes.put(key, value);
+      if (MANIFEST.equals(key)) {
+        manifest = String.valueOf(value);
+      }
+    }
+    return this;
+  }
+
+  /** Adds to the number of bytes processed during the span. */
+  public synchronized Span addBytes(long bytes) {
+    this.bytes += bytes;
+    return this;
+  }
+
+  public synchronized Span setOutcome(String outcome) {
+    this.outcome = outcome;
+    return this;
+  }
+
+  public Span success() {
+    return setOutcome(SUCCESS);
+  }
+
+  /** Sets the outcome of the span from the exception that ended it. */
+  public Span fail(Throwable ex) {
+    boolean validationError =
+        ex instanceof WebinCliException
+            && ((WebinCliException) ex).getErrorType()
+                == WebinCliException.ErrorType.VALIDATION_ERROR;
+    return setAttribute("error", ex.getMessage())
+        .setOutcome(validationError ? VALIDATION_ERROR : ERROR);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /** @return The name of the manifest the span is processing or null if not known. */
+  public synchronized String getManifest() {
+    return manifest;
+  }
+
+  public synchronized String getOutcome() {
+    return outcome;
+  }
+
+  /** @return The duration of the span in nanoseconds or -1 if the span has not been closed. */
+  public synchronized long getDurationNanos() {
+    return durationNanos;
+  }
+
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public synchronized List<Span> getSpans() {
+    return new ArrayList<>(spans);
+  }
+
+  @Override
+  public void close() {
+    if (trace == null) {
+      return;
+    }
+    synchronized (this) {
+      if (durationNanos >= 0) {
+        return;
+      }
+      durationNanos = System.nanoTime() - startNanos;
+      if (outcome == null) {
+        outcome = ERROR;
+      }
+      event.end();
+      if (event.shouldCommit()) {
+        event.name = name;
+        event.manifest = manifest;
+        event.bytes = bytes;
+        event.outcome = outcome;
+        event.attributes = attributes.isEmpty() ? null : attributes.toString();
+        event.commit();
+      }
+    }
+    if (parent != null) {
+      trace.setCurrentSpan(previousSpan);
+    }
+  }
+
+  synchronized void toJson(ObjectNode node) {
+    node.put("name", name);
+    node.put("startTime", startTime.toString());
+    if (durationNanos >= 0) {
+      node.put("durationMillis", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+      node.put("outcome", outcome);
+    } else {
+      node.put("durationMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+      node.put("outcome", INCOMPLETE);
+    }
+    if (bytes > 0) {
+      node.put("bytes", bytes);
+    }
+    if (!attributes.isEmpty()) {
+      ObjectNode attributesNode = node.putObject("attributes");
+      attributes.forEach((key, value) -> attributesNode.put(key, String.valueOf(value)));
+    }
+    if (!spans.isEmpty()) {
+      ArrayNode spansNode = node.putArray("spans");
+      spans.forEach(span -> span.toJson(spansNode.addObject()));
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight recorder event of a {@link Span}. */
+@Name("uk.ac.ebi.ena.webin.cli.Span")
+@Label("Span")
+@Category("Webin-CLI")
+@Description("A phase of a run, for example the validation of a manifest or a reference lookup.")
+public class SpanEvent extends Event {
+
+  @Label("Name")
+  public String name;
+
+  @Label("Manifest")
+  public String manifest;
+
+  @Label("Bytes")
+  @DataAmount
+  public long bytes;
+
+  @Label("Outcome")
+  public String outcome;
+
+  @Label("Attributes")
+  public String attributes;
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.trace;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A tree of timed spans covering a run, for example the reading of the manifest file and the
+ * validation, upload and submission of every manifest. The trace is written as a JSON document so
+ * that the wall time of many runs can be attributed to their phases.
+ *
+ * <p>There is at most one active trace. Spans started when there is no active trace record
+ * nothing, so code that is also used outside of a run, for example by the benchmarks, can always
+ * start spans.
+ */
+public class Trace {
+
+  private static volatile Trace activeTrace;
+
+  private final Span root;
+
+  private final ThreadLocal<Span> currentSpan = new ThreadLocal<>();
+
+  private Trace(String name) {
+    this.root = new Span(this, null, name);
+  }
+
+  /**
+   * Starts a trace and makes it the active trace. The root span of the trace is the parent of the
+   * spans started in threads that have no current span.
+   */
+  public static Trace start(String name) {
+    Trace trace = new Trace(name);
+    activeTrace = trace;
+    return trace;
+  }
+
+  /** Starts a child span of the current span of the thread in the active trace. */
+  public static Span startSpan(String name) {
+    return getCurrentSpan().startSpan(name);
+  }
+
+  /**
+   * Runs the action in a child span of the current span of the thread. The outcome of the span is
+   * set from the exception thrown by the action or to {@link Span#SUCCESS} unless the action sets
+   * it.
+   */
+  public static void run(String name, Consumer<Span> action) {
+    call(
+        name,
+        span -> {
+          action.accept(span);
+          return null;
+        });
+  }
+
+  /**
+   * Calls the function in a child span of the current span of the thread. The outcome of the span
+   * is set from the exception thrown by the function or to {@link Span#SUCCESS} unless the function
+   * sets it.
+   */
+  public static <T> T call(String name, Function<Span, T> function) {
+    try (Span span = startSpan(name)) {
+      try {
+        T result = function.apply(span);
+        if (span.getOutcome() == null) {
+          span.success();
+        }
+        return result;
+      } catch (RuntimeException | Error ex) {
+        span.fail(ex);
+        throw ex;
+      }
+    }
+  }
+
+  /**
+   * @return The current span of the thread in the active trace. Spans started in other threads
+   *     using the returned span are its children.
+   */
+  public static Span getCurrentSpan() {
+    Trace trace = activeTrace;
+    if (trace == null) {
+      return Span.NONE;
+    }
+    Span span = trace.currentSpan.get();
+    return span != null ? span : trace.root;
+  }
+
+  public Span getRoot() {
+    return root;
+  }
+
+  /** Closes the root span and deactivates the trace. */
+  public void end() {
+    root.close();
+    if (activeTrace == this) {
+      activeTrace = null;
+    }
+  }
+
+  public void writeJson(Path file) throws IOException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    ObjectNode node = objectMapper.createObjectNode();
+    root.toJson(node);
+    objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), node);
+  }
+
+  /** @return The previous current span of the thread. */
+  Span setCurrentSpan(Span span) {
+    Span previousSpan = currentSpan.get();
+    if (span == null) {
+      currentSpan.remove();
+    } else {
+      currentSpan.set(span);
+    }
+    return previousSpan;
+  }
+}
@@ -14,25 +14,68 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.retry.RetryCallback;
 import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
+import uk.ac.ebi.ena.webin.cli.trace.UploadEvent;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
 import uk.ac.ebi.ena.webin.cli.utils.ShellExec;
 
+/**
+ * Uploads files using the Aspera ascp client. The files can be split into multiple concurrent ascp
+ * sessions of roughly equal total size that share the target rate. A failed session is retried
+ * with only the files it has not completed, resuming partially uploaded files and halving the
+ * session's target rate for every retry down to a minimum rate.
+ */
 public class ASCPService implements UploadService {
   private static final String SERVER = "webin.ebi.ac.uk";
 
   private static final Logger log = LoggerFactory.getLogger(ASCPService.class);
 
   private static final String EXECUTABLE = "ascp";
+
+  public static final int DEFAULT_TARGET_RATE_MBPS = 300;
+
+  /** The target rate of a session is not reduced below this rate. */
+  private static final int MIN_TARGET_RATE_MBPS = 10;
+
+  private final int targetRateMbps;
+  private final int sessions;
+
   private String userName;
   private String password;
 
+  private UploadListener uploadListener = UploadListener.NONE;
+
+  public ASCPService() {
+    this(DEFAULT_TARGET_RATE_MBPS, 1);
+  }
+
+  /**
+   * @param targetRateMbps Total target rate of all the sessions in megabits per second.
+   * @param sessions Maximum number of concurrent ascp sessions.
+   */
+  public ASCPService(int targetRateMbps, int sessions) {
+    this.targetRateMbps = Math.max(MIN_TARGET_RATE_MBPS, targetRateMbps);
+    this.sessions = Math.max(1, sessions);
+  }
+
   @Override
   public boolean isAvailable() {
     try {
@@ -54,85 +97,230 @@ public class ASCPService implements UploadService {
     this.userName = userName;
   }
 
+  @Override
+  public void setUploadListener(UploadListener uploadListener) {
+    this.uploadListener = uploadListener;
+  }
+
   private String createUploadList(List<File> uploadFilesList, Path inputDir) {
     StringBuilder sb = new StringBuilder();
     for (File f : uploadFilesList) {
-      String from =
-          f.isAbsolute() ? f.toString() : inputDir.resolve(f.toPath()).normalize().toString();
-      sb.append(String.format("%s\n", from));
+      sb.append(String.format("%s\n", resolve(f, inputDir)));
     }
     return sb.toString();
   }
 
-  private String[] getCommand(Path file_list, String uploadDir) {
-    return new String[] {
-      EXECUTABLE,
-      "--file-checksum=md5",
-      "-d",
-      "--mode=send",
-      "--overwrite=always",
-      "-QT",
-      "-l300M",
-      // "-L-",
-      String.format("--host=%s", SERVER),
-      String.format("--user=\"%s\"", this.userName),
-      String.format("--file-list=\"%s\"", file_list),
-      String.format("\"%s\"", uploadDir)
-    };
+  private static String resolve(File f, Path inputDir) {
+    return resolvePath(f, inputDir).toString();
+  }
+
+  static Path resolvePath(File f, Path inputDir) {
+    return f.isAbsolute() ? f.toPath() : inputDir.resolve(f.toPath()).normalize();
+  }
+
+  private String[] getCommand(Path file_list, String uploadDir, int rateMbps, boolean resume) {
+    List<String> command = new ArrayList<>();
+    command.add(EXECUTABLE);
+    command.add("--file-checksum=md5");
+    command.add("-d");
+    command.add("--mode=send");
+    if (resume) {
+      // Resumes partially uploaded files if their sparse checksums match.
+      command.add("-k2");
+      command.add("--overwrite=diff");
+    } else {
+      command.add("--overwrite=always");
+    }
+    command.add("-QT");
+    command.add(String.format("-l%dM", rateMbps));
+    // command.add("-L-");
+    command.add(String.format("--host=%s", SERVER));
+    command.add(String.format("--user=\"%s\"", this.userName));
+    command.add(String.format("--file-list=\"%s\"", file_list));
+    command.add(String.format("\"%s\"", uploadDir));
+    return command.toArray(new String[0]);
+  }
+
+  /**
+   * Splits the files into at most the given number of groups with roughly equal total lengths.
+   * Every file is added to the group with the smallest total length, largest files first.
+   */
+  static List<List<File>> splitIntoSessions(Map<File, Long> fileLengths, int sessions) {
+    int groupCount = Math.max(1, Math.min(sessions, fileLengths.size()));
+    List<List<File>> groups = new ArrayList<>(groupCount);
+    long[] groupLengths = new long[groupCount];
+    for (int i = 0; i < groupCount; i++) {
+      groups.add(new ArrayList<>());
+    }
+
+    List<File> files =
+        fileLengths.keySet().stream()
+            .sorted(Comparator.comparing(fileLengths::get).reversed())
+            .collect(Collectors.toList());
+    for (File file : files) {
+      int smallest = 0;
+      for (int i = 1; i < groupCount; i++) {
+        if (groupLengths[i] < groupLengths[smallest]) {
+          smallest = i;
+        }
+      }
+      groups.get(smallest).add(file);
+      groupLengths[smallest] += fileLengths.get(file);
+    }
+    return groups;
   }
 
   @Override
   public void upload(List<File> uploadFilesList, String uploadDir, Path inputDir) {
     log.info("Uploading files to : {}", SERVER);
 
+    Map<File, Long> fileLengths = new LinkedHashMap<>();
+    uploadFilesList.forEach(f -> fileLengths.put(f, new File(resolve(f, inputDir)).length()));
+
+    UploadEvent event = new UploadEvent();
+    event.begin();
     try {
-      String file_list = createUploadList(uploadFilesList, inputDir);
-      String[] command =
-          getCommand(
-              Files.write(
-                  Files.createTempFile("FILE", "LIST"),
-                  file_list.getBytes(),
-                  StandardOpenOption.CREATE,
-                  StandardOpenOption.SYNC),
-              uploadDir);
-
-      String cmd = String.join(" ", command);
-      Map<String, String> vars = new HashMap<>();
-      vars.put("ASPERA_SCP_PASS", this.password);
-      vars.put("PATH", System.getenv("PATH"));
+      uploadSessions(fileLengths, uploadDir, inputDir);
+      event.success = true;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.manifest = Trace.getCurrentSpan().getManifest();
+        event.protocol = "Aspera";
+        event.file = uploadFilesList.isEmpty() ? null : uploadFilesList.get(0).getPath();
+        event.fileCount = uploadFilesList.size();
+        event.bytes = fileLengths.values().stream().mapToLong(Long::longValue).sum();
+        event.commit();
+      }
+    }
+  }
+
+  private void uploadSessions(Map<File, Long> fileLengths, String uploadDir, Path inputDir) {
+    List<List<File>> sessionFiles = splitIntoSessions(fileLengths, sessions);
+    if (sessionFiles.size() == 1) {
+      uploadSession(sessionFiles.get(0), fileLengths, uploadDir, inputDir, targetRateMbps);
+      return;
+    }
+
+    int sessionRateMbps = Math.max(MIN_TARGET_RATE_MBPS, targetRateMbps / sessionFiles.size());
+    Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+
+    List<Future<?>> futures = new ArrayList<>(sessionFiles.size());
+    ExecutorService executorService = Executors.newFixedThreadPool(sessionFiles.size());
+    try {
+      for (List<File> files : sessionFiles) {
+        futures.add(
+            executorService.submit(
+                () -> {
+                  // Session messages are written into the same log files as this thread's.
+                  if (mdcContext != null) {
+                    MDC.setContextMap(mdcContext);
+                  }
+                  try {
+                    uploadSession(files, fileLengths, uploadDir, inputDir, sessionRateMbps);
+                  } finally {
+                    MDC.clear();
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw WebinCliException.systemError(ex, WebinCliMessage.ASCP_UPLOAD_ERROR.text());
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof WebinCliException) {
+        throw (WebinCliException) ex.getCause();
+      }
+      throw WebinCliException.systemError(ex, WebinCliMessage.ASCP_UPLOAD_ERROR.text());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void uploadSession(
+      List<File> uploadFilesList,
+      Map<File, Long> fileLengths,
+      String uploadDir,
+      Path inputDir,
+      int rateMbps) {
+    Map<String, String> vars = new HashMap<>();
+    vars.put("ASPERA_SCP_PASS", this.password);
+    vars.put("PATH", System.getenv("PATH"));
 
+    AscpProgressParser progressParser =
+        new AscpProgressParser(fileLengths, inputDir, uploadListener);
+
+    try {
       RetryUtils.executeWithRetry(
-          context -> {
-            ShellExec.Result result = new ShellExec(cmd, vars).exec();
-
-            // Even when the process completes without exception, throw error as long as exit code
-            // is not 0 so a
-            // retry can be attempted.
-            if (0 != result.getExitCode()) {
-              log.warn("Aspera upload failed. Client exit code : {}", result.getExitCode());
-
-              String error = "";
-              if (!result.getStdout().isEmpty()) {
-                error += result.getStdout();
-              }
-
-              if (!result.getStderr().isEmpty()) {
-                if (!error.isEmpty()) {
-                  error += System.lineSeparator();
+          (RetryCallback<Void, Exception>)
+              context -> {
+                // Only the files that were not completed by the previous attempts are uploaded
+                // again.
+                List<File> remainingFilesList = new ArrayList<>(uploadFilesList);
+                remainingFilesList.removeAll(progressParser.getCompletedFiles());
+                int retryCount = Math.min(30, context.getRetryCount());
+                boolean resume = retryCount > 0;
+                int attemptRateMbps = Math.max(MIN_TARGET_RATE_MBPS, rateMbps >> retryCount);
+
+                remainingFilesList.forEach(
+                    f -> uploadListener.uploadStarted(f, fileLengths.get(f)));
+
+                Path fileList =
+                    Files.write(
+                        Files.createTempFile("FILE", "LIST"),
+                        createUploadList(remainingFilesList, inputDir).getBytes(),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.SYNC);
+                String cmd =
+                    String.join(" ", getCommand(fileList, uploadDir, attemptRateMbps, resume));
+
+                ShellExec.Result result;
+                try {
+                  result = new ShellExec(cmd, vars).exec(progressParser::parseLine, line -> {});
+                } finally {
+                  Files.deleteIfExists(fileList);
                 }
-                error += result.getStderr();
-              }
 
-              if (!error.isEmpty()) {
-                log.warn("Client error : \n{}", error);
-              }
+                // Even when the process completes without exception, throw error as long as exit
+                // code is not 0 so a retry can be attempted.
+                if (0 != result.getExitCode()) {
+                  log.warn("Aspera upload failed. Client exit code : {}", result.getExitCode());
 
-              throw WebinCliException.systemError(WebinCliMessage.ASCP_UPLOAD_ERROR.text());
-            }
+                  String error = "";
+                  if (!result.getStdout().isEmpty()) {
+                    error += result.getStdout();
+                  }
 
-            return null;
+                  if (!result.getStderr().isEmpty()) {
+                    if (!error.isEmpty()) {
+                      error += System.lineSeparator();
+                    }
+                    error += result.getStderr();
+                  }
+
+                  if (!error.isEmpty()) {
+                    log.warn("Client error : \n{}", error);
+                  }
+
+                  throw WebinCliException.systemError(WebinCliMessage.ASCP_UPLOAD_ERROR.text());
+                }
+
+                // Files whose progress was not reported have also been uploaded.
+                Set<File> completedFiles = progressParser.getCompletedFiles();
+                remainingFilesList.stream()
+                    .filter(f -> !completedFiles.contains(f))
+                    .forEach(uploadListener::uploadCompleted);
+                return null;
+              },
+          context -> {
+            log.warn("Retrying file upload.");
+            Set<File> completedFiles = progressParser.getCompletedFiles();
+            uploadFilesList.stream()
+                .filter(f -> !completedFiles.contains(f))
+                .forEach(uploadListener::uploadRetried);
           },
-          context -> log.warn("Retrying file upload."),
           Exception.class);
     } catch (WebinCliException ex) {
       throw ex;
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.upload;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the per-file progress lines written by the ascp client, for example:
+ *
+ * <pre>
+ * reads_1.fastq.gz                   100%  512MB  289Mb/s    00:15
+ * </pre>
+ *
+ * The progress is reported to the upload listener for the file with the same upload path, either
+ * as written into the file list or relative to the input directory. A file name alone is only
+ * accepted if no other uploaded file has the same name. Progress lines of other files are ignored.
+ * The lines can be parsed while the client is running.
+ */
+class AscpProgressParser {
+  private static final Pattern PROGRESS_PATTERN =
+      Pattern.compile("^\\s*(\\S.*?)\\s+(\\d{1,3})%\\s+\\d+(?:\\.\\d+)?[KMGTP]?B\\s+.*$");
+
+  /** Files mapped by their upload paths and unique names. */
+  private final Map<String, File> files = new HashMap<>();
+
+  private final Map<File, Long> fileLengths;
+
+  private final Set<File> completedFiles = new HashSet<>();
+
+  private final UploadListener uploadListener;
+
+  /**
+   * @param fileLengths Lengths of the uploaded files.
+   * @param inputDir The directory relative file paths are resolved against.
+   */
+  AscpProgressParser(Map<File, Long> fileLengths, Path inputDir, UploadListener uploadListener) {
+    Map<String, File> names = new HashMap<>();
+    Set<String> duplicateNames = new HashSet<>();
+    for (File file : fileLengths.keySet()) {
+      Path uploadPath = ASCPService.resolvePath(file, inputDir);
+      files.put(uploadPath.toString(), file);
+      if (uploadPath.startsWith(inputDir.normalize())) {
+        Path relativePath = inputDir.normalize().relativize(uploadPath);
+        files.put(relativePath.toString(), file);
+        files.put(relativePath.toString().replace(File.separatorChar, '/'), file);
+      }
+      if (names.put(file.getName(), file) != null) {
+        duplicateNames.add(file.getName());
+      }
+    }
+    names.keySet().removeAll(duplicateNames);
+    names.forEach(files::putIfAbsent);
+    this.fileLengths = fileLengths;
+    this.uploadListener = uploadListener;
+  }
+
+  /** Parses output lines separated by new lines or carriage returns. */
+  void parse(String output) {
+    for (String line : output.split("[\r\n]+")) {
+      parseLine(line);
+    }
+  }
+
+  synchronized void parseLine(String line) {
+    Matcher matcher = PROGRESS_PATTERN.matcher(line);
+    if (!matcher.matches()) {
+      return;
+    }
+    File file = files.get(matcher.group(1));
+    if (file == null || completedFiles.contains(file)) {
+      return;
+    }
+
+    int percent = Math.min(100, Integer.parseInt(matcher.group(2)));
+    uploadListener.bytesUploaded(file, fileLengths.get(file) * percent / 100);
+    if (percent == 100) {
+      completedFiles.add(file);
+      uploadListener.uploadCompleted(file);
+    }
+  }
+
+  /** @return The files that have been reported as completely uploaded. */
+  synchronized Set<File> getCompletedFiles() {
+    return new HashSet<>(completedFiles);
+  }
+}
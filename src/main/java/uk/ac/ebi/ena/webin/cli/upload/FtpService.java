@@ -19,21 +19,34 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPSClient;
+import org.apache.commons.net.io.CopyStreamAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.retry.RetryCallback;
 import uk.ac.ebi.ena.webin.cli.WebinCliException;
 import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
+import uk.ac.ebi.ena.webin.cli.trace.UploadEvent;
 import uk.ac.ebi.ena.webin.cli.utils.FileUtils;
 import uk.ac.ebi.ena.webin.cli.utils.RetryUtils;
 
 public class FtpService implements UploadService {
+  /** System properties that override the FTP server e.g. to use a local stand-in server. */
+  public static final String SERVER_PROPERTY = "webin.cli.ftp.server";
+
+  public static final String PORT_PROPERTY = "webin.cli.ftp.port";
+
   private static final String SERVER = "webin2.ebi.ac.uk";
   private static final int FTP_PORT = 21;
 
@@ -47,8 +60,13 @@ public class FtpService implements UploadService {
   private String username;
   private String password;
 
+  private UploadListener uploadListener = UploadListener.NONE;
+
   private Path ftpServerWorkingDir;
 
+  private final String server = System.getProperty(SERVER_PROPERTY, SERVER);
+  private final int port = Integer.getInteger(PORT_PROPERTY, FTP_PORT);
+
   @Override
   public void connect(String userName, String password) throws WebinCliException {
     this.username = userName;
@@ -68,10 +86,29 @@ public class FtpService implements UploadService {
   @Override
   public void upload(List<File> uploadFilesList, String uploadDir, Path inputDir)
       throws WebinCliException {
+    resumeUpload(uploadFilesList, Collections.emptyList(), uploadDir, inputDir, file -> {});
+  }
+
+  /**
+   * Remote files other than the already uploaded files are deleted before the remaining files are
+   * uploaded.
+   */
+  @Override
+  public void resumeUpload(
+      List<File> uploadFilesList,
+      List<File> uploadedFilesList,
+      String uploadDir,
+      Path inputDir,
+      Consumer<File> uploadedFileCallback)
+      throws WebinCliException {
     if (null == uploadDir || uploadDir.isEmpty()) {
       throw WebinCliException.userError(WebinCliMessage.FTP_UPLOAD_DIR_ERROR.text());
     }
 
+    Set<String> uploadedFileNames =
+        uploadedFilesList.stream().map(file -> getRemoteFileName(file)).collect(Collectors.toSet());
+    Set<String> keptFileNames = new HashSet<>();
+
     try {
       changeToSubdir(Paths.get(uploadDir));
 
@@ -82,6 +119,10 @@ public class FtpService implements UploadService {
 
       if (deleteFilesList != null && deleteFilesList.length > 0) {
         for (FTPFile ftpFile : deleteFilesList) {
+          if (uploadedFileNames.contains(ftpFile.getName())) {
+            keptFileNames.add(ftpFile.getName());
+            continue;
+          }
           executeWithReconnect(
               () -> ftpClient.deleteFile(ftpFile.getName()),
               () -> log.warn("Retrying file deletion on FTP server."));
@@ -89,9 +130,17 @@ public class FtpService implements UploadService {
       }
 
       for (File localFile : uploadFilesList) {
-        String fileName = localFile.toPath().getFileName().toString();
+        String fileName = getRemoteFileName(localFile);
+
+        // Files recorded as uploaded but missing from the FTP server are uploaded again.
+        if (keptFileNames.contains(fileName)) {
+          log.info("Skipping already uploaded file: {}", localFile.toPath());
+          continue;
+        }
+
+        storeFile(localFile, fileName);
 
-        storeFile(localFile.toPath(), fileName);
+        uploadedFileCallback.accept(localFile);
       }
     } catch (WebinCliException e) {
       throw e;
@@ -100,6 +149,16 @@ public class FtpService implements UploadService {
     }
   }
 
+  /** Deletes all the files in the upload directory. */
+  public void deleteFiles(String uploadDir) throws WebinCliException {
+    resumeUpload(Collections.emptyList(), Collections.emptyList(), uploadDir, null, file -> {});
+  }
+
+  @Override
+  public void setUploadListener(UploadListener uploadListener) {
+    this.uploadListener = uploadListener;
+  }
+
   @Override
   public void disconnect() {
     if (ftpClient.isConnected()) {
@@ -130,13 +189,13 @@ public class FtpService implements UploadService {
   }
 
   private void reconnect() throws WebinCliException {
-    log.info("Connecting to FTP server : {}", SERVER);
+    log.info("Connecting to FTP server : {}", server);
 
     try {
       RetryUtils.executeWithRetry(
           (RetryCallback<Void, Exception>)
               context -> {
-                ftpClient.connect(SERVER, FTP_PORT);
+                ftpClient.connect(server, port);
 
                 // As connect() method does not return anything. It is advised to check the reply
                 // code after calling
@@ -239,12 +298,25 @@ public class FtpService implements UploadService {
     }
   }
 
-  private void storeFile(Path localFilePath, String remoteFileName) throws WebinCliException {
+  private void storeFile(File localFile, String remoteFileName) throws WebinCliException {
+    Path localFilePath = localFile.toPath();
     log.info("Uploading file: {}", localFilePath);
 
+    ftpClient.setCopyStreamListener(
+        new CopyStreamAdapter() {
+          @Override
+          public void bytesTransferred(
+              long totalBytesTransferred, int bytesTransferred, long streamSize) {
+            uploadListener.bytesUploaded(localFile, totalBytesTransferred);
+          }
+        });
+    UploadEvent event = new UploadEvent();
+    event.begin();
     try {
       executeWithReconnect(
           () -> {
+            uploadListener.uploadStarted(localFile, Files.size(localFilePath));
+
             // In case of a retry, the entire file will be re-uploaded from beginning. Hence, the
             // input stream
             // will need to be re-created as well.
@@ -257,16 +329,37 @@ public class FtpService implements UploadService {
               }
             }
 
+            uploadListener.uploadCompleted(localFile);
             return null;
           },
-          () -> log.warn("Retrying file upload to FTP server."));
+          () -> {
+            log.warn("Retrying file upload to FTP server.");
+            uploadListener.uploadRetried(localFile);
+          });
+      event.success = true;
     } catch (WebinCliException ex) {
       throw ex;
     } catch (Exception ex) {
       throw WebinCliException.systemError(ex, WebinCliMessage.FTP_SERVER_ERROR.text());
+    } finally {
+      ftpClient.setCopyStreamListener(null);
+
+      event.end();
+      if (event.shouldCommit()) {
+        event.manifest = Trace.getCurrentSpan().getManifest();
+        event.protocol = "FTP";
+        event.file = localFilePath.toString();
+        event.fileCount = 1;
+        event.bytes = localFile.length();
+        event.commit();
+      }
     }
   }
 
+  private static String getRemoteFileName(File localFile) {
+    return localFile.toPath().getFileName().toString();
+  }
+
   private void logLastFtpReply() {
     log.error(
         "Last received FTP Reply. ReplyCode : {}, ReplyStrings : {}",
@@ -292,6 +385,7 @@ public class FtpService implements UploadService {
               if (context.getLastThrowable() != null
                   && context.getLastThrowable() instanceof IOException) {
                 reconnect();
+                uploadListener.reconnected();
               }
 
               return retryCallable.call();
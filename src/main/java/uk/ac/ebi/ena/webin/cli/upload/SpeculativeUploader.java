@@ -0,0 +1,227 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.upload;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import uk.ac.ebi.ena.webin.cli.WebinCliMessage;
+import uk.ac.ebi.ena.webin.cli.utils.FileUtils;
+
+/**
+ * Uploads the files of submissions in the background while the submissions are being validated.
+ * Uploads are run one at a time in the order they were started.
+ *
+ * <p>The files of a submission that passes validation are awaited before the submission is sent
+ * and only the files that have not changed since their upload was started are reported as
+ * uploaded. The uploaded files of a submission that fails validation, and of any submission whose
+ * upload was never awaited, are deleted from the server.
+ */
+public class SpeculativeUploader implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(SpeculativeUploader.class);
+
+  /** Maximum time to wait for the deletion of discarded uploads when closing. */
+  private static final long CLOSE_TIMEOUT_MINUTES = 5;
+
+  private final Supplier<UploadService> uploadServiceSupplier;
+  private final Supplier<FtpService> deleteServiceSupplier;
+  private final String userName;
+  private final String password;
+
+  private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+  /** Started uploads mapped by their upload directories. */
+  private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+  public SpeculativeUploader(
+      Supplier<UploadService> uploadServiceSupplier, String userName, String password) {
+    this(uploadServiceSupplier, FtpService::new, userName, password);
+  }
+
+  SpeculativeUploader(
+      Supplier<UploadService> uploadServiceSupplier,
+      Supplier<FtpService> deleteServiceSupplier,
+      String userName,
+      String password) {
+    this.uploadServiceSupplier = uploadServiceSupplier;
+    this.deleteServiceSupplier = deleteServiceSupplier;
+    this.userName = userName;
+    this.password = password;
+  }
+
+  /** Starts uploading the files into the upload directory in the background. */
+  public void start(String uploadDir, List<File> files, Path inputDir) {
+    if (files.isEmpty()) {
+      return;
+    }
+
+    log.info(WebinCliMessage.SPECULATIVE_UPLOAD_START.format(uploadDir));
+
+    Upload upload = new Upload(files);
+    Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+    upload.future =
+        executorService.submit(
+            () -> {
+              // Upload messages are written into the same log files as the starting thread's.
+              if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+              }
+              UploadService uploadService = uploadServiceSupplier.get();
+              UploadMetrics uploadMetrics = new UploadMetrics();
+              uploadService.setUploadListener(uploadMetrics);
+              try {
+                uploadService.connect(userName, password);
+                uploadService.resumeUpload(
+                    files, Collections.emptyList(), uploadDir, inputDir, upload.uploadedFiles::add);
+              } finally {
+                uploadService.disconnect();
+                log.info(WebinCliMessage.UPLOAD_METRICS.format(uploadMetrics.toJson()));
+                MDC.clear();
+              }
+              return null;
+            });
+
+    Upload previousUpload = uploads.put(uploadDir, upload);
+    if (previousUpload != null) {
+      previousUpload.future.cancel(true);
+    }
+  }
+
+  /**
+   * Waits for the upload into the upload directory to finish.
+   *
+   * @return The uploaded files that have not changed since their upload was started. Empty if no
+   *     upload was started for the upload directory.
+   */
+  public List<File> awaitUpload(String uploadDir) {
+    Upload upload = uploads.remove(uploadDir);
+    if (upload == null) {
+      return Collections.emptyList();
+    }
+
+    try {
+      upload.future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      upload.future.cancel(true);
+    } catch (ExecutionException ex) {
+      // The files that were not uploaded are uploaded again when the submission is sent.
+      log.warn(WebinCliMessage.SPECULATIVE_UPLOAD_ERROR.format(ex.getCause().getMessage()));
+    }
+
+    List<File> unchangedFiles = new ArrayList<>();
+    for (File file : upload.uploadedFiles) {
+      try {
+        if (upload.fileSnapshots.get(file).equals(new FileSnapshot(file))) {
+          unchangedFiles.add(file);
+        }
+      } catch (RuntimeException ex) {
+        log.warn(ex.getMessage());
+      }
+    }
+    return unchangedFiles;
+  }
+
+  /**
+   * Stops the upload into the upload directory and deletes the already uploaded files from the
+   * server in the background.
+   */
+  public void discardUpload(String uploadDir) {
+    Upload upload = uploads.remove(uploadDir);
+    if (upload == null) {
+      return;
+    }
+
+    upload.future.cancel(true);
+
+    // Runs after the cancelled upload has stopped as the uploads are run one at a time.
+    executorService.submit(
+        () -> {
+          log.info(WebinCliMessage.SPECULATIVE_UPLOAD_DISCARD.format(uploadDir));
+          FtpService deleteService = deleteServiceSupplier.get();
+          try {
+            deleteService.connect(userName, password);
+            deleteService.deleteFiles(uploadDir);
+          } catch (RuntimeException ex) {
+            log.warn(ex.getMessage());
+          } finally {
+            deleteService.disconnect();
+          }
+        });
+  }
+
+  /** Discards the uploads that were not awaited and waits for their files to be deleted. */
+  @Override
+  public void close() {
+    new ArrayList<>(uploads.keySet()).forEach(this::discardUpload);
+
+    executorService.shutdown();
+    try {
+      if (!executorService.awaitTermination(CLOSE_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+        executorService.shutdownNow();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      executorService.shutdownNow();
+    }
+  }
+
+  private static class Upload {
+    /** Length and last modification time of the files when the upload was started. */
+    private final Map<File, FileSnapshot> fileSnapshots = new HashMap<>();
+
+    private final Set<File> uploadedFiles = ConcurrentHashMap.newKeySet();
+
+    private Future<?> future;
+
+    private Upload(List<File> files) {
+      files.forEach(file -> fileSnapshots.put(file, new FileSnapshot(file)));
+    }
+  }
+
+  private static class FileSnapshot {
+    private final long length;
+    private final long lastModifiedTime;
+
+    private FileSnapshot(File file) {
+      this.length = file.length();
+      this.lastModifiedTime = FileUtils.getLastModifiedTime(file);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      FileSnapshot that = (FileSnapshot) o;
+      return length == that.length && lastModifiedTime == that.lastModifiedTime;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(length) * 31 + Long.hashCode(lastModifiedTime);
+    }
+  }
+}
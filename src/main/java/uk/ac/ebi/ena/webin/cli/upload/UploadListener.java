@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.upload;
+
+import java.io.File;
+
+/**
+ * Receives progress events from an {@link UploadService}. Events are delivered from the uploading
+ * thread.
+ */
+public interface UploadListener {
+  UploadListener NONE = new UploadListener() {};
+
+  /** The upload of the file has started. Also called when the upload is retried. */
+  default void uploadStarted(File file, long length) {}
+
+  /**
+   * @param bytesUploaded Number of bytes of the file uploaded so far during the current attempt.
+   */
+  default void bytesUploaded(File file, long bytesUploaded) {}
+
+  default void uploadCompleted(File file) {}
+
+  /** The upload of the file failed and will be retried from the beginning. */
+  default void uploadRetried(File file) {}
+
+  /** The connection to the upload server was lost and has been established again. */
+  default void reconnected() {}
+}
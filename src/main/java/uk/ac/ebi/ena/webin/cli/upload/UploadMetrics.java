@@ -0,0 +1,271 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.upload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+
+/**
+ * Collects upload throughput, time to first byte, retry and reconnect metrics from upload events.
+ * Throughput is sampled in intervals of at least one second so that degraded links can be seen
+ * over time. The metrics are written in the reports as a single JSON document.
+ */
+public class UploadMetrics implements UploadListener {
+  private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final LongSupplier nanoTimeSupplier;
+
+  private final Map<File, FileUploadMetrics> files = new LinkedHashMap<>();
+
+  private int reconnects;
+
+  public UploadMetrics() {
+    this(System::nanoTime);
+  }
+
+  UploadMetrics(LongSupplier nanoTimeSupplier) {
+    this.nanoTimeSupplier = nanoTimeSupplier;
+  }
+
+  @Override
+  public synchronized void uploadStarted(File file, long length) {
+    FileUploadMetrics metrics = files.computeIfAbsent(file, FileUploadMetrics::new);
+    long now = nanoTimeSupplier.getAsLong();
+    metrics.length = length;
+    metrics.bytes = 0;
+    metrics.attemptStartTime = now;
+    metrics.firstByteTime = -1;
+    metrics.sampleTime = now;
+    metrics.sampleBytes = 0;
+    if (metrics.startTime < 0) {
+      metrics.startTime = now;
+    }
+  }
+
+  @Override
+  public synchronized void bytesUploaded(File file, long bytesUploaded) {
+    FileUploadMetrics metrics = files.get(file);
+    if (metrics == null) {
+      return;
+    }
+    long now = nanoTimeSupplier.getAsLong();
+    if (metrics.firstByteTime < 0) {
+      metrics.firstByteTime = now;
+    }
+    metrics.bytes = bytesUploaded;
+    if (now - metrics.sampleTime >= SAMPLE_INTERVAL_NANOS) {
+      metrics.sample(now);
+    }
+  }
+
+  @Override
+  public synchronized void uploadCompleted(File file) {
+    FileUploadMetrics metrics = files.get(file);
+    if (metrics == null) {
+      return;
+    }
+    long now = nanoTimeSupplier.getAsLong();
+    metrics.bytes = metrics.length;
+    if (now > metrics.sampleTime) {
+      metrics.sample(now);
+    }
+    metrics.endTime = now;
+  }
+
+  @Override
+  public synchronized void uploadRetried(File file) {
+    FileUploadMetrics metrics = files.get(file);
+    if (metrics != null) {
+      metrics.retries++;
+    }
+  }
+
+  @Override
+  public synchronized void reconnected() {
+    reconnects++;
+  }
+
+  /** @return The metrics of the completed and ongoing file uploads. */
+  public synchronized Report getReport() {
+    Report report = new Report();
+    report.reconnects = reconnects;
+
+    long startTime = -1;
+    long endTime = -1;
+    for (FileUploadMetrics metrics : files.values()) {
+      report.files.add(metrics.getReport());
+      report.retries += metrics.retries;
+      if (metrics.endTime >= 0) {
+        report.bytes += metrics.length;
+        endTime = Math.max(endTime, metrics.endTime);
+      }
+      if (metrics.startTime >= 0) {
+        startTime = startTime < 0 ? metrics.startTime : Math.min(startTime, metrics.startTime);
+      }
+    }
+    if (startTime >= 0 && endTime > startTime) {
+      report.timeMillis = TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
+      report.bytesPerSecond = bytesPerSecond(report.bytes, endTime - startTime);
+    }
+    return report;
+  }
+
+  public String toJson() {
+    try {
+      return new ObjectMapper().writeValueAsString(getReport());
+    } catch (JsonProcessingException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+  }
+
+  private static long bytesPerSecond(long bytes, long nanos) {
+    return nanos <= 0 ? 0 : (long) (bytes / (nanos / (double) TimeUnit.SECONDS.toNanos(1)));
+  }
+
+  private static class FileUploadMetrics {
+    private final File file;
+    private long length;
+    private long bytes;
+    private long startTime = -1;
+    private long attemptStartTime = -1;
+    private long firstByteTime = -1;
+    private long endTime = -1;
+    private int retries;
+
+    private long sampleTime;
+    private long sampleBytes;
+    private final List<Long> bytesPerSecondSamples = new ArrayList<>();
+
+    private FileUploadMetrics(File file) {
+      this.file = file;
+    }
+
+    private void sample(long now) {
+      bytesPerSecondSamples.add(bytesPerSecond(bytes - sampleBytes, now - sampleTime));
+      sampleTime = now;
+      sampleBytes = bytes;
+    }
+
+    private FileReport getReport() {
+      FileReport report = new FileReport();
+      report.file = file.getPath();
+      report.length = length;
+      report.bytes = bytes;
+      report.retries = retries;
+      report.bytesPerSecondSamples = new ArrayList<>(bytesPerSecondSamples);
+      if (firstByteTime >= 0) {
+        report.timeToFirstByteMillis =
+            TimeUnit.NANOSECONDS.toMillis(firstByteTime - attemptStartTime);
+      }
+      if (endTime >= 0) {
+        report.timeMillis = TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
+        report.bytesPerSecond = bytesPerSecond(length, endTime - attemptStartTime);
+      }
+      return report;
+    }
+  }
+
+  /** Aggregated upload metrics. */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public static class Report {
+    private long bytes;
+    private Long timeMillis;
+    private Long bytesPerSecond;
+    private int retries;
+    private int reconnects;
+    private final List<FileReport> files = new ArrayList<>();
+
+    /** @return Total length of the uploaded files. */
+    public long getBytes() {
+      return bytes;
+    }
+
+    /** @return Time from the start of the first upload to the end of the last upload. */
+    public Long getTimeMillis() {
+      return timeMillis;
+    }
+
+    public Long getBytesPerSecond() {
+      return bytesPerSecond;
+    }
+
+    public int getRetries() {
+      return retries;
+    }
+
+    public int getReconnects() {
+      return reconnects;
+    }
+
+    public List<FileReport> getFiles() {
+      return files;
+    }
+  }
+
+  /** Upload metrics of a single file. Durations are null if not known yet. */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public static class FileReport {
+    private String file;
+    private long length;
+    private long bytes;
+    private Long timeToFirstByteMillis;
+    private Long timeMillis;
+    private Long bytesPerSecond;
+    private int retries;
+    private List<Long> bytesPerSecondSamples;
+
+    public String getFile() {
+      return file;
+    }
+
+    public long getLength() {
+      return length;
+    }
+
+    /** @return Number of bytes uploaded during the last attempt. */
+    public long getBytes() {
+      return bytes;
+    }
+
+    /** @return Time from the start of the last attempt to the first uploaded byte. */
+    public Long getTimeToFirstByteMillis() {
+      return timeToFirstByteMillis;
+    }
+
+    /** @return Time from the start of the first attempt to the end of the upload. */
+    public Long getTimeMillis() {
+      return timeMillis;
+    }
+
+    /** @return Throughput of the successful attempt. */
+    public Long getBytesPerSecond() {
+      return bytesPerSecond;
+    }
+
+    public int getRetries() {
+      return retries;
+    }
+
+    /** @return Throughput sampled in intervals of at least one second. */
+    public List<Long> getBytesPerSecondSamples() {
+      return bytesPerSecondSamples;
+    }
+  }
+}
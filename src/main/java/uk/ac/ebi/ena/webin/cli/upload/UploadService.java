@@ -12,14 +12,42 @@ package uk.ac.ebi.ena.webin.cli.upload;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UploadService {
   void connect(String userName, String password);
 
   void upload(List<File> uploadFilesList, String uploadDir, Path inputDir);
 
+  /**
+   * Uploads the files that have not been uploaded already. Files uploaded previously into the
+   * upload directory are kept.
+   *
+   * @param uploadedFilesList Files that have already been uploaded and are not uploaded again.
+   * @param uploadedFileCallback Called with every file after it has been uploaded.
+   */
+  default void resumeUpload(
+      List<File> uploadFilesList,
+      List<File> uploadedFilesList,
+      String uploadDir,
+      Path inputDir,
+      Consumer<File> uploadedFileCallback) {
+    List<File> remainingFilesList = new ArrayList<>(uploadFilesList);
+    remainingFilesList.removeAll(uploadedFilesList);
+    if (remainingFilesList.isEmpty()) {
+      return;
+    }
+
+    upload(remainingFilesList, uploadDir, inputDir);
+    remainingFilesList.forEach(uploadedFileCallback);
+  }
+
   void disconnect();
 
+  /** Sets the listener notified of the upload progress. Not every service reports all events. */
+  default void setUploadListener(UploadListener uploadListener) {}
+
   boolean isAvailable();
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the attributes of the submitted files by their absolute paths. The attributes are read
+ * when the manifest file is read and are reused when the submission is prepared, which avoids
+ * repeated metadata operations on network file systems.
+ *
+ * <p>The cached attributes must not be used to detect whether the files have been modified. The
+ * attributes that are recorded with a file digest must be read using {@link #getCurrent(File)}.
+ */
+public class FileAttributeCache {
+
+  private static final FileAttributeCache INSTANCE = new FileAttributeCache();
+
+  private final Map<Path, BasicFileAttributes> attributes = new ConcurrentHashMap<>();
+
+  FileAttributeCache() {}
+
+  public static FileAttributeCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Reads the attributes of the file and replaces the cached attributes.
+   *
+   * @return The attributes or null if they could not be read.
+   */
+  public BasicFileAttributes read(Path file) {
+    Path path = file.toAbsolutePath();
+    try {
+      BasicFileAttributes fileAttributes = Files.readAttributes(path, BasicFileAttributes.class);
+      attributes.put(path, fileAttributes);
+      return fileAttributes;
+    } catch (IOException ex) {
+      attributes.remove(path);
+      return null;
+    }
+  }
+
+  /** @return The cached attributes of the file. The attributes are read if they are not cached. */
+  public BasicFileAttributes get(File file) {
+    BasicFileAttributes fileAttributes = getOrRead(file);
+    if (fileAttributes == null) {
+      throw new RuntimeException("Error reading file attributes : " + file.getAbsolutePath());
+    }
+    return fileAttributes;
+  }
+
+  /**
+   * Reads the current attributes of the file and replaces the cached attributes.
+   *
+   * @return The current attributes.
+   */
+  public BasicFileAttributes getCurrent(File file) {
+    BasicFileAttributes fileAttributes = read(file.toPath());
+    if (fileAttributes == null) {
+      throw new RuntimeException("Error reading file attributes : " + file.getAbsolutePath());
+    }
+    return fileAttributes;
+  }
+
+  /** @return The length of the file or 0 if the file does not exist like {@link File#length()}. */
+  public long getLength(File file) {
+    BasicFileAttributes fileAttributes = getOrRead(file);
+    return fileAttributes == null ? 0 : fileAttributes.size();
+  }
+
+  public long getLastModifiedTime(File file) {
+    return get(file).lastModifiedTime().toMillis();
+  }
+
+  public void clear() {
+    attributes.clear();
+  }
+
+  private BasicFileAttributes getOrRead(File file) {
+    BasicFileAttributes fileAttributes = attributes.get(file.toPath().toAbsolutePath());
+    return fileAttributes != null ? fileAttributes : read(file.toPath());
+  }
+}
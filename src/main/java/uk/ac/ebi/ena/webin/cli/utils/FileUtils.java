@@ -20,13 +20,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.zip.GZIPInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import uk.ac.ebi.ena.webin.cli.WebinCliException;
+import uk.ac.ebi.ena.webin.cli.trace.DigestEvent;
+import uk.ac.ebi.ena.webin.cli.trace.Trace;
 
 public class FileUtils {
 
@@ -45,11 +50,60 @@ public class FileUtils {
   }
 
   public static String calculateDigest(String digestName, File file) {
+    DigestEvent event = new DigestEvent();
+    event.begin();
     try {
       return calculateDigest(
           digestName, new BufferedInputStream(new FileInputStream(file), 1024 * 1024));
     } catch (IOException ex) {
       throw WebinCliException.systemError(ex);
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.manifest = Trace.getCurrentSpan().getManifest();
+        event.file = file.getPath();
+        event.size = file.length();
+        event.algorithm = digestName;
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * Calculates the digest of the file length and of three blocks of the file taken from its
+   * beginning, middle and end. The whole file is digested if it is not larger than the three
+   * blocks.
+   */
+  public static String calculateSampledDigest(String digestName, File file, int blockSize) {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      MessageDigest digest = MessageDigest.getInstance(digestName);
+
+      long length = channel.size();
+      digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, length));
+
+      long[] offsets =
+          length <= 3L * blockSize
+              ? new long[] {0}
+              : new long[] {0, (length - blockSize) / 2, length - blockSize};
+      int readSize = length <= 3L * blockSize ? (int) length : blockSize;
+
+      ByteBuffer buffer = ByteBuffer.allocate(readSize);
+      for (long offset : offsets) {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          if (channel.read(buffer, offset + buffer.position()) < 0) {
+            break;
+          }
+        }
+        buffer.flip();
+        digest.update(buffer);
+      }
+
+      byte[] message_digest = digest.digest();
+      BigInteger value = new BigInteger(1, message_digest);
+      return String.format(String.format("%%0%dx", message_digest.length << 1), value);
+    } catch (NoSuchAlgorithmException | IOException ex) {
+      throw WebinCliException.systemError(ex);
     }
   }
 
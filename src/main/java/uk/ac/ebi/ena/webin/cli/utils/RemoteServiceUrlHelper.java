@@ -10,7 +10,17 @@
  */
 package uk.ac.ebi.ena.webin.cli.utils;
 
+/**
+ * Webin service URLs. Each URL can be overridden with a system property, for example to use local
+ * stand-in services when benchmarking.
+ */
 public class RemoteServiceUrlHelper {
+  public static final String WEBIN_REST_V1_URL_PROPERTY = "webin.cli.rest.v1.url";
+  public static final String WEBIN_REST_V2_URL_PROPERTY = "webin.cli.rest.v2.url";
+  public static final String WEBIN_AUTH_URL_PROPERTY = "webin.cli.auth.url";
+  public static final String WEBIN_LOGIN_URL_PROPERTY = "webin.cli.login.url";
+  public static final String BIOSAMPLES_URL_PROPERTY = "webin.cli.biosamples.url";
+
   public static final String WEBIN_REST_V1_TEST_URL =
       "https://wwwdev.ebi.ac.uk/ena/submit/drop-box/";
   public static final String WEBIN_REST_V1_PROD_URL = "https://www.ebi.ac.uk/ena/submit/drop-box/";
@@ -24,22 +34,36 @@ public class RemoteServiceUrlHelper {
   public static final String WEBIN_AUTH_PROD_URL =
       "https://www.ebi.ac.uk/ena/submit/webin/auth/token";
 
+  public static final String WEBIN_LOGIN_TEST_URL = "https://www.ebi.ac.uk/ena/submit/webin/auth";
+  public static final String WEBIN_LOGIN_PROD_URL = "https://www.ebi.ac.uk/ena/submit/webin/auth";
+
   public static final String BIOSAMPLES_TEST_URL = "https://wwwdev.ebi.ac.uk/biosamples/";
   public static final String BIOSAMPLES_PROD_URL = "https://www.ebi.ac.uk/biosamples/";
 
   public static String getWebinRestV1Url(boolean isTestMode) {
-    return isTestMode ? WEBIN_REST_V1_TEST_URL : WEBIN_REST_V1_PROD_URL;
+    return getUrl(
+        WEBIN_REST_V1_URL_PROPERTY, isTestMode ? WEBIN_REST_V1_TEST_URL : WEBIN_REST_V1_PROD_URL);
   }
 
   public static String getWebinRestV2Url(boolean isTestMode) {
-    return isTestMode ? WEBIN_REST_V2_TEST_URL : WEBIN_REST_V2_PROD_URL;
+    return getUrl(
+        WEBIN_REST_V2_URL_PROPERTY, isTestMode ? WEBIN_REST_V2_TEST_URL : WEBIN_REST_V2_PROD_URL);
   }
 
   public static String getWebinAuthUrl(boolean isTestMode) {
-    return isTestMode ? WEBIN_AUTH_TEST_URL : WEBIN_AUTH_PROD_URL;
+    return getUrl(WEBIN_AUTH_URL_PROPERTY, isTestMode ? WEBIN_AUTH_TEST_URL : WEBIN_AUTH_PROD_URL);
+  }
+
+  public static String getWebinLoginUrl(boolean isTestMode) {
+    return getUrl(
+        WEBIN_LOGIN_URL_PROPERTY, isTestMode ? WEBIN_LOGIN_TEST_URL : WEBIN_LOGIN_PROD_URL);
   }
 
   public static String getBiosamplesUrl(boolean isTestMode) {
-    return isTestMode ? BIOSAMPLES_TEST_URL : BIOSAMPLES_PROD_URL;
+    return getUrl(BIOSAMPLES_URL_PROPERTY, isTestMode ? BIOSAMPLES_TEST_URL : BIOSAMPLES_PROD_URL);
+  }
+
+  private static String getUrl(String property, String defaultUrl) {
+    return System.getProperty(property, defaultUrl);
   }
 }
@@ -10,48 +10,93 @@
  */
 package uk.ac.ebi.ena.webin.cli.utils;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Executes a shell command. The standard output and error of the process are read line by line
+ * while the process is running and can be streamed to line consumers. Only the last lines of each
+ * are kept in memory for error reporting.
+ */
 public class ShellExec {
   private static final Logger log = LoggerFactory.getLogger(ShellExec.class);
 
+  /** Maximum number of characters of the last output lines kept from each stream. */
+  static final int MAX_CAPTURED_CHARS = 64 * 1024;
+
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  /** Maximum time to wait for the output to be read after the process has exited. */
+  private static final long READ_TIMEOUT_SECONDS = 30;
+
+  /** Reader threads shared by all the processes. The threads do not prevent the JVM exiting. */
+  private static final ExecutorService READER_POOL =
+      Executors.newCachedThreadPool(
+          new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+              Thread thread =
+                  new Thread(runnable, "ShellExec-reader-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+
   private final String command;
 
   private final Map<String, String> vars;
 
-  private static class StreamConsumer extends Thread {
-    private final Reader ireader;
+  /**
+   * Reads lines terminated by a new line, a carriage return or both from the stream. Every line is
+   * passed to the line consumer and the last lines are kept in a bounded buffer.
+   */
+  private static class StreamConsumer implements Runnable {
+    private final InputStream istream;
 
-    private final StringBuffer consumedInput = new StringBuffer(8192);
+    private final Consumer<String> lineConsumer;
 
-    public StreamConsumer(InputStream istream) {
-      this.ireader = new InputStreamReader(istream, StandardCharsets.UTF_8);
+    private final TailBuffer tail = new TailBuffer(MAX_CAPTURED_CHARS);
 
-      setName(getClass().getSimpleName());
+    StreamConsumer(InputStream istream, Consumer<String> lineConsumer) {
+      this.istream = istream;
+      this.lineConsumer = lineConsumer;
     }
 
-    public String getConsumedInput() {
-      return consumedInput.toString();
+    String getConsumedInput() {
+      return tail.toString();
     }
 
     @Override
     public void run() {
-      try {
-        int ch = 0;
-        while ((ch = ireader.read()) != -1) {
-          if (ch > 0) {
-            consumedInput.append((char) ch);
+      try (BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(istream, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          tail.add(line);
+          try {
+            lineConsumer.accept(line);
+          } catch (RuntimeException ex) {
+            log.warn("Failed to process output line: {}", ex.getMessage());
           }
         }
       } catch (IOException e) {
@@ -59,6 +104,35 @@ public class ShellExec {
     }
   }
 
+  /** Keeps the last lines up to a maximum number of characters. */
+  static class TailBuffer {
+    private final int maxChars;
+
+    private final Deque<String> lines = new ArrayDeque<>();
+
+    private int chars;
+
+    TailBuffer(int maxChars) {
+      this.maxChars = maxChars;
+    }
+
+    synchronized void add(String line) {
+      if (line.length() > maxChars) {
+        line = line.substring(line.length() - maxChars);
+      }
+      lines.addLast(line);
+      chars += line.length() + 1;
+      while (chars > maxChars + 1 && lines.size() > 1) {
+        chars -= lines.removeFirst().length() + 1;
+      }
+    }
+
+    @Override
+    public synchronized String toString() {
+      return String.join("\n", lines);
+    }
+  }
+
   public static class Result {
     private final int exitCode;
 
@@ -75,10 +149,12 @@ public class ShellExec {
       return exitCode;
     }
 
+    /** @return The last lines of the standard output. */
     public String getStdout() {
       return stdout;
     }
 
+    /** @return The last lines of the standard error. */
     public String getStderr() {
       return stderr;
     }
@@ -98,40 +174,57 @@ public class ShellExec {
   }
 
   public Result exec() throws IOException, InterruptedException {
-    return exec(getCommand(), getVars());
+    return exec(line -> {}, line -> {});
   }
 
-  private Result exec(String command, Map<String, String> vars)
+  /**
+   * Executes the command and streams the output lines to the consumers while the process is
+   * running. The consumers are called from reader threads.
+   */
+  public Result exec(Consumer<String> stdoutLineConsumer, Consumer<String> stderrLineConsumer)
       throws IOException, InterruptedException {
-    ExecutorService es = Executors.newFixedThreadPool(2);
+    log.debug("Invoking: {}", command);
 
-    try {
-      ((ThreadPoolExecutor) es).prestartAllCoreThreads();
+    ProcessBuilder pb =
+        System.getProperty("os.name").toLowerCase().contains("win")
+            ? new ProcessBuilder("cmd", "/c", command)
+            : new ProcessBuilder("sh", "-c", command);
+    pb.environment().putAll(vars);
+    pb.directory(null);
 
-      log.debug("Invoking: {}", command);
+    Process proc = pb.start();
 
-      ProcessBuilder pb =
-          System.getProperty("os.name").toLowerCase().contains("win")
-              ? new ProcessBuilder("cmd", "/c", command)
-              : new ProcessBuilder("sh", "-c", command);
-      pb.environment().putAll(vars);
-      pb.directory(null);
+    StreamConsumer inputStreamConsumer =
+        new StreamConsumer(proc.getInputStream(), stdoutLineConsumer);
+    StreamConsumer errorStreamConsumer =
+        new StreamConsumer(proc.getErrorStream(), stderrLineConsumer);
 
-      Process proc = pb.start();
+    Future<?> inputStreamFuture = READER_POOL.submit(inputStreamConsumer);
+    Future<?> errorStreamFuture = READER_POOL.submit(errorStreamConsumer);
 
-      StreamConsumer inputStreamConsumer = new StreamConsumer(proc.getInputStream());
-      StreamConsumer errorStreamConsumer = new StreamConsumer(proc.getErrorStream());
+    int exitCode;
+    try {
+      exitCode = proc.waitFor();
+    } catch (InterruptedException ex) {
+      proc.destroy();
+      throw ex;
+    }
 
-      es.submit(inputStreamConsumer);
-      es.submit(errorStreamConsumer);
+    awaitOutput(inputStreamFuture);
+    awaitOutput(errorStreamFuture);
 
-      int exitCode = proc.waitFor();
+    return new Result(
+        exitCode, inputStreamConsumer.getConsumedInput(), errorStreamConsumer.getConsumedInput());
+  }
 
-      return new Result(
-          exitCode, inputStreamConsumer.getConsumedInput(), errorStreamConsumer.getConsumedInput());
-    } finally {
-      es.shutdown();
-      es.awaitTermination(30, TimeUnit.SECONDS);
+  private static void awaitOutput(Future<?> future) throws InterruptedException {
+    try {
+      future.get(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (ExecutionException ex) {
+      log.warn("Failed to read process output: {}", ex.getMessage());
+    } catch (TimeoutException ex) {
+      // The output stream can be kept open by a child process that is still running.
+      future.cancel(true);
     }
   }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.xml;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.jdom2.CDATA;
+import org.jdom2.Element;
+
+/** Builds the written elements as a JDOM element tree. */
+public class JdomXmlElementWriter implements XmlElementWriter {
+
+  private final Deque<Element> elements = new ArrayDeque<>();
+  private Element rootElement;
+
+  @Override
+  public XmlElementWriter startElement(String name) {
+    Element e = new Element(name);
+    addElement(e);
+    elements.push(e);
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter attribute(String name, String value) {
+    elements.peek().setAttribute(name, value);
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter text(String text) {
+    elements.peek().setText(text);
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter cdata(String text) {
+    elements.peek().addContent(new CDATA(text));
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter endElement() {
+    elements.pop();
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter element(Element element) {
+    addElement(element);
+    return this;
+  }
+
+  /** @return The first written element. */
+  public Element getRootElement() {
+    return rootElement;
+  }
+
+  private void addElement(Element e) {
+    if (e.getParent() != null) {
+      e.detach();
+    }
+    if (elements.isEmpty()) {
+      if (rootElement != null) {
+        throw new IllegalStateException("XML can only have one root element.");
+      }
+      rootElement = e;
+    } else {
+      elements.peek().addContent(e);
+    }
+  }
+}
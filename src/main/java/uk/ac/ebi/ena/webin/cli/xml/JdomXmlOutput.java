@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.xml;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
+
+/**
+ * Creates the XMLs in memory as pretty printed JDOM element trees. The XMLs are not written into
+ * their files, which is left to the submission bundle.
+ */
+public class JdomXmlOutput implements XmlOutput {
+
+  private final Path xmlDir;
+
+  private final Map<SubmissionBundle.SubmissionXMLFileType, String> xmls = new LinkedHashMap<>();
+
+  /** @param xmlDir The directory the XML files will be written into. Can be null. */
+  public JdomXmlOutput(Path xmlDir) {
+    this.xmlDir = xmlDir;
+  }
+
+  @Override
+  public void write(
+      SubmissionBundle.SubmissionXMLFileType type, Consumer<XmlElementWriter> xmlElementWriter) {
+    JdomXmlElementWriter writer = new JdomXmlElementWriter();
+    xmlElementWriter.accept(writer);
+
+    XMLOutputter xmlOutput = new XMLOutputter();
+    xmlOutput.setFormat(Format.getPrettyFormat());
+    xmls.put(type, xmlOutput.outputString(writer.getRootElement()));
+  }
+
+  @Override
+  public List<SubmissionBundle.SubmissionXMLFile> getXmlFiles() {
+    List<SubmissionBundle.SubmissionXMLFile> xmlFiles = new ArrayList<>();
+    xmls.forEach(
+        (type, xml) -> {
+          File file =
+              xmlDir == null ? null : xmlDir.resolve(XmlOutput.getXmlFileName(type)).toFile();
+          xmlFiles.add(new SubmissionBundle.SubmissionXMLFile(type, file, xml));
+        });
+    return xmlFiles;
+  }
+
+  public Map<SubmissionBundle.SubmissionXMLFileType, String> getXmls() {
+    return xmls;
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.xml;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.jdom2.Attribute;
+import org.jdom2.CDATA;
+import org.jdom2.Content;
+import org.jdom2.Element;
+import org.jdom2.Text;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+
+/**
+ * Streams the written elements into an {@link XMLStreamWriter}. The output is indented in the same
+ * way as the pretty format of the JDOM outputter: element only content is indented with two spaces
+ * per level, text is trimmed and elements without content are written as empty elements.
+ */
+public class StaxXmlElementWriter implements XmlElementWriter {
+
+  private static final String INDENT = "  ";
+
+  private final XMLStreamWriter writer;
+
+  /** For every open element, whether it has child elements. */
+  private final Deque<Boolean> hasChildElements = new ArrayDeque<>();
+
+  /** The last started element is written only when it is known whether it has any content. */
+  private String pendingElementName;
+
+  private final List<String[]> pendingAttributes = new ArrayList<>();
+
+  public StaxXmlElementWriter(XMLStreamWriter writer) {
+    this.writer = writer;
+  }
+
+  @Override
+  public XmlElementWriter startElement(String name) {
+    try {
+      writePendingElement(false);
+      if (!hasChildElements.isEmpty()) {
+        hasChildElements.pop();
+        hasChildElements.push(true);
+        writeIndent(hasChildElements.size());
+      }
+      pendingElementName = name;
+      hasChildElements.push(false);
+    } catch (XMLStreamException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter attribute(String name, String value) {
+    if (pendingElementName == null) {
+      throw new IllegalStateException("Attributes must be written right after the element start.");
+    }
+    pendingAttributes.add(new String[] {name, value});
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter text(String text) {
+    if (text == null || text.trim().isEmpty()) {
+      return this;
+    }
+    try {
+      writePendingElement(false);
+      writer.writeCharacters(text.trim());
+    } catch (XMLStreamException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter cdata(String text) {
+    if (text == null || text.trim().isEmpty()) {
+      return this;
+    }
+    try {
+      writePendingElement(false);
+      writer.writeCData(text.trim());
+    } catch (XMLStreamException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter endElement() {
+    try {
+      boolean elementHasChildElements = hasChildElements.pop();
+      if (pendingElementName != null) {
+        writePendingElement(true);
+      } else {
+        if (elementHasChildElements) {
+          writeIndent(hasChildElements.size());
+        }
+        writer.writeEndElement();
+      }
+    } catch (XMLStreamException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+    return this;
+  }
+
+  @Override
+  public XmlElementWriter element(Element element) {
+    startElement(element.getName());
+    for (Attribute attribute : element.getAttributes()) {
+      attribute(attribute.getName(), attribute.getValue());
+    }
+    for (Content content : element.getContent()) {
+      if (content instanceof Element) {
+        element((Element) content);
+      } else if (content instanceof CDATA) {
+        cdata(((CDATA) content).getText());
+      } else if (content instanceof Text) {
+        text(((Text) content).getText());
+      }
+    }
+    return endElement();
+  }
+
+  /** Completes the XML. All the started elements must have been ended. */
+  public void finish() {
+    try {
+      writer.flush();
+    } catch (XMLStreamException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+  }
+
+  private void writePendingElement(boolean empty) throws XMLStreamException {
+    if (pendingElementName == null) {
+      return;
+    }
+    if (empty) {
+      writer.writeEmptyElement(pendingElementName);
+    } else {
+      writer.writeStartElement(pendingElementName);
+    }
+    for (String[] attribute : pendingAttributes) {
+      writer.writeAttribute(attribute[0], attribute[1]);
+    }
+    pendingElementName = null;
+    pendingAttributes.clear();
+  }
+
+  private void writeIndent(int depth) throws XMLStreamException {
+    StringBuilder indent = new StringBuilder(System.lineSeparator());
+    for (int i = 0; i < depth; i++) {
+      indent.append(INDENT);
+    }
+    writer.writeCharacters(indent.toString());
+  }
+}
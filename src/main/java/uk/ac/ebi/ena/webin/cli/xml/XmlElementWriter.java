@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.xml;
+
+import org.jdom2.Element;
+
+/**
+ * Writes XML elements in document order. Implementations either build the elements in memory or
+ * stream them directly into their destination.
+ */
+public interface XmlElementWriter {
+
+  /** Starts a new element as a child of the current element. */
+  XmlElementWriter startElement(String name);
+
+  /** Adds an attribute to the element that was started last. */
+  XmlElementWriter attribute(String name, String value);
+
+  /** Sets the text of the current element. */
+  XmlElementWriter text(String text);
+
+  /** Adds a CDATA section to the current element. */
+  XmlElementWriter cdata(String text);
+
+  /** Ends the current element. */
+  XmlElementWriter endElement();
+
+  /** Writes an element created in memory as a child of the current element. */
+  XmlElementWriter element(Element element);
+
+  /** Writes an element containing only the given text. */
+  default XmlElementWriter textElement(String name, String text) {
+    return startElement(name).text(text).endElement();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.xml;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
+
+/**
+ * Streams the XMLs directly into their files in the given directory using StAX. The MD5 checksum
+ * of every file is calculated while it is being written. The XML content is not kept in memory.
+ */
+public class XmlFileOutput implements XmlOutput {
+
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  private final Path xmlDir;
+
+  private final List<SubmissionBundle.SubmissionXMLFile> xmlFiles = new ArrayList<>();
+
+  public XmlFileOutput(Path xmlDir) {
+    this.xmlDir = xmlDir;
+  }
+
+  @Override
+  public void write(
+      SubmissionBundle.SubmissionXMLFileType type, Consumer<XmlElementWriter> xmlElementWriter) {
+    Path xmlFile = xmlDir.resolve(XmlOutput.getXmlFileName(type));
+
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+
+      try (OutputStream out =
+          new DigestOutputStream(
+              new BufferedOutputStream(Files.newOutputStream(xmlFile)), digest)) {
+        XMLStreamWriter streamWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+        StaxXmlElementWriter writer = new StaxXmlElementWriter(streamWriter);
+        xmlElementWriter.accept(writer);
+        writer.finish();
+        streamWriter.close();
+      }
+
+      SubmissionBundle.SubmissionXMLFile submissionXmlFile =
+          new SubmissionBundle.SubmissionXMLFile(type, xmlFile.toFile(), null);
+      submissionXmlFile.setMd5(toHex(digest.digest()));
+      xmlFiles.add(submissionXmlFile);
+    } catch (IOException | XMLStreamException | NoSuchAlgorithmException ex) {
+      throw WebinCliException.systemError(ex);
+    }
+  }
+
+  @Override
+  public List<SubmissionBundle.SubmissionXMLFile> getXmlFiles() {
+    return xmlFiles;
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.xml;
+
+import java.util.List;
+import java.util.function.Consumer;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
+
+/** Destination of the submission XMLs written by {@link XmlWriter}s. */
+public interface XmlOutput {
+
+  /** Writes the XML of the given type using the given element writer callback. */
+  void write(
+      SubmissionBundle.SubmissionXMLFileType type, Consumer<XmlElementWriter> xmlElementWriter);
+
+  /** @return The written XMLs in the order they were written. */
+  List<SubmissionBundle.SubmissionXMLFile> getXmlFiles();
+
+  static String getXmlFileName(SubmissionBundle.SubmissionXMLFileType type) {
+    return type.name().toLowerCase() + ".xml";
+  }
+}
@@ -17,12 +17,37 @@ import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
 import uk.ac.ebi.ena.webin.cli.validator.manifest.Manifest;
 
 public interface XmlWriter<M extends Manifest, R extends ValidationResponse> {
-  Map<SubmissionBundle.SubmissionXMLFileType, String> createXml(
+
+  /** Writes the submission XMLs into the given output. */
+  void writeXml(
+      M manifest,
+      R response,
+      String centerName,
+      String submissionTitle,
+      String submissionAlias,
+      Path inputDir,
+      Path uploadDir,
+      XmlOutput xmlOutput);
+
+  /** @return The submission XMLs created in memory. */
+  default Map<SubmissionBundle.SubmissionXMLFileType, String> createXml(
       M manifest,
       R response,
       String centerName,
       String submissionTitle,
       String submissionAlias,
       Path inputDir,
-      Path uploadDir);
+      Path uploadDir) {
+    JdomXmlOutput xmlOutput = new JdomXmlOutput(null);
+    writeXml(
+        manifest,
+        response,
+        centerName,
+        submissionTitle,
+        submissionAlias,
+        inputDir,
+        uploadDir,
+        xmlOutput);
+    return xmlOutput.getXmls();
+  }
 }
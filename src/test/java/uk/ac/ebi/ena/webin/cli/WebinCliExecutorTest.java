@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ena.webin.cli.service.IgnoreErrorsService;
+import uk.ac.ebi.ena.webin.cli.service.RatelimitService;
+import uk.ac.ebi.ena.webin.cli.service.models.RateLimitResult;
+import uk.ac.ebi.ena.webin.cli.validator.api.ValidationResponse;
+import uk.ac.ebi.ena.webin.cli.validator.api.Validator;
+import uk.ac.ebi.ena.webin.cli.validator.manifest.GenomeManifest;
+
+public class WebinCliExecutorTest {
+
+  private static final String NAME = "test_manifest";
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final IgnoreErrorsService ignoreErrorsService = mock(IgnoreErrorsService.class);
+  private final RatelimitService ratelimitService = mock(RatelimitService.class);
+
+  private WebinCliExecutor<GenomeManifest, ValidationResponse> createExecutor() {
+    WebinCliExecutor<GenomeManifest, ValidationResponse> executor =
+        spy(
+            new WebinCliExecutor<>(
+                WebinCliContext.genome, new WebinCliParameters(), null, null, null));
+    doReturn(ignoreErrorsService).when(executor).createIgnoreErrorsService();
+    doReturn(ratelimitService).when(executor).createRatelimitService();
+    return executor;
+  }
+
+  private static GenomeManifest createManifest() {
+    GenomeManifest manifest = new GenomeManifest();
+    manifest.setName(NAME);
+    return manifest;
+  }
+
+  @Test
+  public void testPrefetchedSubmissionDecisionIsReused() {
+    RateLimitResult ratelimit = new RateLimitResult();
+    when(ignoreErrorsService.getIgnoreErrors("genome", NAME)).thenReturn(false);
+    when(ratelimitService.ratelimit(eq("genome"), any(), any(), any())).thenReturn(ratelimit);
+
+    WebinCliExecutor<GenomeManifest, ValidationResponse> executor = createExecutor();
+    GenomeManifest manifest = createManifest();
+    executor.prefetchSubmissionDecisions(Collections.singletonList(manifest));
+    executor.prefetchSubmissionDecisions(Collections.singletonList(manifest));
+
+    WebinCliExecutor.SubmissionDecision submissionDecision =
+        executor.getSubmissionDecision(manifest);
+    assertThat(submissionDecision.ignoreErrors).isFalse();
+    assertThat(submissionDecision.ratelimit).isSameAs(ratelimit);
+    assertThat(submissionDecision.ratelimitException).isNull();
+    assertThat(executor.getSubmissionDecision(manifest)).isSameAs(submissionDecision);
+
+    verify(executor, times(1)).createIgnoreErrorsService();
+    verify(ignoreErrorsService, times(1)).getIgnoreErrors("genome", NAME);
+    verify(ratelimitService, times(1)).ratelimit(eq("genome"), any(), any(), any());
+  }
+
+  @Test
+  public void testFailedPrefetchFallsBackToSynchronousLookup() {
+    when(ignoreErrorsService.getIgnoreErrors("genome", NAME))
+        .thenThrow(new AssertionError("prefetch failure"))
+        .thenReturn(true);
+
+    WebinCliExecutor<GenomeManifest, ValidationResponse> executor = createExecutor();
+    GenomeManifest manifest = createManifest();
+    executor.prefetchSubmissionDecisions(Collections.singletonList(manifest));
+
+    WebinCliExecutor.SubmissionDecision submissionDecision =
+        executor.getSubmissionDecision(manifest);
+    assertThat(submissionDecision.ignoreErrors).isTrue();
+    assertThat(submissionDecision.ratelimit).isNull();
+    assertThat(submissionDecision.ratelimitException).isNull();
+
+    verify(executor, times(2)).createIgnoreErrorsService();
+    verify(ignoreErrorsService, times(2)).getIgnoreErrors("genome", NAME);
+    verify(ratelimitService, never()).ratelimit(any(), any(), any(), any());
+  }
+
+  @Test
+  public void testMissingPrefetchFallsBackToSynchronousLookup() {
+    when(ignoreErrorsService.getIgnoreErrors("genome", NAME)).thenReturn(true);
+
+    WebinCliExecutor<GenomeManifest, ValidationResponse> executor = createExecutor();
+    GenomeManifest manifest = createManifest();
+
+    assertThat(executor.getSubmissionDecision(manifest).ignoreErrors).isTrue();
+    verify(ignoreErrorsService, times(1)).getIgnoreErrors("genome", NAME);
+  }
+
+  @Test
+  public void testAbandonedValidatorStopsValidation() throws Exception {
+    File validationDir = temporaryFolder.newFolder();
+    CountDownLatch release = new CountDownLatch(1);
+    Validator<GenomeManifest, ValidationResponse> validator = mock(Validator.class);
+    when(validator.validate(any()))
+        .thenAnswer(
+            invocation -> {
+              GenomeManifest manifest = invocation.getArgument(0);
+              Files.write(
+                  manifest.getReportFile().toPath(),
+                  "ERROR: first\nERROR: second\n".getBytes(StandardCharsets.UTF_8));
+              // Ignores the interrupt like a validator that does not check for it.
+              while (true) {
+                try {
+                  release.await();
+                  return null;
+                } catch (InterruptedException ex) {
+                  // Ignore.
+                }
+              }
+            });
+
+    WebinCliParameters parameters = new WebinCliParameters();
+    parameters.setMaxErrors(1);
+    WebinCliExecutor<GenomeManifest, ValidationResponse> executor =
+        spy(new WebinCliExecutor<>(WebinCliContext.genome, parameters, null, null, validator));
+    doReturn(100L).when(executor).getValidatorStopTimeoutMillis();
+
+    GenomeManifest manifest = createManifest();
+    manifest.setReportFile(new File(validationDir, "webin-cli.report"));
+    try {
+      assertThatThrownBy(() -> executor.runValidator(manifest, validationDir))
+          .isInstanceOf(WebinCliException.class)
+          .hasFieldOrPropertyWithValue("errorType", WebinCliException.ErrorType.VALIDATION_ERROR);
+
+      // The next manifest is not validated while the stopped validator is still running.
+      GenomeManifest nextManifest = createManifest();
+      assertThatThrownBy(() -> executor.runValidator(nextManifest, validationDir))
+          .isInstanceOf(WebinCliException.class)
+          .hasFieldOrPropertyWithValue("errorType", WebinCliException.ErrorType.SYSTEM_ERROR)
+          .hasMessageContaining("validator-" + NAME);
+      verify(validator, times(1)).validate(any());
+    } finally {
+      release.countDown();
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Latency, bandwidth and failures injected by the stand-in servers. */
+public class StandInConditions {
+  private final long latencyMillis;
+  private final long bandwidthBytesPerSecond;
+  private final double failureRate;
+  private final Random random;
+
+  /**
+   * @param latencyMillis Delay added before every request or command is processed.
+   * @param bandwidthBytesPerSecond Maximum transfer rate of every upload or 0 if unlimited.
+   * @param failureRate Probability of a request or an upload failing.
+   * @param seed Seed of the random failures so that the failures are repeatable.
+   */
+  public StandInConditions(
+      long latencyMillis, long bandwidthBytesPerSecond, double failureRate, long seed) {
+    this.latencyMillis = latencyMillis;
+    this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+    this.failureRate = failureRate;
+    this.random = new Random(seed);
+  }
+
+  public static StandInConditions none() {
+    return new StandInConditions(0, 0, 0, 0);
+  }
+
+  public long getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  public long getBandwidthBytesPerSecond() {
+    return bandwidthBytesPerSecond;
+  }
+
+  public double getFailureRate() {
+    return failureRate;
+  }
+
+  /** Waits for the configured latency. */
+  public void delay() throws InterruptedException {
+    if (latencyMillis > 0) {
+      Thread.sleep(latencyMillis);
+    }
+  }
+
+  /** @return True if the current request or upload should fail. */
+  public synchronized boolean fail() {
+    return failureRate > 0 && random.nextDouble() < failureRate;
+  }
+
+  /**
+   * Waits until the given number of bytes could have been transferred since the transfer started
+   * at the given bandwidth.
+   */
+  public void throttle(long transferredBytes, long startNanos) throws InterruptedException {
+    if (bandwidthBytesPerSecond <= 0) {
+      return;
+    }
+    long expectedNanos = (long) (transferredBytes * 1e9 / bandwidthBytesPerSecond);
+    long sleepNanos = expectedNanos - (System.nanoTime() - startNanos);
+    if (sleepNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(sleepNanos);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "latency=%dms, bandwidth=%s, failureRate=%.2f",
+        latencyMillis,
+        bandwidthBytesPerSecond > 0 ? bandwidthBytesPerSecond + "B/s" : "unlimited",
+        failureRate);
+  }
+}
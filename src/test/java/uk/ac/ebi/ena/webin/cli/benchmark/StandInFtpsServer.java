@@ -0,0 +1,462 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.benchmark;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal explicit FTPS server standing in for the Webin FTP server. Only the commands used by the
+ * FTP upload service are supported. The control connection is secured after AUTH TLS and the data
+ * connections are passive and in clear. Uploaded files are not stored: only their names and sizes
+ * are kept.
+ */
+public class StandInFtpsServer implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(StandInFtpsServer.class);
+
+  private static final String KEYSTORE_PASSWORD = "stand-in";
+
+  private final StandInConditions conditions;
+  private final SSLContext sslContext;
+  private final ServerSocket serverSocket;
+  private final ExecutorService executor =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread = new Thread(runnable, "StandInFtpsServer");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Set<String> dirs = ConcurrentHashMap.newKeySet();
+  private final Map<String, Long> files = new ConcurrentHashMap<>();
+
+  private final AtomicLong receivedBytes = new AtomicLong();
+  private final AtomicLong uploadNanos = new AtomicLong();
+  private final AtomicInteger uploadCount = new AtomicInteger();
+  private final AtomicInteger failedUploadCount = new AtomicInteger();
+  private final AtomicInteger connectionCount = new AtomicInteger();
+
+  public StandInFtpsServer(StandInConditions conditions) throws Exception {
+    this.conditions = conditions;
+    this.sslContext = createSslContext();
+    this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    this.dirs.add("/");
+    executor.execute(this::accept);
+  }
+
+  public String getHost() {
+    return serverSocket.getInetAddress().getHostAddress();
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /** @return Sizes of the uploaded files mapped by their absolute paths. */
+  public Map<String, Long> getFiles() {
+    return files;
+  }
+
+  /** @return Bytes received including the bytes of the failed uploads. */
+  public long getReceivedBytes() {
+    return receivedBytes.get();
+  }
+
+  /** @return Total time spent receiving files including the failed uploads. */
+  public long getUploadNanos() {
+    return uploadNanos.get();
+  }
+
+  public int getUploadCount() {
+    return uploadCount.get();
+  }
+
+  public int getFailedUploadCount() {
+    return failedUploadCount.get();
+  }
+
+  public int getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    executor.shutdownNow();
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Socket socket = serverSocket.accept();
+        connectionCount.incrementAndGet();
+        executor.execute(() -> new Session(socket).run());
+      } catch (IOException ex) {
+        if (!serverSocket.isClosed()) {
+          log.warn("Failed to accept FTP connection: {}", ex.getMessage());
+        }
+      }
+    }
+  }
+
+  /** Creates a TLS context with a self-signed certificate generated using keytool. */
+  private static SSLContext createSslContext() throws Exception {
+    Path dir = Files.createTempDirectory("stand-in-ftps-");
+    Path keystore = dir.resolve("keystore.p12");
+    String keytool =
+        System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool";
+    Process process =
+        new ProcessBuilder(
+                keytool,
+                "-genkeypair",
+                "-alias",
+                "stand-in",
+                "-keyalg",
+                "RSA",
+                "-keysize",
+                "2048",
+                "-validity",
+                "1",
+                "-dname",
+                "CN=localhost",
+                "-storetype",
+                "PKCS12",
+                "-keystore",
+                keystore.toString(),
+                "-storepass",
+                KEYSTORE_PASSWORD,
+                "-keypass",
+                KEYSTORE_PASSWORD)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    if (process.waitFor() != 0) {
+      throw new IOException("Failed to generate the stand-in FTPS server certificate.");
+    }
+
+    KeyStore keyStore = KeyStore.getInstance("PKCS12");
+    try (InputStream in = Files.newInputStream(keystore)) {
+      keyStore.load(in, KEYSTORE_PASSWORD.toCharArray());
+    } finally {
+      Files.delete(keystore);
+      Files.delete(dir);
+    }
+
+    KeyManagerFactory keyManagerFactory =
+        KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+    keyManagerFactory.init(keyStore, KEYSTORE_PASSWORD.toCharArray());
+    SSLContext sslContext = SSLContext.getInstance("TLS");
+    sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+    return sslContext;
+  }
+
+  private static String getParent(String path) {
+    int i = path.lastIndexOf('/');
+    return i <= 0 ? "/" : path.substring(0, i);
+  }
+
+  private static String getName(String path) {
+    return path.substring(path.lastIndexOf('/') + 1);
+  }
+
+  /** Handles the commands of one control connection. */
+  private class Session implements Runnable {
+    private Socket socket;
+    private BufferedReader in;
+    private Writer out;
+    private ServerSocket dataServerSocket;
+    private String workingDir = "/";
+
+    Session(Socket socket) {
+      this.socket = socket;
+    }
+
+    @Override
+    public void run() {
+      try {
+        open(socket);
+        reply(220, "Stand-in FTPS server ready.");
+
+        String line;
+        while ((line = in.readLine()) != null) {
+          int i = line.indexOf(' ');
+          String command = (i < 0 ? line : line.substring(0, i)).toUpperCase();
+          String argument = i < 0 ? "" : line.substring(i + 1).trim();
+
+          conditions.delay();
+
+          if (!execute(command, argument)) {
+            break;
+          }
+        }
+      } catch (IOException ex) {
+        log.debug("FTP connection closed: {}", ex.getMessage());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } finally {
+        closeQuietly(dataServerSocket);
+        closeQuietly(socket);
+      }
+    }
+
+    /** @return False if the connection must be closed. */
+    private boolean execute(String command, String argument)
+        throws IOException, InterruptedException {
+      switch (command) {
+        case "AUTH":
+          reply(234, "Proceed with negotiation.");
+          SSLSocket sslSocket =
+              (SSLSocket)
+                  sslContext
+                      .getSocketFactory()
+                      .createSocket(socket, socket.getInetAddress().getHostAddress(), 0, true);
+          sslSocket.setUseClientMode(false);
+          sslSocket.startHandshake();
+          open(sslSocket);
+          return true;
+        case "PBSZ":
+          reply(200, "PBSZ=0");
+          return true;
+        case "PROT":
+          if (argument.equalsIgnoreCase("C")) {
+            reply(200, "Protection level set to clear.");
+          } else {
+            reply(536, "Only clear data connections are supported.");
+          }
+          return true;
+        case "USER":
+          reply(331, "Password required.");
+          return true;
+        case "PASS":
+          reply(230, "Logged in.");
+          return true;
+        case "SYST":
+          reply(215, "UNIX Type: L8");
+          return true;
+        case "TYPE":
+        case "NOOP":
+        case "OPTS":
+          reply(200, "OK.");
+          return true;
+        case "PWD":
+          reply(257, "\"" + workingDir + "\" is the current directory.");
+          return true;
+        case "CWD":
+          {
+            String dir = resolve(argument);
+            if (dirs.contains(dir)) {
+              workingDir = dir;
+              reply(250, "Directory changed.");
+            } else {
+              reply(550, "No such directory.");
+            }
+            return true;
+          }
+        case "MKD":
+          {
+            String dir = resolve(argument);
+            if (dirs.contains(getParent(dir)) && dirs.add(dir)) {
+              reply(257, "\"" + dir + "\" created.");
+            } else {
+              reply(550, "Failed to create directory.");
+            }
+            return true;
+          }
+        case "DELE":
+          if (files.remove(resolve(argument)) != null) {
+            reply(250, "File deleted.");
+          } else {
+            reply(550, "No such file.");
+          }
+          return true;
+        case "PASV":
+          {
+            int port = openDataServerSocket();
+            byte[] address = socket.getLocalAddress().getAddress();
+            reply(
+                227,
+                String.format(
+                    "Entering Passive Mode (%d,%d,%d,%d,%d,%d).",
+                    address[0] & 0xff,
+                    address[1] & 0xff,
+                    address[2] & 0xff,
+                    address[3] & 0xff,
+                    port >> 8,
+                    port & 0xff));
+            return true;
+          }
+        case "EPSV":
+          reply(229, "Entering Extended Passive Mode (|||" + openDataServerSocket() + "|).");
+          return true;
+        case "LIST":
+        case "NLST":
+          list(command.equals("LIST"));
+          return true;
+        case "STOR":
+          return store(resolve(argument));
+        case "QUIT":
+          reply(221, "Goodbye.");
+          return false;
+        default:
+          reply(502, "Command not implemented.");
+          return true;
+      }
+    }
+
+    private void list(boolean details) throws IOException {
+      if (dataServerSocket == null) {
+        reply(425, "Use PASV first.");
+        return;
+      }
+      List<String> lines = new ArrayList<>();
+      for (String dir : dirs) {
+        if (!dir.equals("/") && getParent(dir).equals(workingDir)) {
+          lines.add(details ? "drwxr-xr-x 1 ftp ftp 0 Jan 01 00:00 " + getName(dir) : getName(dir));
+        }
+      }
+      files.forEach(
+          (file, size) -> {
+            if (getParent(file).equals(workingDir)) {
+              lines.add(
+                  details
+                      ? "-rw-r--r-- 1 ftp ftp " + size + " Jan 01 00:00 " + getName(file)
+                      : getName(file));
+            }
+          });
+
+      reply(150, "Sending directory listing.");
+      try (Socket dataSocket = acceptDataConnection();
+          OutputStream dataOut = dataSocket.getOutputStream()) {
+        for (String line : lines) {
+          dataOut.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+      }
+      reply(226, "Directory listing sent.");
+    }
+
+    /** @return False if the connection was dropped to simulate a failure. */
+    private boolean store(String file) throws IOException, InterruptedException {
+      if (dataServerSocket == null) {
+        reply(425, "Use PASV first.");
+        return true;
+      }
+      boolean fail = conditions.fail();
+
+      reply(150, "Ready to receive data.");
+      long startNanos = System.nanoTime();
+      long size = 0;
+      try (Socket dataSocket = acceptDataConnection();
+          InputStream dataIn = dataSocket.getInputStream()) {
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = dataIn.read(buffer)) != -1) {
+          size += read;
+          receivedBytes.addAndGet(read);
+          conditions.throttle(size, startNanos);
+          if (fail) {
+            // Drops the connections part way through the upload.
+            failedUploadCount.incrementAndGet();
+            uploadNanos.addAndGet(System.nanoTime() - startNanos);
+            return false;
+          }
+        }
+      }
+      uploadNanos.addAndGet(System.nanoTime() - startNanos);
+      uploadCount.incrementAndGet();
+      files.put(file, size);
+      reply(226, "Transfer complete.");
+      return true;
+    }
+
+    private int openDataServerSocket() throws IOException {
+      closeQuietly(dataServerSocket);
+      dataServerSocket = new ServerSocket(0, 1, socket.getLocalAddress());
+      dataServerSocket.setSoTimeout(10_000);
+      return dataServerSocket.getLocalPort();
+    }
+
+    private Socket acceptDataConnection() throws IOException {
+      try {
+        return dataServerSocket.accept();
+      } finally {
+        closeQuietly(dataServerSocket);
+        dataServerSocket = null;
+      }
+    }
+
+    private String resolve(String path) {
+      String resolved = path.startsWith("/") ? path : workingDir + "/" + path;
+      StringBuilder normalized = new StringBuilder();
+      for (String name : resolved.split("/")) {
+        if (name.isEmpty() || name.equals(".")) {
+          continue;
+        }
+        if (name.equals("..")) {
+          int i = normalized.lastIndexOf("/");
+          normalized.setLength(Math.max(i, 0));
+        } else {
+          normalized.append('/').append(name);
+        }
+      }
+      return normalized.length() == 0 ? "/" : normalized.toString();
+    }
+
+    private void open(Socket socket) throws IOException {
+      this.socket = socket;
+      this.in =
+          new BufferedReader(
+              new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      this.out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    }
+
+    private void reply(int code, String message) throws IOException {
+      out.write(code + " " + message + "\r\n");
+      out.flush();
+    }
+
+    private void closeQuietly(Closeable closeable) {
+      if (closeable != null) {
+        try {
+          closeable.close();
+        } catch (IOException ex) {
+        }
+      }
+    }
+  }
+}
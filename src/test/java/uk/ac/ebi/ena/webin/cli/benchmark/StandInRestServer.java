@@ -0,0 +1,262 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import uk.ac.ebi.ena.webin.cli.utils.RemoteServiceUrlHelper;
+
+/**
+ * HTTP server standing in for the Webin login, authentication, REST v1 and v2 and BioSamples
+ * services. Every reference lookup succeeds and every submission is accepted with generated
+ * accessions. Requests can be delayed and failed with a server error which the clients retry.
+ */
+public class StandInRestServer implements Closeable {
+  public static final String SUBMISSION_ACCOUNT = "Webin-0";
+
+  private static final Pattern OBJECT_PATTERN =
+      Pattern.compile("<(EXPERIMENT|RUN|ANALYSIS|SAMPLE|PROJECT|STUDY)\\s[^>]*alias=\"([^\"]*)\"");
+
+  private static final Map<String, String> ACCESSION_PREFIXES = new TreeMap<>();
+
+  static {
+    ACCESSION_PREFIXES.put("EXPERIMENT", "ERX");
+    ACCESSION_PREFIXES.put("RUN", "ERR");
+    ACCESSION_PREFIXES.put("ANALYSIS", "ERZ");
+    ACCESSION_PREFIXES.put("SAMPLE", "ERS");
+    ACCESSION_PREFIXES.put("PROJECT", "PRJEB");
+    ACCESSION_PREFIXES.put("STUDY", "ERP");
+  }
+
+  private final StandInConditions conditions;
+  private final HttpServer server;
+  private final ExecutorService executor =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread = new Thread(runnable, "StandInRestServer");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final AtomicLong accessionNumber = new AtomicLong();
+
+  private final Map<String, EndpointStats> endpointStats = new ConcurrentHashMap<>();
+
+  /** Number of requests to an endpoint and the time spent handling them. */
+  public static class EndpointStats {
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger failedRequestCount = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+
+    public int getRequestCount() {
+      return requestCount.get();
+    }
+
+    public int getFailedRequestCount() {
+      return failedRequestCount.get();
+    }
+
+    public long getNanos() {
+      return nanos.get();
+    }
+  }
+
+  public StandInRestServer(StandInConditions conditions) throws IOException {
+    this.conditions = conditions;
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.setExecutor(executor);
+
+    handle("/auth/login", "login", exchange -> json(exchange, loginResponse()));
+    handle("/auth/token", "token", exchange -> text(exchange, "stand-in-token"));
+    handle("/v1/cli/reference/project/", "study", exchange -> json(exchange, studyResponse()));
+    handle(
+        "/v1/cli/reference/sample/",
+        "sample",
+        exchange -> json(exchange, sampleResponse(getId(exchange))));
+    handle(
+        "/v1/cli/reference/run/", "run", exchange -> json(exchange, referenceResponse(exchange)));
+    handle(
+        "/v1/cli/reference/analysis/",
+        "analysis",
+        exchange -> json(exchange, referenceResponse(exchange)));
+    handle("/v1/cli/ignore_errors/", "ignoreErrors", exchange -> text(exchange, "false"));
+    handle(
+        "/v1/cli/submission/v2/ratelimit/",
+        "ratelimit",
+        exchange -> json(exchange, "{\"rateLimited\":false}"));
+    handle("/v1/cli/", "version", exchange -> json(exchange, versionResponse()));
+    handle("/v2/submit/", "submit", exchange -> xml(exchange, submit(exchange)));
+    handle(
+        "/biosamples/", "biosamples", exchange -> json(exchange, sampleResponse(getId(exchange))));
+
+    server.start();
+  }
+
+  public String getUrl() {
+    return "http://"
+        + server.getAddress().getAddress().getHostAddress()
+        + ":"
+        + server.getAddress().getPort();
+  }
+
+  /** Directs the Webin services to this server by setting the service URL system properties. */
+  public void setServiceUrls() {
+    System.setProperty(RemoteServiceUrlHelper.WEBIN_LOGIN_URL_PROPERTY, getUrl() + "/auth");
+    System.setProperty(RemoteServiceUrlHelper.WEBIN_AUTH_URL_PROPERTY, getUrl() + "/auth/token");
+    System.setProperty(RemoteServiceUrlHelper.WEBIN_REST_V1_URL_PROPERTY, getUrl() + "/v1/");
+    System.setProperty(RemoteServiceUrlHelper.WEBIN_REST_V2_URL_PROPERTY, getUrl() + "/v2/");
+    System.setProperty(RemoteServiceUrlHelper.BIOSAMPLES_URL_PROPERTY, getUrl() + "/biosamples/");
+  }
+
+  /** @return Request statistics mapped by endpoint name. */
+  public Map<String, EndpointStats> getEndpointStats() {
+    return new TreeMap<>(endpointStats);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(String path, String endpoint, HttpHandler handler) {
+    EndpointStats stats = endpointStats.computeIfAbsent(endpoint, key -> new EndpointStats());
+    server.createContext(
+        path,
+        exchange -> {
+          long startNanos = System.nanoTime();
+          try {
+            stats.requestCount.incrementAndGet();
+            conditions.delay();
+            if (conditions.fail()) {
+              stats.failedRequestCount.incrementAndGet();
+              readBody(exchange);
+              send(exchange, 503, "text/plain", "Stand-in failure");
+            } else {
+              handler.handle(exchange);
+            }
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          } finally {
+            exchange.close();
+            stats.nanos.addAndGet(System.nanoTime() - startNanos);
+          }
+        });
+  }
+
+  private String loginResponse() {
+    return "{\"authenticated\":true,\"principle\":\"" + SUBMISSION_ACCOUNT + "\"}";
+  }
+
+  private String studyResponse() {
+    return "{\"bioProjectId\":\"PRJEB00000\",\"locusTags\":[],\"canBeReferenced\":true}";
+  }
+
+  private String sampleResponse(String id) {
+    return "{\"id\":\"ERS000000\",\"bioSampleId\":\"SAMEA0000000\",\"organism\":\"Homo sapiens\","
+        + "\"taxId\":9606,\"canBeReferenced\":true,\"alias\":\""
+        + id
+        + "\"}";
+  }
+
+  private String referenceResponse(HttpExchange exchange) {
+    String id = getId(exchange);
+    return "{\"id\":\"" + id + "\",\"alias\":\"" + id + "\",\"canBeReferenced\":true}";
+  }
+
+  private String versionResponse() {
+    return "{\"valid\":true,\"update\":false,\"expire\":false}";
+  }
+
+  /** @return A successful receipt with accessions for all the objects in the submission XML. */
+  private String submit(HttpExchange exchange) throws IOException {
+    String body = new String(readBody(exchange), StandardCharsets.UTF_8);
+
+    StringBuilder receipt = new StringBuilder("<RECEIPT success=\"true\">");
+    Matcher matcher = OBJECT_PATTERN.matcher(body);
+    while (matcher.find()) {
+      String type = matcher.group(1);
+      receipt
+          .append('<')
+          .append(type)
+          .append(" alias=\"")
+          .append(matcher.group(2))
+          .append("\" accession=\"")
+          .append(ACCESSION_PREFIXES.get(type))
+          .append(String.format("%06d", accessionNumber.incrementAndGet()))
+          .append("\" status=\"PRIVATE\"/>");
+    }
+    receipt
+        .append("<SUBMISSION accession=\"ERA")
+        .append(String.format("%06d", accessionNumber.incrementAndGet()))
+        .append("\"/><MESSAGES/><ACTIONS>ADD</ACTIONS></RECEIPT>");
+    return receipt.toString();
+  }
+
+  private static String getId(HttpExchange exchange) {
+    String path = exchange.getRequestURI().getPath();
+    return path.substring(path.lastIndexOf('/', path.length() - 2) + 1).replace("/", "");
+  }
+
+  private static byte[] readBody(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  private static void json(HttpExchange exchange, String body) throws IOException {
+    readBody(exchange);
+    send(exchange, 200, "application/json", body);
+  }
+
+  private static void text(HttpExchange exchange, String body) throws IOException {
+    readBody(exchange);
+    send(exchange, 200, "text/plain", body);
+  }
+
+  private static void xml(HttpExchange exchange, String body) throws IOException {
+    send(exchange, 200, "application/xml", body);
+  }
+
+  private static void send(HttpExchange exchange, int status, String contentType, String body)
+      throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.benchmark;
+
+import com.google.common.io.CountingOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import uk.ac.ebi.ena.webin.cli.ManifestBuilder;
+import uk.ac.ebi.ena.webin.cli.WebinCli;
+import uk.ac.ebi.ena.webin.cli.WebinCliCommand;
+import uk.ac.ebi.ena.webin.cli.WebinCliContext;
+import uk.ac.ebi.ena.webin.cli.WebinCliParameters;
+import uk.ac.ebi.ena.webin.cli.upload.FtpService;
+
+/**
+ * Submits synthetic reads end-to-end against local stand-ins for the Webin services and FTPS
+ * server. A JSON manifest with one submission per FASTQ file is validated and then submitted.
+ * Prints the wall time and throughput of the run and a breakdown by phase and by service endpoint.
+ *
+ * <p>Usage: SubmissionBenchmark [number of files] [file size in bytes] [latency in milliseconds]
+ * [bandwidth in bytes per second or 0 if unlimited] [failure rate] [submit batch size]
+ */
+public class SubmissionBenchmark {
+
+  private static final int READ_LENGTH = 150;
+
+  public static void main(String[] args) throws Throwable {
+    int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    long fileSize = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000;
+    long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 0;
+    long bandwidth = args.length > 3 ? Long.parseLong(args[3]) : 0;
+    double failureRate = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+    int submitBatchSize = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+
+    StandInConditions conditions = new StandInConditions(latencyMillis, bandwidth, failureRate, 1);
+
+    try (StandInRestServer restServer = new StandInRestServer(conditions);
+        StandInFtpsServer ftpServer = new StandInFtpsServer(conditions)) {
+      restServer.setServiceUrls();
+      System.setProperty(FtpService.SERVER_PROPERTY, ftpServer.getHost());
+      System.setProperty(FtpService.PORT_PROPERTY, String.valueOf(ftpServer.getPort()));
+
+      Path inputDir = Files.createTempDirectory("submission-benchmark-input-");
+      Path outputDir = Files.createTempDirectory("submission-benchmark-output-");
+      Path manifest = createManifest(inputDir, fileCount, fileSize);
+
+      WebinCliCommand cmd = new WebinCliCommand();
+      cmd.context = WebinCliContext.reads;
+      cmd.inputDir = inputDir.toFile();
+      cmd.outputDir = outputDir.toFile();
+      cmd.manifest = manifest.toFile();
+      cmd.userName = StandInRestServer.SUBMISSION_ACCOUNT;
+      cmd.password = "stand-in";
+      cmd.test = true;
+      cmd.submitBatchSize = submitBatchSize;
+
+      long startNanos = System.nanoTime();
+
+      String submissionAccount = WebinCli.getSubmissionAccount(cmd);
+      String authToken = WebinCli.getAuthToken(cmd);
+      long loginNanos = System.nanoTime() - startNanos;
+
+      // Validates and submits separately to measure the phases. The submission reuses the
+      // submission bundles created by the validation.
+      long validateNanos =
+          execute(WebinCli.initParameters(submissionAccount, authToken, cmd), true);
+      long submitNanos =
+          execute(WebinCli.initParameters(submissionAccount, authToken, cmd), false);
+
+      long totalNanos = System.nanoTime() - startNanos;
+
+      report(
+          fileCount,
+          fileSize,
+          conditions,
+          loginNanos,
+          validateNanos,
+          submitNanos,
+          totalNanos,
+          restServer,
+          ftpServer);
+    }
+  }
+
+  /** @return The elapsed time in nanoseconds. */
+  private static long execute(WebinCliParameters parameters, boolean validate) throws Throwable {
+    parameters.setValidate(validate);
+    parameters.setSubmit(!validate);
+    long startNanos = System.nanoTime();
+    new WebinCli(parameters).execute();
+    return System.nanoTime() - startNanos;
+  }
+
+  private static Path createManifest(Path inputDir, int fileCount, long fileSize)
+      throws IOException {
+    Random random = new Random(1);
+    ManifestBuilder manifestBuilder = new ManifestBuilder().jsonFormat();
+    for (int i = 0; i < fileCount; i++) {
+      String fileName = "reads-" + i + ".fastq.gz";
+      writeFastq(inputDir.resolve(fileName), fileSize, random);
+
+      manifestBuilder
+          .fieldGroup()
+          .field("NAME", "benchmark-" + i)
+          .field("STUDY", "ERP000000")
+          .field("SAMPLE", "ERS000000")
+          .field("PLATFORM", "ILLUMINA")
+          .field("INSTRUMENT", "unspecified")
+          .field("LIBRARY_STRATEGY", "WGS")
+          .field("LIBRARY_SOURCE", "GENOMIC")
+          .field("LIBRARY_SELECTION", "RANDOM")
+          .file("FASTQ", fileName);
+    }
+    return manifestBuilder.build(inputDir).toPath();
+  }
+
+  /** Writes random single reads until the compressed file reaches the given size. */
+  private static void writeFastq(Path file, long fileSize, Random random) throws IOException {
+    char[] bases = {'A', 'C', 'G', 'T'};
+    char[] sequence = new char[READ_LENGTH];
+    char[] quality = new char[READ_LENGTH];
+
+    try (CountingOutputStream counter = new CountingOutputStream(Files.newOutputStream(file));
+        OutputStream gzip = new GZIPOutputStream(counter, 64 * 1024);
+        Writer writer = new OutputStreamWriter(gzip, StandardCharsets.US_ASCII)) {
+      for (long read = 0; counter.getCount() < fileSize; read++) {
+        for (int i = 0; i < READ_LENGTH; i++) {
+          sequence[i] = bases[random.nextInt(bases.length)];
+          quality[i] = (char) ('5' + random.nextInt(10));
+        }
+        writer.write("@read");
+        writer.write(Long.toString(read));
+        writer.write('\n');
+        writer.write(sequence);
+        writer.write("\n+\n");
+        writer.write(quality);
+        writer.write('\n');
+      }
+    }
+  }
+
+  private static void report(
+      int fileCount,
+      long fileSize,
+      StandInConditions conditions,
+      long loginNanos,
+      long validateNanos,
+      long submitNanos,
+      long totalNanos,
+      StandInRestServer restServer,
+      StandInFtpsServer ftpServer) {
+    long bytes = ftpServer.getFiles().values().stream().mapToLong(Long::longValue).sum();
+
+    System.out.printf("Files: %d x %d bytes, %s%n", fileCount, fileSize, conditions);
+    System.out.printf(
+        "Wall time: %.1f ms, throughput: %.1f MB/s, %.2f submissions/s%n",
+        totalNanos / 1e6, bytes / 1e6 / (totalNanos / 1e9), fileCount / (totalNanos / 1e9));
+    System.out.printf("  login: %.1f ms%n", loginNanos / 1e6);
+    System.out.printf("  validate: %.1f ms%n", validateNanos / 1e6);
+    System.out.printf(
+        "  submit: %.1f ms, upload throughput: %.1f MB/s%n",
+        submitNanos / 1e6, bytes / 1e6 / (submitNanos / 1e9));
+    System.out.printf(
+        "FTP: %d files uploaded, %d uploads failed, %d connections, %.1f ms receiving %d bytes%n",
+        ftpServer.getUploadCount(),
+        ftpServer.getFailedUploadCount(),
+        ftpServer.getConnectionCount(),
+        ftpServer.getUploadNanos() / 1e6,
+        ftpServer.getReceivedBytes());
+    for (Map.Entry<String, StandInRestServer.EndpointStats> entry :
+        restServer.getEndpointStats().entrySet()) {
+      StandInRestServer.EndpointStats stats = entry.getValue();
+      if (stats.getRequestCount() > 0) {
+        System.out.printf(
+            "REST %s: %d requests, %d failed, %.1f ms%n",
+            entry.getKey(),
+            stats.getRequestCount(),
+            stats.getFailedRequestCount(),
+            stats.getNanos() / 1e6);
+      }
+    }
+    if (ftpServer.getFiles().size() != fileCount) {
+      System.out.printf(
+          "WARNING: %d of %d files were uploaded.%n", ftpServer.getFiles().size(), fileCount);
+    }
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.manifest.processor.metadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static uk.ac.ebi.ena.webin.cli.manifest.processor.ProcessorTestUtils.createFieldValue;
+import static uk.ac.ebi.ena.webin.cli.validator.message.ValidationMessage.Severity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+import uk.ac.ebi.ena.webin.cli.WebinCliParameters;
+import uk.ac.ebi.ena.webin.cli.manifest.ManifestFieldType;
+import uk.ac.ebi.ena.webin.cli.manifest.ManifestFieldValue;
+import uk.ac.ebi.ena.webin.cli.service.SampleService;
+import uk.ac.ebi.ena.webin.cli.service.SubmitService;
+import uk.ac.ebi.ena.webin.cli.validator.message.ValidationResult;
+import uk.ac.ebi.ena.webin.cli.validator.reference.Sample;
+import uk.ac.ebi.ena.webin.xml.conversion.json.model.WebinSubmission;
+import uk.ac.ebi.ena.webin.xml.conversion.json.model.submission.action.ActionType;
+
+/** Tests the registration of JSON samples in batches with mocked sample and submit services. */
+public class SampleProcessorBatchTest {
+
+  private final WebinCliParameters parameters = new WebinCliParameters();
+  private final SampleService sampleService = mock(SampleService.class);
+  private final SubmitService submitService = mock(SubmitService.class);
+
+  /** Samples notified to the callback mapped by the processed field values. */
+  private final Map<String, Sample> notifiedSamples = new LinkedHashMap<>();
+
+  private SampleProcessor processor;
+
+  @Before
+  public void setUp() throws Exception {
+    parameters.setSampleBatchSize(2);
+
+    processor =
+        spy(
+            new SampleProcessor(
+                parameters,
+                (fieldGroup, sample) -> notifiedSamples.put(sample.getBioSampleId(), sample)));
+    doReturn(sampleService).when(processor).getSampleService();
+    doReturn(submitService).when(processor).getSubmitService();
+
+    when(sampleService.getSample(any())).thenThrow(notFound());
+    when(submitService.doJsonSampleSubmission(any()))
+        .thenAnswer(invocation -> createReceipt(invocation.getArgument(0)));
+  }
+
+  private static HttpClientErrorException notFound() {
+    return HttpClientErrorException.create(
+        HttpStatus.NOT_FOUND, "", new HttpHeaders(), null, null);
+  }
+
+  /** @return The samples of the submission with accessions made from their aliases. */
+  private static Map<String, Sample> createReceipt(WebinSubmission webinSubmission) {
+    Map<String, Sample> samples = new LinkedHashMap<>();
+    webinSubmission
+        .getSamples()
+        .forEach(
+            jsonSample -> {
+              Sample sample = new Sample();
+              sample.setBioSampleId("SAMEA-" + jsonSample.getAlias());
+              sample.setSraSampleId("ERS-" + jsonSample.getAlias());
+              samples.put(jsonSample.getAlias(), sample);
+            });
+    return samples;
+  }
+
+  private static Sample createSample(String alias) {
+    Sample sample = new Sample();
+    sample.setBioSampleId("SAMEA-existing-" + alias);
+    sample.setName(alias);
+    return sample;
+  }
+
+  private static String getSampleJson(String alias, boolean scientificName) {
+    return "{\"alias\": \""
+        + alias
+        + "\", \"title\": \"human gastric microbiota, mucosal\", \"organism\": {"
+        + (scientificName ? "\"scientificName\": \"human gut metagenome\", " : "")
+        + "\"taxonId\": \"408170\"}, \"attributes\": ["
+        + "{\"tag\": \"collection date\", \"value\": \"2010-01-20\"}]}";
+  }
+
+  private static List<ManifestFieldValue> createFieldValues(String... sampleJsons) {
+    return Arrays.stream(sampleJsons)
+        .map(sampleJson -> createFieldValue(ManifestFieldType.META, "SAMPLE", sampleJson))
+        .collect(Collectors.toList());
+  }
+
+  /** Prepares and processes the field values as the manifest reader does. */
+  private ValidationResult processFieldValues(List<ManifestFieldValue> fieldValues) {
+    ValidationResult result = new ValidationResult();
+    processor.prepare(result, fieldValues);
+    fieldValues.forEach(fieldValue -> processor.process(result, fieldValue));
+    return result;
+  }
+
+  private List<WebinSubmission> captureSampleSubmissions() throws Exception {
+    ArgumentCaptor<WebinSubmission> captor = ArgumentCaptor.forClass(WebinSubmission.class);
+    verify(submitService, atLeastOnce()).doJsonSampleSubmission(captor.capture());
+    return captor.getAllValues();
+  }
+
+  private static List<String> getAliases(WebinSubmission webinSubmission) {
+    List<String> aliases = new ArrayList<>();
+    webinSubmission.getSamples().forEach(jsonSample -> aliases.add(jsonSample.getAlias()));
+    return aliases;
+  }
+
+  private static ActionType getActionType(WebinSubmission webinSubmission) {
+    return webinSubmission.getSubmission().getActions().get(0).getType();
+  }
+
+  @Test
+  public void testNewSamples() throws Exception {
+    List<ManifestFieldValue> fieldValues =
+        createFieldValues(
+            getSampleJson("sample-1", true),
+            getSampleJson("sample-2", true),
+            getSampleJson("sample-3", true));
+
+    ValidationResult result = processFieldValues(fieldValues);
+
+    assertThat(result.isValid()).isTrue();
+    assertThat(fieldValues)
+        .extracting(ManifestFieldValue::getValue)
+        .containsExactly("SAMEA-sample-1", "SAMEA-sample-2", "SAMEA-sample-3");
+
+    List<WebinSubmission> submissions = captureSampleSubmissions();
+    assertThat(submissions).hasSize(2);
+    assertThat(getAliases(submissions.get(0))).containsExactly("sample-1", "sample-2");
+    assertThat(getAliases(submissions.get(1))).containsExactly("sample-3");
+    assertThat(submissions).allMatch(submission -> getActionType(submission) == ActionType.ADD);
+
+    // The samples are created from their JSON and receipts without retrieving them again.
+    Sample sample = notifiedSamples.get("SAMEA-sample-1");
+    assertThat(sample.getSraSampleId()).isEqualTo("ERS-sample-1");
+    assertThat(sample.getName()).isEqualTo("sample-1");
+    assertThat(sample.getOrganism()).isEqualTo("human gut metagenome");
+    assertThat(sample.getTaxId()).isEqualTo(408170);
+    assertThat(sample.getAttributes()).hasSize(1);
+    verify(sampleService, times(3)).getSample(any());
+    verify(sampleService, never()).getSample(startsWith("SAMEA"));
+    verify(submitService, never()).doJsonSubmission(any());
+  }
+
+  @Test
+  public void testNewSampleWithoutScientificNameIsRetrieved() throws Exception {
+    Sample retrievedSample = createSample("sample-1");
+    retrievedSample.setBioSampleId("SAMEA-sample-1");
+    retrievedSample.setOrganism("human gut metagenome");
+    doReturn(retrievedSample).when(sampleService).getSample("SAMEA-sample-1");
+
+    List<ManifestFieldValue> fieldValues =
+        createFieldValues(getSampleJson("sample-1", false), getSampleJson("sample-2", true));
+
+    ValidationResult result = processFieldValues(fieldValues);
+
+    assertThat(result.isValid()).isTrue();
+    assertThat(notifiedSamples.get("SAMEA-sample-1")).isSameAs(retrievedSample);
+    verify(sampleService, times(1)).getSample("SAMEA-sample-1");
+    verify(sampleService, never()).getSample("SAMEA-sample-2");
+  }
+
+  @Test
+  public void testExistingAndNewSamples() throws Exception {
+    Sample existingSample = createSample("sample-1");
+    doReturn(existingSample).when(sampleService).getSample("sample-1");
+
+    List<ManifestFieldValue> fieldValues =
+        createFieldValues(getSampleJson("sample-1", true), getSampleJson("sample-2", true));
+
+    ValidationResult result = processFieldValues(fieldValues);
+
+    assertThat(result.isValid()).isTrue();
+    assertThat(fieldValues)
+        .extracting(ManifestFieldValue::getValue)
+        .containsExactly("SAMEA-existing-sample-1", "SAMEA-sample-2");
+    assertThat(notifiedSamples.get("SAMEA-existing-sample-1")).isSameAs(existingSample);
+
+    // The existing sample is not updated without -sampleUpdate.
+    List<WebinSubmission> submissions = captureSampleSubmissions();
+    assertThat(submissions).hasSize(1);
+    assertThat(getActionType(submissions.get(0))).isEqualTo(ActionType.ADD);
+    assertThat(getAliases(submissions.get(0))).containsExactly("sample-2");
+  }
+
+  @Test
+  public void testExistingAndNewSamplesWithSampleUpdate() throws Exception {
+    parameters.setSampleUpdate(true);
+    doReturn(createSample("sample-1")).when(sampleService).getSample("sample-1");
+
+    List<ManifestFieldValue> fieldValues =
+        createFieldValues(getSampleJson("sample-1", true), getSampleJson("sample-2", true));
+
+    ValidationResult result = processFieldValues(fieldValues);
+
+    assertThat(result.isValid()).isTrue();
+    assertThat(fieldValues)
+        .extracting(ManifestFieldValue::getValue)
+        .containsExactly("SAMEA-sample-1", "SAMEA-sample-2");
+
+    List<WebinSubmission> submissions = captureSampleSubmissions();
+    assertThat(submissions).hasSize(2);
+    assertThat(getActionType(submissions.get(0))).isEqualTo(ActionType.ADD);
+    assertThat(getAliases(submissions.get(0))).containsExactly("sample-2");
+    assertThat(getActionType(submissions.get(1))).isEqualTo(ActionType.MODIFY);
+    assertThat(getAliases(submissions.get(1))).containsExactly("sample-1");
+  }
+
+  @Test
+  public void testFailedBatchFallsBackToProcess() throws Exception {
+    doThrow(WebinCliException.systemError("Batch submission failed."))
+        .when(submitService)
+        .doJsonSampleSubmission(any());
+    doThrow(WebinCliException.userError("Invalid sample."))
+        .when(submitService)
+        .doJsonSubmission(any());
+
+    List<ManifestFieldValue> fieldValues =
+        createFieldValues(getSampleJson("sample-1", true), getSampleJson("sample-2", true));
+
+    ValidationResult result = new ValidationResult();
+    processor.prepare(result, fieldValues);
+    assertThat(result.isValid()).isTrue();
+
+    for (ManifestFieldValue fieldValue : fieldValues) {
+      ValidationResult fieldResult = new ValidationResult();
+      processor.process(fieldResult, fieldValue);
+      assertThat(fieldResult.count(Severity.ERROR)).isOne();
+    }
+
+    // Every sample is submitted on its own after the batch failed.
+    verify(submitService, times(1)).doJsonSampleSubmission(any());
+    verify(submitService, times(2)).doJsonSubmission(any());
+    assertThat(notifiedSamples).isEmpty();
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.status.Status;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import uk.ac.ebi.ena.webin.cli.report.AsyncReportAppender.OverflowPolicy;
+
+public class AsyncReportAppenderTest {
+
+  private final LoggerContext context = new LoggerContext();
+  private final Logger logger = context.getLogger(AsyncReportAppenderTest.class);
+
+  /** Holds back the messages until it is opened. */
+  private static class GateAppender extends ListAppender<ILoggingEvent> {
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch opened = new CountDownLatch(1);
+
+    @Override
+    protected void append(ILoggingEvent event) {
+      entered.countDown();
+      try {
+        opened.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      super.append(event);
+    }
+  }
+
+  private AsyncReportAppender createAppender(
+      ListAppender<ILoggingEvent> listAppender, int queueSize, OverflowPolicy overflowPolicy) {
+    listAppender.setContext(context);
+    listAppender.start();
+    AsyncReportAppender appender = new AsyncReportAppender();
+    appender.setContext(context);
+    appender.setName("test");
+    appender.setQueueSize(queueSize);
+    appender.setBatchSize(4);
+    appender.setOverflowPolicy(overflowPolicy);
+    appender.addAppender(listAppender);
+    appender.start();
+    return appender;
+  }
+
+  private LoggingEvent createEvent(Level level, String message) {
+    return new LoggingEvent(Logger.class.getName(), logger, level, message, null, null);
+  }
+
+  private static List<String> getMessages(ListAppender<ILoggingEvent> listAppender) {
+    return listAppender.list.stream()
+        .map(ILoggingEvent::getFormattedMessage)
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testOrdering() {
+    ListAppender<ILoggingEvent> listAppender = new ListAppender<>();
+    AsyncReportAppender appender = createAppender(listAppender, 8, OverflowPolicy.BLOCK);
+    for (int i = 0; i < 1000; i++) {
+      appender.doAppend(createEvent(Level.INFO, String.valueOf(i)));
+    }
+    appender.stop();
+
+    assertThat(listAppender.list).hasSize(1000);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(listAppender.list.get(i).getFormattedMessage()).isEqualTo(String.valueOf(i));
+    }
+    assertThat(appender.getDroppedCount()).isZero();
+    assertThat(listAppender.isStarted()).isFalse();
+  }
+
+  @Test
+  public void testSummarize() throws InterruptedException {
+    GateAppender gateAppender = new GateAppender();
+    AsyncReportAppender appender = createAppender(gateAppender, 2, OverflowPolicy.SUMMARIZE);
+
+    appender.doAppend(createEvent(Level.INFO, "first"));
+    gateAppender.entered.await();
+    appender.doAppend(createEvent(Level.INFO, "queued 1"));
+    appender.doAppend(createEvent(Level.INFO, "queued 2"));
+    appender.doAppend(createEvent(Level.INFO, "dropped"));
+    appender.doAppend(createEvent(Level.WARN, "dropped"));
+    appender.doAppend(createEvent(Level.INFO, "dropped"));
+    gateAppender.opened.countDown();
+    appender.stop();
+
+    assertThat(appender.getDroppedCount()).isEqualTo(3);
+    List<String> messages = getMessages(gateAppender);
+    assertThat(messages).startsWith("first", "queued 1", "queued 2").doesNotContain("dropped");
+    assertThat(messages).hasSize(4);
+    assertThat(gateAppender.list.get(3).getLevel()).isEqualTo(Level.WARN);
+    assertThat(messages.get(3)).startsWith("3 report messages").contains("INFO=2", "WARN=1");
+  }
+
+  @Test
+  public void testErrorsAreNotDropped() throws InterruptedException {
+    GateAppender gateAppender = new GateAppender();
+    AsyncReportAppender appender = createAppender(gateAppender, 1, OverflowPolicy.DROP);
+
+    appender.doAppend(createEvent(Level.INFO, "first"));
+    gateAppender.entered.await();
+    appender.doAppend(createEvent(Level.INFO, "queued"));
+    appender.doAppend(createEvent(Level.INFO, "dropped"));
+
+    Thread logging =
+        new Thread(() -> appender.doAppend(createEvent(Level.ERROR, "error")), "logging");
+    logging.start();
+    gateAppender.opened.countDown();
+    logging.join();
+    appender.stop();
+
+    assertThat(appender.getDroppedCount()).isEqualTo(1);
+    assertThat(getMessages(gateAppender)).containsExactly("first", "queued", "error");
+  }
+
+  @Test
+  public void testInvalidOverflowPolicy() {
+    System.setProperty(AsyncReportAppender.OVERFLOW_POLICY_PROPERTY, "invalid");
+    AsyncReportAppender appender = new AsyncReportAppender();
+    try {
+      appender.setContext(context);
+      appender.setName("test");
+      appender.start();
+
+      assertThat(appender.isStarted()).isTrue();
+      assertThat(appender.getOverflowPolicy())
+          .isEqualTo(AsyncReportAppender.DEFAULT_OVERFLOW_POLICY);
+      assertThat(context.getStatusManager().getCopyOfStatusList())
+          .anyMatch(status -> status.getLevel() == Status.WARN);
+    } finally {
+      appender.stop();
+      System.clearProperty(AsyncReportAppender.OVERFLOW_POLICY_PROPERTY);
+    }
+  }
+}
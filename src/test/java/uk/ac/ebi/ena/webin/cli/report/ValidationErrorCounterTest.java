@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ValidationErrorCounterTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static void append(File file, String text) throws IOException {
+    Files.write(
+        file.toPath(),
+        text.getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND);
+  }
+
+  @Test
+  public void testCount() throws IOException {
+    File firstReportFile = new File(temporaryFolder.getRoot(), "first.report");
+    File secondReportFile = new File(temporaryFolder.getRoot(), "second.report");
+    ValidationErrorCounter counter = new ValidationErrorCounter();
+
+    assertThat(counter.count(Arrays.asList(firstReportFile, secondReportFile))).isZero();
+
+    append(firstReportFile, "ERROR: Invalid ID line format [ line: 1]\nWARNING: Missing");
+    append(secondReportFile, "2023-01-01T00:00:00 ERROR: Invalid base\nINFO: ERROR: quoted\n");
+    assertThat(counter.count(Arrays.asList(firstReportFile, secondReportFile))).isEqualTo(2);
+
+    // The incomplete line is counted once it has been completed.
+    append(firstReportFile, " description\nERROR: Inval");
+    assertThat(counter.count(Arrays.asList(firstReportFile, secondReportFile))).isEqualTo(2);
+    append(firstReportFile, "id sequence\n");
+    assertThat(counter.count(Arrays.asList(firstReportFile, secondReportFile))).isEqualTo(3);
+    assertThat(counter.getErrorCount()).isEqualTo(3);
+  }
+}
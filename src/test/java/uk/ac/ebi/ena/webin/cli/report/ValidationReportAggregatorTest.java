@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.ena.webin.cli.validator.message.ValidationMessage;
+
+public class ValidationReportAggregatorTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File reportFile;
+
+  @Before
+  public void setUp() {
+    reportFile = new File(temporaryFolder.getRoot(), "test.report");
+  }
+
+  private static void writeReport(List<String> lines, ValidationReportAggregator aggregator) {
+    lines.forEach(aggregator::writeLine);
+    aggregator.close();
+  }
+
+  private static List<String> createMessages(int count) {
+    List<String> lines = new ArrayList<>();
+    lines.add("ERROR: Invalid ID line format [ line: 1]");
+    for (int i = 0; i < count; i++) {
+      lines.add("ERROR: Invalid base \"N" + i + "\" at position " + i + " [ line: " + i + "]");
+    }
+    lines.add("WARNING: Missing description");
+    return lines;
+  }
+
+  private static List<String> readLines(File file) throws IOException {
+    return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testGetGroup() {
+    assertThat(ValidationReportAggregator.getGroup("ERROR: Invalid base \"N\" at 12 [ line: 12]"))
+        .isEqualTo("ERROR: Invalid base \"*\" at # [line]");
+    assertThat(ValidationReportAggregator.getGroup("WARNING: Unknown value 'x' [file: a, line: 1]"))
+        .isEqualTo("WARNING: Unknown value \"*\" [file, line]");
+    assertThat(ValidationReportAggregator.getGroup("INFO: Validation started"))
+        .isEqualTo("INFO: Validation started");
+    assertThat(ValidationReportAggregator.getGroup("  at line 12")).isNull();
+  }
+
+  @Test
+  public void testNoMessages() {
+    new ValidationReportAggregator(reportFile, 3, 1024, true).close();
+    assertThat(reportFile).doesNotExist();
+    assertThat(ValidationReportAggregator.getDetailFile(reportFile)).doesNotExist();
+  }
+
+  @Test
+  public void testUnchanged() throws IOException {
+    List<String> lines = createMessages(3);
+    writeReport(lines, new ValidationReportAggregator(reportFile, 3, 1024, true));
+
+    assertThat(readLines(reportFile)).isEqualTo(lines);
+    assertThat(ValidationReportAggregator.getDetailFile(reportFile)).doesNotExist();
+  }
+
+  @Test
+  public void testSimilarMessagesAreOmitted() throws IOException {
+    List<String> lines = createMessages(1000);
+    writeReport(lines, new ValidationReportAggregator(reportFile, 3, 1024 * 1024, true));
+
+    List<String> reducedLines = readLines(reportFile);
+    assertThat(reducedLines.subList(0, 4)).isEqualTo(lines.subList(0, 4));
+    assertThat(reducedLines.get(4)).isEqualTo("WARNING: Missing description");
+    assertThat(reducedLines.get(5))
+        .isEqualTo(
+            "INFO: 997 more messages were omitted like: "
+                + "ERROR: Invalid base \"*\" at position # [line]");
+    assertThat(reducedLines.get(6)).contains("test.report.gz");
+
+    File detailFile = ValidationReportAggregator.getDetailFile(reportFile);
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(detailFile)), StandardCharsets.UTF_8))) {
+      assertThat(reader.lines().collect(Collectors.toList())).isEqualTo(lines);
+    }
+  }
+
+  @Test
+  public void testSizeLimit() throws IOException {
+    List<String> lines = createMessages(3);
+    writeReport(lines, new ValidationReportAggregator(reportFile, 3, 100, false));
+
+    List<String> reducedLines = readLines(reportFile);
+    assertThat(reducedLines.get(0)).isEqualTo(lines.get(0));
+    assertThat(reducedLines).contains("INFO: The report was truncated at 100 bytes.");
+    assertThat(reducedLines.get(reducedLines.size() - 1)).contains("-reportDetail");
+    assertThat(ValidationReportAggregator.getDetailFile(reportFile)).doesNotExist();
+  }
+
+  @Test
+  public void testWrite() throws IOException {
+    ValidationReportAggregator aggregator =
+        new ValidationReportAggregator(reportFile, 3, 1024, false);
+    aggregator.write(ValidationMessage.info("Program version has changed"));
+    aggregator.close();
+
+    assertThat(readLines(reportFile)).containsExactly("INFO: Program version has changed");
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.jdom2.Element;
+import org.jdom2.input.SAXBuilder;
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+import uk.ac.ebi.ena.webin.cli.XmlTester;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionJournal;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle.SubmissionXMLFile;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle.SubmissionXMLFileType;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionStage;
+import uk.ac.ebi.ena.webin.cli.validator.reference.Sample;
+
+public class SubmitServiceTest {
+
+  private static final String SUBMISSION_XML =
+      "<SUBMISSION_SET><SUBMISSION><ACTIONS><ACTION><ADD/></ACTION></ACTIONS></SUBMISSION></SUBMISSION_SET>";
+
+  private static List<SubmissionXMLFile> createBundleXmls(String name) {
+    return Arrays.asList(
+        new SubmissionXMLFile(
+            SubmissionXMLFileType.SUBMISSION, new File("submission.xml"), SUBMISSION_XML),
+        new SubmissionXMLFile(
+            SubmissionXMLFileType.EXPERIMENT,
+            new File("experiment.xml"),
+            "<EXPERIMENT_SET><EXPERIMENT alias=\"" + name + "\"/></EXPERIMENT_SET>"),
+        new SubmissionXMLFile(
+            SubmissionXMLFileType.RUN,
+            new File("run.xml"),
+            "<RUN_SET><RUN alias=\"" + name + "\"/></RUN_SET>"));
+  }
+
+  private static Element writeBatchSubmissionXml(
+      List<List<SubmissionXMLFile>> bundleXmlFileLists, Map<String, Integer> aliasToBundleIndexMap)
+      throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    SubmitService.writeBatchSubmissionXml(bundleXmlFileLists, aliasToBundleIndexMap, out);
+    return new SAXBuilder().build(new ByteArrayInputStream(out.toByteArray())).getRootElement();
+  }
+
+  private static List<String> getChildNames(Element element) {
+    return element.getChildren().stream().map(Element::getName).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testWriteBatchSubmissionXml() throws Exception {
+    Map<String, Integer> aliasToBundleIndexMap = new HashMap<>();
+
+    Element webinE =
+        writeBatchSubmissionXml(
+            Arrays.asList(createBundleXmls("webin-reads-1"), createBundleXmls("webin-reads-2")),
+            aliasToBundleIndexMap);
+
+    assertThat(webinE.getName()).isEqualTo("WEBIN");
+    assertThat(getChildNames(webinE))
+        .containsExactly("SUBMISSION_SET", "RUN_SET", "EXPERIMENT_SET");
+    assertThat(getChildNames(webinE.getChild("SUBMISSION_SET"))).containsExactly("SUBMISSION");
+    assertThat(webinE.getChild("SUBMISSION_SET").getChild("SUBMISSION").getChild("ACTIONS"))
+        .isNotNull();
+    assertThat(
+            webinE.getChild("RUN_SET").getChildren().stream()
+                .map(e -> e.getAttributeValue("alias")))
+        .containsExactly("webin-reads-1", "webin-reads-2");
+    assertThat(
+            webinE.getChild("EXPERIMENT_SET").getChildren().stream()
+                .map(e -> e.getAttributeValue("alias")))
+        .containsExactly("webin-reads-1", "webin-reads-2");
+
+    assertThat(aliasToBundleIndexMap)
+        .containsEntry("webin-reads-1", 0)
+        .containsEntry("webin-reads-2", 1)
+        .hasSize(2);
+  }
+
+  @Test
+  public void testWriteBatchSubmissionXmlWithSingleBundle() throws Exception {
+    Map<String, Integer> aliasToBundleIndexMap = new HashMap<>();
+
+    Element webinE =
+        writeBatchSubmissionXml(
+            Arrays.asList(createBundleXmls("webin-reads-1")), aliasToBundleIndexMap);
+
+    assertThat(getChildNames(webinE))
+        .containsExactly("SUBMISSION_SET", "RUN_SET", "EXPERIMENT_SET");
+    assertThat(webinE.getChild("EXPERIMENT_SET").getChildren()).hasSize(1);
+    assertThat(aliasToBundleIndexMap).containsOnlyKeys("webin-reads-1");
+  }
+
+  @Test
+  public void testSubmissionXmlResource() throws Exception {
+    File runXmlFile = File.createTempFile("run", ".xml");
+    runXmlFile.deleteOnExit();
+    Files.write(
+        runXmlFile.toPath(),
+        "<RUN_SET><RUN alias=\"webin-reads-1\"/></RUN_SET>".getBytes(StandardCharsets.UTF_8));
+
+    SubmitService.SubmissionXmlResource resource =
+        new SubmitService.SubmissionXmlResource(
+            Arrays.asList(
+                new SubmissionXMLFile(
+                    SubmissionXMLFileType.SUBMISSION, new File("submission.xml"), SUBMISSION_XML),
+                new SubmissionXMLFile(SubmissionXMLFileType.RUN, runXmlFile, null)));
+
+    String xml;
+    try (InputStream in = resource.getInputStream()) {
+      xml = new String(StreamUtils.copyToByteArray(in), StandardCharsets.UTF_8);
+    }
+
+    XmlTester.assertXml(
+        xml,
+        "<WEBIN>\n"
+            + SUBMISSION_XML
+            + "\n<RUN_SET><RUN/></RUN_SET>\n"
+            + "</WEBIN>");
+    assertThat(resource.getFilename()).isEqualTo("webin-submission.xml");
+  }
+
+  @Test
+  public void testReadReceipt() throws Exception {
+    Path receiptFile = Files.createTempFile("receipt", ".xml");
+    receiptFile.toFile().deleteOnExit();
+    Files.write(
+        receiptFile,
+        ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<RECEIPT receiptDate=\"2023-01-01T00:00:00.000Z\" success=\"true\">\n"
+                + "  <EXPERIMENT accession=\"ERX000001\" alias=\"webin-reads-1\"/>\n"
+                + "  <RUN accession=\"ERR000001\" alias=\"webin-reads-1\" status=\"PRIVATE\"/>\n"
+                + "  <SUBMISSION accession=\"ERA000001\" alias=\"webin-reads-1\"/>\n"
+                + "  <MESSAGES>\n"
+                + "    <INFO>Submission has been committed.</INFO>\n"
+                + "  </MESSAGES>\n"
+                + "  <ACTIONS>ADD</ACTIONS>\n"
+                + "</RECEIPT>")
+            .getBytes(StandardCharsets.UTF_8));
+
+    SubmitService.SubmissionReceipt receipt = SubmitService.readReceipt(receiptFile);
+
+    assertThat(receipt.isSuccess()).isTrue();
+    assertThat(receipt.getErrors()).isEmpty();
+    assertThat(receipt.getObjects())
+        .extracting(SubmitService.SubmissionReceiptObject::getType)
+        .containsExactly("EXPERIMENT", "RUN", "SUBMISSION", "ACTIONS");
+    assertThat(receipt.getObjects().get(1).getAccession()).isEqualTo("ERR000001");
+    assertThat(receipt.getObjects().get(1).getAlias()).isEqualTo("webin-reads-1");
+  }
+
+  @Test
+  public void testReadFailedReceipt() throws Exception {
+    Path receiptFile = Files.createTempFile("receipt", ".xml");
+    receiptFile.toFile().deleteOnExit();
+    Files.write(
+        receiptFile,
+        ("<RECEIPT success=\"false\">\n"
+                + "  <RUN alias=\"webin-reads-1\" status=\"PRIVATE\"/>\n"
+                + "  <MESSAGES>\n"
+                + "    <ERROR>First error.</ERROR>\n"
+                + "    <ERROR>Second error.</ERROR>\n"
+                + "  </MESSAGES>\n"
+                + "</RECEIPT>")
+            .getBytes(StandardCharsets.UTF_8));
+
+    SubmitService.SubmissionReceipt receipt = SubmitService.readReceipt(receiptFile);
+
+    assertThat(receipt.isSuccess()).isFalse();
+    assertThat(receipt.getErrors()).containsExactly("First error.", "Second error.");
+    assertThat(receipt.getObjects().get(0).getAccession()).isNull();
+  }
+
+  @Test
+  public void testGetSubmittedSamples() throws Exception {
+    String receiptJson =
+        "{\"success\": true,"
+            + " \"samples\": ["
+            + "  {\"alias\": \"sample-1\", \"accession\": \"ERS000001\","
+            + "   \"externalAccession\": {\"id\": \"SAMEA000001\", \"db\": \"biosample\"}},"
+            + "  {\"alias\": \"sample-2\", \"accession\": \"ERS000002\"}"
+            + " ]}";
+
+    Map<String, Sample> samples = SubmitService.getSubmittedSamples(receiptJson);
+
+    assertThat(samples).containsOnlyKeys("sample-1", "sample-2");
+    assertThat(samples.get("sample-1").getBioSampleId()).isEqualTo("SAMEA000001");
+    assertThat(samples.get("sample-1").getSraSampleId()).isEqualTo("ERS000001");
+    assertThat(samples.get("sample-2").getBioSampleId()).isNull();
+  }
+
+  @Test
+  public void testResumeInterruptedBatchSubmission() throws Exception {
+    Path outputDir = Files.createTempDirectory("TEST-BATCH-RESUME");
+    File batchSubmitDir = Files.createDirectory(outputDir.resolve("batch-submit")).toFile();
+    List<SubmissionXMLFile> bundleXmls1 = createBundleXmls("webin-reads-1");
+    List<SubmissionXMLFile> bundleXmls2 = createBundleXmls("webin-reads-2");
+
+    // The batch was sent and its receipt was received but the run was interrupted before the
+    // accessions were recorded.
+    try (SubmissionJournal journal = new SubmissionJournal(outputDir)) {
+      journal.xmlSubmitted("md5-1", batchSubmitDir);
+      journal.xmlSubmitted("md5-2", batchSubmitDir);
+    }
+    Files.write(
+        batchSubmitDir.toPath().resolve("receipt.xml"),
+        ("<RECEIPT success=\"true\">\n"
+                + "  <EXPERIMENT accession=\"ERX000001\" alias=\"webin-reads-1\"/>\n"
+                + "  <EXPERIMENT accession=\"ERX000002\" alias=\"webin-reads-2\"/>\n"
+                + "  <RUN accession=\"ERR000001\" alias=\"webin-reads-1\"/>\n"
+                + "  <RUN accession=\"ERR000002\" alias=\"webin-reads-2\"/>\n"
+                + "  <SUBMISSION accession=\"ERA000001\" alias=\"webin-reads-1\"/>\n"
+                + "</RECEIPT>")
+            .getBytes(StandardCharsets.UTF_8));
+
+    try (SubmissionJournal journal = new SubmissionJournal(outputDir)) {
+      assertThat(journal.getStage("md5-2")).isEqualTo(SubmissionStage.XML_SUBMITTED);
+      assertThat(journal.getSubmitDir("md5-2")).isEqualTo(batchSubmitDir.getAbsoluteFile());
+
+      SubmitService submitService =
+          new SubmitService.Builder()
+              .setSubmitDir(journal.getSubmitDir("md5-2").getPath())
+              .build();
+      assertThat(submitService.recoverSubmission(bundleXmls2))
+          .containsEntry(SubmissionXMLFileType.EXPERIMENT, "ERX000002")
+          .containsEntry(SubmissionXMLFileType.RUN, "ERR000002")
+          .hasSize(2);
+      assertThat(submitService.recoverSubmission(bundleXmls1))
+          .containsEntry(SubmissionXMLFileType.EXPERIMENT, "ERX000001")
+          .containsEntry(SubmissionXMLFileType.RUN, "ERR000001")
+          .hasSize(2);
+
+      // A bundle that was not part of the batch is not recovered from its receipt.
+      assertThat(submitService.recoverSubmission(createBundleXmls("webin-reads-3"))).isNull();
+    }
+  }
+
+  @Test
+  public void testReadAliases() {
+    List<String> aliases = new ArrayList<>();
+    SubmitService.readAliases(createBundleXmls("webin-reads-1").get(2), aliases::add);
+    assertThat(aliases).containsExactly("webin-reads-1");
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.service.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+  @Test
+  public void testLimitGrowsWhileLatencyIsStable() throws InterruptedException {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2);
+    // The limit only grows while it is being used.
+    limiter.acquire();
+    for (int i = 0; i < 100; i++) {
+      limiter.execute(() -> "ok");
+    }
+    assertThat(limiter.getLimit()).isGreaterThan(2);
+    assertThat(limiter.getInFlight()).isOne();
+  }
+
+  @Test
+  public void testLimitDoesNotGrowWhenUnused() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 4);
+    for (int i = 0; i < 100; i++) {
+      limiter.execute(() -> "ok");
+    }
+    assertThat(limiter.getLimit()).isEqualTo(4);
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  public void testLimitDoesNotGrowWhenLatencyIncreases() throws InterruptedException {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2);
+    limiter.acquire();
+    limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(10));
+    for (int i = 0; i < 100; i++) {
+      limiter.acquire();
+      limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+    assertThat(limiter.getLimit()).isEqualTo(2);
+  }
+
+  @Test
+  public void testLimitIsHalvedOnTooManyRequests() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8);
+    assertThatThrownBy(
+            () ->
+                limiter.execute(
+                    () -> {
+                      throw HttpClientErrorException.create(
+                          HttpStatus.TOO_MANY_REQUESTS, "", new HttpHeaders(), null, null);
+                    }))
+        .isInstanceOf(HttpClientErrorException.TooManyRequests.class);
+    assertThat(limiter.getLimit()).isEqualTo(4);
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  public void testLimitIsHalvedOnServiceUnavailable() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8);
+    assertThatThrownBy(
+            () ->
+                limiter.execute(
+                    () -> {
+                      throw HttpServerErrorException.create(
+                          HttpStatus.SERVICE_UNAVAILABLE, "", new HttpHeaders(), null, null);
+                    }))
+        .isInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
+    assertThat(limiter.getLimit()).isEqualTo(4);
+  }
+
+  @Test
+  public void testLimitIsUnchangedOnOtherErrors() {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8);
+    assertThatThrownBy(
+            () ->
+                limiter.execute(
+                    () -> {
+                      throw HttpServerErrorException.create(
+                          HttpStatus.INTERNAL_SERVER_ERROR, "", new HttpHeaders(), null, null);
+                    }))
+        .isInstanceOf(HttpServerErrorException.class);
+    assertThat(limiter.getLimit()).isEqualTo(8);
+    assertThat(limiter.getInFlight()).isZero();
+  }
+
+  @Test
+  public void testLimitIsNotBelowMinimum() throws InterruptedException {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2);
+    for (int i = 0; i < 5; i++) {
+      limiter.acquire();
+      limiter.onOverload(null);
+    }
+    assertThat(limiter.getLimit()).isEqualTo(AdaptiveConcurrencyLimiter.MIN_LIMIT);
+  }
+
+  @Test
+  public void testRequestsWaitForFreeSlot() throws InterruptedException {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1);
+    limiter.acquire();
+
+    CountDownLatch acquired = new CountDownLatch(1);
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                limiter.acquire();
+                acquired.countDown();
+              } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    thread.start();
+
+    assertThat(acquired.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    limiter.onIgnore();
+    assertThat(acquired.await(5, TimeUnit.SECONDS)).isTrue();
+    thread.join();
+  }
+
+  @Test
+  public void testRequestsWaitForRetryAfter() throws InterruptedException {
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8);
+    limiter.acquire();
+    limiter.onOverload(Duration.ofMillis(300));
+
+    long startNanos = System.nanoTime();
+    limiter.acquire();
+    assertThat(System.nanoTime() - startNanos)
+        .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+  }
+
+  @Test
+  public void testGetRetryAfter() {
+    assertThat(AdaptiveConcurrencyLimiter.getRetryAfter(null)).isNull();
+    assertThat(AdaptiveConcurrencyLimiter.getRetryAfter(retryAfter("120")))
+        .isEqualTo(Duration.ofSeconds(120));
+    assertThat(AdaptiveConcurrencyLimiter.getRetryAfter(retryAfter("invalid"))).isNull();
+    assertThat(
+            AdaptiveConcurrencyLimiter.getRetryAfter(
+                retryAfter(
+                    DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                        ZonedDateTime.now().plusSeconds(30)))))
+        .isBetween(Duration.ofSeconds(25), Duration.ofSeconds(30));
+    assertThat(
+            AdaptiveConcurrencyLimiter.getRetryAfter(
+                retryAfter(
+                    DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                        ZonedDateTime.now().minusSeconds(30)))))
+        .isEqualTo(Duration.ZERO);
+  }
+
+  private static HttpHeaders retryAfter(String value) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, value);
+    return headers;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.service.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+
+public class HttpMetricsRequestFactoryTest {
+
+  private static final URI REQUEST_URI = URI.create("https://host/api/test");
+  private static final String ENDPOINT = "GET /api/test";
+
+  @Test
+  public void testRetriesFromOtherThreadsAreCounted() throws Throwable {
+    ClientHttpResponse response = Mockito.mock(ClientHttpResponse.class);
+    Mockito.when(response.getStatusCode()).thenReturn(HttpStatus.OK);
+    ClientHttpRequest request = Mockito.mock(ClientHttpRequest.class);
+    Mockito.when(request.execute()).thenReturn(response);
+    Mockito.when(request.getMethod()).thenReturn(HttpMethod.GET);
+    Mockito.when(request.getURI()).thenReturn(REQUEST_URI);
+    ClientHttpRequestFactory delegate = Mockito.mock(ClientHttpRequestFactory.class);
+    Mockito.when(delegate.createRequest(REQUEST_URI, HttpMethod.GET)).thenReturn(request);
+
+    HttpMetrics httpMetrics = new HttpMetrics();
+    HttpMetricsRequestFactory requestFactory = new HttpMetricsRequestFactory(delegate, httpMetrics);
+
+    RetryCallback<Void, Exception> callback =
+        requestFactory.recordRetries(
+            context -> {
+              // The request is sent by another thread like a hedged request.
+              CompletableFuture.runAsync(
+                      () -> {
+                        try {
+                          requestFactory.createRequest(REQUEST_URI, HttpMethod.GET).execute();
+                        } catch (Exception ex) {
+                          throw new IllegalStateException(ex);
+                        }
+                      })
+                  .get();
+              return null;
+            });
+    callback.doWithRetry(getRetryContext(0));
+    callback.doWithRetry(getRetryContext(1));
+
+    HttpMetrics.EndpointMetrics metrics = httpMetrics.getEndpoints().get(ENDPOINT);
+    assertThat(metrics.getRequestCount()).isEqualTo(2);
+    assertThat(metrics.getRetryCount()).isEqualTo(1);
+  }
+
+  private static RetryContext getRetryContext(int retryCount) {
+    RetryContext context = Mockito.mock(RetryContext.class);
+    Mockito.when(context.getRetryCount()).thenReturn(retryCount);
+    return context;
+  }
+}
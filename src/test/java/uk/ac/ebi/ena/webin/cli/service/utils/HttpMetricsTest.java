@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.service.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import uk.ac.ebi.ena.webin.cli.service.utils.HttpMetrics.EndpointMetrics;
+
+public class HttpMetricsTest {
+
+  private static final String ENDPOINT = "GET /ena/submit/drop-box/cli/reference/project/{id}";
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  private static final String HOST = "https://wwwdev.ebi.ac.uk";
+
+  @Test
+  public void testGetEndpoint() {
+    assertThat(
+            HttpMetrics.getEndpoint(
+                HttpMethod.GET,
+                URI.create(HOST + "/ena/submit/drop-box/cli/reference/project/PRJEB1?a=1")))
+        .isEqualTo(ENDPOINT);
+    assertThat(
+            HttpMetrics.getEndpoint(
+                HttpMethod.POST, URI.create(HOST + "/ena/submit/webin-v2/submit/")))
+        .isEqualTo("POST /ena/submit/webin-v2/submit/");
+    assertThat(HttpMetrics.getEndpoint(HttpMethod.GET, URI.create("https://host/api/v1/cli/9.0.1")))
+        .isEqualTo("GET /api/v1/cli/{id}");
+    assertThat(HttpMetrics.getEndpoint(HttpMethod.GET, URI.create("https://host")))
+        .isEqualTo("GET /");
+  }
+
+  @Test
+  public void testStatusClasses() {
+    HttpMetrics httpMetrics = new HttpMetrics();
+    httpMetrics.record(ENDPOINT, 200, millis(1), false);
+    httpMetrics.record(ENDPOINT, 201, millis(1), false);
+    httpMetrics.record(ENDPOINT, 404, millis(1), false);
+    httpMetrics.record(ENDPOINT, 503, millis(1), false);
+    httpMetrics.record(ENDPOINT, 0, millis(1), false);
+
+    EndpointMetrics metrics = httpMetrics.getEndpoints().get(ENDPOINT);
+    assertThat(metrics.getRequestCount()).isEqualTo(5);
+    assertThat(metrics.getStatusClassCounts())
+        .containsEntry("2xx", 2L)
+        .containsEntry("4xx", 1L)
+        .containsEntry("5xx", 1L)
+        .containsEntry(HttpMetrics.IO_ERROR, 1L);
+  }
+
+  @Test
+  public void testRetries() {
+    HttpMetrics httpMetrics = new HttpMetrics();
+    httpMetrics.record(ENDPOINT, 503, millis(1), false);
+    httpMetrics.record(ENDPOINT, 429, millis(1), true);
+    httpMetrics.record(ENDPOINT, 200, millis(1), true);
+    httpMetrics.record(ENDPOINT, 200, millis(1), false);
+
+    assertThat(httpMetrics.getEndpoints().get(ENDPOINT).getRetryCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testLatencyPercentiles() {
+    HttpMetrics httpMetrics = new HttpMetrics();
+    for (int i = 1; i <= 100; i++) {
+      httpMetrics.record(ENDPOINT, 200, millis(i), false);
+    }
+
+    EndpointMetrics metrics = httpMetrics.getEndpoints().get(ENDPOINT);
+    assertThat(metrics.getLatencyPercentile(50).toMillis()).isBetween(50L, 55L);
+    assertThat(metrics.getLatencyPercentile(95).toMillis()).isBetween(95L, 100L);
+    assertThat(metrics.getLatencyPercentile(99).toMillis()).isBetween(99L, 100L);
+    assertThat(metrics.getMaxLatency()).isEqualTo(Duration.ofMillis(100));
+    assertThat(metrics.getMeanLatency().toMillis()).isEqualTo(50);
+  }
+
+  @Test
+  public void testBuckets() {
+    assertThat(HttpMetrics.getBucket(0)).isZero();
+    assertThat(HttpMetrics.getBucket(HttpMetrics.MIN_LATENCY_NANOS)).isZero();
+    assertThat(HttpMetrics.getBucket(Long.MAX_VALUE)).isEqualTo(HttpMetrics.BUCKET_COUNT - 1);
+    for (long latency = 1; latency < TimeUnit.MINUTES.toNanos(1); latency *= 3) {
+      int bucket = HttpMetrics.getBucket(latency);
+      assertThat(HttpMetrics.getBucketUpperBoundNanos(bucket)).isGreaterThanOrEqualTo(latency);
+      if (bucket > 0) {
+        assertThat(HttpMetrics.getBucketUpperBoundNanos(bucket - 1)).isLessThan(latency);
+      }
+    }
+  }
+
+  @Test
+  public void testWriteJson() throws Exception {
+    RequestHedger hedger =
+        new RequestHedger("test", new AdaptiveConcurrencyLimiter("test", 1), 0, 0);
+    hedger.execute(() -> null);
+    HttpMetrics httpMetrics = new HttpMetrics(Collections.singletonList(hedger));
+    httpMetrics.record(ENDPOINT, 503, millis(10), false);
+    httpMetrics.record(ENDPOINT, 200, millis(20), true);
+
+    Path file = Files.createTempFile("webin-cli-http-metrics", ".json");
+    try {
+      httpMetrics.writeJson(file);
+
+      JsonNode root = new ObjectMapper().readTree(file.toFile());
+      JsonNode endpoint = root.path("endpoints").path(ENDPOINT);
+      assertThat(endpoint.path("requests").asLong()).isEqualTo(2);
+      assertThat(endpoint.path("retries").asLong()).isEqualTo(1);
+      assertThat(endpoint.path("statuses").path("5xx").asLong()).isEqualTo(1);
+      assertThat(endpoint.path("latencyMillis").path("max").asLong()).isEqualTo(20);
+      JsonNode hedging = root.path("hedging").path("test");
+      assertThat(hedging.path("requests").asLong()).isEqualTo(1);
+      assertThat(hedging.path("hedged").asLong()).isZero();
+      assertThat(hedging.path("hedgeWins").asLong()).isZero();
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
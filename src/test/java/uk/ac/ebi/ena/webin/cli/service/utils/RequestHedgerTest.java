@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.service.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+public class RequestHedgerTest {
+
+  private static final long FAST_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private static RequestHedger hedger(int percentile, double budget) {
+    return new RequestHedger("test", new AdaptiveConcurrencyLimiter("test", 8), percentile, budget);
+  }
+
+  private static void addLatencies(RequestHedger hedger, int count) {
+    for (int i = 0; i < count; i++) {
+      hedger.addLatency(FAST_NANOS);
+    }
+  }
+
+  /** @return A request that is slow the first time it is executed and fast after that. */
+  private static Supplier<String> slowOnce(AtomicInteger executions) {
+    return () -> {
+      if (executions.incrementAndGet() == 1) {
+        sleep(3000);
+        return "slow";
+      }
+      return "fast";
+    };
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  public void testDisabled() {
+    RequestHedger hedger = hedger(0, 1);
+    addLatencies(hedger, RequestHedger.MIN_LATENCY_SAMPLES);
+    AtomicInteger executions = new AtomicInteger();
+
+    assertThat(hedger.isEnabled()).isFalse();
+    assertThat(hedger.execute(slowOnce(executions))).isEqualTo("slow");
+    assertThat(executions.get()).isOne();
+    assertThat(hedger.getRequestCount()).isOne();
+    assertThat(hedger.getHedgedRequestCount()).isZero();
+  }
+
+  @Test
+  public void testNotHedgedBeforeLatenciesAreKnown() {
+    RequestHedger hedger = hedger(50, 1);
+    assertThat(hedger.getHedgeDelayNanos()).isNegative();
+    assertThat(hedger.execute(() -> "ok")).isEqualTo("ok");
+    assertThat(hedger.getHedgedRequestCount()).isZero();
+  }
+
+  @Test
+  public void testHedgeDelayIsPercentileOfLatencies() {
+    RequestHedger hedger = hedger(90, 1);
+    for (int i = 1; i <= 100; i++) {
+      hedger.addLatency(i);
+    }
+    assertThat(hedger.getHedgeDelayNanos()).isEqualTo(90);
+
+    // Only the most recent latencies are used.
+    for (int i = 1; i <= RequestHedger.LATENCY_SAMPLES; i++) {
+      hedger.addLatency(1000 + i);
+    }
+    assertThat(hedger.getHedgeDelayNanos()).isGreaterThan(1000);
+  }
+
+  @Test
+  public void testSlowRequestIsHedged() {
+    RequestHedger hedger = hedger(50, 1);
+    addLatencies(hedger, RequestHedger.MIN_LATENCY_SAMPLES);
+    AtomicInteger executions = new AtomicInteger();
+
+    long startNanos = System.nanoTime();
+    assertThat(hedger.execute(slowOnce(executions))).isEqualTo("fast");
+    assertThat(System.nanoTime() - startNanos).isLessThan(TimeUnit.SECONDS.toNanos(2));
+    assertThat(executions.get()).isEqualTo(2);
+    assertThat(hedger.getHedgedRequestCount()).isOne();
+    assertThat(hedger.getHedgeWinCount()).isOne();
+  }
+
+  @Test
+  public void testHedgingIsLimitedByBudget() {
+    RequestHedger hedger = hedger(50, 0);
+    addLatencies(hedger, RequestHedger.MIN_LATENCY_SAMPLES);
+    AtomicInteger executions = new AtomicInteger();
+
+    assertThat(hedger.execute(slowOnce(executions))).isEqualTo("slow");
+    assertThat(executions.get()).isOne();
+    assertThat(hedger.getHedgedRequestCount()).isZero();
+  }
+
+  @Test
+  public void testFailureIsThrownIfBothRequestsFail() {
+    RequestHedger hedger = hedger(50, 1);
+    addLatencies(hedger, RequestHedger.MIN_LATENCY_SAMPLES);
+
+    assertThatThrownBy(
+            () ->
+                hedger.execute(
+                    () -> {
+                      sleep(100);
+                      throw new IllegalStateException("failed");
+                    }))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("failed");
+    assertThat(hedger.getHedgedRequestCount()).isOne();
+  }
+
+  @Test
+  public void testConfigure() {
+    RequestHedger hedger =
+        new RequestHedger(
+            "test",
+            new AdaptiveConcurrencyLimiter("test", 1),
+            RequestHedger.DEFAULT_PERCENTILE,
+            RequestHedger.DEFAULT_BUDGET);
+    assertThat(hedger.isEnabled()).isFalse();
+
+    hedger.configure(95, 0.1);
+    assertThat(hedger.isEnabled()).isTrue();
+
+    hedger.configure(0, 0.1);
+    assertThat(hedger.isEnabled()).isFalse();
+  }
+}
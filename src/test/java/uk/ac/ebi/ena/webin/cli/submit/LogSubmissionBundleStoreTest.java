@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.ebi.ena.webin.cli.submit.SubmissionBundleVerificationLevel.FULL;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class LogSubmissionBundleStoreTest {
+
+  private static SubmissionBundle createSubmissionBundle(Path dir, String name, String md5)
+      throws IOException {
+    File submitDir = Files.createDirectories(dir.resolve(name)).toFile();
+    SubmissionBundle.SubmissionXMLFile xmlFile =
+        new SubmissionBundle.SubmissionXMLFile(
+            SubmissionBundle.SubmissionXMLFileType.SUBMISSION,
+            new File(submitDir, "submission.xml"),
+            "<SUBMISSION_SET><SUBMISSION alias=\"" + name + "\"/></SUBMISSION_SET>");
+    return new SubmissionBundle(
+        submitDir, "webin-cli/" + name, new ArrayList<>(), Arrays.asList(xmlFile), md5);
+  }
+
+  @Test
+  public void testReadCommittedBundles() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-BUNDLE-LOG");
+
+    SubmissionBundle sb1 = createSubmissionBundle(dir, "name1", "md5-1");
+    SubmissionBundle sb2 = createSubmissionBundle(dir, "name2", "md5-2");
+
+    try (LogSubmissionBundleStore store = new LogSubmissionBundleStore(dir)) {
+      store.write("name1", sb1);
+      store.write("name2", sb2);
+    }
+
+    assertThat(dir.resolve(LogSubmissionBundleStore.LOG_FILE_NAME)).exists();
+    assertThat(dir.resolve(LogSubmissionBundleStore.INDEX_FILE_NAME)).exists();
+    assertThat(dir.resolve("name1").resolve("submission.xml")).exists();
+
+    LogSubmissionBundleStore store = new LogSubmissionBundleStore(dir);
+    assertThat(store.read("name2", "md5-2", FULL)).isEqualTo(sb2);
+    assertThat(store.read("name1", "md5-1", FULL)).isEqualTo(sb1);
+    assertThat(
+            store
+                .read("name1", "md5-1", FULL)
+                .getXMLFile(SubmissionBundle.SubmissionXMLFileType.SUBMISSION)
+                .getXmlContent())
+        .isEqualTo("<SUBMISSION_SET><SUBMISSION alias=\"name1\"/></SUBMISSION_SET>");
+
+    // Modified manifest.
+    assertThat(store.read("name1", "md5-changed", FULL)).isNull();
+    // Unknown manifest.
+    assertThat(store.read("name3", "md5-3", FULL)).isNull();
+  }
+
+  @Test
+  public void testLatestBundleIsRead() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-BUNDLE-LOG");
+
+    try (LogSubmissionBundleStore store = new LogSubmissionBundleStore(dir)) {
+      store.write("name1", createSubmissionBundle(dir, "name1", "md5-1"));
+    }
+
+    SubmissionBundle sb = createSubmissionBundle(dir, "name1", "md5-1-modified");
+    try (LogSubmissionBundleStore store = new LogSubmissionBundleStore(dir)) {
+      store.write("name1", sb);
+    }
+
+    LogSubmissionBundleStore store = new LogSubmissionBundleStore(dir);
+    assertThat(store.read("name1", "md5-1", FULL)).isNull();
+    assertThat(store.read("name1", "md5-1-modified", FULL)).isEqualTo(sb);
+  }
+
+  @Test
+  public void testUncommittedBundlesAreNotVisibleToOtherStores() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-BUNDLE-LOG");
+
+    SubmissionBundle sb1 = createSubmissionBundle(dir, "name1", "md5-1");
+    SubmissionBundle sb2 = createSubmissionBundle(dir, "name2", "md5-2");
+
+    LogSubmissionBundleStore store = new LogSubmissionBundleStore(dir);
+    store.write("name1", sb1);
+    store.commit();
+    store.write("name2", sb2);
+
+    // Uncommitted bundles can be read from the store that wrote them.
+    assertThat(store.read("name2", "md5-2", FULL)).isEqualTo(sb2);
+
+    LogSubmissionBundleStore otherStore = new LogSubmissionBundleStore(dir);
+    assertThat(otherStore.read("name1", "md5-1", FULL)).isEqualTo(sb1);
+    assertThat(otherStore.read("name2", "md5-2", FULL)).isNull();
+
+    store.close();
+  }
+}
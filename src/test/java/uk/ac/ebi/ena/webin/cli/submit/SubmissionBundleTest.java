@@ -16,6 +16,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import org.junit.Assert;
@@ -56,6 +57,44 @@ public class SubmissionBundleTest {
         actualSb.getXMLFile(SubmissionBundle.SubmissionXMLFileType.SUBMISSION).getXmlContent());
   }
 
+  @Test
+  public void testXmlContentIsLoadedFromFileAfterRelease() throws IOException {
+    File submitDirectory = Files.createTempDirectory("TEST-SUBMISSION-BUNDLE").toFile();
+    String uploadDirectory = Files.createTempDirectory("TEST-SUBMISSION-BUNDLE").toString();
+
+    String xml = "<SUBMISSION_SET><SUBMISSION/></SUBMISSION_SET>";
+    SubmissionBundle.SubmissionXMLFile xmlFile =
+        new SubmissionXMLFile(
+            SubmissionBundle.SubmissionXMLFileType.SUBMISSION,
+            new File(submitDirectory, "submission.xml"),
+            xml);
+
+    SubmissionBundle sb =
+        new SubmissionBundle(
+            submitDirectory,
+            uploadDirectory,
+            new ArrayList<>(),
+            Arrays.asList(xmlFile),
+            "abcd1234");
+
+    // The XML is kept in memory until it has been written in its file.
+    sb.releaseXmlContents();
+    Assert.assertTrue(xmlFile.hasXmlContent());
+
+    SubmissionBundleHelper.write(sb, submitDirectory);
+    sb.releaseXmlContents();
+
+    Assert.assertFalse(xmlFile.hasXmlContent());
+    Assert.assertEquals(xml, xmlFile.getXmlContent());
+    Assert.assertFalse(xmlFile.hasXmlContent());
+
+    SubmissionBundle actualSb = SubmissionBundleHelper.read("abcd1234", submitDirectory);
+    SubmissionXMLFile actualXmlFile =
+        actualSb.getXMLFile(SubmissionBundle.SubmissionXMLFileType.SUBMISSION);
+    Assert.assertFalse(actualXmlFile.hasXmlContent());
+    Assert.assertEquals(xml, actualXmlFile.getXmlContent());
+  }
+
   @Test
   public void testValidationFailureDueToDataFileContentChange() throws IOException {
     File submitDirectory = Files.createTempDirectory("TEST-SUBMITION-BUNDLE").toFile();
@@ -96,4 +135,53 @@ public class SubmissionBundleTest {
     // expected error if there are any doubts.
     Assert.assertNull(actualSb);
   }
+
+  @Test
+  public void testVerificationLevels() throws IOException {
+    File submitDirectory = Files.createTempDirectory("TEST-SUBMISSION-BUNDLE").toFile();
+    String uploadDirectory = Files.createTempDirectory("TEST-SUBMISSION-BUNDLE").toString();
+
+    Path dataFile = Files.createTempFile(Paths.get(uploadDirectory), "test", ".temp");
+
+    Files.write(dataFile, "abc".getBytes(StandardCharsets.UTF_8));
+
+    SubmissionBundle.SubmissionUploadFile uploadFile =
+        new SubmissionBundle.SubmissionUploadFile(
+            dataFile.toFile(),
+            dataFile.toFile().length(),
+            FileUtils.getLastModifiedTime(dataFile.toFile()),
+            FileUtils.calculateDigest("MD5", dataFile.toFile()),
+            SubmissionBundleHelper.calculateSampledMd5(dataFile.toFile()));
+
+    SubmissionBundle expectedSb =
+        new SubmissionBundle(
+            submitDirectory,
+            uploadDirectory,
+            Arrays.asList(uploadFile),
+            new ArrayList<>(),
+            "abcd1234");
+
+    SubmissionBundleHelper.write(expectedSb, submitDirectory);
+
+    for (SubmissionBundleVerificationLevel level : SubmissionBundleVerificationLevel.values()) {
+      Assert.assertEquals(
+          expectedSb, SubmissionBundleHelper.read("abcd1234", submitDirectory, level));
+    }
+
+    // Change the content of the file without changing its length or last modified time.
+    FileTime lastModifiedTime = Files.getLastModifiedTime(dataFile);
+    Files.write(dataFile, "xyz".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(dataFile, lastModifiedTime);
+
+    Assert.assertEquals(
+        expectedSb,
+        SubmissionBundleHelper.read(
+            "abcd1234", submitDirectory, SubmissionBundleVerificationLevel.STAT));
+    Assert.assertNull(
+        SubmissionBundleHelper.read(
+            "abcd1234", submitDirectory, SubmissionBundleVerificationLevel.SAMPLED));
+    Assert.assertNull(
+        SubmissionBundleHelper.read(
+            "abcd1234", submitDirectory, SubmissionBundleVerificationLevel.FULL));
+  }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import org.junit.Test;
+import uk.ac.ebi.ena.webin.cli.WebinCliConfig;
+
+public class SubmissionJournalTest {
+
+  private static SubmissionBundle.SubmissionUploadFile uploadFile(
+      File file, long length, String md5) {
+    return new SubmissionBundle.SubmissionUploadFile(file, length, 0L, md5);
+  }
+
+  @Test
+  public void testStagesAreResumed() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-JOURNAL");
+    File file1 = dir.resolve("file1.fastq.gz").toFile();
+    File file2 = dir.resolve("file2.fastq.gz").toFile();
+
+    try (SubmissionJournal journal = new SubmissionJournal(dir)) {
+      assertThat(journal.getStage("md5-1")).isNull();
+
+      journal.validated("md5-1");
+      journal.fileUploaded("md5-1", uploadFile(file1, 10L, "file-md5-1"));
+      journal.validated("md5-2");
+      journal.fileUploaded("md5-2", uploadFile(file2, 20L, "file-md5-2"));
+      journal.xmlSubmitted("md5-2", dir.resolve("submit-2").toFile());
+      journal.accessionReceived(
+          "md5-2",
+          Collections.singletonMap(SubmissionBundle.SubmissionXMLFileType.RUN, "ERR1"));
+    }
+
+    try (SubmissionJournal journal = new SubmissionJournal(dir)) {
+      assertThat(journal.getStage("md5-1")).isEqualTo(SubmissionStage.FILE_UPLOADED);
+      assertThat(journal.isUploaded("md5-1", uploadFile(file1, 10L, "file-md5-1"))).isTrue();
+      assertThat(journal.isUploaded("md5-1", uploadFile(file1, 11L, "file-md5-1"))).isFalse();
+      assertThat(journal.isUploaded("md5-1", uploadFile(file1, 10L, "file-md5-X"))).isFalse();
+      assertThat(journal.isUploaded("md5-1", uploadFile(file2, 20L, "file-md5-2"))).isFalse();
+      assertThat(journal.getAccessions("md5-1")).isEmpty();
+      assertThat(journal.getSubmitDir("md5-1")).isNull();
+
+      assertThat(journal.getStage("md5-2")).isEqualTo(SubmissionStage.ACCESSION_RECEIVED);
+      assertThat(journal.getAccessions("md5-2"))
+          .containsEntry(SubmissionBundle.SubmissionXMLFileType.RUN, "ERR1");
+      assertThat(journal.getSubmitDir("md5-2"))
+          .isEqualTo(dir.resolve("submit-2").toFile().getAbsoluteFile());
+
+      // Validating again does not lose the completed stages.
+      journal.validated("md5-1");
+      assertThat(journal.getStage("md5-1")).isEqualTo(SubmissionStage.FILE_UPLOADED);
+    }
+  }
+
+  @Test
+  public void testPartiallyWrittenRecordIsIgnored() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-JOURNAL");
+
+    try (SubmissionJournal journal = new SubmissionJournal(dir)) {
+      journal.validated("md5-1");
+    }
+
+    Files.write(
+        dir.resolve(WebinCliConfig.SUBMISSION_JOURNAL_FILE_NAME),
+        "{\"manifestFieldsMd5\":\"md5-1\",\"stage\":\"XML_SUB".getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND);
+
+    try (SubmissionJournal journal = new SubmissionJournal(dir)) {
+      assertThat(journal.getStage("md5-1")).isEqualTo(SubmissionStage.VALIDATED);
+
+      journal.xmlSubmitted("md5-1", dir.toFile());
+    }
+
+    try (SubmissionJournal journal = new SubmissionJournal(dir)) {
+      assertThat(journal.getStage("md5-1")).isEqualTo(SubmissionStage.XML_SUBMITTED);
+    }
+  }
+
+  @Test
+  public void testSubmitDirOfLastSubmission() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-JOURNAL");
+    File batchSubmitDir = dir.resolve("batch-submit").toFile();
+    File submitDir = dir.resolve("submit").toFile();
+
+    try (SubmissionJournal journal = new SubmissionJournal(dir)) {
+      journal.validated("md5-1");
+      journal.xmlSubmitted("md5-1", batchSubmitDir);
+      assertThat(journal.getSubmitDir("md5-1")).isEqualTo(batchSubmitDir.getAbsoluteFile());
+
+      // The bundle is submitted on its own after the batch submission failed.
+      journal.xmlSubmitted("md5-1", submitDir);
+    }
+
+    try (SubmissionJournal journal = new SubmissionJournal(dir)) {
+      assertThat(journal.getStage("md5-1")).isEqualTo(SubmissionStage.XML_SUBMITTED);
+      assertThat(journal.getSubmitDir("md5-1")).isEqualTo(submitDir.getAbsoluteFile());
+    }
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testSubmitDirIsRequired() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-JOURNAL");
+
+    try (SubmissionJournal journal = new SubmissionJournal(dir)) {
+      journal.xmlSubmitted("md5-1", null);
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.submit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import org.junit.Test;
+import uk.ac.ebi.ena.webin.cli.WebinCliConfig;
+
+public class SubmissionLedgerTest {
+
+  @Test
+  public void testRecordedSubmissionsAreLoaded() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-LEDGER");
+
+    try (SubmissionLedger ledger = new SubmissionLedger(dir)) {
+      assertThat(ledger.isSubmitted("md5-1")).isFalse();
+
+      ledger.record(
+          "md5-1",
+          Collections.singletonMap(SubmissionBundle.SubmissionXMLFileType.ANALYSIS, "ERZ1"));
+      ledger.record(
+          "md5-2",
+          Collections.singletonMap(SubmissionBundle.SubmissionXMLFileType.ANALYSIS, "ERZ2"));
+
+      assertThat(ledger.isSubmitted("md5-1")).isTrue();
+    }
+
+    try (SubmissionLedger ledger = new SubmissionLedger(dir)) {
+      assertThat(ledger.isSubmitted("md5-1")).isTrue();
+      assertThat(ledger.isSubmitted("md5-2")).isTrue();
+      assertThat(ledger.isSubmitted("md5-3")).isFalse();
+
+      SubmissionLedger.Entry entry = ledger.get("md5-2");
+      assertThat(entry.getSubmissionTime()).isNotNull();
+      assertThat(entry.getAccessions())
+          .containsEntry(SubmissionBundle.SubmissionXMLFileType.ANALYSIS, "ERZ2");
+    }
+  }
+
+  @Test
+  public void testPartiallyWrittenEntryIsIgnored() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-LEDGER");
+
+    try (SubmissionLedger ledger = new SubmissionLedger(dir)) {
+      ledger.record("md5-1", Collections.emptyMap());
+    }
+
+    Files.write(
+        dir.resolve(WebinCliConfig.SUBMISSION_LEDGER_FILE_NAME),
+        "{\"manifestFieldsMd5\":\"md5-2\",\"subm".getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND);
+
+    try (SubmissionLedger ledger = new SubmissionLedger(dir)) {
+      assertThat(ledger.isSubmitted("md5-1")).isTrue();
+      assertThat(ledger.isSubmitted("md5-2")).isFalse();
+
+      ledger.record("md5-3", Collections.emptyMap());
+    }
+
+    try (SubmissionLedger ledger = new SubmissionLedger(dir)) {
+      assertThat(ledger.isSubmitted("md5-1")).isTrue();
+      assertThat(ledger.isSubmitted("md5-2")).isFalse();
+      assertThat(ledger.isSubmitted("md5-3")).isTrue();
+    }
+  }
+
+  @Test
+  public void testLegacySubmissionStatusFileIsImported() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SUBMISSION-LEDGER");
+
+    Files.write(
+        dir.resolve(WebinCliConfig.SUBMISSION_STATUS_FILE_NAME),
+        "[\"md5-1\",\"md5-2\"]".getBytes(StandardCharsets.UTF_8));
+
+    try (SubmissionLedger ledger = new SubmissionLedger(dir)) {
+      assertThat(ledger.isSubmitted("md5-1")).isTrue();
+      assertThat(ledger.isSubmitted("md5-2")).isTrue();
+      assertThat(ledger.get("md5-1").getAccessions()).isEmpty();
+    }
+  }
+}
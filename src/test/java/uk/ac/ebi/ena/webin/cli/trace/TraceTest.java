@@ -0,0 +1,214 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.trace;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Test;
+import uk.ac.ebi.ena.webin.cli.WebinCliException;
+
+public class TraceTest {
+
+  private static final String SPAN_EVENT = "uk.ac.ebi.ena.webin.cli.Span";
+
+  private Trace trace;
+
+  @After
+  public void after() {
+    if (trace != null) {
+      trace.end();
+    }
+  }
+
+  @Test
+  public void testNestedSpans() {
+    trace = Trace.start("run");
+    try (Span manifest = Trace.startSpan("manifest")) {
+      manifest.setAttribute("name", "test");
+      Trace.run("validate", span -> span.addBytes(10));
+      Trace.run("submit", span -> span.addBytes(20));
+      manifest.success();
+    }
+    Trace.run("other", span -> {});
+
+    assertThat(trace.getRoot().getSpans())
+        .extracting(Span::getName)
+        .containsExactly("manifest", "other");
+    Span manifest = trace.getRoot().getSpans().get(0);
+    assertThat(manifest.getOutcome()).isEqualTo(Span.SUCCESS);
+    assertThat(manifest.getDurationNanos()).isGreaterThanOrEqualTo(0);
+    assertThat(manifest.getSpans()).extracting(Span::getName).containsExactly("validate", "submit");
+    assertThat(manifest.getSpans()).extracting(Span::getBytes).containsExactly(10L, 20L);
+  }
+
+  @Test
+  public void testOutcomes() {
+    trace = Trace.start("run");
+
+    assertThat(Trace.call("success", span -> "result")).isEqualTo("result");
+    Trace.run("outcome", span -> span.setOutcome(Span.VALIDATION_ERROR));
+    assertThatThrownBy(
+            () ->
+                Trace.run(
+                    "validationError",
+                    span -> {
+                      throw WebinCliException.validationError("invalid");
+                    }))
+        .isInstanceOf(WebinCliException.class);
+    assertThatThrownBy(
+            () ->
+                Trace.run(
+                    "error",
+                    span -> {
+                      throw new IllegalStateException("failed");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+    try (Span span = Trace.startSpan("notSet")) {
+      // The outcome is not set if the block throws.
+    }
+
+    assertThat(trace.getRoot().getSpans())
+        .extracting(Span::getOutcome)
+        .containsExactly(
+            Span.SUCCESS, Span.VALIDATION_ERROR, Span.VALIDATION_ERROR, Span.ERROR, Span.ERROR);
+    // The spans that ended with an exception are not left as the current span.
+    assertThat(Trace.getCurrentSpan()).isSameAs(trace.getRoot());
+  }
+
+  @Test
+  public void testSpansInOtherThreads() throws InterruptedException {
+    trace = Trace.start("run");
+    try (Span parent = Trace.startSpan("parent")) {
+      Thread thread =
+          new Thread(
+              () -> {
+                Trace.run("child", span -> {});
+                Trace.getCurrentSpan().startSpan("root").success().close();
+              });
+      Thread thread2 = new Thread(() -> parent.startSpan("explicit").success().close());
+      thread.start();
+      thread2.start();
+      thread.join();
+      thread2.join();
+      parent.success();
+    }
+
+    assertThat(trace.getRoot().getSpans())
+        .extracting(Span::getName)
+        .containsExactlyInAnyOrder("parent", "child", "root");
+    assertThat(trace.getRoot().getSpans().get(0).getSpans())
+        .extracting(Span::getName)
+        .containsExactly("explicit");
+  }
+
+  @Test
+  public void testManifestIsInherited() {
+    trace = Trace.start("run");
+    try (Span manifest = Trace.startSpan("manifest")) {
+      manifest.setAttribute(Span.MANIFEST, "test");
+      try (Span validate = Trace.startSpan("validate")) {
+        assertThat(validate.getManifest()).isEqualTo("test");
+        validate.success();
+      }
+      manifest.success();
+    }
+    assertThat(trace.getRoot().getManifest()).isNull();
+  }
+
+  @Test
+  public void testSpanEvents() throws Exception {
+    Path file = Files.createTempFile("webin-cli-trace", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(SpanEvent.class);
+      recording.start();
+      trace = Trace.start("run");
+      Trace.run(
+          "manifest",
+          manifest -> {
+            manifest.setAttribute(Span.MANIFEST, "test");
+            Trace.run("validate", validate -> validate.addBytes(100));
+          });
+      recording.stop();
+      recording.dump(file);
+
+      List<RecordedEvent> events =
+          RecordingFile.readAllEvents(file).stream()
+              .filter(event -> event.getEventType().getName().equals(SPAN_EVENT))
+              .collect(Collectors.toList());
+      assertThat(events)
+          .extracting(event -> event.getString("name"))
+          .contains("manifest", "validate");
+      RecordedEvent validate =
+          events.stream()
+              .filter(event -> event.getString("name").equals("validate"))
+              .findFirst()
+              .get();
+      assertThat(validate.getString("manifest")).isEqualTo("test");
+      assertThat(validate.getLong("bytes")).isEqualTo(100);
+      assertThat(validate.getString("outcome")).isEqualTo(Span.SUCCESS);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testNoActiveTrace() {
+    assertThat(Trace.getCurrentSpan()).isSameAs(Span.NONE);
+    assertThat(Trace.call("span", span -> span)).isSameAs(Span.NONE);
+    assertThat(Span.NONE.getSpans()).isEmpty();
+  }
+
+  @Test
+  public void testEndDeactivatesTrace() {
+    trace = Trace.start("run");
+    trace.end();
+
+    assertThat(Trace.getCurrentSpan()).isSameAs(Span.NONE);
+    assertThat(trace.getRoot().getOutcome()).isEqualTo(Span.ERROR);
+  }
+
+  @Test
+  public void testWriteJson() throws Exception {
+    trace = Trace.start("run");
+    trace.getRoot().setAttribute("context", "reads");
+    Trace.run("validate", span -> span.addBytes(100));
+    Span incomplete = Trace.startSpan("incomplete");
+    trace.getRoot().success();
+    trace.end();
+
+    Path file = Files.createTempFile("webin-cli-trace", ".json");
+    try {
+      trace.writeJson(file);
+
+      JsonNode root = new ObjectMapper().readTree(file.toFile());
+      assertThat(root.path("name").asText()).isEqualTo("run");
+      assertThat(root.path("outcome").asText()).isEqualTo(Span.SUCCESS);
+      assertThat(root.path("attributes").path("context").asText()).isEqualTo("reads");
+      assertThat(root.path("spans")).hasSize(2);
+      assertThat(root.path("spans").get(0).path("bytes").asLong()).isEqualTo(100);
+      assertThat(root.path("spans").get(1).path("outcome").asText()).isEqualTo(Span.INCOMPLETE);
+    } finally {
+      incomplete.close();
+      Files.delete(file);
+    }
+  }
+}
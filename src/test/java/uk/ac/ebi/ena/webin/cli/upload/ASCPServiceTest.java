@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.upload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ASCPServiceTest {
+
+  @Test
+  public void testSplitIntoSessions() {
+    File file1 = new File("file1");
+    File file2 = new File("file2");
+    File file3 = new File("file3");
+    File file4 = new File("file4");
+
+    Map<File, Long> fileLengths = new LinkedHashMap<>();
+    fileLengths.put(file1, 10L);
+    fileLengths.put(file2, 60L);
+    fileLengths.put(file3, 30L);
+    fileLengths.put(file4, 20L);
+
+    List<List<File>> sessions = ASCPService.splitIntoSessions(fileLengths, 2);
+    assertThat(sessions).hasSize(2);
+    assertThat(sessions.get(0)).containsExactly(file2);
+    assertThat(sessions.get(1)).containsExactly(file3, file4, file1);
+
+    assertThat(ASCPService.splitIntoSessions(fileLengths, 1)).hasSize(1);
+    assertThat(ASCPService.splitIntoSessions(fileLengths, 10)).hasSize(4);
+  }
+
+  @Test
+  public void testProgressParser() {
+    File file1 = new File("dir/reads_1.fastq.gz");
+    File file2 = new File("dir/reads_2.fastq.gz");
+
+    Map<File, Long> fileLengths = new LinkedHashMap<>();
+    fileLengths.put(file1, 1000L);
+    fileLengths.put(file2, 2000L);
+
+    List<String> events = new ArrayList<>();
+    AscpProgressParser parser =
+        new AscpProgressParser(
+            fileLengths,
+            Paths.get("input"),
+            new UploadListener() {
+              @Override
+              public void bytesUploaded(File file, long bytesUploaded) {
+                events.add(file.getName() + ":" + bytesUploaded);
+              }
+
+              @Override
+              public void uploadCompleted(File file) {
+                events.add(file.getName() + ":completed");
+              }
+            });
+
+    parser.parse(
+        "reads_1.fastq.gz                50%  500KB  289Mb/s    00:01 ETA\r"
+            + "reads_1.fastq.gz               100% 1000KB  289Mb/s    00:02    \n"
+            + "reads_2.fastq.gz                25%  500KB  120Mb/s    00:01 ETA\n"
+            + "Session Stop  (Error: Connection lost)\n");
+
+    assertThat(events)
+        .containsExactly(
+            "reads_1.fastq.gz:500",
+            "reads_1.fastq.gz:1000",
+            "reads_1.fastq.gz:completed",
+            "reads_2.fastq.gz:500");
+    assertThat(parser.getCompletedFiles()).containsExactly(file1);
+  }
+
+  @Test
+  public void testProgressParserSameFileNames() {
+    Path inputDir = Paths.get("input");
+    File file1 = new File("run1/reads.fastq.gz");
+    File file2 = new File("run2/reads.fastq.gz");
+
+    Map<File, Long> fileLengths = new LinkedHashMap<>();
+    fileLengths.put(file1, 1000L);
+    fileLengths.put(file2, 2000L);
+
+    List<String> events = new ArrayList<>();
+    AscpProgressParser parser =
+        new AscpProgressParser(
+            fileLengths,
+            inputDir,
+            new UploadListener() {
+              @Override
+              public void bytesUploaded(File file, long bytesUploaded) {
+                events.add(file.getPath() + ":" + bytesUploaded);
+              }
+
+              @Override
+              public void uploadCompleted(File file) {
+                events.add(file.getPath() + ":completed");
+              }
+            });
+
+    parser.parse(
+        "reads.fastq.gz                  50%  500KB  289Mb/s    00:01 ETA\n"
+            + "run2/reads.fastq.gz             50% 1000KB  289Mb/s    00:01 ETA\n"
+            + inputDir.resolve(file1.toPath())
+            + "        100% 1000KB  289Mb/s    00:02    \n");
+
+    assertThat(events)
+        .containsExactly(
+            file2.getPath() + ":1000", file1.getPath() + ":1000", file1.getPath() + ":completed");
+    assertThat(parser.getCompletedFiles()).containsExactly(file1);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.upload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Test;
+
+public class SpeculativeUploaderTest {
+
+  private static class TestUploadService implements UploadService {
+    private final List<File> uploadedFiles = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void connect(String userName, String password) {}
+
+    @Override
+    public void upload(List<File> uploadFilesList, String uploadDir, Path inputDir) {
+      uploadedFiles.addAll(uploadFilesList);
+    }
+
+    @Override
+    public void disconnect() {}
+
+    @Override
+    public boolean isAvailable() {
+      return true;
+    }
+  }
+
+  private static class TestDeleteService extends FtpService {
+    private final List<String> deletedUploadDirs = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void connect(String userName, String password) {}
+
+    @Override
+    public void deleteFiles(String uploadDir) {
+      deletedUploadDirs.add(uploadDir);
+    }
+
+    @Override
+    public void disconnect() {}
+  }
+
+  private static File createFile(Path dir, String name) throws IOException {
+    return Files.write(dir.resolve(name), name.getBytes()).toFile();
+  }
+
+  @Test
+  public void testAwaitUpload() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SPECULATIVE-UPLOAD");
+    File file1 = createFile(dir, "file1");
+    File file2 = createFile(dir, "file2");
+
+    TestUploadService uploadService = new TestUploadService();
+    TestDeleteService deleteService = new TestDeleteService();
+    try (SpeculativeUploader uploader =
+        new SpeculativeUploader(() -> uploadService, () -> deleteService, "user", "pass")) {
+      uploader.start("upload-dir", Arrays.asList(file1, file2), dir);
+
+      assertThat(uploader.awaitUpload("upload-dir")).containsExactlyInAnyOrder(file1, file2);
+      assertThat(uploader.awaitUpload("upload-dir")).isEmpty();
+      assertThat(uploader.awaitUpload("other-dir")).isEmpty();
+    }
+
+    assertThat(uploadService.uploadedFiles).containsExactly(file1, file2);
+    assertThat(deleteService.deletedUploadDirs).isEmpty();
+  }
+
+  @Test
+  public void testChangedFileIsNotReportedAsUploaded() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SPECULATIVE-UPLOAD");
+    File file1 = createFile(dir, "file1");
+    File file2 = createFile(dir, "file2");
+
+    TestUploadService uploadService = new TestUploadService();
+    try (SpeculativeUploader uploader =
+        new SpeculativeUploader(() -> uploadService, TestDeleteService::new, "user", "pass")) {
+      uploader.start("upload-dir", Arrays.asList(file1, file2), dir);
+
+      Files.write(file2.toPath(), "changed file2".getBytes());
+
+      assertThat(uploader.awaitUpload("upload-dir")).containsExactly(file1);
+    }
+  }
+
+  @Test
+  public void testDiscardedUploadIsDeleted() throws IOException {
+    Path dir = Files.createTempDirectory("TEST-SPECULATIVE-UPLOAD");
+    File file1 = createFile(dir, "file1");
+
+    TestUploadService uploadService = new TestUploadService();
+    TestDeleteService deleteService = new TestDeleteService();
+    try (SpeculativeUploader uploader =
+        new SpeculativeUploader(() -> uploadService, () -> deleteService, "user", "pass")) {
+      uploader.start("upload-dir-1", Collections.singletonList(file1), dir);
+      uploader.start("upload-dir-2", Collections.singletonList(file1), dir);
+
+      uploader.discardUpload("upload-dir-1");
+
+      assertThat(uploader.awaitUpload("upload-dir-1")).isEmpty();
+    }
+
+    // Uploads that were not awaited are deleted when the uploader is closed.
+    assertThat(deleteService.deletedUploadDirs)
+        .containsExactlyInAnyOrder("upload-dir-1", "upload-dir-2");
+  }
+}
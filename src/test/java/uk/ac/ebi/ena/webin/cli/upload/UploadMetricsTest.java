@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.upload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class UploadMetricsTest {
+
+  private static final long MB = 1024 * 1024;
+
+  @Test
+  public void testMetrics() {
+    AtomicLong time = new AtomicLong();
+    UploadMetrics metrics = new UploadMetrics(time::get);
+
+    File file1 = new File("file1");
+    File file2 = new File("file2");
+
+    metrics.uploadStarted(file1, 4 * MB);
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+    metrics.bytesUploaded(file1, MB);
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+    metrics.bytesUploaded(file1, 2 * MB);
+    metrics.uploadRetried(file1);
+    metrics.reconnected();
+
+    metrics.uploadStarted(file1, 4 * MB);
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    metrics.bytesUploaded(file1, MB);
+    time.addAndGet(TimeUnit.MILLISECONDS.toNanos(1900));
+    metrics.uploadCompleted(file1);
+
+    metrics.uploadStarted(file2, 2 * MB);
+    time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    metrics.uploadCompleted(file2);
+
+    UploadMetrics.Report report = metrics.getReport();
+    assertThat(report.getBytes()).isEqualTo(6 * MB);
+    assertThat(report.getTimeMillis()).isEqualTo(4000);
+    assertThat(report.getBytesPerSecond()).isEqualTo(6 * MB / 4);
+    assertThat(report.getRetries()).isEqualTo(1);
+    assertThat(report.getReconnects()).isEqualTo(1);
+    assertThat(report.getFiles()).hasSize(2);
+
+    UploadMetrics.FileReport fileReport = report.getFiles().get(0);
+    assertThat(fileReport.getFile()).isEqualTo("file1");
+    assertThat(fileReport.getRetries()).isEqualTo(1);
+    assertThat(fileReport.getTimeToFirstByteMillis()).isEqualTo(100);
+    assertThat(fileReport.getTimeMillis()).isEqualTo(3000);
+    assertThat(fileReport.getBytesPerSecond()).isEqualTo(2 * MB);
+    assertThat(fileReport.getBytesPerSecondSamples()).containsExactly(2 * MB, 2 * MB);
+
+    assertThat(metrics.toJson()).contains("\"reconnects\":1");
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileAttributeCacheTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testCachedAttributes() throws IOException {
+    File file = temporaryFolder.newFile("test.txt");
+    Files.write(file.toPath(), new byte[10]);
+    Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(1000000));
+
+    FileAttributeCache cache = new FileAttributeCache();
+    assertThat(cache.read(file.toPath())).isNotNull();
+
+    Files.write(file.toPath(), new byte[20]);
+    Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(2000000));
+    assertThat(cache.getLength(file)).isEqualTo(10);
+    assertThat(cache.getLastModifiedTime(file)).isEqualTo(1000000);
+
+    // The attributes are replaced when they are read again.
+    assertThat(cache.getCurrent(file).size()).isEqualTo(20);
+    assertThat(cache.getLength(file)).isEqualTo(20);
+    assertThat(cache.getLastModifiedTime(file)).isEqualTo(2000000);
+  }
+
+  @Test
+  public void testMissingFile() {
+    File file = new File(temporaryFolder.getRoot(), "missing.txt");
+
+    FileAttributeCache cache = new FileAttributeCache();
+    assertThat(cache.read(file.toPath())).isNull();
+    assertThat(cache.getLength(file)).isZero();
+    assertThatThrownBy(() -> cache.getLastModifiedTime(file))
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("missing.txt");
+    assertThatThrownBy(() -> cache.getCurrent(file))
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("missing.txt");
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class ShellExecTest {
+
+  @Test
+  public void testTailBufferKeepsLastLines() {
+    ShellExec.TailBuffer tail = new ShellExec.TailBuffer(10);
+    tail.add("aaaa");
+    tail.add("bbbb");
+    assertThat(tail.toString()).isEqualTo("aaaa\nbbbb");
+    tail.add("cccc");
+    assertThat(tail.toString()).isEqualTo("bbbb\ncccc");
+    tail.add("0123456789abc");
+    assertThat(tail.toString()).isEqualTo("3456789abc");
+  }
+
+  @Test
+  public void testExecStreamsLines() throws Exception {
+    Assume.assumeFalse(System.getProperty("os.name").toLowerCase().contains("win"));
+
+    List<String> stdout = new CopyOnWriteArrayList<>();
+    List<String> stderr = new CopyOnWriteArrayList<>();
+    ShellExec.Result result =
+        new ShellExec("printf 'a\\nb\\rc\\n'; printf 'd\\n' >&2", Collections.emptyMap())
+            .exec(stdout::add, stderr::add);
+
+    assertThat(result.getExitCode()).isEqualTo(0);
+    assertThat(stdout).containsExactly("a", "b", "c");
+    assertThat(stderr).containsExactly("d");
+    assertThat(result.getStdout()).isEqualTo("a\nb\nc");
+    assertThat(result.getStderr()).isEqualTo("d");
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.xml;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.jdom2.Element;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
+
+/**
+ * Compares the in-memory JDOM XML output with the streaming StAX XML output for a run with many
+ * files. Prints the average time and the heap allocated per written XML.
+ *
+ * <p>Usage: XmlOutputBenchmark [number of files] [number of iterations]
+ */
+public class XmlOutputBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+    Path xmlDir = Files.createTempDirectory("xml-output-benchmark-");
+    Consumer<XmlElementWriter> runXml = runXml(fileCount);
+
+    // Warm up.
+    run(() -> new JdomXmlOutput(xmlDir), runXml, 2);
+    run(() -> new XmlFileOutput(xmlDir), runXml, 2);
+
+    report("JDOM", run(() -> new JdomXmlOutput(xmlDir), runXml, iterations), iterations);
+    report("StAX", run(() -> new XmlFileOutput(xmlDir), runXml, iterations), iterations);
+  }
+
+  private static Consumer<XmlElementWriter> runXml(int fileCount) {
+    return writer -> {
+      writer.startElement("RUN_SET");
+      writer.startElement("RUN").attribute("alias", "benchmark").attribute("center_name", "C");
+      writer.textElement("TITLE", "Benchmark run");
+      writer.startElement("EXPERIMENT_REF").attribute("refname", "benchmark").endElement();
+      writer.startElement("DATA_BLOCK").startElement("FILES");
+      for (int i = 0; i < fileCount; i++) {
+        Element file = new Element("FILE");
+        file.setAttribute("filename", "webin-cli/reads/benchmark/reads-" + i + ".fastq.gz");
+        file.setAttribute("filetype", "fastq");
+        file.setAttribute("checksum_method", "MD5");
+        file.setAttribute("checksum", "d41d8cd98f00b204e9800998ecf8427e");
+        writer.element(file);
+      }
+      writer.endElement().endElement();
+      writer.endElement();
+      writer.endElement();
+    };
+  }
+
+  /** @return The elapsed time in nanoseconds and the allocated bytes. */
+  private static long[] run(
+      Supplier<XmlOutput> xmlOutput, Consumer<XmlElementWriter> runXml, int iterations) {
+    long allocatedBytes = allocatedBytes();
+    long time = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      XmlOutput output = xmlOutput.get();
+      output.write(SubmissionBundle.SubmissionXMLFileType.RUN, runXml);
+      output.getXmlFiles();
+    }
+    return new long[] {System.nanoTime() - time, allocatedBytes() - allocatedBytes};
+  }
+
+  private static void report(String name, long[] result, int iterations) {
+    System.out.printf(
+        "%s: %.1f ms/op, %.1f MB allocated/op%n",
+        name, result[0] / 1e6 / iterations, result[1] / 1e6 / iterations);
+  }
+
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+}
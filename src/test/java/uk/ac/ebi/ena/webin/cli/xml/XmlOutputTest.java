@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018-2023 EMBL - European Bioinformatics Institute
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package uk.ac.ebi.ena.webin.cli.xml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import org.jdom2.Element;
+import org.junit.Test;
+import uk.ac.ebi.ena.webin.cli.XmlTester;
+import uk.ac.ebi.ena.webin.cli.submit.SubmissionBundle;
+import uk.ac.ebi.ena.webin.cli.utils.FileUtils;
+
+public class XmlOutputTest {
+
+  private static final Consumer<XmlElementWriter> RUN_XML =
+      writer -> {
+        writer.startElement("RUN_SET");
+        writer.startElement("RUN").attribute("alias", "test_run").attribute("center_name", "C");
+        writer.textElement("TITLE", "Raw reads: <test> & more");
+        writer.startElement("EXPERIMENT_REF").attribute("refname", "test_exp").endElement();
+        writer.startElement("DATA_BLOCK").startElement("FILES");
+        Element file = new Element("FILE");
+        file.setAttribute("filename", "webin-cli/reads/test/reads.fastq.gz");
+        file.setAttribute("filetype", "fastq");
+        writer.element(file);
+        writer.endElement().endElement();
+        writer.startElement("RUN_ATTRIBUTES");
+        writer.startElement("RUN_ATTRIBUTE");
+        writer.textElement("TAG", "SUBMISSION_TOOL");
+        writer.textElement("VALUE", "WEBIN-CLI");
+        writer.endElement();
+        writer.endElement();
+        writer.textElement("EMPTY", null);
+        writer.endElement();
+        writer.endElement();
+      };
+
+  @Test
+  public void testStreamedXmlEqualsJdomXml() throws IOException {
+    Path xmlDir = Files.createTempDirectory("test-xml-output-");
+
+    JdomXmlOutput jdomOutput = new JdomXmlOutput(xmlDir);
+    jdomOutput.write(SubmissionBundle.SubmissionXMLFileType.RUN, RUN_XML);
+
+    XmlFileOutput fileOutput = new XmlFileOutput(xmlDir);
+    fileOutput.write(SubmissionBundle.SubmissionXMLFileType.RUN, RUN_XML);
+
+    List<SubmissionBundle.SubmissionXMLFile> xmlFiles = fileOutput.getXmlFiles();
+    assertThat(xmlFiles).hasSize(1);
+    SubmissionBundle.SubmissionXMLFile xmlFile = xmlFiles.get(0);
+    assertThat(xmlFile.getType()).isEqualTo(SubmissionBundle.SubmissionXMLFileType.RUN);
+    assertThat(xmlFile.getFile().toPath()).isEqualTo(xmlDir.resolve("run.xml"));
+    assertThat(xmlFile.hasXmlContent()).isFalse();
+    assertThat(xmlFile.getMd5()).isEqualTo(FileUtils.calculateDigest("MD5", xmlFile.getFile()));
+
+    String streamedXml =
+        new String(Files.readAllBytes(xmlFile.getFile().toPath()), StandardCharsets.UTF_8);
+    String jdomXml = jdomOutput.getXmls().get(SubmissionBundle.SubmissionXMLFileType.RUN);
+
+    XmlTester.assertXml(streamedXml, jdomXml);
+    assertThat(streamedXml).contains("Raw reads: &lt;test&gt; &amp; more");
+    assertThat(streamedXml).contains("<EMPTY/>");
+  }
+
+  @Test
+  public void testJdomXmlFiles() {
+    JdomXmlOutput jdomOutput = new JdomXmlOutput(null);
+    jdomOutput.write(SubmissionBundle.SubmissionXMLFileType.RUN, RUN_XML);
+
+    List<SubmissionBundle.SubmissionXMLFile> xmlFiles = jdomOutput.getXmlFiles();
+    assertThat(xmlFiles).hasSize(1);
+    assertThat(xmlFiles.get(0).getFile()).isNull();
+    assertThat(xmlFiles.get(0).getXmlContent()).contains("<TAG>SUBMISSION_TOOL</TAG>");
+  }
+}